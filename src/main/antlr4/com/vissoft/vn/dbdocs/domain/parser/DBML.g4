@@ -0,0 +1,140 @@
+grammar DBML;
+
+// Root rule
+dbml: statement* EOF;
+
+statement
+    : projectDeclaration
+    | tableDeclaration
+    | enumDeclaration
+    | refDeclaration
+    | tableGroupDeclaration
+    | noteDeclaration
+    ;
+
+// Project
+projectDeclaration: PROJECT name? LBRACE projectElement* RBRACE;
+projectElement
+    : noteElement
+    | projectSetting
+    ;
+projectSetting: name COLON literal;
+
+// Table
+tableDeclaration: TABLE qualifiedName tableAlias? settings? LBRACE tableElement* RBRACE;
+tableAlias: AS name;
+tableElement
+    : noteElement
+    | indexesBlock
+    | columnDeclaration
+    ;
+
+// Column
+columnDeclaration: name dataType settings?;
+dataType: qualifiedName typeParams? arraySuffix*;
+typeParams: LPAREN typeParam (COMMA typeParam)* RPAREN;
+typeParam: NUMBER | name;
+arraySuffix: LBRACK RBRACK;
+
+// Index
+indexesBlock: INDEXES LBRACE indexDeclaration* RBRACE;
+indexDeclaration: indexColumns settings?;
+indexColumns
+    : LPAREN indexColumn (COMMA indexColumn)* RPAREN
+    | indexColumn
+    ;
+indexColumn: name | EXPRESSION;
+
+// Ref
+refDeclaration
+    : REF name? COLON refRelation
+    | REF name? LBRACE refRelation* RBRACE
+    ;
+refRelation: refEndpoint relation refEndpoint settings?;
+refEndpoint
+    : qualifiedName DOT LPAREN name (COMMA name)* RPAREN
+    | qualifiedName
+    ;
+relation: GT | LT | MINUS | LTGT;
+
+// Enum
+enumDeclaration: ENUM qualifiedName LBRACE enumValue* RBRACE;
+enumValue: name settings?;
+
+// TableGroup
+tableGroupDeclaration: TABLEGROUP name LBRACE tableGroupElement* RBRACE;
+tableGroupElement
+    : noteElement
+    | qualifiedName
+    ;
+
+// Notes
+noteDeclaration: NOTE name LBRACE stringLiteral RBRACE;
+noteElement
+    : NOTE COLON stringLiteral
+    | NOTE LBRACE stringLiteral RBRACE
+    ;
+
+// Settings, e.g. [pk, not null, default: `now()`, ref: > users.id]
+settings: LBRACK setting (COMMA setting)* RBRACK;
+setting: settingName (COLON settingValue)?;
+settingName: name+;
+settingValue: (~(COMMA | LBRACK | RBRACK))+;
+
+// Shared
+qualifiedName: name (DOT name)*;
+name
+    : IDENTIFIER
+    | STRING
+    | PROJECT
+    | TABLE
+    | TABLEGROUP
+    | ENUM
+    | REF
+    | NOTE
+    | INDEXES
+    | AS
+    ;
+literal: stringLiteral | NUMBER | EXPRESSION | COLOR | IDENTIFIER;
+stringLiteral: STRING | TRIPLE_STRING;
+
+// Keywords are case-insensitive and double as identifiers through the `name` rule
+PROJECT: [Pp][Rr][Oo][Jj][Ee][Cc][Tt];
+TABLEGROUP: [Tt][Aa][Bb][Ll][Ee][Gg][Rr][Oo][Uu][Pp];
+TABLE: [Tt][Aa][Bb][Ll][Ee];
+ENUM: [Ee][Nn][Uu][Mm];
+REF: [Rr][Ee][Ff];
+NOTE: [Nn][Oo][Tt][Ee];
+INDEXES: [Ii][Nn][Dd][Ee][Xx][Ee][Ss];
+AS: [Aa][Ss];
+
+// Punctuation
+LBRACE: '{';
+RBRACE: '}';
+LBRACK: '[';
+RBRACK: ']';
+LPAREN: '(';
+RPAREN: ')';
+COLON: ':';
+COMMA: ',';
+DOT: '.';
+LTGT: '<>';
+LT: '<';
+GT: '>';
+MINUS: '-';
+
+// Literals
+NUMBER: '-'? [0-9]+ ('.' [0-9]+)?;
+IDENTIFIER: [a-zA-Z_\u0080-\uFFFF] [a-zA-Z0-9_\u0080-\uFFFF]*;
+TRIPLE_STRING: '\'\'\'' .*? '\'\'\'';
+STRING: '\'' ( '\\' . | ~('\'' | '\\' | '\r' | '\n') )* '\'' | '"' ( '\\' . | ~('"' | '\\' | '\r' | '\n') )* '"';
+EXPRESSION: '`' ~'`'* '`';
+COLOR: '#' [0-9a-fA-F]+;
+
+// Hidden
+LINE_COMMENT: '//' ~[\r\n]* -> skip;
+BLOCK_COMMENT: '/*' .*? '*/' -> skip;
+WS: [ \t\r\n\f]+ -> skip;
+
+// Anything else becomes a token so the parser can report and recover instead of the lexer
+OTHER: .;
@@ -0,0 +1,39 @@
+package com.vissoft.vn.dbdocs.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * manifest.json of a DDL bundle: what each file holds and how long it took to produce.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DdlBundleManifest {
+    private String projectId;
+    private Integer versionNumber;
+    private LocalDateTime generatedAt;
+    private long parseMillis; // parsing the changelog once for every dialect, 0 when every DDL was cached
+    private long totalMillis; // from the request to the last file of the bundle
+    private List<File> files;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class File {
+        private String fileName;
+        private Integer dialect;
+        private String dialectName;
+        private int statements; // SQL statements of the script, comments excluded
+        private long bytes;
+        private long renderMillis; // rendering the script on its own thread, or reading it from the DDL cache
+        private boolean cached;
+    }
+}
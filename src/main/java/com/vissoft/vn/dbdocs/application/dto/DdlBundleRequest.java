@@ -0,0 +1,24 @@
+package com.vissoft.vn.dbdocs.application.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DdlBundleRequest {
+    @NotBlank(message = "Project ID is required")
+    private String projectId;
+
+    @NotNull(message = "Version number is required")
+    private Integer versionNumber;
+
+    @NotEmpty(message = "At least one dialect is required")
+    private List<Integer> dialects; // e.g. dialects=3,1,5, one file per dialect in this order
+}
@@ -0,0 +1,25 @@
+package com.vissoft.vn.dbdocs.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the batch compare response: the comparison of one range of the request, or its error.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VersionCompareBatchItem {
+    private Integer index; // position of the range in the request
+    private String projectId;
+    private Integer beforeVersion;
+    private Integer currentVersion;
+    private Integer status; // HTTP status the single compare endpoint would have answered
+    private String error;
+    private VersionComparisonDTO comparison;
+}
@@ -0,0 +1,35 @@
+package com.vissoft.vn.dbdocs.application.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionCompareBatchRequest {
+    @NotEmpty(message = "At least one range is required")
+    private List<Range> ranges = new ArrayList<>();
+
+    /**
+     * Same parameters as {@code GET /api/v1/versions/compare}.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Range {
+        @NotBlank(message = "Project ID is required")
+        private String projectId;
+
+        @NotNull(message = "Before version is required")
+        private Integer beforeVersion;
+
+        private Integer currentVersion; // null: latest changelog
+    }
+}
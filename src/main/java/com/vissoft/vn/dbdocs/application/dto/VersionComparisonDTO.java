@@ -5,8 +5,16 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.vissoft.vn.dbdocs.domain.exception.CustomException;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import org.springframework.http.HttpStatus;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Data
 @Builder
@@ -48,7 +56,7 @@ public class VersionComparisonDTO {
         private Object oldValue;
         private Object newValue;
 
-        // --- THÊM LẠI TRƯỜNG NÀY ---
+        // Thuộc tính thay đổi của cột MODIFIED (dataType, notNull, defaultValue, ...), xem ColumnProperty
         @Builder.Default // Để nó không bị null khi dùng builder
         private List<String> changedProperties = new ArrayList<>();
     }
@@ -58,4 +66,41 @@ public class VersionComparisonDTO {
         REMOVED,
         MODIFIED
     }
+
+    /**
+     * Optional parts of a comparison in the compare response; the other fields are always sent.
+     */
+    public enum Projection {
+        DIFF_CHANGES("diffChanges"),
+        TABLE_DIFFS("tableDiffs");
+
+        private final String fieldName;
+
+        Projection(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        /**
+         * @param fieldNames field names, e.g. {@code tableDiffs}; null or empty for every part
+         * @throws CustomException if a name is not an optional field
+         */
+        public static Set<Projection> of(Collection<String> fieldNames) {
+            if (DataUtils.isNull(fieldNames) || fieldNames.isEmpty()) {
+                return EnumSet.allOf(Projection.class);
+            }
+            Set<Projection> projections = EnumSet.noneOf(Projection.class);
+            for (String fieldName : fieldNames) {
+                projections.add(Arrays.stream(values())
+                        .filter(projection -> projection.fieldName.equals(fieldName))
+                        .findFirst()
+                        .orElseThrow(() -> new CustomException("Unknown comparison field: " + fieldName
+                                + ", expected diffChanges or tableDiffs", HttpStatus.BAD_REQUEST)));
+            }
+            return projections;
+        }
+    }
 } 
\ No newline at end of file
@@ -15,6 +15,7 @@ public class VersionDTO {
     private Integer codeVersion;
     private String changeLogId;
     private String diffChange;
+    private Integer diffStatus;
     private ChangeLogDTO changeLog;
     private String content;
     private Instant createdDate;
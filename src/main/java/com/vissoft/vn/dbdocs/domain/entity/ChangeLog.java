@@ -33,4 +33,8 @@ public class ChangeLog extends BaseEntity {
     
     @Column(name = "code_change_log")
     private String codeChangeLog;
+
+    // SHA-256 of the canonical form of the parsed content, null if the content could not be parsed
+    @Column(name = "content_digest", length = 64)
+    private String contentDigest;
 } 
\ No newline at end of file
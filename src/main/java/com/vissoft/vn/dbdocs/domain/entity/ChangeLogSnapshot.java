@@ -0,0 +1,37 @@
+package com.vissoft.vn.dbdocs.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Binary encoding of the parsed model of a changelog, so readers decode it instead of parsing the DBML text.
+ * Kept out of {@link ChangeLog} so listing changelogs does not load it.
+ */
+@Entity
+@Table(name = "change_log_snapshot", schema = "dbdocs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeLogSnapshot {
+
+    @Id
+    @Column(name = "change_log_id")
+    private String changeLogId;
+
+    @Column(name = "format_version", nullable = false)
+    private Integer formatVersion;
+
+    // SHA-256 of the changelog content the snapshot was encoded from
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+}
@@ -30,4 +30,7 @@ public class Version extends BaseEntity {
     
     @Column(name = "diff_change", columnDefinition = "TEXT")
     private String diffChange;
+
+    @Column(name = "diff_status")
+    private Integer diffStatus; // 1: pending, 2: ready, 3: failed
 } 
\ No newline at end of file
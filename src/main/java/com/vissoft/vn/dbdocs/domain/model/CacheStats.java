@@ -0,0 +1,30 @@
+package com.vissoft.vn.dbdocs.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Point-in-time counters of an in-memory cache.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private int entryCount;
+    private long weightBytes;
+    private long maxWeightBytes;
+
+    /**
+     * @return hits over lookups, 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+}
@@ -0,0 +1,15 @@
+package com.vissoft.vn.dbdocs.domain.model;
+
+import java.util.Date;
+
+/**
+ * The columns of a changelog other than its content, for callers that only describe it, e.g. DDL headers.
+ *
+ * @param id            changelog id
+ * @param codeChangeLog changelog code, e.g. {@code 1.2.0}
+ * @param createdBy     id of the user who created it
+ * @param modifiedBy    id of the user who last modified it
+ * @param createdDate   creation time
+ */
+public record ChangeLogSummary(String id, String codeChangeLog, String createdBy, String modifiedBy, Date createdDate) {
+}
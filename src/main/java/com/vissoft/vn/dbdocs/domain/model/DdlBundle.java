@@ -0,0 +1,17 @@
+package com.vissoft.vn.dbdocs.domain.model;
+
+import java.util.List;
+
+/**
+ * DDL scripts of one version in several dialects, loaded and ready to be rendered into a zip.
+ *
+ * @param fileName      download name, e.g. {@code shop-v3-ddl.zip}
+ * @param projectId     project of the version
+ * @param versionNumber code of the version
+ * @param scripts       one script per dialect, sharing one comparison
+ * @param startedAt     {@link System#nanoTime()} when the bundle was requested
+ * @param parseMillis   time spent parsing the changelog, 0 if every DDL was cached
+ */
+public record DdlBundle(String fileName, String projectId, Integer versionNumber, List<DdlScript> scripts,
+                        long startedAt, long parseMillis) {
+}
@@ -0,0 +1,12 @@
+package com.vissoft.vn.dbdocs.domain.model;
+
+/**
+ * Identity of the DDL generated for a whole schema: equal keys always render the same bytes.
+ *
+ * @param contentDigest SHA-256 of the changelog text. Not the canonical digest of the changelog, which
+ *                      ignores the order of the tables and the case of type names that the DDL keeps
+ * @param dialect       SQL dialect code, see {@code Constants.SQL.Dialect}
+ * @param formatVersion {@code GeneraScriptDDLService.FORMAT_VERSION} when the DDL was rendered
+ */
+public record DdlCacheKey(String contentDigest, int dialect, int formatVersion) {
+}
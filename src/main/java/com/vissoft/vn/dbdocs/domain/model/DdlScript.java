@@ -0,0 +1,32 @@
+package com.vissoft.vn.dbdocs.domain.model;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * A DDL script resolved but not rendered yet. The project, versions, changelog and dialect are checked when
+ * it is built, so writing it only renders the DDL of the comparison after the header.
+ *
+ * @param fileName   download name, e.g. {@code shop-v1-v3.sql}
+ * @param header     comment block written before the DDL, without the generation time; may look users up,
+ *                   at most once
+ * @param etag       strong entity tag of the identity-encoded script, null if it is not cached
+ * @param dialect    SQL dialect code, see {@code Constants.SQL.Dialect}
+ * @param cacheKey   key of the DDL in the DDL cache, null if it is not cached
+ * @param comparison the tables to create, drop or alter; may parse the changelog, at most once
+ * @param cachedDdl  the DDL read from the DDL cache when the script was loaded, null if it was not there
+ */
+public record DdlScript(String fileName, Supplier<String> header, String etag, int dialect, DdlCacheKey cacheKey,
+                        Supplier<VersionComparisonDTO> comparison, ByteBuffer cachedDdl) {
+
+    public DdlScript(String fileName, Supplier<String> header, String etag, int dialect, DdlCacheKey cacheKey,
+                     Supplier<VersionComparisonDTO> comparison) {
+        this(fileName, header, etag, dialect, cacheKey, comparison, null);
+    }
+
+    public DdlScript withCachedDdl(ByteBuffer ddl) {
+        return new DdlScript(fileName, header, etag, dialect, cacheKey, comparison, ddl);
+    }
+}
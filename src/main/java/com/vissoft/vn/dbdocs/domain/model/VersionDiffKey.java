@@ -0,0 +1,15 @@
+package com.vissoft.vn.dbdocs.domain.model;
+
+/**
+ * Identity of a version comparison. The changelog digests are part of it, so a comparison is never
+ * served for content other than the one it was computed from.
+ *
+ * @param toVersion null when comparing with the latest changelog of the project rather than a version
+ */
+public record VersionDiffKey(String projectId, Integer fromVersion, Integer toVersion,
+                             String fromChangeLogId, String fromDigest, String toChangeLogId, String toDigest) {
+
+    public boolean isToLatest() {
+        return toVersion == null;
+    }
+}
@@ -1,31 +1,273 @@
 package com.vissoft.vn.dbdocs.domain.model.dbml;
 
 import lombok.*;
+import lombok.extern.jackson.Jacksonized;
 
-@Data
-@Builder
+import java.util.EnumSet;
+import java.util.Objects;
+
+@Getter
+@ToString
 @NoArgsConstructor
-@AllArgsConstructor
 @EqualsAndHashCode
 public class ColumnModel {
+    private static final int PRIMARY_KEY = 1;
+    private static final int UNIQUE = 1 << 1;
+    private static final int NOT_NULL = 1 << 2;
+    private static final int AUTO_INCREMENT = 1 << 3;
+    private static final int FROZEN = 1 << 4;
+
     private String name;
     private String dataType;
     private String typeParam;
-    private boolean isPrimaryKey;
-    private boolean isUnique;
-    private boolean isNotNull;
-    private boolean isAutoIncrement;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private int flags;
     private String defaultValue;
     private String note;
     private RefValue reference;
-    
-    @Data
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private long structuralHash;
+
+    @Builder
+    public ColumnModel(String name, String dataType, String typeParam, boolean isPrimaryKey, boolean isUnique,
+                       boolean isNotNull, boolean isAutoIncrement, String defaultValue, String note, RefValue reference) {
+        this.name = name;
+        this.dataType = dataType;
+        this.typeParam = typeParam;
+        this.flags = (isPrimaryKey ? PRIMARY_KEY : 0) | (isUnique ? UNIQUE : 0)
+                | (isNotNull ? NOT_NULL : 0) | (isAutoIncrement ? AUTO_INCREMENT : 0);
+        this.defaultValue = defaultValue;
+        this.note = note;
+        this.reference = reference;
+    }
+
+    @ToString.Include(name = "isPrimaryKey")
+    public boolean isPrimaryKey() {
+        return (flags & PRIMARY_KEY) != 0;
+    }
+
+    @ToString.Include(name = "isUnique")
+    public boolean isUnique() {
+        return (flags & UNIQUE) != 0;
+    }
+
+    @ToString.Include(name = "isNotNull")
+    public boolean isNotNull() {
+        return (flags & NOT_NULL) != 0;
+    }
+
+    @ToString.Include(name = "isAutoIncrement")
+    public boolean isAutoIncrement() {
+        return (flags & AUTO_INCREMENT) != 0;
+    }
+
+    public void setName(String name) {
+        FrozenModels.checkMutable(isFrozen());
+        this.name = name;
+    }
+
+    public void setDataType(String dataType) {
+        FrozenModels.checkMutable(isFrozen());
+        this.dataType = dataType;
+    }
+
+    public void setTypeParam(String typeParam) {
+        FrozenModels.checkMutable(isFrozen());
+        this.typeParam = typeParam;
+    }
+
+    public void setPrimaryKey(boolean primaryKey) {
+        setFlag(PRIMARY_KEY, primaryKey);
+    }
+
+    public void setUnique(boolean unique) {
+        setFlag(UNIQUE, unique);
+    }
+
+    public void setNotNull(boolean notNull) {
+        setFlag(NOT_NULL, notNull);
+    }
+
+    public void setAutoIncrement(boolean autoIncrement) {
+        setFlag(AUTO_INCREMENT, autoIncrement);
+    }
+
+    public void setDefaultValue(String defaultValue) {
+        FrozenModels.checkMutable(isFrozen());
+        this.defaultValue = defaultValue;
+    }
+
+    public void setNote(String note) {
+        FrozenModels.checkMutable(isFrozen());
+        this.note = note;
+    }
+
+    public void setReference(RefValue reference) {
+        FrozenModels.checkMutable(isFrozen());
+        this.reference = reference;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        FrozenModels.checkMutable(isFrozen());
+        flags = value ? flags | flag : flags & ~flag;
+    }
+
+    private boolean isFrozen() {
+        return (flags & FROZEN) != 0;
+    }
+
+    @EqualsAndHashCode.Include
+    private int settings() {
+        return flags & ~FROZEN;
+    }
+
+    /**
+     * 64-bit hash of everything {@link #equals} compares: equal columns have equal hashes, and different
+     * columns almost certainly do not. Precomputed when the column is frozen.
+     */
+    public long structuralHash() {
+        return isFrozen() ? structuralHash : computeStructuralHash();
+    }
+
+    private long computeStructuralHash() {
+        StructuralHash hash = new StructuralHash(1)
+                .add(name).add(dataType).add(typeParam).add(settings()).add(defaultValue).add(note)
+                .add(reference != null);
+        if (reference != null) {
+            hash.add(reference.getTableName()).add(reference.getColumnName()).add(reference.getCardinality());
+        }
+        return hash.value();
+    }
+
+    /**
+     * Properties that differ between this column and {@code other}, field by field; empty if the columns
+     * are {@link #equals equal}. The boolean settings are compared in one step on their flags.
+     */
+    public EnumSet<ColumnProperty> changedProperties(ColumnModel other) {
+        EnumSet<ColumnProperty> changed = EnumSet.noneOf(ColumnProperty.class);
+        if (!Objects.equals(name, other.name)) {
+            changed.add(ColumnProperty.NAME);
+        }
+        if (!Objects.equals(dataType, other.dataType)) {
+            changed.add(ColumnProperty.DATA_TYPE);
+        }
+        if (!Objects.equals(typeParam, other.typeParam)) {
+            changed.add(ColumnProperty.TYPE_PARAM);
+        }
+        int changedFlags = settings() ^ other.settings();
+        if (changedFlags != 0) {
+            if ((changedFlags & PRIMARY_KEY) != 0) {
+                changed.add(ColumnProperty.PRIMARY_KEY);
+            }
+            if ((changedFlags & UNIQUE) != 0) {
+                changed.add(ColumnProperty.UNIQUE);
+            }
+            if ((changedFlags & NOT_NULL) != 0) {
+                changed.add(ColumnProperty.NOT_NULL);
+            }
+            if ((changedFlags & AUTO_INCREMENT) != 0) {
+                changed.add(ColumnProperty.AUTO_INCREMENT);
+            }
+        }
+        if (!Objects.equals(defaultValue, other.defaultValue)) {
+            changed.add(ColumnProperty.DEFAULT_VALUE);
+        }
+        if (!Objects.equals(note, other.note)) {
+            changed.add(ColumnProperty.NOTE);
+        }
+        if (!Objects.equals(reference, other.reference)) {
+            changed.add(ColumnProperty.REFERENCE);
+        }
+        return changed;
+    }
+
+    /**
+     * Renders the column type and settings back to DBML, e.g. {@code varchar(255) [pk, not null, default: "x"]}.
+     * Sent in comparisons as beforeType/currentType; the DDL generators only parse it back for stored diffs.
+     */
+    public String toDbmlDefinition() {
+        StringBuilder definition = new StringBuilder(dataType);
+        if (typeParam != null && !typeParam.trim().isEmpty()) {
+            definition.append('(').append(typeParam).append(')');
+        }
+
+        int settingsStart = definition.length();
+        if (isPrimaryKey()) {
+            appendSetting(definition, settingsStart).append("pk");
+        }
+        if (isUnique()) {
+            appendSetting(definition, settingsStart).append("unique");
+        }
+        if (isNotNull()) {
+            appendSetting(definition, settingsStart).append("not null");
+        }
+        if (isAutoIncrement()) {
+            appendSetting(definition, settingsStart).append("increment");
+        }
+        if (defaultValue != null && !defaultValue.trim().isEmpty()) {
+            appendSetting(definition, settingsStart).append("default: \"").append(defaultValue).append('"');
+        }
+        if (note != null && !note.trim().isEmpty()) {
+            appendSetting(definition, settingsStart).append("note: \"").append(note).append('"');
+        }
+        if (reference != null) {
+            appendSetting(definition, settingsStart).append("ref: ")
+                    .append(reference.getTableName()).append('.').append(reference.getColumnName());
+            if (reference.getCardinality() != null) {
+                definition.append(' ').append(reference.getCardinality());
+            }
+        }
+
+        if (definition.length() > settingsStart) {
+            definition.append(']');
+        }
+        return definition.toString();
+    }
+
+    private static StringBuilder appendSetting(StringBuilder definition, int settingsStart) {
+        return definition.append(definition.length() == settingsStart ? " [" : ", ");
+    }
+
+    /**
+     * Mutable copy; the immutable reference is shared.
+     */
+    public ColumnModel copy() {
+        ColumnModel copy = new ColumnModel(name, dataType, typeParam, false, false, false, false,
+                defaultValue, note, reference);
+        copy.flags = flags & ~FROZEN;
+        return copy;
+    }
+
+    /**
+     * Make this column immutable and canonicalise its type name and parameters, see {@link DbmlModel#freeze()}.
+     */
+    public ColumnModel freeze() {
+        if (!isFrozen()) {
+            dataType = FrozenModels.canonical(dataType);
+            typeParam = FrozenModels.canonical(typeParam);
+            structuralHash = computeStructuralHash();
+            flags |= FROZEN;
+        }
+        return this;
+    }
+
+    @Value
     @Builder
-    @NoArgsConstructor
-    @AllArgsConstructor
+    @Jacksonized
     public static class RefValue {
-        private String tableName;
-        private String columnName;
-        private String cardinality; // ">" or "<" or "-"
+        String tableName;
+        String columnName;
+        String cardinality; // ">" or "<" or "-"
+
+        public RefValue(String tableName, String columnName, String cardinality) {
+            this.tableName = tableName;
+            this.columnName = columnName;
+            this.cardinality = FrozenModels.canonical(cardinality);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.vissoft.vn.dbdocs.domain.model.dbml;
+
+/**
+ * The properties of a {@link ColumnModel} that {@link ColumnModel#changedProperties} compares.
+ * {@link #getPropertyName()} is the name used in diffs, e.g. in {@code ColumnDiff.changedProperties}.
+ */
+public enum ColumnProperty {
+    NAME("name"),
+    DATA_TYPE("dataType"),
+    TYPE_PARAM("typeParam"),
+    PRIMARY_KEY("primaryKey"),
+    UNIQUE("unique"),
+    NOT_NULL("notNull"),
+    AUTO_INCREMENT("autoIncrement"),
+    DEFAULT_VALUE("defaultValue"),
+    NOTE("note"),
+    REFERENCE("reference");
+
+    private final String propertyName;
+
+    ColumnProperty(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+}
@@ -0,0 +1,157 @@
+package com.vissoft.vn.dbdocs.domain.model.dbml;
+
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Canonical text of a {@link DbmlModel}: two documents that differ only in formatting, comments,
+ * the order of settings inside {@code [...]}, the order of top-level blocks, indexes or refs,
+ * the case of type names or the direction a ref is written in ({@code a < b} is {@code b > a})
+ * have the same canonical form.
+ * <p>
+ * Column and enum value order is kept, it is visible in the generated DDL.
+ */
+public final class DbmlCanonicalForm {
+
+    private DbmlCanonicalForm() {
+    }
+
+    /**
+     * SHA-256 of the canonical form, hex encoded.
+     */
+    public static String digest(DbmlModel model) {
+        return HashUtils.sha256Hex(of(model));
+    }
+
+    public static String of(DbmlModel model) {
+        StringBuilder out = new StringBuilder();
+        out.append("project ").append(quote(model.getProjectName()))
+                .append(" db ").append(quote(lower(model.getDatabaseType())))
+                .append(" note ").append(quote(model.getNote())).append('\n');
+
+        List<TableModel> tables = new ArrayList<>(model.getTables());
+        tables.sort(Comparator.comparing(TableModel::getName, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (TableModel table : tables) {
+            appendTable(out, table);
+        }
+
+        appendSorted(out, model.getRefs(), DbmlCanonicalForm::ref);
+
+        List<EnumModel> enums = new ArrayList<>(model.getEnums());
+        enums.sort(Comparator.comparing(EnumModel::getName, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (EnumModel enumModel : enums) {
+            out.append("enum ").append(quote(enumModel.getName())).append('\n');
+            for (EnumModel.EnumValue value : enumModel.getValues()) {
+                out.append("  value ").append(quote(value.getName()))
+                        .append(" note ").append(quote(value.getNote())).append('\n');
+            }
+        }
+
+        appendSorted(out, model.getTableGroups(), group -> {
+            List<String> tableNames = new ArrayList<>(group.getTableNames());
+            tableNames.sort(Comparator.naturalOrder());
+            StringBuilder line = new StringBuilder("group ").append(quote(group.getName()));
+            for (String tableName : tableNames) {
+                line.append(' ').append(quote(tableName));
+            }
+            return line.toString();
+        });
+        return out.toString();
+    }
+
+    private static void appendTable(StringBuilder out, TableModel table) {
+        out.append("table ").append(quote(table.getName()))
+                .append(" alias ").append(quote(table.getAlias()))
+                .append(" note ").append(quote(table.getNote())).append('\n');
+        for (ColumnModel column : table.getColumns()) {
+            out.append("  column ").append(quote(column.getName()))
+                    .append(' ').append(quote(lower(column.getDataType())))
+                    .append('(').append(quote(stripWhitespace(column.getTypeParam()))).append(')')
+                    .append(column.isPrimaryKey() ? " pk" : "")
+                    .append(column.isUnique() ? " unique" : "")
+                    .append(column.isNotNull() ? " notnull" : "")
+                    .append(column.isAutoIncrement() ? " increment" : "")
+                    .append(" default ").append(quote(column.getDefaultValue()))
+                    .append(" note ").append(quote(column.getNote()));
+            ColumnModel.RefValue reference = column.getReference();
+            if (reference != null) {
+                out.append(" ref ").append(quote(reference.getCardinality()))
+                        .append(' ').append(quote(reference.getTableName()))
+                        .append('.').append(quote(reference.getColumnName()));
+            }
+            out.append('\n');
+        }
+        appendSorted(out, table.getIndexes(), index -> {
+            StringBuilder line = new StringBuilder("  index");
+            for (IndexModel.IndexColumn column : index.getColumns()) {
+                line.append(' ').append(quote(column.getName())).append(' ').append(quote(lower(column.getOption())));
+            }
+            return line.append(index.isUnique() ? " unique" : "")
+                    .append(" name ").append(quote(index.getName()))
+                    .append(" type ").append(quote(lower(index.getType())))
+                    .append(" note ").append(quote(index.getNote()))
+                    .toString();
+        });
+    }
+
+    private static String ref(RefModel ref) {
+        RefModel.EndpointRef from = ref.getFrom();
+        RefModel.EndpointRef to = ref.getTo();
+        String cardinality = ref.getCardinality();
+        if ("<".equals(cardinality)) {
+            from = ref.getTo();
+            to = ref.getFrom();
+            cardinality = ">";
+        }
+        return "ref " + quote(ref.getName()) + ' ' + endpoint(from) + ' ' + quote(cardinality) + ' ' + endpoint(to);
+    }
+
+    private static String endpoint(RefModel.EndpointRef endpoint) {
+        return endpoint == null ? "null" : quote(endpoint.getTableName()) + '.' + quote(endpoint.getColumnName());
+    }
+
+    private static <T> void appendSorted(StringBuilder out, List<T> items, Function<T, String> line) {
+        List<String> lines = new ArrayList<>(items.size());
+        for (T item : items) {
+            lines.add(line.apply(item));
+        }
+        lines.sort(Comparator.naturalOrder());
+        for (String value : lines) {
+            out.append(value).append('\n');
+        }
+    }
+
+    // Quoted and escaped, so values containing separators cannot collide with other values
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value.indexOf('\\') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return '"' + value + '"';
+        }
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String stripWhitespace(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder stripped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                stripped.append(c);
+            }
+        }
+        return stripped.toString();
+    }
+}
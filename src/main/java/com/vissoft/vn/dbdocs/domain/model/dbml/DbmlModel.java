@@ -1,31 +1,200 @@
 package com.vissoft.vn.dbdocs.domain.model.dbml;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
 
-@Data
-@Builder
+/**
+ * Parsed DBML document.
+ * <p>
+ * Models are built mutable by the parsers and then {@link #freeze() frozen}: a frozen model rejects
+ * setters, its lists are unmodifiable and array-backed, and its type vocabulary is canonicalised,
+ * so one instance (and the tables it shares with models of neighbouring changelogs) can be kept in
+ * caches and handed to any number of readers. Use {@link #copy()} to get a mutable model.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor
 public class DbmlModel {
     private String projectName;
     private String databaseType;
     private String note;
-    
-    @Builder.Default
+
     private List<TableModel> tables = new ArrayList<>();
-    
-    @Builder.Default
+
     private List<RefModel> refs = new ArrayList<>();
-    
-    @Builder.Default
+
     private List<EnumModel> enums = new ArrayList<>();
-    
-    @Builder.Default
+
     private List<TableGroupModel> tableGroups = new ArrayList<>();
-} 
\ No newline at end of file
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private boolean frozen;
+
+    // Root of the structural hash tree, computed on first use once frozen; 0 means not computed yet
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private volatile long structuralHash;
+
+    @Builder
+    public DbmlModel(String projectName, String databaseType, String note, List<TableModel> tables,
+                     List<RefModel> refs, List<EnumModel> enums, List<TableGroupModel> tableGroups) {
+        this.projectName = projectName;
+        this.databaseType = databaseType;
+        this.note = note;
+        this.tables = tables != null ? tables : new ArrayList<>();
+        this.refs = refs != null ? refs : new ArrayList<>();
+        this.enums = enums != null ? enums : new ArrayList<>();
+        this.tableGroups = tableGroups != null ? tableGroups : new ArrayList<>();
+    }
+
+    public void setProjectName(String projectName) {
+        FrozenModels.checkMutable(frozen);
+        this.projectName = projectName;
+    }
+
+    public void setDatabaseType(String databaseType) {
+        FrozenModels.checkMutable(frozen);
+        this.databaseType = databaseType;
+    }
+
+    public void setNote(String note) {
+        FrozenModels.checkMutable(frozen);
+        this.note = note;
+    }
+
+    public void setTables(List<TableModel> tables) {
+        FrozenModels.checkMutable(frozen);
+        this.tables = tables;
+    }
+
+    public void setRefs(List<RefModel> refs) {
+        FrozenModels.checkMutable(frozen);
+        this.refs = refs;
+    }
+
+    public void setEnums(List<EnumModel> enums) {
+        FrozenModels.checkMutable(frozen);
+        this.enums = enums;
+    }
+
+    public void setTableGroups(List<TableGroupModel> tableGroups) {
+        FrozenModels.checkMutable(frozen);
+        this.tableGroups = tableGroups;
+    }
+
+    /**
+     * @return true if some tables of this model are lazy and have not been parsed yet
+     */
+    public boolean hasPendingTables() {
+        for (TableModel table : tables) {
+            if (table.hasPendingBody()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Root of the structural hash tree: rolled up from the hashes of the tables, refs, enums and
+     * table groups, in order. Two models with equal roots are equal. Loads lazy tables.
+     */
+    public long structuralHash() {
+        if (!frozen) {
+            return computeStructuralHash();
+        }
+        long hash = structuralHash;
+        if (hash == 0) {
+            hash = computeStructuralHash();
+            structuralHash = hash;
+        }
+        return hash;
+    }
+
+    private long computeStructuralHash() {
+        StructuralHash hash = new StructuralHash(8).add(projectName).add(databaseType).add(note).add(tables.size());
+        for (TableModel table : tables) {
+            hash.add(table.structuralHash());
+        }
+        hash.add(refs.size());
+        for (RefModel ref : refs) {
+            hash.add(ref.structuralHash());
+        }
+        hash.add(enums.size());
+        for (EnumModel enumModel : enums) {
+            hash.add(enumModel.structuralHash());
+        }
+        hash.add(tableGroups.size());
+        for (TableGroupModel group : tableGroups) {
+            hash.add(group.structuralHash());
+        }
+        return hash.value();
+    }
+
+    /**
+     * Deep mutable copy, used by callers that need to modify a shared (frozen) model.
+     */
+    public DbmlModel copy() {
+        DbmlModel copy = new DbmlModel();
+        copy.setProjectName(projectName);
+        copy.setDatabaseType(databaseType);
+        copy.setNote(note);
+        copy.setTables(new ArrayList<>(tables.size()));
+        for (TableModel table : tables) {
+            copy.getTables().add(table.copy());
+        }
+        copy.setRefs(new ArrayList<>(refs.size()));
+        for (RefModel ref : refs) {
+            copy.getRefs().add(ref.copy());
+        }
+        copy.setEnums(new ArrayList<>(enums.size()));
+        for (EnumModel enumModel : enums) {
+            copy.getEnums().add(enumModel.copy());
+        }
+        copy.setTableGroups(new ArrayList<>(tableGroups.size()));
+        for (TableGroupModel group : tableGroups) {
+            copy.getTableGroups().add(group.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Make this model and everything it contains immutable, in place. Already frozen parts
+     * (e.g. tables shared with another model) are left as they are.
+     *
+     * @return this model
+     */
+    public DbmlModel freeze() {
+        if (!frozen) {
+            databaseType = FrozenModels.canonical(databaseType);
+            for (TableModel table : tables) {
+                table.freeze();
+            }
+            for (RefModel ref : refs) {
+                ref.freeze();
+            }
+            for (EnumModel enumModel : enums) {
+                enumModel.freeze();
+            }
+            for (TableGroupModel group : tableGroups) {
+                group.freeze();
+            }
+            tables = FrozenModels.list(tables);
+            refs = FrozenModels.list(refs);
+            enums = FrozenModels.list(enums);
+            tableGroups = FrozenModels.list(tableGroups);
+            frozen = true;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,349 @@
+package com.vissoft.vn.dbdocs.domain.model.dbml;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a {@link DbmlModel}.
+ * <p>
+ * Layout: a 4-byte magic, the format version, then the model fields in declaration order.
+ * Counts and lengths are unsigned varints. Every string goes through a string table, so a type name
+ * or table name repeated thousands of times is stored once: {@code 0} is null, {@code 1} is a new
+ * string (varint byte length + UTF-8 bytes) that is appended to the table, {@code n >= 2} is entry
+ * {@code n - 2}. Boolean column and index settings are packed into one flags byte.
+ * <p>
+ * Bump {@link #FORMAT_VERSION} whenever the layout or the model changes; snapshots with another
+ * version are ignored and the DBML text is parsed instead.
+ */
+public final class DbmlSnapshotCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'D', 'B', 'M', 'S'};
+
+    private static final int COLUMN_PRIMARY_KEY = 1;
+    private static final int COLUMN_UNIQUE = 1 << 1;
+    private static final int COLUMN_NOT_NULL = 1 << 2;
+    private static final int COLUMN_INCREMENT = 1 << 3;
+    private static final int COLUMN_REFERENCE = 1 << 4;
+
+    private static final int INDEX_UNIQUE = 1;
+
+    private static final int REF_FROM = 1;
+    private static final int REF_TO = 1 << 1;
+
+    private DbmlSnapshotCodec() {
+    }
+
+    public static byte[] encode(DbmlModel model) {
+        Writer out = new Writer();
+        out.bytes(MAGIC);
+        out.varint(FORMAT_VERSION);
+        out.string(model.getProjectName());
+        out.string(model.getDatabaseType());
+        out.string(model.getNote());
+
+        out.varint(model.getTables().size());
+        for (TableModel table : model.getTables()) {
+            out.string(table.getName());
+            out.string(table.getAlias());
+            out.string(table.getNote());
+            out.varint(table.getColumns().size());
+            for (ColumnModel column : table.getColumns()) {
+                ColumnModel.RefValue reference = column.getReference();
+                out.flags((column.isPrimaryKey() ? COLUMN_PRIMARY_KEY : 0)
+                        | (column.isUnique() ? COLUMN_UNIQUE : 0)
+                        | (column.isNotNull() ? COLUMN_NOT_NULL : 0)
+                        | (column.isAutoIncrement() ? COLUMN_INCREMENT : 0)
+                        | (reference != null ? COLUMN_REFERENCE : 0));
+                out.string(column.getName());
+                out.string(column.getDataType());
+                out.string(column.getTypeParam());
+                out.string(column.getDefaultValue());
+                out.string(column.getNote());
+                if (reference != null) {
+                    out.string(reference.getTableName());
+                    out.string(reference.getColumnName());
+                    out.string(reference.getCardinality());
+                }
+            }
+            out.varint(table.getIndexes().size());
+            for (IndexModel index : table.getIndexes()) {
+                out.flags(index.isUnique() ? INDEX_UNIQUE : 0);
+                out.string(index.getName());
+                out.string(index.getType());
+                out.string(index.getNote());
+                out.varint(index.getColumns().size());
+                for (IndexModel.IndexColumn column : index.getColumns()) {
+                    out.string(column.getName());
+                    out.string(column.getOption());
+                }
+            }
+        }
+
+        out.varint(model.getRefs().size());
+        for (RefModel ref : model.getRefs()) {
+            out.flags((ref.getFrom() != null ? REF_FROM : 0) | (ref.getTo() != null ? REF_TO : 0));
+            out.string(ref.getName());
+            out.string(ref.getCardinality());
+            if (ref.getFrom() != null) {
+                out.string(ref.getFrom().getTableName());
+                out.string(ref.getFrom().getColumnName());
+            }
+            if (ref.getTo() != null) {
+                out.string(ref.getTo().getTableName());
+                out.string(ref.getTo().getColumnName());
+            }
+        }
+
+        out.varint(model.getEnums().size());
+        for (EnumModel enumModel : model.getEnums()) {
+            out.string(enumModel.getName());
+            out.varint(enumModel.getValues().size());
+            for (EnumModel.EnumValue value : enumModel.getValues()) {
+                out.string(value.getName());
+                out.string(value.getNote());
+            }
+        }
+
+        out.varint(model.getTableGroups().size());
+        for (TableGroupModel group : model.getTableGroups()) {
+            out.string(group.getName());
+            out.varint(group.getTableNames().size());
+            for (String tableName : group.getTableNames()) {
+                out.string(tableName);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code data} is not a snapshot of the current format version
+     */
+    public static DbmlModel decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (!Arrays.equals(in.bytes(MAGIC.length), MAGIC)) {
+            throw new IllegalArgumentException("Not a DBML model snapshot");
+        }
+        int version = in.varint();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported DBML model snapshot version " + version);
+        }
+
+        DbmlModel model = new DbmlModel();
+        model.setProjectName(in.string());
+        model.setDatabaseType(in.string());
+        model.setNote(in.string());
+
+        int tableCount = in.varint();
+        model.setTables(new ArrayList<>(tableCount));
+        for (int t = 0; t < tableCount; t++) {
+            TableModel table = new TableModel();
+            table.setName(in.string());
+            table.setAlias(in.string());
+            table.setNote(in.string());
+            int columnCount = in.varint();
+            table.setColumns(new ArrayList<>(columnCount));
+            for (int c = 0; c < columnCount; c++) {
+                int flags = in.flags();
+                ColumnModel column = new ColumnModel();
+                column.setPrimaryKey((flags & COLUMN_PRIMARY_KEY) != 0);
+                column.setUnique((flags & COLUMN_UNIQUE) != 0);
+                column.setNotNull((flags & COLUMN_NOT_NULL) != 0);
+                column.setAutoIncrement((flags & COLUMN_INCREMENT) != 0);
+                column.setName(in.string());
+                column.setDataType(in.string());
+                column.setTypeParam(in.string());
+                column.setDefaultValue(in.string());
+                column.setNote(in.string());
+                if ((flags & COLUMN_REFERENCE) != 0) {
+                    column.setReference(new ColumnModel.RefValue(in.string(), in.string(), in.string()));
+                }
+                table.getColumns().add(column);
+            }
+            int indexCount = in.varint();
+            table.setIndexes(new ArrayList<>(indexCount));
+            for (int i = 0; i < indexCount; i++) {
+                IndexModel index = new IndexModel();
+                index.setUnique((in.flags() & INDEX_UNIQUE) != 0);
+                index.setName(in.string());
+                index.setType(in.string());
+                index.setNote(in.string());
+                int indexColumnCount = in.varint();
+                index.setColumns(new ArrayList<>(indexColumnCount));
+                for (int c = 0; c < indexColumnCount; c++) {
+                    index.getColumns().add(new IndexModel.IndexColumn(in.string(), in.string()));
+                }
+                table.getIndexes().add(index);
+            }
+            model.getTables().add(table);
+        }
+
+        int refCount = in.varint();
+        model.setRefs(new ArrayList<>(refCount));
+        for (int r = 0; r < refCount; r++) {
+            int flags = in.flags();
+            RefModel ref = new RefModel();
+            ref.setName(in.string());
+            ref.setCardinality(in.string());
+            if ((flags & REF_FROM) != 0) {
+                ref.setFrom(new RefModel.EndpointRef(in.string(), in.string()));
+            }
+            if ((flags & REF_TO) != 0) {
+                ref.setTo(new RefModel.EndpointRef(in.string(), in.string()));
+            }
+            model.getRefs().add(ref);
+        }
+
+        int enumCount = in.varint();
+        model.setEnums(new ArrayList<>(enumCount));
+        for (int e = 0; e < enumCount; e++) {
+            EnumModel enumModel = new EnumModel();
+            enumModel.setName(in.string());
+            int valueCount = in.varint();
+            enumModel.setValues(new ArrayList<>(valueCount));
+            for (int v = 0; v < valueCount; v++) {
+                enumModel.getValues().add(new EnumModel.EnumValue(in.string(), in.string()));
+            }
+            model.getEnums().add(enumModel);
+        }
+
+        int groupCount = in.varint();
+        model.setTableGroups(new ArrayList<>(groupCount));
+        for (int g = 0; g < groupCount; g++) {
+            TableGroupModel group = new TableGroupModel();
+            group.setName(in.string());
+            int tableNameCount = in.varint();
+            group.setTableNames(new ArrayList<>(tableNameCount));
+            for (int t = 0; t < tableNameCount; t++) {
+                group.getTableNames().add(in.string());
+            }
+            model.getTableGroups().add(group);
+        }
+
+        if (in.position != data.length) {
+            throw new IllegalArgumentException("Trailing bytes in DBML model snapshot");
+        }
+        return model;
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[4096];
+        private int size;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        void varint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void flags(int flags) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) flags;
+        }
+
+        void bytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                varint(index + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(1);
+            varint(utf8.length);
+            bytes(utf8);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = next();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in DBML model snapshot");
+        }
+
+        int flags() {
+            return next() & 0xFF;
+        }
+
+        byte[] bytes(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalArgumentException("Truncated DBML model snapshot");
+            }
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String string() {
+            int reference = varint();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference == 1) {
+                int length = varint();
+                if (length < 0 || position + length > data.length) {
+                    throw new IllegalArgumentException("Truncated DBML model snapshot");
+                }
+                String value = new String(data, position, length, StandardCharsets.UTF_8);
+                position += length;
+                strings.add(value);
+                return value;
+            }
+            if (reference - 2 >= strings.size()) {
+                throw new IllegalArgumentException("Invalid string reference in DBML model snapshot");
+            }
+            return strings.get(reference - 2);
+        }
+
+        private byte next() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated DBML model snapshot");
+            }
+            return data[position++];
+        }
+    }
+}
@@ -1,29 +1,93 @@
 package com.vissoft.vn.dbdocs.domain.model.dbml;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.ArrayList;
 import java.util.List;
 
-@Data
-@Builder
+@Getter
+@ToString
+@EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor
 public class EnumModel {
     private String name;
-    
-    @Builder.Default
+
     private List<EnumValue> values = new ArrayList<>();
-    
-    @Data
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(lombok.AccessLevel.NONE)
+    private boolean frozen;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private long structuralHash;
+
+    @Builder
+    public EnumModel(String name, List<EnumValue> values) {
+        this.name = name;
+        this.values = values != null ? values : new ArrayList<>();
+    }
+
+    public void setName(String name) {
+        FrozenModels.checkMutable(frozen);
+        this.name = name;
+    }
+
+    public void setValues(List<EnumValue> values) {
+        FrozenModels.checkMutable(frozen);
+        this.values = values;
+    }
+
+    /**
+     * 64-bit hash of everything {@link #equals} compares, precomputed when the enum is frozen.
+     */
+    public long structuralHash() {
+        return frozen ? structuralHash : computeStructuralHash();
+    }
+
+    private long computeStructuralHash() {
+        StructuralHash hash = new StructuralHash(6).add(name).add(values.size());
+        for (EnumValue value : values) {
+            hash.add(value.getName()).add(value.getNote());
+        }
+        return hash.value();
+    }
+
+    /**
+     * Mutable copy; the immutable values are shared.
+     */
+    public EnumModel copy() {
+        return new EnumModel(name, new ArrayList<>(values));
+    }
+
+    /**
+     * Make this enum immutable, see {@link DbmlModel#freeze()}.
+     */
+    public EnumModel freeze() {
+        if (!frozen) {
+            values = FrozenModels.list(values);
+            structuralHash = computeStructuralHash();
+            frozen = true;
+        }
+        return this;
+    }
+
+    @Value
     @Builder
-    @NoArgsConstructor
     @AllArgsConstructor
+    @Jacksonized
     public static class EnumValue {
-        private String name;
-        private String note;
+        String name;
+        String note;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.vissoft.vn.dbdocs.domain.model.dbml;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for {@code freeze()} of the model classes.
+ */
+final class FrozenModels {
+
+    private FrozenModels() {
+    }
+
+    /**
+     * Canonical instance of a value from a small vocabulary (type names, type parameters,
+     * cardinalities, sort options), shared by every frozen model on the heap.
+     * Not used for identifiers, notes or defaults, which are unbounded.
+     */
+    static String canonical(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    /**
+     * Unmodifiable list backed by an array of exactly {@code list.size()} elements.
+     */
+    static <T> List<T> list(List<T> list) {
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+        if (list.contains(null)) {
+            @SuppressWarnings("unchecked")
+            T[] elements = (T[]) list.toArray();
+            return Collections.unmodifiableList(Arrays.asList(elements));
+        }
+        return List.copyOf(list);
+    }
+
+    static void checkMutable(boolean frozen) {
+        if (frozen) {
+            throw new IllegalStateException("Frozen DBML models are shared and cannot be modified, use copy()");
+        }
+    }
+}
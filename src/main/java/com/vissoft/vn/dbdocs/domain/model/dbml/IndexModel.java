@@ -1,32 +1,118 @@
 package com.vissoft.vn.dbdocs.domain.model.dbml;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.ArrayList;
 import java.util.List;
 
-@Data
-@Builder
+@Getter
+@ToString
+@EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor
 public class IndexModel {
     private String name;
     private boolean isUnique;
     private String type;
     private String note;
-    
-    @Builder.Default
+
     private List<IndexColumn> columns = new ArrayList<>();
-    
-    @Data
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(lombok.AccessLevel.NONE)
+    private boolean frozen;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private long structuralHash;
+
+    @Builder
+    public IndexModel(String name, boolean isUnique, String type, String note, List<IndexColumn> columns) {
+        this.name = name;
+        this.isUnique = isUnique;
+        this.type = type;
+        this.note = note;
+        this.columns = columns != null ? columns : new ArrayList<>();
+    }
+
+    public void setName(String name) {
+        FrozenModels.checkMutable(frozen);
+        this.name = name;
+    }
+
+    public void setUnique(boolean unique) {
+        FrozenModels.checkMutable(frozen);
+        this.isUnique = unique;
+    }
+
+    public void setType(String type) {
+        FrozenModels.checkMutable(frozen);
+        this.type = type;
+    }
+
+    public void setNote(String note) {
+        FrozenModels.checkMutable(frozen);
+        this.note = note;
+    }
+
+    public void setColumns(List<IndexColumn> columns) {
+        FrozenModels.checkMutable(frozen);
+        this.columns = columns;
+    }
+
+    /**
+     * 64-bit hash of everything {@link #equals} compares, precomputed when the index is frozen.
+     */
+    public long structuralHash() {
+        return frozen ? structuralHash : computeStructuralHash();
+    }
+
+    private long computeStructuralHash() {
+        StructuralHash hash = new StructuralHash(2).add(name).add(isUnique).add(type).add(note).add(columns.size());
+        for (IndexColumn column : columns) {
+            hash.add(column.getName()).add(column.getOption());
+        }
+        return hash.value();
+    }
+
+    /**
+     * Mutable copy; the immutable index columns are shared.
+     */
+    public IndexModel copy() {
+        return new IndexModel(name, isUnique, type, note, new ArrayList<>(columns));
+    }
+
+    /**
+     * Make this index immutable, see {@link DbmlModel#freeze()}.
+     */
+    public IndexModel freeze() {
+        if (!frozen) {
+            type = FrozenModels.canonical(type);
+            columns = FrozenModels.list(columns);
+            structuralHash = computeStructuralHash();
+            frozen = true;
+        }
+        return this;
+    }
+
+    @Value
     @Builder
-    @NoArgsConstructor
-    @AllArgsConstructor
+    @Jacksonized
     public static class IndexColumn {
-        private String name;
-        private String option; // "asc" or "desc"
+        String name;
+        String option; // "asc" or "desc"
+
+        public IndexColumn(String name, String option) {
+            this.name = name;
+            this.option = FrozenModels.canonical(option);
+        }
     }
-} 
\ No newline at end of file
+}
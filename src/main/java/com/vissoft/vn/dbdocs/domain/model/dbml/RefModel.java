@@ -1,27 +1,104 @@
 package com.vissoft.vn.dbdocs.domain.model.dbml;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
-@Data
-@Builder
+@Getter
+@ToString
+@EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor
 public class RefModel {
     private String name;
-    
+
     private EndpointRef from;
     private String cardinality; // ">" or "<" or "-"
     private EndpointRef to;
-    
-    @Data
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(lombok.AccessLevel.NONE)
+    private boolean frozen;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private long structuralHash;
+
+    @Builder
+    public RefModel(String name, EndpointRef from, String cardinality, EndpointRef to) {
+        this.name = name;
+        this.from = from;
+        this.cardinality = cardinality;
+        this.to = to;
+    }
+
+    public void setName(String name) {
+        FrozenModels.checkMutable(frozen);
+        this.name = name;
+    }
+
+    public void setFrom(EndpointRef from) {
+        FrozenModels.checkMutable(frozen);
+        this.from = from;
+    }
+
+    public void setCardinality(String cardinality) {
+        FrozenModels.checkMutable(frozen);
+        this.cardinality = cardinality;
+    }
+
+    public void setTo(EndpointRef to) {
+        FrozenModels.checkMutable(frozen);
+        this.to = to;
+    }
+
+    /**
+     * 64-bit hash of everything {@link #equals} compares, precomputed when the ref is frozen.
+     */
+    public long structuralHash() {
+        return frozen ? structuralHash : computeStructuralHash();
+    }
+
+    private long computeStructuralHash() {
+        return new StructuralHash(5).add(name)
+                .add(from != null).add(from != null ? from.getTableName() : null).add(from != null ? from.getColumnName() : null)
+                .add(cardinality)
+                .add(to != null).add(to != null ? to.getTableName() : null).add(to != null ? to.getColumnName() : null)
+                .value();
+    }
+
+    /**
+     * Mutable copy; the immutable endpoints are shared.
+     */
+    public RefModel copy() {
+        return new RefModel(name, from, cardinality, to);
+    }
+
+    /**
+     * Make this ref immutable, see {@link DbmlModel#freeze()}.
+     */
+    public RefModel freeze() {
+        if (!frozen) {
+            cardinality = FrozenModels.canonical(cardinality);
+            structuralHash = computeStructuralHash();
+            frozen = true;
+        }
+        return this;
+    }
+
+    @Value
     @Builder
-    @NoArgsConstructor
     @AllArgsConstructor
+    @Jacksonized
     public static class EndpointRef {
-        private String tableName;
-        private String columnName;
+        String tableName;
+        String columnName;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.vissoft.vn.dbdocs.domain.model.dbml;
+
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+
+/**
+ * Accumulates the 64-bit structural hash of a model object from its fields, in order.
+ * A composite's hash is built from its children's hashes, so equal subtrees of two models
+ * are recognised by comparing one {@code long} (Merkle tree).
+ */
+final class StructuralHash {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // Distinguishes null from every string, including ""
+    private static final long NULL = 0x6A09E667F3BCC909L;
+
+    private long hash;
+
+    StructuralHash(int kind) {
+        hash = kind * MULTIPLIER;
+    }
+
+    StructuralHash add(String value) {
+        if (value == null) {
+            return add(NULL);
+        }
+        // FNV-1a over the chars: no allocation, and the mix in add(long) spreads it
+        long stringHash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            stringHash = (stringHash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return add(stringHash).add(value.length());
+    }
+
+    StructuralHash add(boolean value) {
+        return add(value ? 1 : 2);
+    }
+
+    StructuralHash add(long value) {
+        hash = Long.rotateLeft(hash ^ value, 27) * MULTIPLIER + 0x52DCE729;
+        return this;
+    }
+
+    long value() {
+        return HashUtils.fmix64(hash);
+    }
+}
@@ -1,20 +1,78 @@
 package com.vissoft.vn.dbdocs.domain.model.dbml;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
 
-@Data
-@Builder
+@Getter
+@ToString
+@EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor
 public class TableGroupModel {
     private String name;
-    
-    @Builder.Default
+
     private List<String> tableNames = new ArrayList<>();
-} 
\ No newline at end of file
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(lombok.AccessLevel.NONE)
+    private boolean frozen;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private long structuralHash;
+
+    @Builder
+    public TableGroupModel(String name, List<String> tableNames) {
+        this.name = name;
+        this.tableNames = tableNames != null ? tableNames : new ArrayList<>();
+    }
+
+    public void setName(String name) {
+        FrozenModels.checkMutable(frozen);
+        this.name = name;
+    }
+
+    public void setTableNames(List<String> tableNames) {
+        FrozenModels.checkMutable(frozen);
+        this.tableNames = tableNames;
+    }
+
+    /**
+     * 64-bit hash of everything {@link #equals} compares, precomputed when the group is frozen.
+     */
+    public long structuralHash() {
+        return frozen ? structuralHash : computeStructuralHash();
+    }
+
+    private long computeStructuralHash() {
+        StructuralHash hash = new StructuralHash(7).add(name).add(tableNames.size());
+        for (String tableName : tableNames) {
+            hash.add(tableName);
+        }
+        return hash.value();
+    }
+
+    public TableGroupModel copy() {
+        return new TableGroupModel(name, new ArrayList<>(tableNames));
+    }
+
+    /**
+     * Make this group immutable, see {@link DbmlModel#freeze()}.
+     */
+    public TableGroupModel freeze() {
+        if (!frozen) {
+            tableNames = FrozenModels.list(tableNames);
+            structuralHash = computeStructuralHash();
+            frozen = true;
+        }
+        return this;
+    }
+}
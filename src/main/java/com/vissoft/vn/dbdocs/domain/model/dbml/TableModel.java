@@ -4,20 +4,232 @@ import lombok.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
-@Data
-@Builder
+/**
+ * A table of a {@link DbmlModel}.
+ * <p>
+ * A table created by {@link #lazy} only knows its name up front; alias, note, columns and indexes
+ * are parsed the first time one of them is read. Lazy tables are frozen.
+ */
+@Getter
+@ToString
 @NoArgsConstructor
-@AllArgsConstructor
-@EqualsAndHashCode
 public class TableModel {
     private String name;
     private String alias;
     private String note;
-    
-    @Builder.Default
+
     private List<ColumnModel> columns = new ArrayList<>();
-    
-    @Builder.Default
+
     private List<IndexModel> indexes = new ArrayList<>();
-} 
\ No newline at end of file
+
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private boolean frozen;
+
+    // Key of the source text of a lazy table; equal keys mean equal tables, without loading them
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private Object source;
+
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private long structuralHash;
+
+    // Pending body of a lazy table, null once loaded
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private volatile Supplier<TableModel> body;
+
+    @Builder
+    public TableModel(String name, String alias, String note, List<ColumnModel> columns, List<IndexModel> indexes) {
+        this.name = name;
+        this.alias = alias;
+        this.note = note;
+        this.columns = columns != null ? columns : new ArrayList<>();
+        this.indexes = indexes != null ? indexes : new ArrayList<>();
+    }
+
+    /**
+     * Table whose definition is parsed on first access.
+     *
+     * @param name   the table name, read from the table header
+     * @param source key of the table's source text, e.g. a fingerprint; two lazy tables with equal
+     *               keys are equal and are compared without loading them
+     * @param body   parses the table; called at most once and must return a frozen table
+     */
+    public static TableModel lazy(String name, Object source, Supplier<TableModel> body) {
+        TableModel table = new TableModel();
+        table.name = name;
+        table.source = source;
+        table.body = body;
+        table.frozen = true;
+        return table;
+    }
+
+    public String getAlias() {
+        load();
+        return alias;
+    }
+
+    public String getNote() {
+        load();
+        return note;
+    }
+
+    public List<ColumnModel> getColumns() {
+        load();
+        return columns;
+    }
+
+    public List<IndexModel> getIndexes() {
+        load();
+        return indexes;
+    }
+
+    private void load() {
+        if (body == null) {
+            return;
+        }
+        synchronized (this) {
+            Supplier<TableModel> pending = body;
+            if (pending != null) {
+                TableModel loaded = pending.get();
+                alias = loaded.getAlias();
+                note = loaded.getNote();
+                columns = loaded.getColumns();
+                indexes = loaded.getIndexes();
+                structuralHash = loaded.structuralHash();
+                // Volatile write publishes the fields above to readers that see the table loaded
+                body = null;
+            }
+        }
+    }
+
+    /**
+     * @return true while this lazy table has not been parsed yet
+     */
+    public boolean hasPendingBody() {
+        return body != null;
+    }
+
+    /**
+     * 64-bit hash of everything {@link #equals} compares, rolled up from the column and index hashes.
+     * Precomputed when the table is frozen; loads a lazy table.
+     */
+    public long structuralHash() {
+        load();
+        return frozen ? structuralHash : computeStructuralHash();
+    }
+
+    private long computeStructuralHash() {
+        StructuralHash hash = new StructuralHash(4).add(name).add(alias).add(note).add(columns.size());
+        for (ColumnModel column : columns) {
+            hash.add(column.structuralHash());
+        }
+        hash.add(indexes.size());
+        for (IndexModel index : indexes) {
+            hash.add(index.structuralHash());
+        }
+        return hash.value();
+    }
+
+    /**
+     * Same definition as {@code other}, decided without looking at the columns: true for the same
+     * instance, lazy tables parsed from the same text, or equal {@link #structuralHash() structural hashes}.
+     */
+    public boolean hasSameStructure(TableModel other) {
+        return this == other
+                || (source != null && source.equals(other.source))
+                || structuralHash() == other.structuralHash();
+    }
+
+    public void setName(String name) {
+        FrozenModels.checkMutable(frozen);
+        this.name = name;
+    }
+
+    public void setAlias(String alias) {
+        FrozenModels.checkMutable(frozen);
+        this.alias = alias;
+    }
+
+    public void setNote(String note) {
+        FrozenModels.checkMutable(frozen);
+        this.note = note;
+    }
+
+    public void setColumns(List<ColumnModel> columns) {
+        FrozenModels.checkMutable(frozen);
+        this.columns = columns;
+    }
+
+    public void setIndexes(List<IndexModel> indexes) {
+        FrozenModels.checkMutable(frozen);
+        this.indexes = indexes;
+    }
+
+    public TableModel copy() {
+        TableModel copy = new TableModel();
+        copy.setName(name);
+        copy.setAlias(getAlias());
+        copy.setNote(getNote());
+        copy.setColumns(new ArrayList<>(getColumns().size()));
+        for (ColumnModel column : getColumns()) {
+            copy.getColumns().add(column.copy());
+        }
+        copy.setIndexes(new ArrayList<>(getIndexes().size()));
+        for (IndexModel index : getIndexes()) {
+            copy.getIndexes().add(index.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Make this table and its columns and indexes immutable, see {@link DbmlModel#freeze()}.
+     */
+    public TableModel freeze() {
+        if (!frozen) {
+            for (ColumnModel column : columns) {
+                column.freeze();
+            }
+            for (IndexModel index : indexes) {
+                index.freeze();
+            }
+            columns = FrozenModels.list(columns);
+            indexes = FrozenModels.list(indexes);
+            structuralHash = computeStructuralHash();
+            frozen = true;
+        }
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TableModel other)) {
+            return false;
+        }
+        if (source != null && source.equals(other.source)) {
+            return true;
+        }
+        // Precomputed hashes only; computing them for mutable tables would cost more than comparing
+        if (frozen && other.frozen && body == null && other.body == null && structuralHash != other.structuralHash) {
+            return false;
+        }
+        return Objects.equals(name, other.name)
+                && Objects.equals(getAlias(), other.getAlias())
+                && Objects.equals(getNote(), other.getNote())
+                && Objects.equals(getColumns(), other.getColumns())
+                && Objects.equals(getIndexes(), other.getIndexes());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, getAlias(), getNote(), getColumns(), getIndexes());
+    }
+}
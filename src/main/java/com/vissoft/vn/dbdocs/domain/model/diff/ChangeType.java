@@ -0,0 +1,10 @@
+package com.vissoft.vn.dbdocs.domain.model.diff;
+
+/**
+ * Kind of a {@link ColumnChange}; the names are written to the stored diff JSON as {@code changeType}.
+ */
+public enum ChangeType {
+    ADDED,
+    REMOVED,
+    MODIFIED
+}
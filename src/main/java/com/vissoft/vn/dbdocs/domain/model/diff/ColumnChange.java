@@ -0,0 +1,41 @@
+package com.vissoft.vn.dbdocs.domain.model.diff;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A column added to, removed from or modified in a table present in both models of a {@link SchemaDiff}.
+ * The columns are the (frozen, shared) instances of the compared models.
+ */
+@Value
+public class ColumnChange {
+    ChangeType changeType;
+    ColumnModel oldValue;
+    ColumnModel newValue;
+    // Properties that differ between oldValue and newValue; empty unless MODIFIED
+    Set<ColumnProperty> changedProperties;
+
+    public static ColumnChange added(ColumnModel column) {
+        return new ColumnChange(ChangeType.ADDED, null, column, Collections.emptySet());
+    }
+
+    public static ColumnChange removed(ColumnModel column) {
+        return new ColumnChange(ChangeType.REMOVED, column, null, Collections.emptySet());
+    }
+
+    public static ColumnChange modified(ColumnModel oldValue, ColumnModel newValue) {
+        return new ColumnChange(ChangeType.MODIFIED, oldValue, newValue,
+                Collections.unmodifiableSet(oldValue.changedProperties(newValue)));
+    }
+
+    /**
+     * @return the new column, or the old one for a removed column
+     */
+    public ColumnModel column() {
+        return newValue != null ? newValue : oldValue;
+    }
+}
@@ -0,0 +1,268 @@
+package com.vissoft.vn.dbdocs.domain.model.diff;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Differences between two DBML models: tables added and removed, and the column changes of
+ * tables present in both. Built in one pass by {@link #compare} and read as is by the callers;
+ * Jackson streams it straight to the JSON stored in {@code version.diff_change}, see {@link #serialize}.
+ * <p>
+ * Tables and columns are the instances of the compared models, nothing is copied.
+ */
+public class SchemaDiff extends JsonSerializable.Base {
+    // Each fork-join task compares at least this many tables, so task overhead stays small next to diffing
+    private static final int MIN_TABLES_PER_TASK = 64;
+
+    private final List<TableModel> addedTables = new ArrayList<>();
+    private final List<String> removedTables = new ArrayList<>();
+    // Insertion order is the table order of the current model
+    private final Map<String, List<ColumnChange>> tableChanges = new LinkedHashMap<>();
+
+    /**
+     * Diffs two models in one pass, by table name and then by column name. Tables and columns keep
+     * the order of the models; when a name is repeated the first definition is used.
+     */
+    public static SchemaDiff compare(DbmlModel before, DbmlModel current) {
+        return compare(before, current, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #compare(DbmlModel, DbmlModel)}, comparing the tables present in both models on
+     * {@code pool} when there are at least {@code parallelMinTables} of them. The tables of lazy models
+     * are then also parsed in parallel. The result does not depend on the number of threads.
+     *
+     * @param pool pool to compare on, null to compare on the calling thread
+     */
+    public static SchemaDiff compare(DbmlModel before, DbmlModel current, ForkJoinPool pool, int parallelMinTables) {
+        SchemaDiff diff = new SchemaDiff();
+        Map<String, TableModel> beforeTables = byName(before.getTables(), TableModel::getName);
+        Map<String, TableModel> currentTables = byName(current.getTables(), TableModel::getName);
+
+        List<TableModel> matchedBefore = new ArrayList<>();
+        List<TableModel> matchedCurrent = new ArrayList<>();
+        for (TableModel currentTable : currentTables.values()) {
+            TableModel beforeTable = beforeTables.get(currentTable.getName());
+            if (beforeTable == null) {
+                diff.addTable(currentTable);
+            } else {
+                matchedBefore.add(beforeTable);
+                matchedCurrent.add(currentTable);
+            }
+        }
+
+        // One slot per matched table, merged in table order whatever the task that filled it
+        List<ColumnChange>[] changes = newChangesArray(matchedCurrent.size());
+        if (pool != null && matchedCurrent.size() >= parallelMinTables && matchedCurrent.size() > MIN_TABLES_PER_TASK) {
+            int perTask = Math.max(MIN_TABLES_PER_TASK, matchedCurrent.size() / (pool.getParallelism() * 4));
+            pool.invoke(new DiffTablesTask(matchedBefore, matchedCurrent, 0, matchedCurrent.size(), perTask, changes));
+        } else {
+            diffTables(matchedBefore, matchedCurrent, 0, matchedCurrent.size(), changes);
+        }
+        for (int i = 0; i < changes.length; i++) {
+            if (changes[i] != null) {
+                diff.tableChanges.put(matchedCurrent.get(i).getName(), changes[i]);
+            }
+        }
+
+        for (String beforeTableName : beforeTables.keySet()) {
+            if (!currentTables.containsKey(beforeTableName)) {
+                diff.removeTable(beforeTableName);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Records the column changes between two definitions of the same table, if the table changed.
+     * Only tables with different structural hashes are compared column by column.
+     */
+    public void compareTable(TableModel before, TableModel current) {
+        List<ColumnChange> changes = columnChanges(before, current);
+        if (changes != null) {
+            changesOf(current.getName()).addAll(changes);
+        }
+    }
+
+    // Column changes between two definitions of a table, null if the table did not change
+    private static List<ColumnChange> columnChanges(TableModel before, TableModel current) {
+        if (before.hasSameStructure(current)) {
+            return null;
+        }
+        List<ColumnChange> changes = new ArrayList<>();
+        Map<String, ColumnModel> beforeColumns = byName(before.getColumns(), ColumnModel::getName);
+        Map<String, ColumnModel> currentColumns = byName(current.getColumns(), ColumnModel::getName);
+
+        for (ColumnModel beforeColumn : beforeColumns.values()) {
+            if (!currentColumns.containsKey(beforeColumn.getName())) {
+                changes.add(ColumnChange.removed(beforeColumn));
+            }
+        }
+        for (ColumnModel currentColumn : currentColumns.values()) {
+            ColumnModel beforeColumn = beforeColumns.get(currentColumn.getName());
+            if (beforeColumn == null) {
+                changes.add(ColumnChange.added(currentColumn));
+            } else if (currentColumn.structuralHash() != beforeColumn.structuralHash()) {
+                changes.add(ColumnChange.modified(beforeColumn, currentColumn));
+            }
+        }
+        return changes;
+    }
+
+    private static void diffTables(List<TableModel> before, List<TableModel> current, int from, int to,
+                                   List<ColumnChange>[] changes) {
+        for (int i = from; i < to; i++) {
+            changes[i] = columnChanges(before.get(i), current.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ColumnChange>[] newChangesArray(int size) {
+        return (List<ColumnChange>[]) new List[size];
+    }
+
+    private static final class DiffTablesTask extends RecursiveAction {
+        private final List<TableModel> before;
+        private final List<TableModel> current;
+        private final int from;
+        private final int to;
+        private final int perTask;
+        private final List<ColumnChange>[] changes;
+
+        DiffTablesTask(List<TableModel> before, List<TableModel> current, int from, int to, int perTask,
+                       List<ColumnChange>[] changes) {
+            this.before = before;
+            this.current = current;
+            this.from = from;
+            this.to = to;
+            this.perTask = perTask;
+            this.changes = changes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= perTask) {
+                diffTables(before, current, from, to, changes);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DiffTablesTask(before, current, from, middle, perTask, changes),
+                    new DiffTablesTask(before, current, middle, to, perTask, changes));
+        }
+    }
+
+    private static <T> Map<String, T> byName(List<T> items, Function<T, String> name) {
+        Map<String, T> map = new LinkedHashMap<>(items.size() * 4 / 3 + 1);
+        for (T item : items) {
+            map.putIfAbsent(name.apply(item), item);
+        }
+        return map;
+    }
+
+    public void addTable(TableModel table) {
+        addedTables.add(table);
+    }
+
+    public void removeTable(String tableName) {
+        removedTables.add(tableName);
+    }
+
+    /**
+     * Changes of a table present in both models, to append to. A table is listed even if none of its
+     * columns changed (e.g. only its indexes did).
+     */
+    public List<ColumnChange> changesOf(String tableName) {
+        return tableChanges.computeIfAbsent(tableName, k -> new ArrayList<>());
+    }
+
+    public List<TableModel> getAddedTables() {
+        return Collections.unmodifiableList(addedTables);
+    }
+
+    public List<String> getRemovedTables() {
+        return Collections.unmodifiableList(removedTables);
+    }
+
+    public Map<String, List<ColumnChange>> getTableChanges() {
+        return Collections.unmodifiableMap(tableChanges);
+    }
+
+    public boolean isEmpty() {
+        return addedTables.isEmpty() && removedTables.isEmpty() && tableChanges.isEmpty();
+    }
+
+    /**
+     * Writes the diff as
+     * <pre>{@code
+     * {"addedTables": [<table>, ...],
+     *  "removedTables": ["name", ...],
+     *  "tableChanges": {"name": [{"property": "column", "changeType": "ADDED", "value": <column>},
+     *                            {"property": "column", "changeType": "MODIFIED", "changedProperties": ["dataType", ...],
+     *                             "oldValue": <column>, "newValue": <column>}, ...]}}
+     * }</pre>
+     */
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeArrayFieldStart("addedTables");
+        for (TableModel table : addedTables) {
+            serializers.defaultSerializeValue(table, generator);
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("removedTables");
+        for (String tableName : removedTables) {
+            generator.writeString(tableName);
+        }
+        generator.writeEndArray();
+
+        generator.writeObjectFieldStart("tableChanges");
+        for (Map.Entry<String, List<ColumnChange>> entry : tableChanges.entrySet()) {
+            generator.writeArrayFieldStart(entry.getKey());
+            for (ColumnChange change : entry.getValue()) {
+                generator.writeStartObject();
+                generator.writeStringField("property", "column");
+                generator.writeStringField("changeType", change.getChangeType().name());
+                if (change.getChangeType() == ChangeType.MODIFIED) {
+                    generator.writeArrayFieldStart("changedProperties");
+                    for (ColumnProperty property : change.getChangedProperties()) {
+                        generator.writeString(property.getPropertyName());
+                    }
+                    generator.writeEndArray();
+                    serializers.defaultSerializeField("oldValue", change.getOldValue(), generator);
+                    serializers.defaultSerializeField("newValue", change.getNewValue(), generator);
+                } else {
+                    serializers.defaultSerializeField("value", change.column(), generator);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(generator, serializers);
+    }
+}
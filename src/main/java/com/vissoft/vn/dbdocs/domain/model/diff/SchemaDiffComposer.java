@@ -0,0 +1,176 @@
+package com.vissoft.vn.dbdocs.domain.model.diff;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Folds the diffs of consecutive versions (v1 to v2, v2 to v3, ...) into the net diff from the first
+ * version to the last, without the schemas of either end.
+ * <p>
+ * Changes cancel out: a table or column added and later dropped disappears, a column dropped and
+ * re-added with the same definition disappears, and chains of modifications collapse into one.
+ * <p>
+ * Two cases cannot be derived from the diffs alone, because a diff does not carry the indexes,
+ * alias or note of a changed table, nor the definition of a removed one:
+ * <ul>
+ *     <li>a table added in the chain and changed afterwards: its definition is read from the last schema;</li>
+ *     <li>a table dropped and added again: it is compared between the first and the last schema.</li>
+ * </ul>
+ * {@link #result} asks for those tables only. A table changed in some link whose column changes
+ * cancel out is still listed, with no column changes.
+ */
+public class SchemaDiffComposer {
+    private final Map<String, TableState> tables = new LinkedHashMap<>();
+
+    /**
+     * Appends the diff of the next version in the chain.
+     */
+    public SchemaDiffComposer append(SchemaDiff next) {
+        for (String tableName : next.getRemovedTables()) {
+            TableState state = tables.get(tableName);
+            if (state == null) {
+                tables.put(tableName, TableState.removed());
+            } else if (!state.existedAtStart) {
+                // Added in the chain and dropped again
+                tables.remove(tableName);
+            } else {
+                state.existsAtEnd = false;
+                state.recreated = false;
+                state.columns.clear();
+            }
+        }
+        for (TableModel table : next.getAddedTables()) {
+            TableState state = tables.get(table.getName());
+            if (state == null) {
+                tables.put(table.getName(), TableState.added(table));
+            } else {
+                // Dropped earlier in the chain: compare the first and last definitions
+                state.existsAtEnd = true;
+                state.recreated = true;
+            }
+        }
+        for (Map.Entry<String, List<ColumnChange>> entry : next.getTableChanges().entrySet()) {
+            TableState state = tables.computeIfAbsent(entry.getKey(), k -> TableState.modified());
+            if (!state.existedAtStart) {
+                state.added = null;
+            } else if (!state.recreated) {
+                for (ColumnChange change : entry.getValue()) {
+                    fold(state.columns, change);
+                }
+            }
+        }
+        return this;
+    }
+
+    private static void fold(Map<String, ColumnChange> columns, ColumnChange next) {
+        String name = next.column().getName();
+        ColumnChange previous = columns.get(name);
+        ColumnChange net;
+        if (previous == null) {
+            net = next;
+        } else if (previous.getChangeType() == ChangeType.ADDED) {
+            net = next.getChangeType() == ChangeType.REMOVED ? null : ColumnChange.added(next.getNewValue());
+        } else if (next.getChangeType() == ChangeType.REMOVED) {
+            net = ColumnChange.removed(previous.getOldValue());
+        } else {
+            // Removed or modified earlier, now added or modified: compare the first and last definitions
+            net = sameColumn(previous.getOldValue(), next.getNewValue())
+                    ? null : ColumnChange.modified(previous.getOldValue(), next.getNewValue());
+        }
+        if (net == null) {
+            columns.remove(name);
+        } else {
+            columns.put(name, net);
+        }
+    }
+
+    private static boolean sameColumn(ColumnModel a, ColumnModel b) {
+        return a.structuralHash() == b.structuralHash();
+    }
+
+    /**
+     * @return names of the tables {@link #result} needs from the last schema
+     */
+    public List<String> tablesNeededAtEnd() {
+        List<String> names = new ArrayList<>();
+        tables.forEach((name, state) -> {
+            if (state.existsAtEnd && (state.recreated || (!state.existedAtStart && state.added == null))) {
+                names.add(name);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * @return names of the tables {@link #result} needs from the first schema
+     */
+    public List<String> tablesNeededAtStart() {
+        List<String> names = new ArrayList<>();
+        tables.forEach((name, state) -> {
+            if (state.existsAtEnd && state.recreated) {
+                names.add(name);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * The net diff. The lookups are only called for the tables listed by {@link #tablesNeededAtStart()}
+     * and {@link #tablesNeededAtEnd()}.
+     *
+     * @param startTable table of the first schema by name
+     * @param endTable   table of the last schema by name
+     */
+    public SchemaDiff result(Function<String, TableModel> startTable, Function<String, TableModel> endTable) {
+        SchemaDiff diff = new SchemaDiff();
+        tables.forEach((name, state) -> {
+            if (!state.existedAtStart) {
+                diff.addTable(state.added != null ? state.added : endTable.apply(name));
+            } else if (!state.existsAtEnd) {
+                diff.removeTable(name);
+            } else if (state.recreated) {
+                diff.compareTable(startTable.apply(name), endTable.apply(name));
+            } else {
+                diff.changesOf(name).addAll(state.columns.values());
+            }
+        });
+        return diff;
+    }
+
+    private static final class TableState {
+        boolean existedAtStart;
+        boolean existsAtEnd;
+        // Dropped and added again in the chain
+        boolean recreated;
+        // Definition of a table added in the chain, null once it changed afterwards
+        TableModel added;
+        // Net column changes of a table present at both ends, by column name
+        final Map<String, ColumnChange> columns = new LinkedHashMap<>();
+
+        static TableState added(TableModel table) {
+            TableState state = new TableState();
+            state.existsAtEnd = true;
+            state.added = table;
+            return state;
+        }
+
+        static TableState removed() {
+            TableState state = new TableState();
+            state.existedAtStart = true;
+            return state;
+        }
+
+        static TableState modified() {
+            TableState state = new TableState();
+            state.existedAtStart = true;
+            state.existsAtEnd = true;
+            return state;
+        }
+    }
+}
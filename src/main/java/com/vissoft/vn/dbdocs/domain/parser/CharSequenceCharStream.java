@@ -0,0 +1,109 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * ANTLR {@link CharStream} over a region of a {@link CharSequence} (a {@code String} or a decoded
+ * {@code CharBuffer}). Unlike {@code CharStreams.fromString} it reads the characters in place instead of
+ * copying the input into a code point buffer. Indexes are relative to the start of the region.
+ * <p>
+ * Characters are UTF-16 code units; the grammar accepts both halves of a surrogate pair in identifiers.
+ */
+final class CharSequenceCharStream implements CharStream {
+
+    private final CharSequence text;
+    private final int offset;
+    private final int size;
+    private int index;
+
+    CharSequenceCharStream(CharSequence text, int start, int end) {
+        this.text = text;
+        this.offset = start;
+        this.size = end - start;
+    }
+
+    @Override
+    public void consume() {
+        if (index >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        index++;
+    }
+
+    @Override
+    public int LA(int i) {
+        int position;
+        if (i > 0) {
+            position = index + i - 1;
+            return position >= size ? IntStream.EOF : text.charAt(offset + position);
+        }
+        if (i < 0) {
+            position = index + i;
+            return position < 0 ? IntStream.EOF : text.charAt(offset + position);
+        }
+        return 0;
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+        // Whole region stays addressable, nothing to release
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        return getText(interval.a, interval.b);
+    }
+
+    /**
+     * Same as {@link #getText(Interval)} without the interval, e.g. for the start and stop index of a token.
+     */
+    String getText(int start, int stop) {
+        stop = Math.min(stop, size - 1);
+        if (start >= size || stop < start) {
+            return "";
+        }
+        return text.subSequence(offset + start, offset + stop + 1).toString();
+    }
+
+    /**
+     * Like {@link #getText(int, int)}, but taken from {@code names}, so repeated identifiers share one string.
+     */
+    String getText(int start, int stop, NamePool names) {
+        stop = Math.min(stop, size - 1);
+        if (start >= size || stop < start) {
+            return "";
+        }
+        return names.intern(text, offset + start, offset + stop + 1);
+    }
+
+    char charAt(int index) {
+        return text.charAt(offset + index);
+    }
+}
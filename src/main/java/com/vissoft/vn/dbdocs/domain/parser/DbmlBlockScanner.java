@@ -0,0 +1,268 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a DBML document into its top-level blocks (Project, Table, Enum, Ref, TableGroup, Note)
+ * without tokenizing it.
+ * <p>
+ * A block starts at the first character that is not whitespace or a comment and ends either at the
+ * brace that closes its body or, for the short {@code Ref: a.id > b.id} form, at the end of the line.
+ * Braces and brackets inside strings, backtick expressions and comments are ignored. Comments between
+ * blocks are not part of any block, so editing them does not change a block's text.
+ * <p>
+ * {@link #incremental(CharSequence)} scans text that is still being appended to, e.g. a request body
+ * read in chunks, returning each block as soon as it is complete. The caller may drop the text before
+ * {@link #position()} and {@link #rebase(int) rebase} the scanner, so only the block being read is buffered.
+ */
+public final class DbmlBlockScanner {
+
+    /**
+     * Character range {@code [start, end)} of one top-level block; {@code line} is the 1-based line of {@code start}.
+     */
+    public record Block(int start, int end, int line) {
+    }
+
+    private final CharSequence text;
+    private int length;
+    private int pos;
+    private int line = 1;
+
+    private DbmlBlockScanner(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    /**
+     * @return the blocks in source order, or {@code null} if the document has unbalanced braces or an
+     * unterminated string/comment, in which case it has to be parsed as a whole
+     */
+    public static List<Block> scan(CharSequence text) {
+        return new DbmlBlockScanner(text).scanBlocks();
+    }
+
+    /**
+     * Scanner for a growing text such as a {@link StringBuilder} the caller keeps appending to:
+     * call {@link #scanAvailable()} after each append and {@link #scanRemaining()} once the text is complete.
+     */
+    public static DbmlBlockScanner incremental(CharSequence growingText) {
+        return new DbmlBlockScanner(growingText);
+    }
+
+    /**
+     * @return the blocks completed since the previous call; a block that may still continue
+     * past the current end of the text is left for a later call
+     */
+    public List<Block> scanAvailable() {
+        length = text.length();
+        List<Block> blocks = new ArrayList<>();
+        while (true) {
+            int resume = pos;
+            int resumeLine = line;
+            skipTrivia();
+            int start = pos;
+            int startLine = line;
+            // A block is final once its closing brace or line end is read; anything cut off by the
+            // end of the text (including the trivia before it) is scanned again next time
+            if (pos >= length || !scanBlock() || (pos == length && text.charAt(pos - 1) != '}')) {
+                pos = resume;
+                line = resumeLine;
+                return blocks;
+            }
+            blocks.add(new Block(start, pos, startLine));
+        }
+    }
+
+    /**
+     * @return the blocks after the last one returned by {@link #scanAvailable()}, or {@code null}
+     * if the rest of the document is not balanced (see {@link #scan(CharSequence)})
+     */
+    public List<Block> scanRemaining() {
+        length = text.length();
+        return scanBlocks();
+    }
+
+    /**
+     * @return offset up to which the text has been scanned; text before it is not read again
+     */
+    public int position() {
+        return pos;
+    }
+
+    /**
+     * Continue on text whose first {@code removed} characters (at most {@link #position()}) were deleted:
+     * later offsets are relative to the shortened text, line numbers keep counting from the start.
+     */
+    public void rebase(int removed) {
+        pos -= removed;
+        length -= removed;
+    }
+
+    private List<Block> scanBlocks() {
+        List<Block> blocks = new ArrayList<>();
+        while (true) {
+            skipTrivia();
+            if (pos >= length) {
+                return blocks;
+            }
+            int start = pos;
+            int startLine = line;
+            if (!scanBlock()) {
+                return null;
+            }
+            blocks.add(new Block(start, pos, startLine));
+        }
+    }
+
+    private boolean scanBlock() {
+        int braces = 0;
+        int brackets = 0;
+        boolean bodySeen = false;
+        boolean headerColon = false;
+        while (pos < length) {
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{' -> {
+                    braces++;
+                    bodySeen = true;
+                }
+                case '}' -> {
+                    if (--braces < 0) {
+                        return false;
+                    }
+                    if (braces == 0) {
+                        pos++;
+                        return true;
+                    }
+                }
+                case '[' -> brackets++;
+                case ']' -> brackets--;
+                case ':' -> headerColon |= braces == 0 && brackets <= 0;
+                case '\n' -> {
+                    if (!bodySeen && headerColon && brackets <= 0) {
+                        // Short form, e.g. "Ref: a.id > b.id": the block ends with its line
+                        return true;
+                    }
+                    line++;
+                }
+                case '\'', '"', '`' -> {
+                    if (!skipQuoted(c)) {
+                        return false;
+                    }
+                    continue;
+                }
+                case '/' -> {
+                    if (startsComment()) {
+                        if (!skipComment()) {
+                            return false;
+                        }
+                        continue;
+                    }
+                }
+                default -> {
+                    // plain character
+                }
+            }
+            pos++;
+        }
+        // End of input: only a short-form block may end here
+        return !bodySeen && headerColon && braces == 0;
+    }
+
+    private void skipTrivia() {
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && startsComment()) {
+                if (!skipComment()) {
+                    // Unterminated comment: leave it to the parser as part of the next block
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean startsComment() {
+        if (pos + 1 >= length) {
+            return false;
+        }
+        char next = text.charAt(pos + 1);
+        return next == '/' || next == '*';
+    }
+
+    private boolean skipComment() {
+        if (text.charAt(pos + 1) == '/') {
+            while (pos < length && text.charAt(pos) != '\n') {
+                pos++;
+            }
+            return true;
+        }
+        int start = pos;
+        int startLine = line;
+        pos += 2;
+        while (pos + 1 < length) {
+            char c = text.charAt(pos);
+            if (c == '*' && text.charAt(pos + 1) == '/') {
+                pos += 2;
+                return true;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            pos++;
+        }
+        pos = start;
+        line = startLine;
+        return false;
+    }
+
+    private boolean skipQuoted(char quote) {
+        if (quote == '\'' && pos + 2 < length && text.charAt(pos + 1) == '\'' && text.charAt(pos + 2) == '\'') {
+            return skipTripleQuoted();
+        }
+        pos++;
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == '\\' && quote != '`') {
+                pos += 2;
+                continue;
+            }
+            if (c == quote) {
+                pos++;
+                return true;
+            }
+            if (c == '\n') {
+                if (quote != '`') {
+                    // Single-line strings cannot span lines
+                    return false;
+                }
+                line++;
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    private boolean skipTripleQuoted() {
+        pos += 3;
+        while (pos + 2 < length) {
+            char c = text.charAt(pos);
+            if (c == '\'' && text.charAt(pos + 1) == '\'' && text.charAt(pos + 2) == '\'') {
+                pos += 3;
+                return true;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            pos++;
+        }
+        return false;
+    }
+}
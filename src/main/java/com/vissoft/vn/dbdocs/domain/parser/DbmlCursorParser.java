@@ -0,0 +1,569 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.vissoft.vn.dbdocs.domain.parser.DBMLLexer.*;
+
+/**
+ * Recursive-descent reader for well-formed DBML, following the parser rules of {@code DBML.g4} rule for
+ * rule over a {@link DbmlTokenizer}. It builds exactly the model {@link DbmlModelListener} builds, but
+ * creates no tokens, parse-tree nodes or intermediate strings; the only allocations are the model itself
+ * and the strings stored in it, which go through a {@link NamePool}.
+ * <p>
+ * It does no error recovery: on the first token the grammar would not accept it gives up and
+ * {@link DbmlModelParser} parses the input with the generated parser instead.
+ */
+@Slf4j
+final class DbmlCursorParser {
+
+    // Thrown to abandon the fast path; carries no stack trace, so it is cheap to throw
+    private static final class Mismatch extends RuntimeException {
+        Mismatch() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Mismatch MISMATCH = new Mismatch();
+
+    // Setting keys the model uses; anything else is matched but ignored
+    private static final String[] KNOWN_SETTING_KEYS = {
+            "pk", "primary key", "unique", "not null", "null", "increment", "default", "note", "ref", "name", "type"
+    };
+
+    private final CharSequence text;
+    private final DbmlTokenizer tokens;
+    private final NamePool names;
+    private final DbmlModel model = new DbmlModel();
+    private final StringBuilder buffer = new StringBuilder();
+
+    private DbmlCursorParser(CharSequence text, int start, int end, NamePool names) {
+        this.text = text;
+        this.tokens = new DbmlTokenizer(text, start, end);
+        this.names = names;
+    }
+
+    /**
+     * @return the model, or {@code null} if {@code text[start, end)} is not well-formed DBML
+     */
+    static DbmlModel tryParse(CharSequence text, int start, int end, NamePool names) {
+        try {
+            return new DbmlCursorParser(text, start, end, names).dbml();
+        } catch (Mismatch e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the name of the table declared by {@code text[start, end)}, read from the header alone,
+     * or {@code null} if the text does not start with a table declaration
+     */
+    static String tableName(CharSequence text, int start, int end, NamePool names) {
+        try {
+            DbmlCursorParser parser = new DbmlCursorParser(text, start, end, names);
+            if (parser.tokens.type != TABLE) {
+                return null;
+            }
+            parser.tokens.advance();
+            return parser.qualifiedName();
+        } catch (Mismatch e) {
+            return null;
+        }
+    }
+
+    private DbmlModel dbml() {
+        while (tokens.type != DbmlTokenizer.EOF) {
+            switch (tokens.type) {
+                case PROJECT -> project();
+                case TABLE -> model.getTables().add(table());
+                case ENUM -> model.getEnums().add(enumDeclaration());
+                case REF -> ref();
+                case TABLEGROUP -> model.getTableGroups().add(tableGroup());
+                case NOTE -> noteDeclaration();
+                default -> throw MISMATCH;
+            }
+        }
+        return model;
+    }
+
+    private void project() {
+        expect(PROJECT);
+        if (isName(tokens.type)) {
+            model.setProjectName(name());
+        }
+        expect(LBRACE);
+        while (tokens.type != RBRACE) {
+            if (startsNoteElement()) {
+                model.setNote(noteElement());
+                continue;
+            }
+            String settingName = name();
+            expect(COLON);
+            if (!isLiteral(tokens.type)) {
+                throw MISMATCH;
+            }
+            if ("database_type".equalsIgnoreCase(settingName)) {
+                model.setDatabaseType(unquoted(tokens.start, tokens.end));
+            }
+            tokens.advance();
+        }
+        tokens.advance();
+    }
+
+    private TableModel table() {
+        expect(TABLE);
+        TableModel table = new TableModel();
+        table.setName(qualifiedName());
+        if (tokens.type == AS) {
+            tokens.advance();
+            table.setAlias(name());
+        }
+        if (tokens.type == LBRACK) {
+            settings((key, valueStart, valueEnd, valueTokens) -> {
+                if ("note".equals(key)) {
+                    table.setNote(settingValue(valueStart, valueEnd, valueTokens));
+                }
+            });
+        }
+        expect(LBRACE);
+        while (tokens.type != RBRACE) {
+            if (startsNoteElement()) {
+                table.setNote(noteElement());
+            } else if (tokens.type == INDEXES && tokens.peek() == LBRACE) {
+                indexes(table);
+            } else {
+                table.getColumns().add(column());
+            }
+        }
+        tokens.advance();
+        return table;
+    }
+
+    private ColumnModel column() {
+        ColumnModel column = new ColumnModel();
+        column.setName(name());
+
+        String dataType = qualifiedName();
+        if (tokens.type == LPAREN) {
+            int paramsStart = tokens.end;
+            tokens.advance();
+            typeParam();
+            while (tokens.type == COMMA) {
+                tokens.advance();
+                typeParam();
+            }
+            if (tokens.type != RPAREN) {
+                throw MISMATCH;
+            }
+            column.setTypeParam(trimmed(paramsStart, tokens.start));
+            tokens.advance();
+        }
+        int arrayDimensions = 0;
+        while (tokens.type == LBRACK && tokens.peek() == RBRACK) {
+            tokens.advance();
+            tokens.advance();
+            arrayDimensions++;
+        }
+        column.setDataType(arrayDimensions == 0 ? dataType : dataType + "[]".repeat(arrayDimensions));
+
+        if (tokens.type == LBRACK) {
+            settings((key, valueStart, valueEnd, valueTokens) -> {
+                switch (key) {
+                    case "pk", "primary key" -> column.setPrimaryKey(true);
+                    case "unique" -> column.setUnique(true);
+                    case "not null" -> column.setNotNull(true);
+                    case "null" -> column.setNotNull(false);
+                    case "increment" -> column.setAutoIncrement(true);
+                    case "default" -> column.setDefaultValue(stripBackticks(settingValue(valueStart, valueEnd, valueTokens)));
+                    case "note" -> column.setNote(settingValue(valueStart, valueEnd, valueTokens));
+                    case "ref" -> column.setReference(valueTokens == 0 ? null : inlineRef(valueStart, valueEnd));
+                    default -> {
+                        // Not represented in the model
+                    }
+                }
+            });
+        }
+        return column;
+    }
+
+    private void typeParam() {
+        if (tokens.type == NUMBER || isName(tokens.type)) {
+            tokens.advance();
+        } else {
+            throw MISMATCH;
+        }
+    }
+
+    /**
+     * Inline reference, accepted in both {@code > users.id} and {@code users.id >} order.
+     */
+    private ColumnModel.RefValue inlineRef(int valueStart, int valueEnd) {
+        DbmlTokenizer value = new DbmlTokenizer(text, valueStart, valueEnd);
+        String cardinality = null;
+        List<String> parts = new ArrayList<>(3);
+        while (value.type != DbmlTokenizer.EOF) {
+            switch (value.type) {
+                case GT, LT, MINUS, LTGT -> cardinality = names.intern(text, value.start, value.end);
+                case DOT -> {
+                    // separator only
+                }
+                default -> parts.add(unquoted(value.start, value.end));
+            }
+            value.advance();
+        }
+        if (parts.size() < 2) {
+            log.warn("Could not parse inline reference: {}", text.subSequence(valueStart, valueEnd));
+            return null;
+        }
+        return ColumnModel.RefValue.builder()
+                .tableName(join(parts, 0, parts.size() - 1))
+                .columnName(parts.get(parts.size() - 1))
+                .cardinality(cardinality)
+                .build();
+    }
+
+    private void indexes(TableModel table) {
+        expect(INDEXES);
+        expect(LBRACE);
+        while (tokens.type != RBRACE) {
+            IndexModel index = new IndexModel();
+            if (tokens.type == LPAREN) {
+                tokens.advance();
+                index.getColumns().add(indexColumn());
+                while (tokens.type == COMMA) {
+                    tokens.advance();
+                    index.getColumns().add(indexColumn());
+                }
+                expect(RPAREN);
+            } else {
+                index.getColumns().add(indexColumn());
+            }
+            if (tokens.type == LBRACK) {
+                settings((key, valueStart, valueEnd, valueTokens) -> {
+                    switch (key) {
+                        case "name" -> index.setName(settingValue(valueStart, valueEnd, valueTokens));
+                        case "unique", "pk" -> index.setUnique(true);
+                        case "type" -> index.setType(settingValue(valueStart, valueEnd, valueTokens));
+                        case "note" -> index.setNote(settingValue(valueStart, valueEnd, valueTokens));
+                        default -> {
+                            // Not represented in the model
+                        }
+                    }
+                });
+            }
+            table.getIndexes().add(index);
+        }
+        tokens.advance();
+    }
+
+    private IndexModel.IndexColumn indexColumn() {
+        String columnName;
+        if (tokens.type == EXPRESSION) {
+            columnName = names.intern(text, tokens.start, tokens.end);
+            tokens.advance();
+        } else {
+            columnName = name();
+        }
+        return IndexModel.IndexColumn.builder().name(columnName).build();
+    }
+
+    private void ref() {
+        expect(REF);
+        String refName = isName(tokens.type) ? name() : null;
+        if (tokens.type == COLON) {
+            tokens.advance();
+            model.getRefs().add(refRelation(refName));
+            return;
+        }
+        expect(LBRACE);
+        while (tokens.type != RBRACE) {
+            model.getRefs().add(refRelation(refName));
+        }
+        tokens.advance();
+    }
+
+    private RefModel refRelation(String refName) {
+        RefModel.EndpointRef from = refEndpoint();
+        if (tokens.type != GT && tokens.type != LT && tokens.type != MINUS && tokens.type != LTGT) {
+            throw MISMATCH;
+        }
+        String cardinality = names.intern(text, tokens.start, tokens.end);
+        tokens.advance();
+        RefModel.EndpointRef to = refEndpoint();
+        if (tokens.type == LBRACK) {
+            settings((key, valueStart, valueEnd, valueTokens) -> {
+                // Relationship settings (delete/update actions) are not represented in the model
+            });
+        }
+        return RefModel.builder().name(refName).from(from).cardinality(cardinality).to(to).build();
+    }
+
+    private RefModel.EndpointRef refEndpoint() {
+        List<String> path = new ArrayList<>(3);
+        path.add(name());
+        while (tokens.type == DOT && isName(tokens.peek())) {
+            tokens.advance();
+            path.add(name());
+        }
+        if (tokens.type == DOT && tokens.peek() == LPAREN) {
+            // Composite endpoint: table.(col1, col2)
+            tokens.advance();
+            tokens.advance();
+            List<String> columns = new ArrayList<>();
+            columns.add(name());
+            while (tokens.type == COMMA) {
+                tokens.advance();
+                columns.add(name());
+            }
+            expect(RPAREN);
+            return RefModel.EndpointRef.builder()
+                    .tableName(join(path, 0, path.size()))
+                    .columnName(String.join(",", columns))
+                    .build();
+        }
+        return RefModel.EndpointRef.builder()
+                .tableName(join(path, 0, path.size() - 1))
+                .columnName(path.get(path.size() - 1))
+                .build();
+    }
+
+    private EnumModel enumDeclaration() {
+        expect(ENUM);
+        EnumModel enumModel = new EnumModel();
+        enumModel.setName(qualifiedName());
+        expect(LBRACE);
+        while (tokens.type != RBRACE) {
+            String valueName = name();
+            String[] note = new String[1];
+            if (tokens.type == LBRACK) {
+                settings((key, valueStart, valueEnd, valueTokens) -> {
+                    if ("note".equals(key)) {
+                        note[0] = settingValue(valueStart, valueEnd, valueTokens);
+                    }
+                });
+            }
+            enumModel.getValues().add(EnumModel.EnumValue.builder().name(valueName).note(note[0]).build());
+        }
+        tokens.advance();
+        return enumModel;
+    }
+
+    private TableGroupModel tableGroup() {
+        expect(TABLEGROUP);
+        TableGroupModel group = new TableGroupModel();
+        group.setName(name());
+        expect(LBRACE);
+        while (tokens.type != RBRACE) {
+            if (startsNoteElement()) {
+                noteElement();
+            } else {
+                group.getTableNames().add(qualifiedName());
+            }
+        }
+        tokens.advance();
+        return group;
+    }
+
+    private void noteDeclaration() {
+        expect(NOTE);
+        name();
+        expect(LBRACE);
+        stringLiteral();
+        expect(RBRACE);
+    }
+
+    private boolean startsNoteElement() {
+        return tokens.type == NOTE && (tokens.peek() == COLON || tokens.peek() == LBRACE);
+    }
+
+    private String noteElement() {
+        expect(NOTE);
+        if (tokens.type == COLON) {
+            tokens.advance();
+            return stringLiteral();
+        }
+        expect(LBRACE);
+        String note = stringLiteral();
+        expect(RBRACE);
+        return note;
+    }
+
+    private String stringLiteral() {
+        if (tokens.type != STRING && tokens.type != TRIPLE_STRING) {
+            throw MISMATCH;
+        }
+        String value = unquoted(tokens.start, tokens.end);
+        tokens.advance();
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface SettingHandler {
+        void accept(String key, int valueStart, int valueEnd, int valueTokens);
+    }
+
+    private void settings(SettingHandler handler) {
+        expect(LBRACK);
+        setting(handler);
+        while (tokens.type == COMMA) {
+            tokens.advance();
+            setting(handler);
+        }
+        expect(RBRACK);
+    }
+
+    private void setting(SettingHandler handler) {
+        String key = settingKey();
+        int valueStart = -1;
+        int valueEnd = -1;
+        int valueTokens = 0;
+        if (tokens.type == COLON) {
+            tokens.advance();
+            valueStart = tokens.start;
+            while (tokens.type != COMMA && tokens.type != LBRACK && tokens.type != RBRACK
+                    && tokens.type != DbmlTokenizer.EOF) {
+                valueEnd = tokens.end;
+                valueTokens++;
+                tokens.advance();
+            }
+            if (valueTokens == 0) {
+                throw MISMATCH;
+            }
+        }
+        handler.accept(key, valueStart, valueEnd, valueTokens);
+    }
+
+    /**
+     * Setting names are matched case-insensitively, multi-word names joined by a single space.
+     * Known keys are returned as constants, so matching a setting allocates nothing.
+     */
+    private String settingKey() {
+        if (!isName(tokens.type)) {
+            throw MISMATCH;
+        }
+        buffer.setLength(0);
+        while (isName(tokens.type)) {
+            if (!buffer.isEmpty()) {
+                buffer.append(' ');
+            }
+            for (int i = tokens.start; i < tokens.end; i++) {
+                buffer.append(Character.toLowerCase(text.charAt(i)));
+            }
+            tokens.advance();
+        }
+        for (String known : KNOWN_SETTING_KEYS) {
+            if (known.contentEquals(buffer)) {
+                return known;
+            }
+        }
+        return buffer.toString();
+    }
+
+    private String settingValue(int valueStart, int valueEnd, int valueTokens) {
+        if (valueTokens == 0) {
+            return null;
+        }
+        return valueTokens == 1 ? unquoted(valueStart, valueEnd) : names.intern(text, valueStart, valueEnd);
+    }
+
+    private String qualifiedName() {
+        String first = name();
+        if (tokens.type != DOT || !isName(tokens.peek())) {
+            return first;
+        }
+        buffer.setLength(0);
+        buffer.append(first);
+        while (tokens.type == DOT && isName(tokens.peek())) {
+            tokens.advance();
+            buffer.append('.').append(name());
+        }
+        return names.intern(buffer, 0, buffer.length());
+    }
+
+    private String name() {
+        if (!isName(tokens.type)) {
+            throw MISMATCH;
+        }
+        String value = tokens.type == STRING
+                ? names.intern(text, tokens.start + 1, tokens.end - 1)
+                : names.intern(text, tokens.start, tokens.end);
+        tokens.advance();
+        return value;
+    }
+
+    private void expect(int type) {
+        if (tokens.type != type) {
+            throw MISMATCH;
+        }
+        tokens.advance();
+    }
+
+    private static boolean isName(int type) {
+        return switch (type) {
+            case IDENTIFIER, STRING, PROJECT, TABLE, TABLEGROUP, ENUM, REF, NOTE, INDEXES, AS -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isLiteral(int type) {
+        return switch (type) {
+            case STRING, TRIPLE_STRING, NUMBER, EXPRESSION, COLOR, IDENTIFIER -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Same rule as {@code DbmlModelListener.unquotedText}, applied to a source range.
+     */
+    private String unquoted(int start, int end) {
+        int length = end - start;
+        if (length >= 6 && startsWithTripleQuote(start) && startsWithTripleQuote(end - 3)) {
+            return names.intern(text, start + 3, end - 3);
+        }
+        if (length >= 2) {
+            char first = text.charAt(start);
+            if ((first == '\'' || first == '"') && text.charAt(end - 1) == first) {
+                return names.intern(text, start + 1, end - 1);
+            }
+        }
+        return names.intern(text, start, end);
+    }
+
+    private boolean startsWithTripleQuote(int index) {
+        return text.charAt(index) == '\'' && text.charAt(index + 1) == '\'' && text.charAt(index + 2) == '\'';
+    }
+
+    private String trimmed(int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return names.intern(text, start, end);
+    }
+
+    private static String stripBackticks(String value) {
+        if (value != null && value.length() >= 2 && value.startsWith("`") && value.endsWith("`")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private String join(List<String> parts, int from, int to) {
+        if (to - from == 1) {
+            return parts.get(from);
+        }
+        buffer.setLength(0);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                buffer.append('.');
+            }
+            buffer.append(parts.get(i));
+        }
+        return names.intern(buffer, 0, buffer.length());
+    }
+}
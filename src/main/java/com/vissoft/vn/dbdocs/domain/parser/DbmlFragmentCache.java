@@ -0,0 +1,44 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of parsed top-level blocks keyed by the 128-bit fingerprint of the block text.
+ * <p>
+ * Consecutive changelogs of a project share almost all of their blocks, so parsing a new snapshot only
+ * has to parse the blocks that were edited. Cached fragments are frozen, so the models assembled from
+ * them share their tables instead of copying them.
+ */
+public class DbmlFragmentCache {
+
+    public record Fingerprint(long high, long low) {
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<Fingerprint, DbmlModel> fragments;
+
+    public DbmlFragmentCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.fragments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, DbmlModel> eldest) {
+                return size() > DbmlFragmentCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized DbmlModel get(Fingerprint fingerprint) {
+        return fragments.get(fingerprint);
+    }
+
+    public synchronized void put(Fingerprint fingerprint, DbmlModel fragment) {
+        fragments.put(fingerprint, fragment);
+    }
+
+    public synchronized int size() {
+        return fragments.size();
+    }
+}
@@ -0,0 +1,437 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.*;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds a {@link DbmlModel} while {@link DBMLParser} is running.
+ * <p>
+ * Each top-level statement is converted as soon as its rule exits and is then detached
+ * from the root context, so the parse tree never holds more than one block at a time
+ * regardless of the input size.
+ * <p>
+ * Repeated elements (table elements, settings, name parts) are read by walking the children of
+ * their context: the generated list getters copy the matching children into a new list on every call.
+ */
+@Slf4j
+class DbmlModelListener extends DBMLBaseListener {
+
+    private final CharSequenceCharStream input;
+    private final NamePool names;
+    private final DbmlModel model = new DbmlModel();
+
+    DbmlModelListener(CharSequenceCharStream input, NamePool names) {
+        this.input = input;
+        this.names = names;
+    }
+
+    DbmlModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void exitStatement(DBMLParser.StatementContext ctx) {
+        try {
+            if (ctx.tableDeclaration() != null) {
+                TableModel table = toTable(ctx.tableDeclaration());
+                if (table != null) {
+                    model.getTables().add(table);
+                }
+            } else if (ctx.refDeclaration() != null) {
+                model.getRefs().addAll(toRefs(ctx.refDeclaration()));
+            } else if (ctx.enumDeclaration() != null) {
+                EnumModel enumModel = toEnum(ctx.enumDeclaration());
+                if (enumModel != null) {
+                    model.getEnums().add(enumModel);
+                }
+            } else if (ctx.tableGroupDeclaration() != null) {
+                TableGroupModel group = toTableGroup(ctx.tableGroupDeclaration());
+                if (group != null) {
+                    model.getTableGroups().add(group);
+                }
+            } else if (ctx.projectDeclaration() != null) {
+                applyProject(ctx.projectDeclaration());
+            }
+        } catch (RuntimeException e) {
+            // Error recovery can leave partially matched contexts behind; drop the block, keep the rest
+            log.warn("Skipping malformed DBML block at line {}: {}", ctx.getStart().getLine(), e.getMessage());
+        }
+        detach(ctx);
+    }
+
+    private void detach(ParserRuleContext ctx) {
+        ParserRuleContext parent = ctx.getParent();
+        if (parent != null && parent.getChildCount() > 0
+                && parent.getChild(parent.getChildCount() - 1) == ctx) {
+            parent.removeLastChild();
+        }
+    }
+
+    private void applyProject(DBMLParser.ProjectDeclarationContext ctx) {
+        if (ctx.name() != null) {
+            model.setProjectName(name(ctx.name()));
+        }
+        for (DBMLParser.ProjectElementContext element : ctx.projectElement()) {
+            if (element.noteElement() != null) {
+                model.setNote(note(element.noteElement()));
+            } else if (element.projectSetting() != null) {
+                DBMLParser.ProjectSettingContext setting = element.projectSetting();
+                if (setting.name() == null || setting.literal() == null) {
+                    continue;
+                }
+                if ("database_type".equalsIgnoreCase(name(setting.name()))) {
+                    model.setDatabaseType(unquotedText(setting.literal().getStart()));
+                }
+            }
+        }
+    }
+
+    private TableModel toTable(DBMLParser.TableDeclarationContext ctx) {
+        if (ctx.qualifiedName() == null) {
+            return null;
+        }
+        TableModel table = new TableModel();
+        table.setName(qualifiedName(ctx.qualifiedName()));
+        if (ctx.tableAlias() != null && ctx.tableAlias().name() != null) {
+            table.setAlias(name(ctx.tableAlias().name()));
+        }
+        if (ctx.settings() != null) {
+            for (ParseTree child : children(ctx.settings())) {
+                if (child instanceof DBMLParser.SettingContext setting && "note".equals(settingKey(setting))) {
+                    table.setNote(settingValue(setting));
+                }
+            }
+        }
+
+        for (ParseTree child : children(ctx)) {
+            if (!(child instanceof DBMLParser.TableElementContext element) || element.getChildCount() == 0) {
+                continue;
+            }
+            ParseTree content = element.getChild(0);
+            if (content instanceof DBMLParser.ColumnDeclarationContext columnDeclaration) {
+                ColumnModel column = toColumn(columnDeclaration);
+                if (column != null) {
+                    table.getColumns().add(column);
+                }
+            } else if (content instanceof DBMLParser.IndexesBlockContext indexesBlock) {
+                for (ParseTree indexChild : children(indexesBlock)) {
+                    if (indexChild instanceof DBMLParser.IndexDeclarationContext index) {
+                        IndexModel indexModel = toIndex(index);
+                        if (indexModel != null) {
+                            table.getIndexes().add(indexModel);
+                        }
+                    }
+                }
+            } else if (content instanceof DBMLParser.NoteElementContext noteElement) {
+                table.setNote(note(noteElement));
+            }
+        }
+        return table;
+    }
+
+    private ColumnModel toColumn(DBMLParser.ColumnDeclarationContext ctx) {
+        DBMLParser.NameContext name = ctx.name();
+        DBMLParser.DataTypeContext type = ctx.dataType();
+        if (name == null || type == null || type.qualifiedName() == null) {
+            return null;
+        }
+        String dataType = qualifiedName(type.qualifiedName());
+        DBMLParser.TypeParamsContext typeParams = null;
+        for (ParseTree child : children(type)) {
+            if (child instanceof DBMLParser.TypeParamsContext params) {
+                typeParams = params;
+            } else if (child instanceof DBMLParser.ArraySuffixContext) {
+                dataType += "[]";
+            }
+        }
+
+        ColumnModel column = ColumnModel.builder()
+                .name(name(name))
+                .dataType(dataType)
+                .typeParam(typeParam(typeParams))
+                .build();
+
+        DBMLParser.SettingsContext settings = ctx.settings();
+        if (settings == null) {
+            return column;
+        }
+        for (ParseTree child : children(settings)) {
+            if (!(child instanceof DBMLParser.SettingContext setting)) {
+                continue;
+            }
+            switch (settingKey(setting)) {
+                case "pk", "primary key" -> column.setPrimaryKey(true);
+                case "unique" -> column.setUnique(true);
+                case "not null" -> column.setNotNull(true);
+                case "null" -> column.setNotNull(false);
+                case "increment" -> column.setAutoIncrement(true);
+                case "default" -> column.setDefaultValue(stripBackticks(settingValue(setting)));
+                case "note" -> column.setNote(settingValue(setting));
+                case "ref" -> column.setReference(toInlineRef(setting.settingValue()));
+                default -> log.trace("Ignoring column setting '{}' on {}", settingKey(setting), column.getName());
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Raw text between the parentheses, e.g. {@code 10,2} for {@code decimal(10,2)}.
+     */
+    private String typeParam(DBMLParser.TypeParamsContext ctx) {
+        if (ctx == null) {
+            return null;
+        }
+        Token open = ctx.getStart();
+        Token close = ctx.getStop();
+        if (open.getType() == DBMLParser.LPAREN && close != null && close.getType() == DBMLParser.RPAREN) {
+            int start = open.getStopIndex() + 1;
+            int stop = close.getStartIndex() - 1;
+            // Same as String.trim() on the text between the parentheses
+            while (start <= stop && input.charAt(start) <= ' ') {
+                start++;
+            }
+            while (stop >= start && input.charAt(stop) <= ' ') {
+                stop--;
+            }
+            return input.getText(start, stop, names);
+        }
+        List<String> params = new ArrayList<>();
+        for (DBMLParser.TypeParamContext param : ctx.typeParam()) {
+            params.add(param.getText());
+        }
+        return String.join(",", params);
+    }
+
+    /**
+     * Inline reference, accepted in both {@code > users.id} and {@code users.id >} order.
+     */
+    private ColumnModel.RefValue toInlineRef(DBMLParser.SettingValueContext ctx) {
+        if (ctx == null) {
+            return null;
+        }
+        String cardinality = null;
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < ctx.getChildCount(); i++) {
+            ParseTree child = ctx.getChild(i);
+            if (!(child instanceof TerminalNode terminal)) {
+                continue;
+            }
+            Token token = terminal.getSymbol();
+            switch (token.getType()) {
+                case DBMLParser.GT, DBMLParser.LT, DBMLParser.MINUS, DBMLParser.LTGT -> cardinality = token.getText();
+                case DBMLParser.DOT -> {
+                    // separator only
+                }
+                default -> parts.add(unquotedText(token));
+            }
+        }
+        if (parts.size() < 2) {
+            log.warn("Could not parse inline reference: {}", ctx.getText());
+            return null;
+        }
+        return ColumnModel.RefValue.builder()
+                .tableName(String.join(".", parts.subList(0, parts.size() - 1)))
+                .columnName(parts.get(parts.size() - 1))
+                .cardinality(cardinality)
+                .build();
+    }
+
+    private IndexModel toIndex(DBMLParser.IndexDeclarationContext ctx) {
+        if (ctx.indexColumns() == null) {
+            return null;
+        }
+        IndexModel index = new IndexModel();
+        for (ParseTree child : children(ctx.indexColumns())) {
+            if (child instanceof DBMLParser.IndexColumnContext column) {
+                String columnName = column.name() != null ? name(column.name()) : text(column.getStart());
+                index.getColumns().add(IndexModel.IndexColumn.builder().name(columnName).build());
+            }
+        }
+        if (ctx.settings() != null) {
+            for (ParseTree child : children(ctx.settings())) {
+                if (!(child instanceof DBMLParser.SettingContext setting)) {
+                    continue;
+                }
+                switch (settingKey(setting)) {
+                    case "name" -> index.setName(settingValue(setting));
+                    case "unique", "pk" -> index.setUnique(true);
+                    case "type" -> index.setType(settingValue(setting));
+                    case "note" -> index.setNote(settingValue(setting));
+                    default -> log.trace("Ignoring index setting '{}'", settingKey(setting));
+                }
+            }
+        }
+        return index;
+    }
+
+    private List<RefModel> toRefs(DBMLParser.RefDeclarationContext ctx) {
+        String refName = ctx.name() != null ? name(ctx.name()) : null;
+        List<RefModel> refs = new ArrayList<>();
+        for (DBMLParser.RefRelationContext relation : ctx.refRelation()) {
+            if (relation.refEndpoint().size() < 2 || relation.relation() == null) {
+                continue;
+            }
+            refs.add(RefModel.builder()
+                    .name(refName)
+                    .from(toEndpoint(relation.refEndpoint(0)))
+                    .cardinality(relation.relation().getText())
+                    .to(toEndpoint(relation.refEndpoint(1)))
+                    .build());
+        }
+        return refs;
+    }
+
+    private RefModel.EndpointRef toEndpoint(DBMLParser.RefEndpointContext ctx) {
+        List<DBMLParser.NameContext> path = ctx.qualifiedName().name();
+        if (ctx.LPAREN() != null) {
+            // Composite endpoint: table.(col1, col2)
+            List<String> columns = new ArrayList<>();
+            for (DBMLParser.NameContext column : ctx.name()) {
+                columns.add(name(column));
+            }
+            return RefModel.EndpointRef.builder()
+                    .tableName(joinNames(path, 0, path.size()))
+                    .columnName(String.join(",", columns))
+                    .build();
+        }
+        return RefModel.EndpointRef.builder()
+                .tableName(joinNames(path, 0, path.size() - 1))
+                .columnName(name(path.get(path.size() - 1)))
+                .build();
+    }
+
+    private EnumModel toEnum(DBMLParser.EnumDeclarationContext ctx) {
+        if (ctx.qualifiedName() == null) {
+            return null;
+        }
+        EnumModel enumModel = new EnumModel();
+        enumModel.setName(qualifiedName(ctx.qualifiedName()));
+        for (DBMLParser.EnumValueContext value : ctx.enumValue()) {
+            String note = null;
+            if (value.settings() != null) {
+                for (DBMLParser.SettingContext setting : value.settings().setting()) {
+                    if ("note".equals(settingKey(setting))) {
+                        note = settingValue(setting);
+                    }
+                }
+            }
+            enumModel.getValues().add(EnumModel.EnumValue.builder().name(name(value.name())).note(note).build());
+        }
+        return enumModel;
+    }
+
+    private TableGroupModel toTableGroup(DBMLParser.TableGroupDeclarationContext ctx) {
+        if (ctx.name() == null) {
+            return null;
+        }
+        TableGroupModel group = new TableGroupModel();
+        group.setName(name(ctx.name()));
+        for (DBMLParser.TableGroupElementContext element : ctx.tableGroupElement()) {
+            if (element.qualifiedName() != null) {
+                group.getTableNames().add(qualifiedName(element.qualifiedName()));
+            }
+        }
+        return group;
+    }
+
+    private static List<ParseTree> children(ParserRuleContext ctx) {
+        return ctx.children != null ? ctx.children : List.of();
+    }
+
+    private String note(DBMLParser.NoteElementContext ctx) {
+        return ctx.stringLiteral() != null ? unquotedText(ctx.stringLiteral().getStart()) : null;
+    }
+
+    /**
+     * Setting keys are matched case-insensitively, multi-word keys are joined by a single space.
+     */
+    private String settingKey(DBMLParser.SettingContext ctx) {
+        // settingName: name+, each name a single token
+        DBMLParser.SettingNameContext settingName = ctx.settingName();
+        if (settingName.getChildCount() == 1) {
+            return text(settingName.getStart()).toLowerCase(Locale.ROOT);
+        }
+        StringBuilder key = new StringBuilder();
+        for (ParseTree name : children(settingName)) {
+            if (!key.isEmpty()) {
+                key.append(' ');
+            }
+            key.append(name instanceof ParserRuleContext context ? text(context.getStart()) : name.getText());
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private String settingValue(DBMLParser.SettingContext ctx) {
+        DBMLParser.SettingValueContext value = ctx.settingValue();
+        if (value == null || value.getStart() == null || value.getStop() == null) {
+            return null;
+        }
+        if (value.getChildCount() == 1) {
+            return unquotedText(value.getStart());
+        }
+        return input.getText(value.getStart().getStartIndex(), value.getStop().getStopIndex());
+    }
+
+    private String qualifiedName(DBMLParser.QualifiedNameContext ctx) {
+        // name (DOT name)*
+        if (ctx.getChildCount() == 1 && ctx.getChild(0) instanceof DBMLParser.NameContext name) {
+            return name(name);
+        }
+        List<DBMLParser.NameContext> names = ctx.name();
+        return joinNames(names, 0, names.size());
+    }
+
+    private String joinNames(List<DBMLParser.NameContext> names, int from, int to) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                joined.append('.');
+            }
+            joined.append(name(names.get(i)));
+        }
+        return joined.toString();
+    }
+
+    private String name(DBMLParser.NameContext ctx) {
+        Token token = ctx.getStart();
+        return token.getType() == DBMLParser.STRING ? unquotedText(token) : text(token);
+    }
+
+    private String text(Token token) {
+        return input.getText(token.getStartIndex(), token.getStopIndex(), names);
+    }
+
+    /**
+     * Token text without its string quotes ({@code '...'}, {@code "..."}, {@code '''...'''}), taken from
+     * the name pool; backtick expressions are kept as-is.
+     */
+    private String unquotedText(Token token) {
+        int start = token.getStartIndex();
+        int stop = token.getStopIndex();
+        int length = stop - start + 1;
+        char first = length >= 2 ? input.charAt(start) : 0;
+        if (first == '\'' && length >= 6 && input.charAt(start + 1) == '\'' && input.charAt(start + 2) == '\''
+                && input.charAt(stop) == '\'' && input.charAt(stop - 1) == '\'' && input.charAt(stop - 2) == '\'') {
+            return input.getText(start + 3, stop - 3, names);
+        }
+        if ((first == '\'' || first == '"') && input.charAt(stop) == first) {
+            return input.getText(start + 1, stop - 1, names);
+        }
+        return input.getText(start, stop, names);
+    }
+
+    private static String stripBackticks(String text) {
+        if (text != null && text.length() >= 2 && text.startsWith("`") && text.endsWith("`")) {
+            return text.substring(1, text.length() - 1);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,204 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+
+/**
+ * Single-pass DBML parser.
+ * <p>
+ * Well-formed input is read by {@link DbmlCursorParser}, a hand-written recursive-descent reader that
+ * follows {@code DBML.g4} without building tokens or a parse tree. Anything it rejects is parsed by the
+ * parser generated from the grammar, in two stages: the fast SLL prediction mode with a bail-out error
+ * strategy first, and only if that fails (ambiguous input or a syntax error) a second pass in full LL
+ * mode with error recovery, so malformed blocks are reported and skipped instead of failing the whole document.
+ * <p>
+ * Instances are stateless and thread-safe; the ATN/DFA caches are shared by all generated parsers.
+ */
+@Slf4j
+public class DbmlModelParser {
+
+    private static final int MAX_LOGGED_SYNTAX_ERRORS = 20;
+
+    public DbmlModel parse(String content) {
+        return parse(content, 0, content.length(), 1, new NamePool());
+    }
+
+    /**
+     * Parse a fragment of a larger document without copying it.
+     *
+     * @param content   the whole document, e.g. a {@code String} or a decoded {@code CharBuffer}
+     * @param start     offset of the first character of the fragment
+     * @param end       offset after the last character of the fragment
+     * @param firstLine line number of {@code content[start]}, used in syntax error messages
+     * @param names     pool the strings of the model are taken from; share it across the fragments of one document
+     */
+    public DbmlModel parse(CharSequence content, int start, int end, int firstLine, NamePool names) {
+        DbmlModel model = DbmlCursorParser.tryParse(content, start, end, names);
+        if (model != null) {
+            return model;
+        }
+        log.debug("DBML fragment is not well-formed, falling back to the generated parser");
+        return parseWithRecovery(new CharSequenceCharStream(content, start, end), firstLine, names, new SyntaxErrorLogger());
+    }
+
+    /**
+     * Like {@link #parse(CharSequence, int, int, int, NamePool)}, but for validating input instead of
+     * tolerating it: a fragment with syntax errors is rejected rather than parsed with the malformed parts skipped.
+     *
+     * @return the model, or {@code null} if the fragment has syntax errors (they are logged)
+     */
+    public DbmlModel parseStrict(CharSequence content, int start, int end, int firstLine, NamePool names) {
+        DbmlModel model = DbmlCursorParser.tryParse(content, start, end, names);
+        if (model != null) {
+            return model;
+        }
+        // The cursor parser rejects a few grammar-valid inputs too, so let the generated parser decide
+        SyntaxErrorLogger errors = new SyntaxErrorLogger();
+        model = parseWithRecovery(new CharSequenceCharStream(content, start, end), firstLine, names, errors);
+        return errors.count == 0 ? model : null;
+    }
+
+    /**
+     * Parses with the generated parser only, as for input {@link DbmlCursorParser} rejects. Malformed blocks
+     * are reported and skipped like in {@link #parse(String)}.
+     */
+    public DbmlModel parseWithGrammar(CharSequence content) {
+        return parseWithRecovery(new CharSequenceCharStream(content, 0, content.length()), 1, new NamePool(),
+                new SyntaxErrorLogger());
+    }
+
+    /**
+     * Read only the header of a block, see {@link DbmlBlockScanner}.
+     *
+     * @return the table name if the block is a table declaration, otherwise {@code null}
+     */
+    public String tableName(CharSequence content, int start, int end, NamePool names) {
+        return DbmlCursorParser.tableName(content, start, end, names);
+    }
+
+    private DbmlModel parseWithRecovery(CharSequenceCharStream input, int firstLine, NamePool names,
+                                        SyntaxErrorLogger errors) {
+        try {
+            return parse(input, firstLine, names, true, errors);
+        } catch (ParseCancellationException e) {
+            log.debug("SLL parse failed, retrying DBML parse in LL mode with error recovery");
+        }
+        // Only errors of the LL pass count: SLL also bails out on input that full LL parses fine
+        errors.count = 0;
+        input.seek(0);
+        return parse(input, firstLine, names, false, errors);
+    }
+
+    private DbmlModel parse(CharSequenceCharStream input, int firstLine, NamePool names, boolean fast,
+                            SyntaxErrorLogger errors) {
+        DBMLLexer lexer = new DBMLLexer(input);
+        lexer.removeErrorListeners();
+        lexer.setLine(firstLine);
+        DbmlModelListener listener = new DbmlModelListener(input, names);
+        StatementParser parser;
+        if (fast) {
+            // Tokens are only needed until the enclosing statement is converted, so do not buffer the whole file
+            parser = new StatementParser(new UnbufferedTokenStream<>(lexer), listener, true);
+            parser.removeErrorListeners();
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        } else {
+            parser = new StatementParser(new CommonTokenStream(lexer), listener, false);
+            parser.removeErrorListeners();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        }
+        parser.addErrorListener(errors);
+
+        parser.dbml();
+        if (errors.count > 0) {
+            log.warn("DBML parsed with {} syntax error(s); malformed blocks were skipped", errors.count);
+        }
+        return listener.getModel();
+    }
+
+    /**
+     * Hands each finished statement to the listener directly. Registering the listener with
+     * {@link Parser#addParseListener} would dispatch enter/exit events for every rule, which costs
+     * more than the model building itself on large schemas.
+     * <p>
+     * With {@code pruned} set, the tree only keeps what {@link DbmlModelListener} reads: punctuation outside
+     * setting values and the token under a {@code name} are consumed without a terminal node (the listener
+     * takes names from the context's start token). Only for the SLL pass, whose bail-out strategy never
+     * adds error nodes.
+     */
+    private static final class StatementParser extends DBMLParser {
+        private final DbmlModelListener listener;
+        private final boolean pruned;
+
+        StatementParser(TokenStream input, DbmlModelListener listener, boolean pruned) {
+            super(input);
+            this.listener = listener;
+            this.pruned = pruned;
+        }
+
+        @Override
+        public Token consume() {
+            if (!pruned) {
+                return super.consume();
+            }
+            Token token = getCurrentToken();
+            if (token.getType() != Token.EOF) {
+                getInputStream().consume();
+            }
+            if (!(_ctx instanceof NameContext) && (_ctx instanceof SettingValueContext || !isPunctuation(token))) {
+                addChild(_ctx, createTerminalNode(_ctx, token));
+            }
+            return token;
+        }
+
+        @Override
+        protected void addContextToParseTree() {
+            ParserRuleContext parent = (ParserRuleContext) _ctx.parent;
+            if (parent != null) {
+                addChild(parent, _ctx);
+            }
+        }
+
+        @Override
+        public void exitRule() {
+            ParserRuleContext finished = _ctx;
+            super.exitRule();
+            if (finished instanceof StatementContext statement) {
+                listener.exitStatement(statement);
+            }
+        }
+
+        private static void addChild(ParserRuleContext parent, ParseTree child) {
+            if (parent.children == null) {
+                // Most rules have one or two children; ArrayList would allocate room for ten on the first add
+                parent.children = new ArrayList<>(2);
+            }
+            parent.children.add(child);
+        }
+
+        private static boolean isPunctuation(Token token) {
+            return switch (token.getType()) {
+                case COMMA, COLON, DOT, LBRACK, RBRACK, LBRACE, RBRACE -> true;
+                default -> false;
+            };
+        }
+    }
+
+    private static final class SyntaxErrorLogger extends BaseErrorListener {
+        private int count;
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            if (++count <= MAX_LOGGED_SYNTAX_ERRORS) {
+                log.warn("DBML syntax error at {}:{} - {}", line, charPositionInLine, msg);
+            }
+        }
+    }
+}
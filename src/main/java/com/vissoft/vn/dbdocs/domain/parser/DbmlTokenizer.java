@@ -0,0 +1,261 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Cursor-based DBML tokenizer that follows the lexer rules of {@code DBML.g4} but does not create
+ * token objects or strings: the current token is exposed as a type (the {@link DBMLLexer} constants)
+ * and a {@code [start, end)} range of the source, with one token of lookahead.
+ * <p>
+ * Input the grammar would only accept through its catch-all {@code OTHER} rule (stray characters,
+ * unterminated strings or comments) is reported as {@link DBMLLexer#OTHER}.
+ */
+final class DbmlTokenizer {
+
+    static final int EOF = Token.EOF;
+
+    private final CharSequence text;
+    private final int limit;
+    private int pos;
+
+    // Current token
+    int type;
+    int start;
+    int end;
+
+    // Lookahead token
+    private int nextType;
+    private int nextStart;
+    private int nextEnd;
+
+    DbmlTokenizer(CharSequence text, int start, int end) {
+        this.text = text;
+        this.limit = end;
+        this.pos = start;
+        scan();
+        advance();
+    }
+
+    int peek() {
+        return nextType;
+    }
+
+    void advance() {
+        type = nextType;
+        start = nextStart;
+        end = nextEnd;
+        if (type != EOF) {
+            scan();
+        }
+    }
+
+    private void scan() {
+        skipTrivia();
+        nextStart = pos;
+        if (pos >= limit) {
+            nextType = EOF;
+            nextEnd = pos;
+            return;
+        }
+        char c = text.charAt(pos);
+        nextType = switch (c) {
+            case '{' -> single(DBMLLexer.LBRACE);
+            case '}' -> single(DBMLLexer.RBRACE);
+            case '[' -> single(DBMLLexer.LBRACK);
+            case ']' -> single(DBMLLexer.RBRACK);
+            case '(' -> single(DBMLLexer.LPAREN);
+            case ')' -> single(DBMLLexer.RPAREN);
+            case ':' -> single(DBMLLexer.COLON);
+            case ',' -> single(DBMLLexer.COMMA);
+            case '.' -> single(DBMLLexer.DOT);
+            case '>' -> single(DBMLLexer.GT);
+            case '<' -> {
+                if (pos + 1 < limit && text.charAt(pos + 1) == '>') {
+                    pos += 2;
+                    yield DBMLLexer.LTGT;
+                }
+                yield single(DBMLLexer.LT);
+            }
+            case '-' -> pos + 1 < limit && isDigit(text.charAt(pos + 1)) ? number() : single(DBMLLexer.MINUS);
+            case '\'' -> {
+                if (pos + 2 < limit && text.charAt(pos + 1) == '\'' && text.charAt(pos + 2) == '\'') {
+                    yield tripleString();
+                }
+                yield quoted('\'');
+            }
+            case '"' -> quoted('"');
+            case '`' -> expression();
+            case '#' -> color();
+            default -> {
+                if (isDigit(c)) {
+                    yield number();
+                }
+                if (isIdentifierStart(c)) {
+                    yield identifier();
+                }
+                yield single(DBMLLexer.OTHER);
+            }
+        };
+        nextEnd = pos;
+    }
+
+    private int single(int tokenType) {
+        pos++;
+        return tokenType;
+    }
+
+    private void skipTrivia() {
+        while (pos < limit) {
+            char c = text.charAt(pos);
+            if (c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f') {
+                pos++;
+            } else if (c == '/' && pos + 1 < limit && text.charAt(pos + 1) == '/') {
+                while (pos < limit && text.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (c == '/' && pos + 1 < limit && text.charAt(pos + 1) == '*') {
+                int close = indexOf("*/", pos + 2);
+                if (close < 0) {
+                    // Unterminated comment: the '/' becomes an OTHER token
+                    return;
+                }
+                pos = close + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int number() {
+        if (text.charAt(pos) == '-') {
+            pos++;
+        }
+        skipDigits();
+        if (pos + 1 < limit && text.charAt(pos) == '.' && isDigit(text.charAt(pos + 1))) {
+            pos++;
+            skipDigits();
+        }
+        return DBMLLexer.NUMBER;
+    }
+
+    private void skipDigits() {
+        while (pos < limit && isDigit(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private int identifier() {
+        int tokenStart = pos;
+        pos++;
+        while (pos < limit && isIdentifierPart(text.charAt(pos))) {
+            pos++;
+        }
+        return keyword(tokenStart, pos);
+    }
+
+    private int keyword(int tokenStart, int tokenEnd) {
+        return switch (tokenEnd - tokenStart) {
+            case 2 -> matchesKeyword(tokenStart, "as") ? DBMLLexer.AS : DBMLLexer.IDENTIFIER;
+            case 3 -> matchesKeyword(tokenStart, "ref") ? DBMLLexer.REF : DBMLLexer.IDENTIFIER;
+            case 4 -> {
+                if (matchesKeyword(tokenStart, "enum")) {
+                    yield DBMLLexer.ENUM;
+                }
+                yield matchesKeyword(tokenStart, "note") ? DBMLLexer.NOTE : DBMLLexer.IDENTIFIER;
+            }
+            case 5 -> matchesKeyword(tokenStart, "table") ? DBMLLexer.TABLE : DBMLLexer.IDENTIFIER;
+            case 7 -> {
+                if (matchesKeyword(tokenStart, "project")) {
+                    yield DBMLLexer.PROJECT;
+                }
+                yield matchesKeyword(tokenStart, "indexes") ? DBMLLexer.INDEXES : DBMLLexer.IDENTIFIER;
+            }
+            case 10 -> matchesKeyword(tokenStart, "tablegroup") ? DBMLLexer.TABLEGROUP : DBMLLexer.IDENTIFIER;
+            default -> DBMLLexer.IDENTIFIER;
+        };
+    }
+
+    private boolean matchesKeyword(int tokenStart, String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            // Keywords are ASCII letters: setting bit 0x20 lower-cases them
+            if ((text.charAt(tokenStart + i) | 0x20) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int quoted(char quote) {
+        int i = pos + 1;
+        while (i < limit) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                pos = i + 1;
+                return DBMLLexer.STRING;
+            } else if (c == '\r' || c == '\n') {
+                break;
+            } else {
+                i++;
+            }
+        }
+        return single(DBMLLexer.OTHER);
+    }
+
+    private int tripleString() {
+        int close = indexOf("'''", pos + 3);
+        if (close < 0) {
+            return single(DBMLLexer.OTHER);
+        }
+        pos = close + 3;
+        return DBMLLexer.TRIPLE_STRING;
+    }
+
+    private int expression() {
+        int close = indexOf("`", pos + 1);
+        if (close < 0) {
+            return single(DBMLLexer.OTHER);
+        }
+        pos = close + 1;
+        return DBMLLexer.EXPRESSION;
+    }
+
+    private int color() {
+        int i = pos + 1;
+        while (i < limit && Character.digit(text.charAt(i), 16) >= 0 && text.charAt(i) < 0x80) {
+            i++;
+        }
+        if (i == pos + 1) {
+            return single(DBMLLexer.OTHER);
+        }
+        pos = i;
+        return DBMLLexer.COLOR;
+    }
+
+    private int indexOf(String needle, int from) {
+        int last = limit - needle.length();
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < needle.length(); j++) {
+                if (text.charAt(i + j) != needle.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= 0x80;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+}
@@ -0,0 +1,71 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+/**
+ * Per-parse string pool: identifiers such as type names, setting values and column names repeat
+ * thousands of times in a large schema, so each distinct character sequence is materialised once
+ * and looked up by range afterwards without allocating.
+ * <p>
+ * Not thread-safe; use one pool per parse.
+ */
+public final class NamePool {
+
+    private String[] table = new String[256];
+    private int size;
+
+    public String intern(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        String candidate;
+        while ((candidate = table[slot]) != null) {
+            if (matches(candidate, text, start, end)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = text.subSequence(start, end).toString();
+        table[slot] = value;
+        if (++size * 2 > table.length) {
+            rehash();
+        }
+        return value;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        // Same value as String.hashCode(), spread so the low bits used for the slot are mixed
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String candidate, CharSequence text, int start, int end) {
+        int length = end - start;
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (String value : old) {
+            if (value != null) {
+                int hash = value.hashCode();
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Domain Parser - DBML Grammar
+ * 
+ * This package contains the DBML parser generated by ANTLR from
+ * {@code src/main/antlr4/.../DBML.g4} together with the listener
+ * that turns parse events into the {@code domain.model.dbml} model.
+ * 
+ * Principles:
+ * - Single pass over the input, no line splitting
+ * - Malformed blocks are reported and skipped, not fatal
+ * - Stateless and thread-safe entry point
+ * 
+ * @author VIS Software
+ */
+package com.vissoft.vn.dbdocs.domain.parser;
@@ -0,0 +1,17 @@
+package com.vissoft.vn.dbdocs.domain.repository;
+
+import java.io.Reader;
+
+/**
+ * Writes changelog content from a stream, for documents too large to hold as one {@code String}.
+ */
+public interface ChangeLogContentRepository {
+
+    /**
+     * Replace the content of a saved changelog in the current transaction.
+     *
+     * @param changeLogId Id of a changelog that is already flushed to the database
+     * @param content     The new content, read to the end but not closed
+     */
+    void writeContent(String changeLogId, Reader content);
+}
@@ -0,0 +1,23 @@
+package com.vissoft.vn.dbdocs.domain.repository;
+
+import java.io.Reader;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+// Picked up by Spring Data as the implementation of ChangeLogRepository's ChangeLogContentRepository part
+@RequiredArgsConstructor
+public class ChangeLogContentRepositoryImpl implements ChangeLogContentRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void writeContent(String changeLogId, Reader content) {
+        // Bound as a character stream, so the driver reads the text from the reader instead of a String
+        jdbcTemplate.update("UPDATE dbdocs.change_log SET content = ? WHERE change_log_id = ?", statement -> {
+            statement.setCharacterStream(1, content);
+            statement.setString(2, changeLogId);
+        });
+    }
+}
@@ -10,9 +10,10 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+import com.vissoft.vn.dbdocs.domain.model.ChangeLogSummary;
 
 @Repository
-public interface ChangeLogRepository extends JpaRepository<ChangeLog, String> {
+public interface ChangeLogRepository extends JpaRepository<ChangeLog, String>, ChangeLogContentRepository {
     List<ChangeLog> findByProjectIdOrderByCreatedDateDesc(String projectId);
 
     @Query("SELECT c FROM ChangeLog c WHERE c.projectId = :projectId AND c.codeChangeLog LIKE :versionPrefix% ORDER BY c.codeChangeLog DESC")
@@ -32,4 +33,16 @@ public interface ChangeLogRepository extends JpaRepository<ChangeLog, String> {
     }
     
     Optional<ChangeLog> findByProjectIdAndCodeChangeLog(String projectId, String codeChangeLog);
+
+    // Without the content, which the entity always loads
+    @Query("SELECT new com.vissoft.vn.dbdocs.domain.model.ChangeLogSummary(c.id, c.codeChangeLog, c.createdBy, c.modifiedBy, c.createdDate) FROM ChangeLog c WHERE c.id = :changeLogId")
+    Optional<ChangeLogSummary> findSummaryById(@Param("changeLogId") String changeLogId);
+
+    @Query("SELECT new com.vissoft.vn.dbdocs.domain.model.ChangeLogSummary(c.id, c.codeChangeLog, c.createdBy, c.modifiedBy, c.createdDate) FROM ChangeLog c WHERE c.projectId = :projectId AND c.codeChangeLog = :codeChangeLog")
+    Optional<ChangeLogSummary> findSummaryByProjectIdAndCodeChangeLog(@Param("projectId") String projectId,
+                                                                      @Param("codeChangeLog") String codeChangeLog);
+
+    // Digest only, without loading the content; empty for changelogs saved before digests were introduced
+    @Query("SELECT c.contentDigest FROM ChangeLog c WHERE c.id = :changeLogId")
+    Optional<String> findContentDigestById(@Param("changeLogId") String changeLogId);
 } 
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.vissoft.vn.dbdocs.domain.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLogSnapshot;
+
+@Repository
+public interface ChangeLogSnapshotRepository extends JpaRepository<ChangeLogSnapshot, String> {
+
+    // SHA-256 of the changelog text, without loading the snapshot data or the changelog
+    @Query("SELECT s.contentHash FROM ChangeLogSnapshot s WHERE s.changeLogId = :changeLogId")
+    Optional<String> findContentHashById(@Param("changeLogId") String changeLogId);
+}
@@ -2,9 +2,12 @@ package com.vissoft.vn.dbdocs.domain.repository;
 
 import com.vissoft.vn.dbdocs.domain.entity.Version;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,4 +26,16 @@ public interface VersionRepository extends JpaRepository<Version, String> {
     Optional<Version> findByProjectIdAndCodeVersion(String projectId, Integer codeVersion);
     
     List<Version> findByProjectIdAndCodeVersionLessThanOrderByCodeVersionDesc(String projectId, Integer codeVersion);
+
+    List<Version> findByDiffStatus(Integer diffStatus);
+
+    // Own transaction: also called with no usable transaction around, e.g. from a diff worker
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE Version v SET v.diffChange = :diffChange, v.diffStatus = :diffStatus WHERE v.id = :versionId")
+    int updateDiff(@Param("versionId") String versionId, @Param("diffChange") String diffChange,
+                   @Param("diffStatus") Integer diffStatus);
+
+    List<Version> findByProjectIdAndCodeVersionBetweenOrderByCodeVersionAsc(String projectId, Integer fromCodeVersion,
+                                                                          Integer toCodeVersion);
 } 
\ No newline at end of file
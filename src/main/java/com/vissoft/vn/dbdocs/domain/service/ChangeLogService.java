@@ -1,5 +1,6 @@
 package com.vissoft.vn.dbdocs.domain.service;
 
+import java.io.Reader;
 import java.util.List;
 
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogCreateRequest;
@@ -15,6 +16,16 @@ public interface ChangeLogService {
      */
     ChangeLogDTO createChangeLog(ChangeLogCreateRequest request);
 
+    /**
+     * Create a new change log entry from a DBML document read from a stream.
+     * The document is validated block by block while it is read.
+     *
+     * @param projectId The ID of the project
+     * @param content The DBML document
+     * @return The created ChangeLogDTO, without the content
+     */
+    ChangeLogDTO uploadChangeLog(String projectId, Reader content);
+
     /**
      * Retrieve all change logs for a specific project
      *
@@ -0,0 +1,51 @@
+package com.vissoft.vn.dbdocs.domain.service;
+
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+
+public interface DbmlModelCacheService {
+    /**
+     * Get the parsed model of a changelog, parsing its content on first use.
+     * Entries are keyed by changelog id and content digest.
+     *
+     * @param changeLog The changelog whose content should be parsed
+     * @return The shared, frozen model; call {@link DbmlModel#copy()} to modify it
+     */
+    DbmlModel getModel(ChangeLog changeLog);
+
+    /**
+     * Model for work that mostly needs table names, e.g. detecting added and removed tables:
+     * the cached model if there is one, otherwise a lazily parsed model (see
+     * {@link com.vissoft.vn.dbdocs.domain.service.DbmlParserService#parseDbmlLazily(String)}) that is not cached.
+     *
+     * @param changeLog The changelog whose content should be parsed
+     * @return The shared, frozen model; call {@link DbmlModel#copy()} to modify it
+     */
+    DbmlModel getLazyModel(ChangeLog changeLog);
+
+    /**
+     * Persist a binary snapshot of the parsed model next to the changelog, so later reads decode it
+     * instead of parsing the DBML text. Does nothing if an up-to-date snapshot already exists.
+     * Runs in its own transaction; a failure does not affect the caller's transaction.
+     *
+     * @param changeLog A saved changelog
+     */
+    void saveSnapshot(ChangeLog changeLog);
+
+    /**
+     * Like {@link #saveSnapshot(ChangeLog)}, for a changelog whose content was streamed to the database
+     * and is not available as a {@code String}: the model is cached and persisted as given.
+     *
+     * @param changeLogId   A saved changelog
+     * @param model         The frozen model of its content
+     * @param contentLength Number of characters of its content
+     * @param contentHash   SHA-256 of the UTF-8 bytes of its content, hex encoded
+     */
+    void saveSnapshot(String changeLogId, DbmlModel model, long contentLength, String contentHash);
+
+    /**
+     * @return Current hit/miss/eviction counters and size of the cache
+     */
+    CacheStats getStats();
+}
@@ -2,12 +2,51 @@ package com.vissoft.vn.dbdocs.domain.service;
 
 import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
 public interface DbmlParserService {
     /**
      * Parse DBML content into a DbmlModel
      * 
      * @param dbmlContent The DBML content to parse
-     * @return A DbmlModel representing the parsed content
+     * @return A frozen DbmlModel representing the parsed content; call {@link DbmlModel#copy()} to modify it
      */
     DbmlModel parseDbml(String dbmlContent);
-} 
\ No newline at end of file
+
+    /**
+     * Like {@link #parseDbml(String)}, but tables are only indexed by name: the definition of a table
+     * (alias, note, columns, indexes) is parsed the first time it is read. Use this when mostly table
+     * names are needed. A table whose body has syntax errors is listed with an empty definition,
+     * where {@link #parseDbml(String)} would skip it.
+     *
+     * @param dbmlContent The DBML content to parse
+     * @return A frozen DbmlModel that keeps a reference to {@code dbmlContent} until all tables are loaded
+     */
+    DbmlModel parseDbmlLazily(String dbmlContent);
+
+    /**
+     * Read a DBML document from a stream, validating each top-level block as soon as it has been read,
+     * and copy the text to {@code copy}. Only the block being read is buffered, so memory does not grow
+     * with the length of the document. The parsed blocks are kept, so a following
+     * {@link #parseDbml(String)} of the same text does not parse them again.
+     *
+     * @param reader    The DBML document
+     * @param copy      Receives the text as it is read, e.g. a temporary file
+     * @param maxLength Maximum number of characters accepted
+     * @return The model of the document and its length
+     * @throws IOException if reading or copying fails
+     */
+    DbmlDocument readDbml(Reader reader, Writer copy, long maxLength) throws IOException;
+
+    /**
+     * A document read by {@link #readDbml(Reader, Writer, long)}.
+     *
+     * @param model  Frozen model, the same {@link #parseDbml(String)} returns for the text
+     * @param length Number of characters read
+     * @param blank  Whether the text is empty or only whitespace
+     */
+    record DbmlDocument(DbmlModel model, long length, boolean blank) {
+    }
+}
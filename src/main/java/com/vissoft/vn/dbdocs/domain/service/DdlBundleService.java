@@ -0,0 +1,27 @@
+package com.vissoft.vn.dbdocs.domain.service;
+
+import com.vissoft.vn.dbdocs.application.dto.DdlBundleRequest;
+import com.vissoft.vn.dbdocs.domain.model.DdlBundle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Zip of the full-schema DDL of one version in several dialects, with a {@code manifest.json}.
+ */
+public interface DdlBundleService {
+
+    /**
+     * Resolve the version and parse its changelog once, unless every DDL is cached, so that every error
+     * is raised before the response is committed.
+     */
+    DdlBundle prepareBundle(DdlBundleRequest request);
+
+    /**
+     * Render the dialects of a bundle concurrently and write them as zip entries in request order, then
+     * the manifest.
+     *
+     * @param out written to and finished as a zip but not closed
+     */
+    void writeBundle(DdlBundle bundle, OutputStream out) throws IOException;
+}
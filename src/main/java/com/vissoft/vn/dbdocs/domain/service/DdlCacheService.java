@@ -0,0 +1,46 @@
+package com.vissoft.vn.dbdocs.domain.service;
+
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.model.DdlCacheKey;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public interface DdlCacheService {
+    /**
+     * Key of the full-schema DDL of a changelog. Changelogs are never edited, so the digest of their
+     * text is looked up once per changelog: from its model snapshot, which stores it, and only for
+     * changelogs without one by loading and hashing the text.
+     */
+    DdlCacheKey keyOf(String changeLogId, int dialect);
+
+    /**
+     * @return The cached DDL as UTF-8, read-only, or null
+     */
+    ByteBuffer get(DdlCacheKey key);
+
+    /**
+     * Cache a DDL rendered in full.
+     */
+    void put(DdlCacheKey key, String ddl);
+
+    /**
+     * Forward what a DDL is rendered to, and keep a copy of it for the cache. The copy is cached by
+     * {@link Capture#publish()}, once the whole DDL has been written, and dropped by {@link Capture#close()}
+     * otherwise. Closing does not close {@code target}.
+     */
+    Capture capture(DdlCacheKey key, OutputStream target) throws IOException;
+
+    /**
+     * @return Current hit/miss/eviction counters and size of the in-memory tier
+     */
+    CacheStats getStats();
+
+    abstract class Capture extends OutputStream {
+        /**
+         * Cache what was written, to be called once the DDL is complete.
+         */
+        public abstract void publish() throws IOException;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vissoft.vn.dbdocs.domain.service;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+
+/**
+ * DDL rendering of one SQL dialect. Implementations are Spring beans, collected once at startup by
+ * {@link GeneraScriptDDLService}; adding a dialect means adding a bean with a new code.
+ */
+public interface DdlDialect {
+    /**
+     * @return the dialect code requested by clients, see {@code Constants.SQL.Dialect}
+     */
+    int code();
+
+    /**
+     * @return display name of the dialect, e.g. {@code MySQL}
+     */
+    String name();
+
+    /**
+     * Append the CREATE TABLE statement of an added table.
+     */
+    void createTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff);
+
+    /**
+     * Append the DROP TABLE statement of a removed table.
+     */
+    void dropTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff);
+
+    /**
+     * Append the ALTER TABLE statements of a modified table, for its added, removed and modified columns.
+     */
+    void alterTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff);
+}
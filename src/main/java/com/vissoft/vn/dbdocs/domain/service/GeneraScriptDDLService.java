@@ -2,7 +2,16 @@ package com.vissoft.vn.dbdocs.domain.service;
 
 import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
 
+import java.io.IOException;
+import java.io.Writer;
+
 public interface GeneraScriptDDLService {
+    /**
+     * Version of the generated DDL, part of DDL cache keys and ETags: bump it whenever the DDL generated
+     * for the same schema changes.
+     */
+    int FORMAT_VERSION = 1;
+
     /**
      * Generates a DDL script based on the provided DBML content.
      *
@@ -10,4 +19,22 @@ public interface GeneraScriptDDLService {
      * @return The generated DDL script as a String.
      */
     String generateDDL(VersionComparisonDTO versionComparison, int sqlType);
+
+    /**
+     * Writes the same script as {@link #generateDDL} one table at a time, so that only the DDL of the
+     * current table is held in memory whatever the size of the schema.
+     *
+     * @param writer written to but neither flushed nor closed
+     */
+    void writeDDL(VersionComparisonDTO versionComparison, int sqlType, Writer writer) throws IOException;
+
+    /**
+     * @return whether a dialect is registered for this SQL type
+     */
+    boolean isSupported(int sqlType);
+
+    /**
+     * @return display name of the dialect registered for this SQL type, e.g. {@code PostgreSQL}
+     */
+    String dialectName(int sqlType);
 }
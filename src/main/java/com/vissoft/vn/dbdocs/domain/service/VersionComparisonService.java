@@ -1,11 +1,19 @@
 package com.vissoft.vn.dbdocs.domain.service;
 
+import com.vissoft.vn.dbdocs.application.dto.VersionCompareBatchItem;
+import com.vissoft.vn.dbdocs.application.dto.VersionCompareBatchRequest;
 import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+
+import java.util.Iterator;
+import java.util.List;
 
 public interface VersionComparisonService {
     
     /**
-     * So sánh 2 phiên bản DBML dựa trên project ID và version code
+     * So sánh 2 phiên bản DBML dựa trên project ID và version code.
+     * Chỉ đọc: hai phiên bản liền kề dùng diff đã lưu khi tạo phiên bản, các khoảng khác được tính
+     * khi cần và giữ trong bộ nhớ, không ghi lại vào bảng version.
      * 
      * @param projectId ID của project
      * @param beforeVersion Code version trước đó (nếu null sẽ sử dụng phiên bản trước)
@@ -13,4 +21,28 @@ public interface VersionComparisonService {
      * @return DTO chứa kết quả so sánh
      */
     VersionComparisonDTO compareVersions(String projectId, Integer beforeVersion, Integer currentVersion);
-} 
\ No newline at end of file
+
+    /**
+     * So sánh trực tiếp hai changelog, không dùng diff đã lưu hay cache.
+     * Dùng khi tạo phiên bản mới để tính diff một lần và lưu vào {@code version.diff_change}.
+     *
+     * @param projectId ID của project
+     * @param fromVersion Code version của changelog cũ
+     * @param toVersion Code version của changelog mới
+     * @param fromChangeLog Changelog cũ
+     * @param toChangeLog Changelog mới
+     * @return DTO chứa kết quả so sánh
+     */
+    VersionComparisonDTO compareChangeLogs(String projectId, Integer fromVersion, Integer toVersion,
+                                           ChangeLog fromChangeLog, ChangeLog toChangeLog);
+
+    /**
+     * So sánh nhiều khoảng phiên bản cùng lúc, song song trên một pool giới hạn.
+     * Mỗi changelog chỉ được đọc và parse một lần cho cả batch; các khoảng trùng nhau chỉ tính một lần.
+     * Kiểm tra đầu vào và gửi việc ngay khi gọi; lỗi của từng khoảng được trả trong kết quả của khoảng đó.
+     *
+     * @param ranges Các khoảng cần so sánh
+     * @return Kết quả của từng khoảng theo thứ tự hoàn thành, mỗi khoảng đúng một lần
+     */
+    Iterator<VersionCompareBatchItem> compareVersionsBatch(List<VersionCompareBatchRequest.Range> ranges);
+}
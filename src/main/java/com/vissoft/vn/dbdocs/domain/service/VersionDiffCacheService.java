@@ -0,0 +1,30 @@
+package com.vissoft.vn.dbdocs.domain.service;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.model.VersionDiffKey;
+
+public interface VersionDiffCacheService {
+    /**
+     * @return The cached comparison, shared and not to be modified, or null
+     */
+    VersionComparisonDTO get(VersionDiffKey key);
+
+    /**
+     * Cache a comparison. Comparisons heavier than the whole cache are not kept.
+     */
+    void put(VersionDiffKey key, VersionComparisonDTO comparison);
+
+    /**
+     * Drop the comparisons of a project with its latest changelog, once a newer changelog replaces it.
+     * They could no longer be hit, since the key holds the changelog id and digest; this frees them early.
+     *
+     * @param projectId ID of the project
+     */
+    void invalidateLatest(String projectId);
+
+    /**
+     * @return Current hit/miss/eviction counters and size of the cache
+     */
+    CacheStats getStats();
+}
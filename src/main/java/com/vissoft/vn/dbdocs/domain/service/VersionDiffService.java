@@ -0,0 +1,34 @@
+package com.vissoft.vn.dbdocs.domain.service;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface VersionDiffService {
+
+    /**
+     * Compute the diff of a new version against the previous version in the background, once the
+     * current transaction commits, and store it in {@code version.diff_change}. The version is saved
+     * with {@link com.vissoft.vn.dbdocs.infrastructure.constant.Constants.DiffStatus#PENDING} and ends
+     * up {@code READY} or {@code FAILED}.
+     *
+     * @param versionId ID of the saved version
+     */
+    void scheduleDiff(String versionId);
+
+    /**
+     * Compute and store the diff of a version on the calling thread.
+     *
+     * @param versionId ID of the version
+     */
+    void computeDiff(String versionId);
+
+    /**
+     * The diff of a version being computed in the background, for readers that would otherwise compare
+     * the changelogs themselves.
+     *
+     * @return completed with the stored comparison, or with null if the diff failed; null if no diff of
+     * this version is queued or running
+     */
+    CompletableFuture<VersionComparisonDTO> inFlightDiff(String versionId);
+}
@@ -1,5 +1,7 @@
 package com.vissoft.vn.dbdocs.domain.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDdlRequest;
@@ -8,6 +10,7 @@ import com.vissoft.vn.dbdocs.application.dto.DdlScriptResponse;
 import com.vissoft.vn.dbdocs.application.dto.SingleVersionDdlRequest;
 import com.vissoft.vn.dbdocs.application.dto.VersionCreateRequest;
 import com.vissoft.vn.dbdocs.application.dto.VersionDTO;
+import com.vissoft.vn.dbdocs.domain.model.DdlScript;
 
 public interface VersionService {
     VersionDTO createVersion(VersionCreateRequest request);
@@ -23,4 +26,38 @@ public interface VersionService {
     DdlScriptResponse generateDdlScript(DdlScriptRequest request);
     DdlScriptResponse generateSingleVersionDdl(SingleVersionDdlRequest request);
     DdlScriptResponse generateChangeLogDdl(ChangeLogDdlRequest request);
+
+    /**
+     * Resolve the script of {@link #generateDdlScript} without rendering it, for downloads. Nothing is
+     * parsed yet, and full-schema scripts have not loaded the changelog text or built their header, so
+     * answering a conditional request only reads ids and digests; see {@link #loadDdlScript}.
+     */
+    DdlScript prepareDdlScript(DdlScriptRequest request);
+    DdlScript prepareSingleVersionDdl(SingleVersionDdlRequest request);
+    DdlScript prepareChangeLogDdl(ChangeLogDdlRequest request);
+
+    /**
+     * Resolve the script of {@link #prepareSingleVersionDdl} for several dialects at once. The version is
+     * looked up once and the scripts share one comparison, so the changelog is parsed at most once. The
+     * scripts have the same file name.
+     *
+     * @param dialects distinct supported dialect codes, in the order of the returned scripts
+     */
+    List<DdlScript> prepareSingleVersionDdls(String projectId, Integer versionNumber, List<Integer> dialects);
+
+    /**
+     * Build the header of a prepared script and read its DDL from the DDL cache, or load and parse what
+     * the script needs, so that every error is raised before the response is committed.
+     *
+     * @return the script to write, holding its cached DDL if there was one
+     */
+    DdlScript loadDdlScript(DdlScript script);
+
+    /**
+     * Write the header and DDL of a loaded script as UTF-8: its cached DDL, or rendered table by table and
+     * cached. A script with an ETag has no generation time in its header, it is the same bytes each time.
+     *
+     * @param out written to and flushed but not closed
+     */
+    void writeDdlScript(DdlScript script, OutputStream out) throws IOException;
 } 
\ No newline at end of file
@@ -1,5 +1,12 @@
 package com.vissoft.vn.dbdocs.domain.service.impl;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,20 +14,29 @@ import java.util.Objects;
 
 import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
 import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
 import com.vissoft.vn.dbdocs.infrastructure.util.StringFormat;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogCreateRequest;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDTO;
 import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
 import com.vissoft.vn.dbdocs.domain.entity.Users;
 import com.vissoft.vn.dbdocs.domain.entity.Version;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlCanonicalForm;
 import com.vissoft.vn.dbdocs.domain.repository.ChangeLogRepository;
 import com.vissoft.vn.dbdocs.domain.repository.UserRepository;
 import com.vissoft.vn.dbdocs.domain.repository.VersionRepository;
 import com.vissoft.vn.dbdocs.domain.service.ChangeLogService;
+import com.vissoft.vn.dbdocs.domain.service.DbmlModelCacheService;
+import com.vissoft.vn.dbdocs.domain.service.DbmlParserService;
 import com.vissoft.vn.dbdocs.domain.service.ProjectAccessService;
+import com.vissoft.vn.dbdocs.domain.service.VersionDiffCacheService;
 import com.vissoft.vn.dbdocs.infrastructure.exception.BaseException;
 import com.vissoft.vn.dbdocs.infrastructure.exception.ErrorCode;
 import com.vissoft.vn.dbdocs.infrastructure.mapper.ChangeLogMapper;
@@ -38,6 +54,14 @@ public class ChangeLogServiceImpl implements ChangeLogService {
     private final UserRepository userRepository;
     private final ChangeLogMapper changeLogMapper;
     private final ProjectAccessService projectAccessService;
+    private final DbmlModelCacheService dbmlModelCacheService;
+    private final DbmlParserService dbmlParserService;
+    private final VersionDiffCacheService versionDiffCacheService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${dbml.upload.max-content-length:67108864}")
+    private long maxUploadContentLength;
 
     private String generateCodeChangeLog(String projectId) {
         log.info("Generating code change log for project: {}", projectId);
@@ -73,20 +97,190 @@ public class ChangeLogServiceImpl implements ChangeLogService {
     @Transactional
     public ChangeLogDTO createChangeLog(ChangeLogCreateRequest request) {
         log.info("Creating new changelog for project: {}", request.getProjectId());
+        checkWriteAccess(request.getProjectId());
+        return saveNewChangeLog(changeLogMapper.createRequestToEntity(request));
+    }
+
+    /**
+     * Not transactional on purpose: the upload is read before any database work,
+     * so a slow client does not hold a connection. The text is spooled to a temporary file while its
+     * blocks are validated, then streamed from there into the database, so it is never held as one string.
+     */
+    @Override
+    public ChangeLogDTO uploadChangeLog(String projectId, Reader content) {
+        log.info("Uploading changelog content for project: {}", projectId);
+        // Check access before reading what may be a large body
+        checkWriteAccess(projectId);
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("dbml-upload-", ".dbml");
+            DbmlParserService.DbmlDocument document;
+            try (Writer copy = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                document = dbmlParserService.readDbml(content, copy, maxUploadContentLength);
+            }
+            if (document.blank()) {
+                log.error(ErrorCode.INVALID_CHANGELOG_DATA.name());
+                throw BaseException.of(ErrorCode.INVALID_CHANGELOG_DATA);
+            }
+            ChangeLogDTO result = saveUploadedChangeLog(projectId, document, spool);
+            // The client already has the content (or an equivalent one), do not send it back
+            result.setContent(null);
+            return result;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error reading changelog content for project: {}", projectId, e);
+            throw BaseException.of(ErrorCode.INVALID_CHANGELOG_DATA);
+        } finally {
+            deleteSpool(spool);
+        }
+    }
+
+    private ChangeLogDTO saveUploadedChangeLog(String projectId, DbmlParserService.DbmlDocument document, Path spool) {
+        ChangeLog changeLog = new ChangeLog();
+        changeLog.setProjectId(projectId);
+        changeLog.setContentDigest(DbmlCanonicalForm.digest(document.model()));
+        ChangeLog saved = transactionTemplate.execute(status -> {
+            ChangeLog identical = findIdenticalLatest(changeLog);
+            if (DataUtils.notNull(identical)) {
+                return identical;
+            }
+            changeLog.setCodeChangeLog(generateCodeChangeLog(projectId));
+            // Placeholder so the row can be inserted; the text is written from the spool file right after
+            changeLog.setContent("");
+            ChangeLog inserted = changeLogRepository.saveAndFlush(changeLog);
+            try (Reader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+                changeLogRepository.writeContent(inserted.getId(), reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("Changelog created successfully with ID: {}, code: {}",
+                    inserted.getId(), inserted.getCodeChangeLog());
+            return inserted;
+        });
+        if (saved != changeLog) {
+            return changeLogMapper.toDTO(saved);
+        }
+
+        // Committed: the snapshot and the model cache get the model that was built while reading
+        try {
+            dbmlModelCacheService.saveSnapshot(saved.getId(), document.model(), document.length(),
+                    HashUtils.sha256Hex(spool));
+        } catch (Exception e) {
+            log.warn("Could not save model snapshot of changelog {}: {}", saved.getId(), e.getMessage());
+        }
+        versionDiffCacheService.invalidateLatest(projectId);
+        return changeLogMapper.toDTO(saved);
+    }
+
+    private static void deleteSpool(Path spool) {
+        if (DataUtils.isNull(spool)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete upload spool file {}: {}", spool, e.getMessage());
+        }
+    }
+
+    private void checkWriteAccess(String projectId) {
         String currentUserId = SecurityUtils.getCurrentUserId();
-        Integer permission = projectAccessService.checkUserAccess(request.getProjectId(), currentUserId);
+        Integer permission = projectAccessService.checkUserAccess(projectId, currentUserId);
         if (DataUtils.isNull(permission) || Objects.equals(permission, Constants.Permission.VIEWER) ) {
             log.error(ErrorCode.PROJECT_ACCESS_DENIED.name());
             throw BaseException.of(ErrorCode.PROJECT_ACCESS_DENIED, HttpStatus.FORBIDDEN);
         }
-        ChangeLog changeLog = changeLogMapper.createRequestToEntity(request);
-        changeLog.setCodeChangeLog(generateCodeChangeLog(request.getProjectId()));
+    }
+
+    /**
+     * Save the changelog unless it is semantically identical to the latest one of the project
+     * (only formatting, comments or ordering changed), in which case the latest one is returned.
+     */
+    private ChangeLogDTO saveNewChangeLog(ChangeLog changeLog) {
+        changeLog.setContentDigest(contentDigest(changeLog));
+        ChangeLog identical = findIdenticalLatest(changeLog);
+        if (DataUtils.notNull(identical)) {
+            return changeLogMapper.toDTO(identical);
+        }
+
+        changeLog.setCodeChangeLog(generateCodeChangeLog(changeLog.getProjectId()));
         ChangeLog savedChangeLog = changeLogRepository.save(changeLog);
         log.info("Changelog created successfully with ID: {}, code: {}", 
                 savedChangeLog.getId(), savedChangeLog.getCodeChangeLog());
+        saveModelSnapshot(savedChangeLog);
+        // Comparisons with the previous latest changelog can no longer be requested
+        versionDiffCacheService.invalidateLatest(savedChangeLog.getProjectId());
         return changeLogMapper.toDTO(savedChangeLog);
     }
 
+    // The latest changelog of the project if it has the same digest; it is returned instead of saving a new one
+    private ChangeLog findIdenticalLatest(ChangeLog changeLog) {
+        if (DataUtils.isNull(changeLog.getContentDigest())) {
+            return null;
+        }
+        ChangeLog latestChangeLog = changeLogRepository.findLatestChangeLogByProjectId(changeLog.getProjectId())
+                .orElse(null);
+        if (DataUtils.notNull(latestChangeLog)
+                && Objects.equals(changeLog.getContentDigest(), storedContentDigest(latestChangeLog))) {
+            log.info("Changelog content is semantically identical to latest changelog {} ({}), not saving",
+                    latestChangeLog.getId(), latestChangeLog.getCodeChangeLog());
+            return latestChangeLog;
+        }
+        return null;
+    }
+
+    private String contentDigest(ChangeLog changeLog) {
+        try {
+            return DbmlCanonicalForm.digest(dbmlModelCacheService.getModel(changeLog));
+        } catch (Exception e) {
+            // Invalid DBML must not prevent saving the snapshot, it just never matches another one
+            log.warn("Could not compute content digest of changelog for project {}: {}",
+                    changeLog.getProjectId(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Changelogs saved before digests were introduced get theirs on first use
+    private String storedContentDigest(ChangeLog changeLog) {
+        if (DataUtils.isNull(changeLog.getContentDigest())) {
+            String digest = contentDigest(changeLog);
+            if (DataUtils.notNull(digest)) {
+                changeLog.setContentDigest(digest);
+                changeLogRepository.save(changeLog);
+            }
+        }
+        return changeLog.getContentDigest();
+    }
+
+    /**
+     * Parse the new snapshot right away and persist the binary model: only the blocks edited since
+     * the previous changelog need parsing, the next compare/DDL request for it is served from the
+     * model cache, and after a restart the model is decoded instead of parsed.
+     * <p>
+     * The snapshot is written in its own transaction, so inside a transaction it waits for the commit:
+     * it must not be written before the changelog row exists, nor stay behind if that row is rolled back.
+     */
+    private void saveModelSnapshot(ChangeLog changeLog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeModelSnapshot(changeLog);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writeModelSnapshot(changeLog);
+            }
+        });
+    }
+
+    private void writeModelSnapshot(ChangeLog changeLog) {
+        try {
+            dbmlModelCacheService.saveSnapshot(changeLog);
+        } catch (Exception e) {
+            // Invalid DBML or a failed snapshot write must not prevent saving the changelog
+            log.warn("Could not save model snapshot of changelog {}: {}", changeLog.getId(), e.getMessage());
+        }
+    }
+
     @Override
     @Transactional
     public void updateChangeLogVersion(String changeLogId, int newVersion) {
@@ -0,0 +1,307 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLogSnapshot;
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.model.dbml.*;
+import com.vissoft.vn.dbdocs.domain.repository.ChangeLogSnapshotRepository;
+import com.vissoft.vn.dbdocs.domain.service.DbmlModelCacheService;
+import com.vissoft.vn.dbdocs.domain.service.DbmlParserService;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of parsed changelog models, bounded both by entry count and by the estimated
+ * retained size of the cached models. Changelog content is immutable once a version points
+ * at it, but the content digest is part of the key so an edited changelog never hits a stale entry.
+ * The digest of a changelog's text is computed once and remembered by id (with the text length as
+ * a cheap check), so cache hits do not hash the whole document again.
+ * Cached models are frozen and handed out as they are; the weight of tables shared with models
+ * of other changelogs is counted for each of them, so the estimate errs on the high side.
+ * <p>
+ * Misses are served from the changelog's persisted {@link ChangeLogSnapshot} when it matches the
+ * content and the current {@link DbmlSnapshotCodec#FORMAT_VERSION}; the DBML text is parsed otherwise.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DbmlModelCacheServiceImpl implements DbmlModelCacheService {
+
+    // Rough 64-bit JVM sizes with compressed oops, only used to weigh entries against each other
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long REFERENCE_SIZE = 4;
+    private static final long STRING_OVERHEAD = 40;
+    private static final long LIST_OVERHEAD = 40;
+    // Changelog ids whose text digest is remembered
+    private static final int MAX_CONTENT_DIGESTS = 4096;
+
+    private final DbmlParserService dbmlParserService;
+    private final ChangeLogSnapshotRepository changeLogSnapshotRepository;
+
+    @Value("${dbml.model-cache.max-entries:64}")
+    private int maxEntries;
+
+    @Value("${dbml.model-cache.max-weight-bytes:268435456}") // 256 MB
+    private long maxWeightBytes;
+
+    private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightBytes;
+    private final Map<String, ContentDigest> contentDigests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ContentDigest> eldest) {
+            return size() > MAX_CONTENT_DIGESTS;
+        }
+    };
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    @Override
+    public DbmlModel getModel(ChangeLog changeLog) {
+        String content = changeLog.getContent();
+        if (DataUtils.isNull(changeLog.getId()) || DataUtils.isNull(content) || content.trim().isEmpty()) {
+            return dbmlParserService.parseDbml(content);
+        }
+
+        CacheKey key = new CacheKey(changeLog.getId(), contentDigest(changeLog.getId(), content));
+        CacheEntry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (DataUtils.notNull(cached)) {
+            hitCount.incrementAndGet();
+            log.debug("Parsed model cache hit for changelog {}", changeLog.getId());
+            return cached.model();
+        }
+
+        missCount.incrementAndGet();
+        log.debug("Parsed model cache miss for changelog {}", changeLog.getId());
+        // Load outside the lock; concurrent misses on the same key just load twice
+        DbmlModel parsed = loadSnapshot(key);
+        if (DataUtils.isNull(parsed)) {
+            parsed = dbmlParserService.parseDbml(content);
+        }
+        cache(key, parsed);
+        return parsed;
+    }
+
+    private void cache(CacheKey key, DbmlModel model) {
+        long weight = estimateWeight(model);
+        if (weight > maxWeightBytes) {
+            log.warn("Parsed model of changelog {} (~{} bytes) exceeds the cache weight limit, not caching",
+                    key.changeLogId(), weight);
+            return;
+        }
+
+        synchronized (entries) {
+            CacheEntry previous = entries.put(key, new CacheEntry(model, weight));
+            if (DataUtils.notNull(previous)) {
+                weightBytes -= previous.weight();
+            }
+            weightBytes += weight;
+            evictIfNeeded();
+        }
+    }
+
+    @Override
+    public DbmlModel getLazyModel(ChangeLog changeLog) {
+        String content = changeLog.getContent();
+        if (DataUtils.notNull(changeLog.getId()) && DataUtils.notNull(content)) {
+            CacheEntry cached;
+            synchronized (entries) {
+                cached = entries.get(new CacheKey(changeLog.getId(), contentDigest(changeLog.getId(), content)));
+            }
+            if (DataUtils.notNull(cached)) {
+                hitCount.incrementAndGet();
+                log.debug("Parsed model cache hit for changelog {}", changeLog.getId());
+                return cached.model();
+            }
+        }
+        log.debug("Lazily parsing model of changelog {}", changeLog.getId());
+        return dbmlParserService.parseDbmlLazily(content);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveSnapshot(ChangeLog changeLog) {
+        String content = changeLog.getContent();
+        if (DataUtils.isNull(changeLog.getId()) || DataUtils.isNull(content) || content.trim().isEmpty()) {
+            return;
+        }
+        String contentHash = contentDigest(changeLog.getId(), content);
+        ChangeLogSnapshot existing = changeLogSnapshotRepository.findById(changeLog.getId()).orElse(null);
+        if (DataUtils.notNull(existing) && isCurrent(existing, contentHash)) {
+            log.debug("Model snapshot of changelog {} is up to date", changeLog.getId());
+            return;
+        }
+        writeSnapshot(changeLog.getId(), contentHash, getModel(changeLog), content.length());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveSnapshot(String changeLogId, DbmlModel model, long contentLength, String contentHash) {
+        synchronized (contentDigests) {
+            contentDigests.put(changeLogId, new ContentDigest(contentLength, contentHash));
+        }
+        cache(new CacheKey(changeLogId, contentHash), model);
+        writeSnapshot(changeLogId, contentHash, model, contentLength);
+    }
+
+    private void writeSnapshot(String changeLogId, String contentHash, DbmlModel model, long contentLength) {
+        byte[] data = DbmlSnapshotCodec.encode(model);
+        changeLogSnapshotRepository.save(new ChangeLogSnapshot(
+                changeLogId, DbmlSnapshotCodec.FORMAT_VERSION, contentHash, data));
+        log.debug("Saved model snapshot of changelog {} ({} bytes for {} chars of DBML)",
+                changeLogId, data.length, contentLength);
+    }
+
+    // SHA-256 of the text, hashed only the first time a changelog id is seen with this length
+    private String contentDigest(String changeLogId, String content) {
+        ContentDigest digest;
+        synchronized (contentDigests) {
+            digest = contentDigests.get(changeLogId);
+        }
+        if (DataUtils.notNull(digest) && digest.length() == content.length()) {
+            return digest.sha256();
+        }
+        digest = new ContentDigest(content.length(), HashUtils.sha256Hex(content));
+        synchronized (contentDigests) {
+            contentDigests.put(changeLogId, digest);
+        }
+        return digest.sha256();
+    }
+
+    // Null if there is no usable snapshot: missing, written by another format version, or for other content
+    private DbmlModel loadSnapshot(CacheKey key) {
+        ChangeLogSnapshot snapshot = changeLogSnapshotRepository.findById(key.changeLogId()).orElse(null);
+        if (DataUtils.isNull(snapshot)) {
+            return null;
+        }
+        if (!isCurrent(snapshot, key.contentDigest())) {
+            log.debug("Model snapshot of changelog {} is stale, parsing DBML", key.changeLogId());
+            return null;
+        }
+        try {
+            return DbmlSnapshotCodec.decode(snapshot.getData()).freeze();
+        } catch (IllegalArgumentException e) {
+            log.warn("Could not decode model snapshot of changelog {}, parsing DBML: {}",
+                    key.changeLogId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isCurrent(ChangeLogSnapshot snapshot, String contentHash) {
+        return Objects.equals(snapshot.getFormatVersion(), DbmlSnapshotCodec.FORMAT_VERSION)
+                && Objects.equals(snapshot.getContentHash(), contentHash);
+    }
+
+    @Override
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return CacheStats.builder()
+                    .hitCount(hitCount.get())
+                    .missCount(missCount.get())
+                    .evictionCount(evictionCount.get())
+                    .entryCount(entries.size())
+                    .weightBytes(weightBytes)
+                    .maxWeightBytes(maxWeightBytes)
+                    .build();
+        }
+    }
+
+    // Caller holds the lock on entries
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<CacheKey, CacheEntry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && eldest.hasNext()) {
+            Map.Entry<CacheKey, CacheEntry> entry = eldest.next();
+            weightBytes -= entry.getValue().weight();
+            eldest.remove();
+            evictionCount.incrementAndGet();
+            log.debug("Evicted parsed model of changelog {} from cache", entry.getKey().changeLogId());
+        }
+    }
+
+    private static long estimateWeight(DbmlModel model) {
+        long weight = OBJECT_OVERHEAD + 7 * REFERENCE_SIZE
+                + weigh(model.getProjectName()) + weigh(model.getDatabaseType()) + weigh(model.getNote())
+                + weighList(model.getTables()) + weighList(model.getRefs())
+                + weighList(model.getEnums()) + weighList(model.getTableGroups());
+        for (TableModel table : model.getTables()) {
+            weight += OBJECT_OVERHEAD + 5 * REFERENCE_SIZE
+                    + weigh(table.getName()) + weigh(table.getAlias()) + weigh(table.getNote())
+                    + weighList(table.getColumns()) + weighList(table.getIndexes());
+            for (ColumnModel column : table.getColumns()) {
+                weight += OBJECT_OVERHEAD + 6 * REFERENCE_SIZE + 4
+                        + weigh(column.getName()) + weigh(column.getDataType()) + weigh(column.getTypeParam())
+                        + weigh(column.getDefaultValue()) + weigh(column.getNote());
+                ColumnModel.RefValue reference = column.getReference();
+                if (DataUtils.notNull(reference)) {
+                    weight += OBJECT_OVERHEAD + 3 * REFERENCE_SIZE + weigh(reference.getTableName())
+                            + weigh(reference.getColumnName()) + weigh(reference.getCardinality());
+                }
+            }
+            for (IndexModel index : table.getIndexes()) {
+                weight += OBJECT_OVERHEAD + 4 * REFERENCE_SIZE + 1
+                        + weigh(index.getName()) + weigh(index.getType()) + weigh(index.getNote())
+                        + weighList(index.getColumns());
+                for (IndexModel.IndexColumn column : index.getColumns()) {
+                    weight += OBJECT_OVERHEAD + 2 * REFERENCE_SIZE + weigh(column.getName()) + weigh(column.getOption());
+                }
+            }
+        }
+        for (RefModel ref : model.getRefs()) {
+            weight += 3 * OBJECT_OVERHEAD + 8 * REFERENCE_SIZE + weigh(ref.getName()) + weigh(ref.getCardinality());
+            if (DataUtils.notNull(ref.getFrom())) {
+                weight += weigh(ref.getFrom().getTableName()) + weigh(ref.getFrom().getColumnName());
+            }
+            if (DataUtils.notNull(ref.getTo())) {
+                weight += weigh(ref.getTo().getTableName()) + weigh(ref.getTo().getColumnName());
+            }
+        }
+        for (EnumModel enumModel : model.getEnums()) {
+            weight += OBJECT_OVERHEAD + 2 * REFERENCE_SIZE + weigh(enumModel.getName()) + weighList(enumModel.getValues());
+            for (EnumModel.EnumValue value : enumModel.getValues()) {
+                weight += OBJECT_OVERHEAD + 2 * REFERENCE_SIZE + weigh(value.getName()) + weigh(value.getNote());
+            }
+        }
+        for (TableGroupModel group : model.getTableGroups()) {
+            weight += OBJECT_OVERHEAD + 2 * REFERENCE_SIZE + weigh(group.getName()) + weighList(group.getTableNames());
+            for (String tableName : group.getTableNames()) {
+                weight += weigh(tableName);
+            }
+        }
+        return weight;
+    }
+
+    private static long weigh(String value) {
+        // Compact strings: one byte per Latin-1 character
+        return DataUtils.isNull(value) ? 0 : STRING_OVERHEAD + value.length();
+    }
+
+    private static long weighList(List<?> list) {
+        return DataUtils.isNull(list) ? 0 : LIST_OVERHEAD + list.size() * REFERENCE_SIZE;
+    }
+
+    private record CacheKey(String changeLogId, String contentDigest) {
+    }
+
+    private record CacheEntry(DbmlModel model, long weight) {
+    }
+
+    private record ContentDigest(long length, String sha256) {
+    }
+}
@@ -1,288 +1,339 @@
 package com.vissoft.vn.dbdocs.domain.service.impl;
 
 import com.vissoft.vn.dbdocs.domain.model.dbml.*;
+import com.vissoft.vn.dbdocs.domain.parser.DbmlBlockScanner;
+import com.vissoft.vn.dbdocs.domain.parser.DbmlFragmentCache;
+import com.vissoft.vn.dbdocs.domain.parser.DbmlModelParser;
+import com.vissoft.vn.dbdocs.domain.parser.NamePool;
 import com.vissoft.vn.dbdocs.domain.service.DbmlParserService;
 import com.vissoft.vn.dbdocs.infrastructure.exception.BaseException;
 import com.vissoft.vn.dbdocs.infrastructure.exception.ErrorCode;
 import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 @Slf4j
 @Service
 public class DbmlParserServiceImpl implements DbmlParserService {
 
+    // Chars read per call when reading a document from a stream
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    // Each fork-join task parses at least this many blocks, so task overhead stays small next to parsing
+    private static final int MIN_BLOCKS_PER_TASK = 16;
+
+    private final DbmlModelParser modelParser = new DbmlModelParser();
+    private final DbmlFragmentCache fragmentCache;
+    private final int parallelMinContentLength;
+    private final ForkJoinPool parsePool;
+
+    public DbmlParserServiceImpl(@Value("${dbml.fragment-cache.max-entries:50000}") int fragmentCacheMaxEntries,
+                                 @Value("${dbml.parallel-parse.min-content-length:1048576}") int parallelMinContentLength,
+                                 @Value("${dbml.parallel-parse.parallelism:0}") int parallelism) {
+        this.fragmentCache = new DbmlFragmentCache(fragmentCacheMaxEntries);
+        this.parallelMinContentLength = parallelMinContentLength;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.parsePool = threads > 1 ? new ForkJoinPool(threads, DbmlParserServiceImpl::newParseThread, null, false) : null;
+        log.info("DBML parallel parsing {}", DataUtils.isNull(parsePool)
+                ? "disabled (single core)"
+                : "enabled with " + threads + " threads for content of " + parallelMinContentLength + "+ characters");
+    }
+
+    private static ForkJoinWorkerThread newParseThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("dbml-parse-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (DataUtils.notNull(parsePool)) {
+            parsePool.shutdownNow();
+        }
+    }
+
     @Override
     public DbmlModel parseDbml(String dbmlContent) {
         log.info("Starting DBML parsing process");
         if (DataUtils.isNull(dbmlContent) || dbmlContent.trim().isEmpty()) {
             log.warn("DBML content is empty or null, returning empty model");
-            return new DbmlModel();
+            return new DbmlModel().freeze();
         }
-        
+
         try {
-            log.debug("Initializing DBML model");
-            DbmlModel model = new DbmlModel();
-            
-            // Analyze the DBML content line by line
-            log.debug("Splitting content into lines for analysis");
-            String[] lines = dbmlContent.split("\n");
-            log.debug("Total lines to process: {}", lines.length);
+            DbmlModel model = parseIncrementally(dbmlContent);
 
-            parseDbmlContent(lines, model);
-            
-            log.info("DBML parsing completed successfully. Found {} tables, {} enums, {} refs", 
-                    model.getTables().size(), 
+            log.info("DBML parsing completed successfully. Found {} tables, {} enums, {} refs",
+                    model.getTables().size(),
                     model.getEnums().size(),
                     model.getRefs().size());
-            
+
             return model;
-        } catch (StringIndexOutOfBoundsException e) {
-            log.error("String index error during DBML parsing. Possible malformed DBML syntax: {}", e.getMessage(), e);
-            throw BaseException.of(ErrorCode.ERROR_PARSING_DBML);
         } catch (Exception e) {
             log.error("Unexpected error during DBML parsing: {}", e.getMessage(), e);
             throw BaseException.of(ErrorCode.ERROR_PARSING_DBML);
         }
     }
 
-    private void parseDbmlContent(String[] lines, DbmlModel model) {
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-            log.trace("Processing line {}: {}", i + 1, line);
+    @Override
+    public DbmlModel parseDbmlLazily(String dbmlContent) {
+        if (DataUtils.isNull(dbmlContent) || dbmlContent.trim().isEmpty()) {
+            return new DbmlModel().freeze();
+        }
+        List<DbmlBlockScanner.Block> blocks = DbmlBlockScanner.scan(dbmlContent);
+        if (DataUtils.isNull(blocks)) {
+            return parseDbml(dbmlContent);
+        }
 
-            // Skip empty lines and comments
-            if (line.isEmpty() || line.startsWith("//") || line.startsWith("/*")) {
-                continue;
+        DbmlModel model = new DbmlModel();
+        NamePool names = new NamePool();
+        int lazyTables = 0;
+        for (DbmlBlockScanner.Block block : blocks) {
+            DbmlFragmentCache.Fingerprint fingerprint = fingerprint(dbmlContent, block);
+            DbmlModel fragment = fragmentCache.get(fingerprint);
+            if (DataUtils.isNull(fragment)) {
+                String tableName = modelParser.tableName(dbmlContent, block.start(), block.end(), names);
+                if (DataUtils.notNull(tableName)) {
+                    model.getTables().add(TableModel.lazy(tableName, fingerprint,
+                            () -> loadTable(dbmlContent, block, fingerprint, tableName)));
+                    lazyTables++;
+                    continue;
+                }
+                // Project, Ref, Enum, TableGroup and Note blocks are small, parse them right away
+                fragment = modelParser.parse(dbmlContent, block.start(), block.end(), block.line(), names).freeze();
+                fragmentCache.put(fingerprint, fragment);
             }
+            appendFragment(model, fragment);
+        }
+        log.debug("Indexed {} DBML blocks, {} tables left to parse on access", blocks.size(), lazyTables);
+        return model.freeze();
+    }
 
-            // Project definition
-            if (line.startsWith("Project") && line.contains("{")) {
-                log.debug("Found Project definition at line {}", i + 1);
-                String projectName = extractProjectName(line);
-                model.setProjectName(projectName);
-                log.debug("Set project name: {}", projectName);
-                continue;
+    private TableModel loadTable(String content, DbmlBlockScanner.Block block,
+                                 DbmlFragmentCache.Fingerprint fingerprint, String tableName) {
+        DbmlModel fragment = fragmentCache.get(fingerprint);
+        if (DataUtils.isNull(fragment)) {
+            fragment = modelParser.parse(content, block.start(), block.end(), block.line(), new NamePool()).freeze();
+            fragmentCache.put(fingerprint, fragment);
+        }
+        for (TableModel table : fragment.getTables()) {
+            if (Objects.equals(table.getName(), tableName)) {
+                return table;
             }
+        }
+        log.warn("Table {} at line {} could not be parsed, its definition is empty", tableName, block.line());
+        return TableModel.builder().name(tableName).build().freeze();
+    }
 
-            // Table definition
-            if (line.startsWith("Table") && line.contains("{")) {
-                log.debug("Found Table definition at line {}", i + 1);
-                TableModel table = parseTable(lines, i, model);
-                if (table != null) {
-                    model.getTables().add(table);
-                    log.debug("Added table to model: {}", table.getName());
-                }
-                // Skip to end of table definition
-                while (i < lines.length && !lines[i].trim().equals("}")) {
-                    i++;
-                }
-                continue;
+    @Override
+    public DbmlDocument readDbml(Reader reader, Writer copy, long maxLength) throws IOException {
+        // Holds the text from the end of the last complete block on, not the whole document
+        StringBuilder pending = new StringBuilder(READ_BUFFER_SIZE);
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        DbmlBlockScanner scanner = DbmlBlockScanner.incremental(pending);
+        DbmlModel model = new DbmlModel();
+        NamePool names = new NamePool();
+        long length = 0;
+        boolean blank = true;
+        int blockCount = 0;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            length += read;
+            if (length > maxLength) {
+                log.warn("DBML content exceeds the maximum of {} characters", maxLength);
+                throw BaseException.of(ErrorCode.CHANGELOG_CONTENT_TOO_LARGE, Map.of("maxLength", maxLength));
             }
-
-            // Reference definition
-            if (line.startsWith("Ref:")) {
-                log.debug("Found Reference definition at line {}", i + 1);
-                RefModel ref = parseReference(line);
-                if (ref != null) {
-                    model.getRefs().add(ref);
-                    log.debug("Added reference to model");
-                }
-                continue;
+            copy.write(buffer, 0, read);
+            blank = blank && isBlank(buffer, read);
+            pending.append(buffer, 0, read);
+            for (DbmlBlockScanner.Block block : scanner.scanAvailable()) {
+                appendFragment(model, validateBlock(pending, block, names));
+                blockCount++;
             }
+            int scanned = scanner.position();
+            pending.delete(0, scanned);
+            scanner.rebase(scanned);
+        }
 
-            // Enum definition
-            if (line.startsWith("Enum") && line.contains("{")) {
-                log.debug("Found Enum definition at line {}", i + 1);
-                EnumModel enumModel = parseEnum(lines, i);
-                if (enumModel != null) {
-                    model.getEnums().add(enumModel);
-                    log.debug("Added enum to model: {}", enumModel.getName());
-                }
-                // Skip to end of enum definition
-                while (i < lines.length && !lines[i].trim().equals("}")) {
-                    i++;
-                }
-                continue;
+        List<DbmlBlockScanner.Block> remaining = scanner.scanRemaining();
+        if (DataUtils.isNull(remaining)) {
+            log.warn("DBML content has unbalanced braces or an unterminated string or comment");
+            throw BaseException.of(ErrorCode.ERROR_PARSING_DBML);
+        }
+        for (DbmlBlockScanner.Block block : remaining) {
+            appendFragment(model, validateBlock(pending, block, names));
+            blockCount++;
+        }
+        log.info("Read {} characters of DBML with {} top-level blocks", length, blockCount);
+        return new DbmlDocument(model.freeze(), length, blank);
+    }
+
+    private static boolean isBlank(char[] buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!Character.isWhitespace(buffer[i])) {
+                return false;
             }
         }
+        return true;
     }
 
-    private String extractProjectName(String line) {
-        String projectName = line.substring(7, line.indexOf("{")).trim();
-        // Remove quotes if present
-        if ((projectName.startsWith("'") && projectName.endsWith("'")) ||
-            (projectName.startsWith("\"") && projectName.endsWith("\""))) {
-            projectName = projectName.substring(1, projectName.length() - 1);
+    /**
+     * Parse one block of a document being read and cache it under the same fingerprint
+     * {@link #parseIncrementally(String)} computes for the finished text.
+     *
+     * @return the frozen fragment of the block
+     */
+    private DbmlModel validateBlock(CharSequence content, DbmlBlockScanner.Block block, NamePool names) {
+        DbmlFragmentCache.Fingerprint fingerprint = fingerprint(content, block);
+        DbmlModel cached = fragmentCache.get(fingerprint);
+        if (DataUtils.notNull(cached)) {
+            return cached;
         }
-        return projectName;
+        DbmlModel fragment = modelParser.parseStrict(content, block.start(), block.end(), block.line(), names);
+        if (DataUtils.isNull(fragment)) {
+            log.warn("Invalid DBML block at line {}", block.line());
+            throw BaseException.of(ErrorCode.ERROR_PARSING_DBML, Map.of("line", block.line()));
+        }
+        fragmentCache.put(fingerprint, fragment.freeze());
+        return fragment;
     }
 
-    private TableModel parseTable(String[] lines, int startIndex, DbmlModel model) {
-        String line = lines[startIndex].trim();
-        TableModel table = new TableModel();
-        
-        // Extract table name
-        String tableName = line.substring(5, line.indexOf("{")).trim();
-        if (tableName.contains(" as ")) {
-            String[] parts = tableName.split(" as ");
-            table.setName(parts[0].trim());
-            table.setAlias(parts[1].trim());
-        } else {
-            table.setName(tableName);
+    /**
+     * Parse block by block, reusing the fragments of blocks whose text was already parsed
+     * (typically every block of the previous changelog except the edited ones).
+     * Top-level blocks are independent, so on large documents the remaining blocks are parsed
+     * concurrently on {@link #parsePool}; fragments are still merged in source order.
+     */
+    private DbmlModel parseIncrementally(String content) {
+        List<DbmlBlockScanner.Block> blocks = DbmlBlockScanner.scan(content);
+        if (DataUtils.isNull(blocks)) {
+            log.debug("DBML content could not be split into blocks, parsing it as a whole");
+            return modelParser.parse(content).freeze();
         }
 
-        // Parse table contents
-        List<ColumnModel> columns = new ArrayList<>();
-        int i = startIndex + 1;
-        
-        while (i < lines.length) {
-            String currentLine = lines[i].trim();
-            
-            // End of table
-            if (currentLine.equals("}")) {
-                break;
+        // Look up every block first, then parse the ones that were not cached
+        DbmlModel[] fragments = new DbmlModel[blocks.size()];
+        DbmlFragmentCache.Fingerprint[] fingerprints = new DbmlFragmentCache.Fingerprint[blocks.size()];
+        int[] pending = new int[blocks.size()];
+        int pendingCount = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            DbmlBlockScanner.Block block = blocks.get(i);
+            fingerprints[i] = fingerprint(content, block);
+            fragments[i] = fragmentCache.get(fingerprints[i]);
+            if (DataUtils.isNull(fragments[i])) {
+                pending[pendingCount++] = i;
             }
-            
-            // Skip empty lines and comments
-            if (currentLine.isEmpty() || currentLine.startsWith("//")) {
-                i++;
-                continue;
-            }
-            
-            // Parse column definition
-            ColumnModel column = parseColumn(currentLine);
-            if (column != null) {
-                columns.add(column);
-                log.trace("Added column to table {}: {}", table.getName(), column.getName());
-            }
-            
-            i++;
         }
-        
-        table.setColumns(columns);
-        return table;
-    }
 
-    private ColumnModel parseColumn(String line) {
-        try {
-            // Pattern to match: columnName dataType [attributes]
-            Pattern pattern = Pattern.compile("^(\\w+)\\s+([^\\[\\s]+(?:\\([^)]*\\))?)(?:\\s*\\[([^\\]]+)\\])?");
-            Matcher matcher = pattern.matcher(line);
-            
-            if (!matcher.matches()) {
-                log.warn("Could not parse column definition: {}", line);
-                return null;
-            }
-            
-            String columnName = matcher.group(1);
-            String dataType = matcher.group(2);
-            String attributesStr = matcher.group(3);
-            
-            ColumnModel column = ColumnModel.builder()
-                    .name(columnName)
-                    .dataType(extractDataType(dataType))
-                    .typeParam(extractTypeParam(dataType))
-                    .build();
-            
-            // Parse attributes if present
-            if (attributesStr != null && !attributesStr.trim().isEmpty()) {
-                parseColumnAttributes(column, attributesStr);
-            }
-            
-            return column;
-        } catch (Exception e) {
-            log.warn("Error parsing column: {} - {}", line, e.getMessage());
-            return null;
+        if (DataUtils.notNull(parsePool) && content.length() >= parallelMinContentLength
+                && pendingCount > MIN_BLOCKS_PER_TASK) {
+            int perTask = Math.max(MIN_BLOCKS_PER_TASK, pendingCount / (parsePool.getParallelism() * 4));
+            parsePool.invoke(new ParseBlocksTask(content, blocks, pending, 0, pendingCount, perTask, fragments));
+            log.debug("Parsed {} DBML blocks on {} threads", pendingCount, parsePool.getParallelism());
+        } else {
+            parseBlocks(content, blocks, pending, 0, pendingCount, fragments);
         }
-    }
 
-    private String extractDataType(String typeStr) {
-        int parenIndex = typeStr.indexOf('(');
-        if (parenIndex > 0) {
-            return typeStr.substring(0, parenIndex);
+        // Reassemble in source order
+        DbmlModel model = new DbmlModel();
+        for (int i = 0; i < pendingCount; i++) {
+            fragmentCache.put(fingerprints[pending[i]], fragments[pending[i]]);
+        }
+        for (DbmlModel fragment : fragments) {
+            appendFragment(model, fragment);
         }
-        return typeStr;
+        log.debug("Parsed {} of {} DBML blocks, reused {} unchanged blocks",
+                pendingCount, blocks.size(), blocks.size() - pendingCount);
+        return model.freeze();
     }
 
-    private String extractTypeParam(String typeStr) {
-        int parenIndex = typeStr.indexOf('(');
-        if (parenIndex > 0 && typeStr.endsWith(")")) {
-            return typeStr.substring(parenIndex + 1, typeStr.length() - 1);
-        }
-        return null;
+    private static DbmlFragmentCache.Fingerprint fingerprint(CharSequence content, DbmlBlockScanner.Block block) {
+        long[] hash = HashUtils.murmur3x64128(content, block.start(), block.end());
+        return new DbmlFragmentCache.Fingerprint(hash[0], hash[1]);
     }
 
-    private void parseColumnAttributes(ColumnModel column, String attributesStr) {
-        String[] attributes = attributesStr.split(",");
-        
-        for (String attr : attributes) {
-            attr = attr.trim();
-            
-            if (attr.equals("pk") || attr.equals("primary key")) {
-                column.setPrimaryKey(true);
-            } else if (attr.equals("unique")) {
-                column.setUnique(true);
-            } else if (attr.equals("not null")) {
-                column.setNotNull(true);
-            } else if (attr.equals("increment")) {
-                column.setAutoIncrement(true);
-            } else if (attr.startsWith("default:")) {
-                String defaultValue = attr.substring(8).trim();
-                // Remove quotes if present
-                if ((defaultValue.startsWith("'") && defaultValue.endsWith("'")) ||
-                    (defaultValue.startsWith("\"") && defaultValue.endsWith("\""))) {
-                    defaultValue = defaultValue.substring(1, defaultValue.length() - 1);
-                }
-                column.setDefaultValue(defaultValue);
-            } else if (attr.startsWith("note:")) {
-                String note = attr.substring(5).trim();
-                // Remove quotes if present
-                if ((note.startsWith("'") && note.endsWith("'")) ||
-                    (note.startsWith("\"") && note.endsWith("\""))) {
-                    note = note.substring(1, note.length() - 1);
-                }
-                column.setNote(note);
-            } else if (attr.startsWith("ref:")) {
-                String refStr = attr.substring(4).trim();
-                ColumnModel.RefValue ref = parseColumnReference(refStr);
-                column.setReference(ref);
-            }
+    private void parseBlocks(String content, List<DbmlBlockScanner.Block> blocks, int[] pending, int from, int to,
+                             DbmlModel[] fragments) {
+        // Blocks parsed together share one pool, so repeated names and types are stored once
+        NamePool names = new NamePool();
+        for (int i = from; i < to; i++) {
+            DbmlBlockScanner.Block block = blocks.get(pending[i]);
+            fragments[pending[i]] = modelParser.parse(content, block.start(), block.end(), block.line(), names)
+                    .freeze();
         }
     }
 
-    private ColumnModel.RefValue parseColumnReference(String refStr) {
-        try {
-            // Pattern: tableName.columnName or tableName.columnName >
-            Pattern pattern = Pattern.compile("([\\w_]+)\\.([\\w_]+)\\s*([<>-]?)");
-            Matcher matcher = pattern.matcher(refStr);
-            
-            if (matcher.matches()) {
-                return ColumnModel.RefValue.builder()
-                        .tableName(matcher.group(1))
-                        .columnName(matcher.group(2))
-                        .cardinality(matcher.group(3).isEmpty() ? null : matcher.group(3))
-                        .build();
-            }
-        } catch (Exception e) {
-            log.warn("Error parsing reference: {} - {}", refStr, e.getMessage());
+    /**
+     * Parses {@code pending[from, to)} by halving the range until it is small enough for one task.
+     * Each task writes only its own slots of {@code fragments}; {@link ForkJoinPool#invoke} publishes them.
+     */
+    private final class ParseBlocksTask extends RecursiveAction {
+        private final String content;
+        private final List<DbmlBlockScanner.Block> blocks;
+        private final int[] pending;
+        private final int from;
+        private final int to;
+        private final int perTask;
+        private final DbmlModel[] fragments;
+
+        ParseBlocksTask(String content, List<DbmlBlockScanner.Block> blocks, int[] pending, int from, int to,
+                        int perTask, DbmlModel[] fragments) {
+            this.content = content;
+            this.blocks = blocks;
+            this.pending = pending;
+            this.from = from;
+            this.to = to;
+            this.perTask = perTask;
+            this.fragments = fragments;
         }
-        return null;
-    }
 
-    private RefModel parseReference(String line) {
-        // TODO: Implement full reference parsing
-        // For now, return null as references are handled at column level
-        return null;
+        @Override
+        protected void compute() {
+            if (to - from <= perTask) {
+                parseBlocks(content, blocks, pending, from, to, fragments);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseBlocksTask(content, blocks, pending, from, middle, perTask, fragments),
+                    new ParseBlocksTask(content, blocks, pending, middle, to, perTask, fragments));
+        }
     }
 
-    private EnumModel parseEnum(String[] lines, int startIndex) {
-        // TODO: Implement enum parsing if needed
-        return null;
+    // Fragments are frozen, so their tables, refs, enums and groups are shared instead of copied
+    private void appendFragment(DbmlModel model, DbmlModel fragment) {
+        if (DataUtils.notNull(fragment.getProjectName())) {
+            model.setProjectName(fragment.getProjectName());
+        }
+        if (DataUtils.notNull(fragment.getDatabaseType())) {
+            model.setDatabaseType(fragment.getDatabaseType());
+        }
+        if (DataUtils.notNull(fragment.getNote())) {
+            model.setNote(fragment.getNote());
+        }
+        for (TableModel table : fragment.getTables()) {
+            model.getTables().add(table);
+        }
+        for (RefModel ref : fragment.getRefs()) {
+            model.getRefs().add(ref);
+        }
+        for (EnumModel enumModel : fragment.getEnums()) {
+            model.getEnums().add(enumModel);
+        }
+        for (TableGroupModel group : fragment.getTableGroups()) {
+            model.getTableGroups().add(group);
+        }
     }
-} 
\ No newline at end of file
+}
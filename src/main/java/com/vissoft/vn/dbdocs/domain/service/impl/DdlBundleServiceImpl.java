@@ -0,0 +1,301 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vissoft.vn.dbdocs.application.dto.DdlBundleManifest;
+import com.vissoft.vn.dbdocs.application.dto.DdlBundleRequest;
+import com.vissoft.vn.dbdocs.domain.model.DdlBundle;
+import com.vissoft.vn.dbdocs.domain.model.DdlScript;
+import com.vissoft.vn.dbdocs.domain.service.DdlBundleService;
+import com.vissoft.vn.dbdocs.domain.service.GeneraScriptDDLService;
+import com.vissoft.vn.dbdocs.domain.service.VersionService;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders the dialects of a bundle on a shared pool, each from the same comparison, while the request
+ * thread zips the finished scripts in request order. Scripts are loaded and written by
+ * {@link VersionService}, so they are read from the DDL cache or cached once rendered.
+ * <p>
+ * Only {@code version.ddl-bundle.render-ahead} dialects are rendered ahead of the one being zipped, each
+ * into a temporary file, so a bundle holds no whole script on the heap however large its DDL is.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DdlBundleServiceImpl implements DdlBundleService {
+
+    private static final String MANIFEST_NAME = "manifest.json";
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private final VersionService versionService;
+    private final GeneraScriptDDLService generaScriptDDLService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${version.ddl-bundle.threads:4}")
+    private int bundleThreads;
+
+    @Value("${version.ddl-bundle.queue-capacity:100}")
+    private int bundleQueueCapacity;
+
+    @Value("${version.ddl-bundle.render-ahead:1}")
+    private int renderAhead;
+
+    private ThreadPoolExecutor renderExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Shared by all bundles; when the queue is full the request thread renders the dialect itself
+        renderExecutor = new ThreadPoolExecutor(bundleThreads, bundleThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bundleQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ddl-bundle-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    @Override
+    public DdlBundle prepareBundle(DdlBundleRequest request) {
+        long startedAt = System.nanoTime();
+        List<DdlScript> scripts = versionService.prepareSingleVersionDdls(request.getProjectId(),
+                request.getVersionNumber(), request.getDialects());
+        // The scripts share their comparison: the first one not cached parses, the others reuse it
+        long parseStart = System.nanoTime();
+        scripts = scripts.stream().map(versionService::loadDdlScript).toList();
+        long parseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parseStart);
+
+        String fileName = baseName(scripts.get(0)) + "-ddl.zip";
+        log.info("DDL bundle {} prepared with {} dialect(s), parsed in {} ms", fileName, scripts.size(), parseMillis);
+        return new DdlBundle(fileName, request.getProjectId(), request.getVersionNumber(), scripts, startedAt,
+                parseMillis);
+    }
+
+    @Override
+    public void writeBundle(DdlBundle bundle, OutputStream out) throws IOException {
+        List<DdlScript> scripts = bundle.scripts();
+        List<Future<RenderedDdl>> renders = new ArrayList<>(scripts.size());
+        // Created here rather than by the render, so that a cancelled render cannot leave its file behind
+        List<Path> spools = new ArrayList<>(scripts.size());
+        try {
+            ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+            List<DdlBundleManifest.File> files = new ArrayList<>(scripts.size());
+            for (int i = 0; i < scripts.size(); i++) {
+                DdlScript script = scripts.get(i);
+                String dialectName = generaScriptDDLService.dialectName(script.dialect());
+                // e.g. shop-v3-sql-server.sql
+                String entryName = baseName(script) + "-" + dialectName.toLowerCase(Locale.ROOT).replace(' ', '-') + ".sql";
+                while (renders.size() <= i) {
+                    submit(scripts.get(renders.size()), renders, spools);
+                }
+                RenderedDdl rendered = await(renders.get(i));
+                renders.set(i, null);
+                // The next dialects render while this one is zipped, no further ahead
+                while (renders.size() < Math.min(scripts.size(), i + 1 + renderAhead)) {
+                    submit(scripts.get(renders.size()), renders, spools);
+                }
+                zip.putNextEntry(new ZipEntry(entryName));
+                Files.copy(spools.get(i), zip);
+                zip.closeEntry();
+                deleteSpool(spools.get(i));
+                spools.set(i, null);
+                files.add(DdlBundleManifest.File.builder()
+                        .fileName(entryName)
+                        .dialect(script.dialect())
+                        .dialectName(dialectName)
+                        .statements(rendered.statements())
+                        .bytes(rendered.bytes())
+                        .renderMillis(rendered.renderMillis())
+                        .cached(rendered.cached())
+                        .build());
+            }
+
+            DdlBundleManifest manifest = DdlBundleManifest.builder()
+                    .projectId(bundle.projectId())
+                    .versionNumber(bundle.versionNumber())
+                    .generatedAt(LocalDateTime.now())
+                    .parseMillis(bundle.parseMillis())
+                    .totalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bundle.startedAt()))
+                    .files(files)
+                    .build();
+            zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+            zip.finish();
+            log.info("DDL bundle {} written in {} ms", bundle.fileName(), manifest.getTotalMillis());
+        } finally {
+            // Client gone or a dialect failed: the renders still pending are not needed anymore
+            for (Future<RenderedDdl> render : renders) {
+                if (DataUtils.notNull(render)) {
+                    render.cancel(true);
+                }
+            }
+            spools.forEach(DdlBundleServiceImpl::deleteSpool);
+        }
+    }
+
+    private void submit(DdlScript script, List<Future<RenderedDdl>> renders, List<Path> spools) throws IOException {
+        Path spool = Files.createTempFile("ddl-bundle-", ".sql");
+        spools.add(spool);
+        renders.add(renderExecutor.submit(() -> render(script, spool)));
+    }
+
+    private RenderedDdl render(DdlScript script, Path spool) throws IOException {
+        long start = System.nanoTime();
+        boolean cached = DataUtils.notNull(script.cachedDdl());
+        // Without CREATE: once the bundle has deleted the file, a late render fails instead of recreating it
+        StatementCounter ddl = new StatementCounter(new BufferedOutputStream(
+                Files.newOutputStream(spool, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                SPOOL_BUFFER_SIZE));
+        try (ddl) {
+            versionService.writeDdlScript(script, ddl);
+        }
+        return new RenderedDdl(ddl.bytes(), ddl.statements(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), cached);
+    }
+
+    private static void deleteSpool(Path spool) {
+        if (DataUtils.isNull(spool)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete DDL bundle spool file {}: {}", spool, e.getMessage());
+        }
+    }
+
+    // File name of a script without its .sql extension
+    private static String baseName(DdlScript script) {
+        String fileName = script.fileName();
+        return fileName.endsWith(".sql") ? fileName.substring(0, fileName.length() - 4) : fileName;
+    }
+
+    private static RenderedDdl await(Future<RenderedDdl> render) throws IOException {
+        try {
+            return render.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("DDL bundle interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("Could not render DDL", e.getCause());
+        }
+    }
+
+    private record RenderedDdl(long bytes, int statements, long renderMillis, boolean cached) {
+    }
+
+    /**
+     * Passes a rendered script through, counting its bytes and statements on the way.
+     */
+    private static final class StatementCounter extends FilterOutputStream {
+        private long bytes;
+        private int statements;
+        // First non-blank byte of the current line, the byte right after it and the last non-blank one
+        private int first = -1;
+        private int second = -1;
+        private int last = -1;
+        private boolean closed;
+
+        StatementCounter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                count(bytes[i]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                // The last line may have no line break
+                endLine();
+                super.close();
+            }
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        // Lines ending with ';' outside "--" comments; every dialect ends each statement this way
+        int statements() {
+            return statements;
+        }
+
+        private void count(byte value) {
+            bytes++;
+            int b = value & 0xFF;
+            if (b == '\n') {
+                endLine();
+                return;
+            }
+            if (first >= 0 && second < 0) {
+                second = b;
+            }
+            if (b != ' ' && b != '\t' && b != '\r') {
+                if (first < 0) {
+                    first = b;
+                }
+                last = b;
+            }
+        }
+
+        private void endLine() {
+            boolean comment = first == '-' && second == '-';
+            if (last == ';' && !comment) {
+                statements++;
+            }
+            first = -1;
+            second = -1;
+            last = -1;
+        }
+    }
+}
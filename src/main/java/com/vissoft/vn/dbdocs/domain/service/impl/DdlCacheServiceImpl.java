@@ -0,0 +1,392 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.model.DdlCacheKey;
+import com.vissoft.vn.dbdocs.domain.repository.ChangeLogRepository;
+import com.vissoft.vn.dbdocs.domain.repository.ChangeLogSnapshotRepository;
+import com.vissoft.vn.dbdocs.domain.service.DdlCacheService;
+import com.vissoft.vn.dbdocs.domain.service.GeneraScriptDDLService;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generated full-schema DDL by content digest and dialect, in two tiers: an LRU of UTF-8 bytes bounded by
+ * entry count and total size, and optionally files under {@code version.ddl-cache.disk-dir}, read back
+ * through memory-mapped buffers so that serving them does not copy the DDL onto the heap.
+ * <p>
+ * DDL larger than {@code max-entry-bytes} only goes to disk, so rendering it for a download does not
+ * hold it in memory. Keys never go stale: the digest is of the changelog text and the key holds the
+ * format version of the DDL.
+ */
+@Slf4j
+@Service
+public class DdlCacheServiceImpl implements DdlCacheService {
+
+    private static final String FILE_SUFFIX = ".sql";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Changelog ids whose text digest is remembered
+    private static final int MAX_CONTENT_DIGESTS = 4096;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeLogSnapshotRepository changeLogSnapshotRepository;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long maxEntryBytes;
+    private final long maxDiskBytes;
+    // null when the disk tier is disabled
+    private Path diskDir;
+
+    private final LinkedHashMap<DdlCacheKey, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightBytes;
+    private final Map<String, String> contentDigests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CONTENT_DIGESTS;
+        }
+    };
+    private final Object diskLock = new Object();
+    private long diskBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public DdlCacheServiceImpl(ChangeLogRepository changeLogRepository,
+                               ChangeLogSnapshotRepository changeLogSnapshotRepository,
+                               @Value("${version.ddl-cache.max-entries:32}") int maxEntries,
+                               @Value("${version.ddl-cache.max-weight-bytes:134217728}") long maxWeightBytes,
+                               @Value("${version.ddl-cache.max-entry-bytes:16777216}") long maxEntryBytes,
+                               @Value("${version.ddl-cache.disk-dir:}") String diskDir,
+                               @Value("${version.ddl-cache.max-disk-bytes:1073741824}") long maxDiskBytes) {
+        this.changeLogRepository = changeLogRepository;
+        this.changeLogSnapshotRepository = changeLogSnapshotRepository;
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxWeightBytes);
+        this.maxDiskBytes = maxDiskBytes;
+        this.diskDir = DataUtils.isNull(diskDir) || diskDir.isBlank() ? null : Path.of(diskDir.trim());
+    }
+
+    @PostConstruct
+    public void init() {
+        if (DataUtils.isNull(diskDir)) {
+            return;
+        }
+        try {
+            Files.createDirectories(diskDir);
+            long total = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        // Left over by a download that was interrupted by a shutdown
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(FILE_SUFFIX)) {
+                        total += Files.size(file);
+                    }
+                }
+            }
+            diskBytes = total;
+            log.info("DDL disk cache in {}: {} bytes", diskDir, total);
+        } catch (IOException e) {
+            log.warn("DDL disk cache directory {} is not usable, keeping DDL in memory only: {}", diskDir, e.getMessage());
+            diskDir = null;
+        }
+    }
+
+    @Override
+    public DdlCacheKey keyOf(String changeLogId, int dialect) {
+        String digest;
+        synchronized (contentDigests) {
+            digest = contentDigests.get(changeLogId);
+        }
+        if (DataUtils.isNull(digest)) {
+            digest = changeLogSnapshotRepository.findContentHashById(changeLogId).orElse(null);
+            if (DataUtils.isNull(digest)) {
+                log.debug("Changelog {} has no model snapshot, hashing its content", changeLogId);
+                String content = changeLogRepository.findById(changeLogId).map(ChangeLog::getContent).orElse(null);
+                digest = HashUtils.sha256Hex(DataUtils.notNull(content) ? content : "");
+            }
+            synchronized (contentDigests) {
+                contentDigests.put(changeLogId, digest);
+            }
+        }
+        return new DdlCacheKey(digest, dialect, GeneraScriptDDLService.FORMAT_VERSION);
+    }
+
+    @Override
+    public ByteBuffer get(DdlCacheKey key) {
+        byte[] cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (DataUtils.notNull(cached)) {
+            hitCount.incrementAndGet();
+            return ByteBuffer.wrap(cached).asReadOnlyBuffer();
+        }
+        ByteBuffer mapped = map(key);
+        if (DataUtils.notNull(mapped)) {
+            hitCount.incrementAndGet();
+            log.debug("DDL {} read from disk cache ({} bytes)", key, mapped.remaining());
+            return mapped;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public void put(DdlCacheKey key, String ddl) {
+        byte[] bytes = ddl.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxEntryBytes) {
+            putInMemory(key, bytes);
+        }
+        if (DataUtils.notNull(diskDir) && !Files.exists(file(key))) {
+            Path temp = null;
+            try {
+                temp = Files.createTempFile(diskDir, key.contentDigest(), TEMP_SUFFIX);
+                Files.write(temp, bytes);
+                publishFile(temp, key);
+            } catch (IOException e) {
+                log.warn("Could not write DDL {} to disk cache: {}", key, e.getMessage());
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    @Override
+    public Capture capture(DdlCacheKey key, OutputStream target) throws IOException {
+        Path temp = null;
+        OutputStream diskCopy = null;
+        if (DataUtils.notNull(diskDir) && !Files.exists(file(key))) {
+            try {
+                temp = Files.createTempFile(diskDir, key.contentDigest(), TEMP_SUFFIX);
+                diskCopy = new BufferedOutputStream(Files.newOutputStream(temp));
+            } catch (IOException e) {
+                log.warn("Could not write DDL {} to disk cache: {}", key, e.getMessage());
+                deleteQuietly(temp);
+                temp = null;
+            }
+        }
+        return new TeeCapture(key, target, temp, diskCopy);
+    }
+
+    @Override
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return CacheStats.builder()
+                    .hitCount(hitCount.get())
+                    .missCount(missCount.get())
+                    .evictionCount(evictionCount.get())
+                    .entryCount(entries.size())
+                    .weightBytes(weightBytes)
+                    .maxWeightBytes(maxWeightBytes)
+                    .build();
+        }
+    }
+
+    private void putInMemory(DdlCacheKey key, byte[] bytes) {
+        synchronized (entries) {
+            byte[] previous = entries.put(key, bytes);
+            if (DataUtils.notNull(previous)) {
+                weightBytes -= previous.length;
+            }
+            weightBytes += bytes.length;
+            Iterator<Map.Entry<DdlCacheKey, byte[]>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && eldest.hasNext()) {
+                weightBytes -= eldest.next().getValue().length;
+                eldest.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private ByteBuffer map(DdlCacheKey key) {
+        if (DataUtils.isNull(diskDir)) {
+            return null;
+        }
+        // The mapping stays valid after the channel is closed, and after the file is evicted
+        try (FileChannel channel = FileChannel.open(file(key), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Could not read DDL {} from disk cache: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path file(DdlCacheKey key) {
+        return diskDir.resolve(key.contentDigest() + "-" + key.dialect() + "-v" + key.formatVersion() + FILE_SUFFIX);
+    }
+
+    // Readers only ever see complete files: the DDL is written to a temporary file and renamed. Under
+    // diskLock, so that of two concurrent renders of the same key only the first is moved and counted
+    private void publishFile(Path temp, DdlCacheKey key) throws IOException {
+        long size = Files.size(temp);
+        synchronized (diskLock) {
+            Path file = file(key);
+            if (Files.exists(file)) {
+                // Same key, same bytes
+                Files.delete(temp);
+                return;
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            diskBytes += size;
+            if (diskBytes > maxDiskBytes) {
+                evictFiles();
+            }
+        }
+    }
+
+    // Oldest files first; caller holds diskLock
+    private void evictFiles() {
+        record CachedFile(Path path, FileTime modified, long size) {
+        }
+        List<CachedFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskDir, "*" + FILE_SUFFIX)) {
+            for (Path path : stream) {
+                files.add(new CachedFile(path, Files.getLastModifiedTime(path), Files.size(path)));
+            }
+        } catch (IOException e) {
+            log.warn("Could not list DDL disk cache {}: {}", diskDir, e.getMessage());
+            return;
+        }
+        files.sort(Comparator.comparing(CachedFile::modified));
+        long total = files.stream().mapToLong(CachedFile::size).sum();
+        for (CachedFile file : files) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            deleteQuietly(file.path());
+            total -= file.size();
+            evictionCount.incrementAndGet();
+        }
+        diskBytes = total;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (DataUtils.isNull(path)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private final class TeeCapture extends Capture {
+        private final DdlCacheKey key;
+        private final OutputStream target;
+        private ByteArrayOutputStream memoryCopy = new ByteArrayOutputStream();
+        private Path temp;
+        private OutputStream diskCopy;
+        private boolean published;
+
+        TeeCapture(DdlCacheKey key, OutputStream target, Path temp, OutputStream diskCopy) {
+            this.key = key;
+            this.target = target;
+            this.temp = temp;
+            this.diskCopy = diskCopy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target.write(bytes, offset, length);
+            if (DataUtils.notNull(memoryCopy)) {
+                if (memoryCopy.size() + length > maxEntryBytes) {
+                    memoryCopy = null;
+                } else {
+                    memoryCopy.write(bytes, offset, length);
+                }
+            }
+            if (DataUtils.notNull(diskCopy)) {
+                try {
+                    diskCopy.write(bytes, offset, length);
+                } catch (IOException e) {
+                    // The cache must not fail the download
+                    log.warn("Could not write DDL {} to disk cache: {}", key, e.getMessage());
+                    dropDiskCopy();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void publish() throws IOException {
+            published = true;
+            if (DataUtils.notNull(memoryCopy)) {
+                putInMemory(key, memoryCopy.toByteArray());
+                memoryCopy = null;
+            }
+            if (DataUtils.notNull(diskCopy)) {
+                try {
+                    diskCopy.close();
+                    diskCopy = null;
+                    publishFile(temp, key);
+                    temp = null;
+                } catch (IOException e) {
+                    log.warn("Could not write DDL {} to disk cache: {}", key, e.getMessage());
+                    dropDiskCopy();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            memoryCopy = null;
+            if (!published) {
+                dropDiskCopy();
+            }
+        }
+
+        private void dropDiskCopy() {
+            if (DataUtils.notNull(diskCopy)) {
+                try {
+                    diskCopy.close();
+                } catch (IOException e) {
+                    log.debug("Could not close {}: {}", temp, e.getMessage());
+                }
+                diskCopy = null;
+            }
+            deleteQuietly(temp);
+            temp = null;
+        }
+    }
+}
@@ -1,40 +1,55 @@
 package com.vissoft.vn.dbdocs.domain.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vissoft.vn.dbdocs.application.dto.VersionCompareBatchItem;
+import com.vissoft.vn.dbdocs.application.dto.VersionCompareBatchRequest;
 import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
 import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
 import com.vissoft.vn.dbdocs.domain.entity.Version;
 import com.vissoft.vn.dbdocs.domain.exception.CustomException;
-import com.vissoft.vn.dbdocs.domain.model.DbmlParser;
+import com.vissoft.vn.dbdocs.domain.model.VersionDiffKey;
 import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
 import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
 import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
+import com.vissoft.vn.dbdocs.domain.model.diff.ChangeType;
+import com.vissoft.vn.dbdocs.domain.model.diff.ColumnChange;
+import com.vissoft.vn.dbdocs.domain.model.diff.SchemaDiff;
+import com.vissoft.vn.dbdocs.domain.model.diff.SchemaDiffComposer;
 import com.vissoft.vn.dbdocs.domain.repository.ChangeLogRepository;
 import com.vissoft.vn.dbdocs.domain.repository.VersionRepository;
+import com.vissoft.vn.dbdocs.domain.service.DbmlModelCacheService;
 import com.vissoft.vn.dbdocs.domain.service.VersionComparisonService;
+import com.vissoft.vn.dbdocs.domain.service.VersionDiffCacheService;
+import com.vissoft.vn.dbdocs.domain.service.VersionDiffService;
+import com.vissoft.vn.dbdocs.infrastructure.exception.BaseException;
 import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.javers.core.Javers;
-import org.javers.core.metamodel.object.GlobalId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-// Import cho các thay đổi của Map (quan trọng nhất cho lỗi này)
-import org.javers.core.diff.Change; // Lớp Change cơ sở
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -43,10 +58,97 @@ public class VersionComparisonServiceImpl implements VersionComparisonService {
     private final VersionRepository versionRepository;
     private final ChangeLogRepository changeLogRepository;
     private final ObjectMapper objectMapper;
-    private final Javers javers;
+    private final DbmlModelCacheService dbmlModelCacheService;
+    private final VersionDiffCacheService versionDiffCacheService;
+    // Provider: the diff service itself compares through this service
+    private final ObjectProvider<VersionDiffService> versionDiffService;
+
+    @Value("${version.diff-executor.await-millis:30000}")
+    private long diffAwaitMillis;
+
+    @Value("${version.diff-compose.max-links:100}")
+    private int diffComposeMaxLinks;
+
+    @Value("${version.parallel-diff.min-tables:2000}")
+    private int parallelDiffMinTables;
+
+    @Value("${version.parallel-diff.parallelism:0}")
+    private int parallelDiffParallelism;
+
+    @Value("${version.batch-compare.threads:4}")
+    private int batchCompareThreads;
+
+    @Value("${version.batch-compare.max-ranges:200}")
+    private int batchCompareMaxRanges;
+
+    // Single requests read changelogs from the repository and models from the model cache
+    private final ChangeLogSource directSource = new ChangeLogSource() {
+        @Override
+        public Optional<ChangeLog> findById(String changeLogId) {
+            return changeLogRepository.findById(changeLogId);
+        }
+
+        @Override
+        public Optional<ChangeLog> findLatest(String projectId) {
+            return changeLogRepository.findLatestChangeLogByProjectId(projectId);
+        }
+
+        @Override
+        public String contentDigest(String changeLogId) {
+            return digestById(changeLogId);
+        }
+
+        @Override
+        public DbmlModel model(ChangeLog changeLog) {
+            return dbmlModelCacheService.getLazyModel(changeLog);
+        }
+    };
+
+    private ThreadPoolExecutor batchExecutor;
+    // Null on a single core: tables are then compared on the calling thread
+    private ForkJoinPool diffPool;
+
+    @PostConstruct
+    public void init() {
+        int diffThreads = parallelDiffParallelism > 0 ? parallelDiffParallelism : Runtime.getRuntime().availableProcessors();
+        diffPool = diffThreads > 1 ? new ForkJoinPool(diffThreads, VersionComparisonServiceImpl::newDiffThread, null, false) : null;
+        log.info("Parallel table diffing {}", DataUtils.isNull(diffPool)
+                ? "disabled (single core)"
+                : "enabled with " + diffThreads + " threads for " + parallelDiffMinTables + "+ common tables");
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Shared by all batches; when the queue is full the request thread compares the range itself
+        batchExecutor = new ThreadPoolExecutor(batchCompareThreads, batchCompareThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchCompareMaxRanges),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "version-compare-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ForkJoinWorkerThread newDiffThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("table-diff-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+        if (DataUtils.notNull(diffPool)) {
+            diffPool.shutdownNow();
+        }
+    }
 
     @Override
     public VersionComparisonDTO compareVersions(String projectId, Integer fromVersion, Integer toVersion) {
+        return compareVersions(projectId, fromVersion, toVersion, directSource);
+    }
+
+    private VersionComparisonDTO compareVersions(String projectId, Integer fromVersion, Integer toVersion,
+                                                 ChangeLogSource source) {
         log.info("Comparing versions {} and {} for project {}", fromVersion, toVersion, projectId);
         
         // Check fromVersion and toVersion validity
@@ -68,63 +170,85 @@ public class VersionComparisonServiceImpl implements VersionComparisonService {
         if (fromVersionEntity.isEmpty() || (DataUtils.notNull(toVersion) && toVersionEntity.isEmpty())) {
             throw new CustomException("One or both versions not found", HttpStatus.NOT_FOUND);
         }
-        
-        // Get the ChangeLog for fromVersion
-        String fromChangeLogId = fromVersionEntity.get().getChangeLogId();
-        Optional<ChangeLog> fromChangeLog = changeLogRepository.findById(fromChangeLogId);
-        
-        Optional<ChangeLog> toChangeLog;
+
+        // The latest changelog is needed whatever happens; for versions, the digests are enough to look up the cache
+        Optional<ChangeLog> latestChangeLog = Optional.empty();
+        VersionDiffKey key;
         if (DataUtils.notNull(toVersion)) {
-            // If toVersion is specified, get the ChangeLog for that version
-            String toChangeLogId = toVersionEntity.get().getChangeLogId();
-            toChangeLog = changeLogRepository.findById(toChangeLogId);
+            key = new VersionDiffKey(projectId, fromVersion, toVersion,
+                    fromVersionEntity.get().getChangeLogId(), source.contentDigest(fromVersionEntity.get().getChangeLogId()),
+                    toVersionEntity.get().getChangeLogId(), source.contentDigest(toVersionEntity.get().getChangeLogId()));
         } else {
-            // If toVersion is null, get the latest ChangeLog for the project
-            toChangeLog = changeLogRepository.findLatestChangeLogByProjectId(projectId);
+            latestChangeLog = source.findLatest(projectId);
+            if (latestChangeLog.isEmpty()) {
+                throw new CustomException("One or both changelogs not found", HttpStatus.NOT_FOUND);
+            }
+            key = new VersionDiffKey(projectId, fromVersion, null,
+                    fromVersionEntity.get().getChangeLogId(), source.contentDigest(fromVersionEntity.get().getChangeLogId()),
+                    latestChangeLog.get().getId(), digestOf(latestChangeLog.get()));
         }
-        
-        if (fromChangeLog.isEmpty() || toChangeLog.isEmpty()) {
-            throw new CustomException("One or both changelogs not found", HttpStatus.NOT_FOUND);
+        VersionComparisonDTO cached = versionDiffCacheService.get(key);
+        if (DataUtils.notNull(cached)) {
+            return cached;
+        }
+
+        VersionComparisonDTO result = null;
+        // Adjacent versions: the diff was materialised when toVersion was created
+        if (DataUtils.notNull(toVersion) && toVersion == fromVersion + 1) {
+            result = storedDiff(toVersionEntity.get(), fromVersion);
+            if (DataUtils.notNull(result)) {
+                log.debug("Serving stored diff of version {} of project {}", toVersion, projectId);
+            }
         }
-        
-        // Get the DBML content from the ChangeLogs
-        String fromDbml = fromChangeLog.get().getContent();
-        String toDbml = toChangeLog.get().getContent();
-        
-        // Parse the DBML content to create DbmlModel objects
-        DbmlParser parser = new DbmlParser();
-        
-        try {
-            DbmlModel beforeModel = parser.parse(fromDbml);
-            DbmlModel currentModel = parser.parse(toDbml);
-            
-            // Handle case where no tables exist in either model
-            Map<String, Object> diffChanges = compareModels(beforeModel, currentModel);
-            List<VersionComparisonDTO.TableDiff> tableDiffs = createTableDiffs(diffChanges, objectMapper);
-            String diffJson = objectMapper.writeValueAsString(diffChanges);
-            log.info("Version comparison result: {}", diffJson);
 
+        // Longer ranges: fold the stored diffs of the versions in between
+        if (DataUtils.isNull(result) && DataUtils.notNull(toVersion) && toVersion - fromVersion <= diffComposeMaxLinks) {
+            result = composeStoredDiffs(projectId, fromVersionEntity.get(), toVersionEntity.get(), source);
+        }
 
-            
-            // If toVersion is null, we assume the next version is fromVersion + 1
-            Integer actualToVersion = toVersion;
-            if (DataUtils.isNull(toVersion)) {
-                actualToVersion = fromVersion + 1;
+        if (DataUtils.isNull(result)) {
+            Optional<ChangeLog> fromChangeLog = source.findById(fromVersionEntity.get().getChangeLogId());
+            // If toVersion is null, compare with the latest changelog of the project
+            Optional<ChangeLog> toChangeLog = DataUtils.notNull(toVersion)
+                    ? source.findById(toVersionEntity.get().getChangeLogId())
+                    : latestChangeLog;
+            if (fromChangeLog.isEmpty() || toChangeLog.isEmpty()) {
+                throw new CustomException("One or both changelogs not found", HttpStatus.NOT_FOUND);
             }
-            
-            // Save diff to the toVersion entity if it exists
-            if (DataUtils.notNull(toVersion)) {
-                toVersionEntity.get().setDiffChange(diffJson);
-                versionRepository.save(toVersionEntity.get());
+
+            // If toVersion is null, we assume the next version is fromVersion + 1
+            Integer actualToVersion = DataUtils.notNull(toVersion) ? toVersion : fromVersion + 1;
+            result = compareChangeLogs(projectId, fromVersion, actualToVersion,
+                    fromChangeLog.get(), toChangeLog.get(), source);
+        }
+        versionDiffCacheService.put(key, result);
+        return result;
+    }
+
+    @Override
+    public VersionComparisonDTO compareChangeLogs(String projectId, Integer fromVersion, Integer toVersion,
+                                                  ChangeLog fromChangeLog, ChangeLog toChangeLog) {
+        return compareChangeLogs(projectId, fromVersion, toVersion, fromChangeLog, toChangeLog, directSource);
+    }
+
+    private VersionComparisonDTO compareChangeLogs(String projectId, Integer fromVersion, Integer toVersion,
+                                                   ChangeLog fromChangeLog, ChangeLog toChangeLog,
+                                                   ChangeLogSource source) {
+        try {
+            SchemaDiff diffChanges;
+            if (DataUtils.notNull(fromChangeLog.getContentDigest())
+                    && Objects.equals(fromChangeLog.getContentDigest(), toChangeLog.getContentDigest())) {
+                // Same canonical form: nothing to parse or compare
+                log.info("Changelogs {} and {} are semantically identical, skipping comparison",
+                        fromChangeLog.getId(), toChangeLog.getId());
+                diffChanges = new SchemaDiff();
+            } else {
+                // Tables are parsed on access only: unchanged tables are compared by their source text
+                DbmlModel beforeModel = source.model(fromChangeLog);
+                DbmlModel currentModel = source.model(toChangeLog);
+                diffChanges = compareModels(beforeModel, currentModel);
             }
-            
-            return VersionComparisonDTO.builder()
-                    .projectId(projectId)
-                    .fromVersion(fromVersion)
-                    .toVersion(actualToVersion)
-                    .diffChanges(diffJson)
-                    .tableDiffs(tableDiffs)
-                    .build();
+            return toComparison(projectId, fromVersion, toVersion, diffChanges);
         } catch (Exception e) {
             log.error("Error parsing DBML or comparing versions", e);
             throw new CustomException("Error parsing DBML or comparing versions: " + e.getMessage(), 
@@ -132,382 +256,403 @@ public class VersionComparisonServiceImpl implements VersionComparisonService {
         }
     }
 
-    // Bạn không cần các hàm helper extract...FromGlobalId nữa với cách làm này.
+    private VersionComparisonDTO toComparison(String projectId, Integer fromVersion, Integer toVersion,
+                                              SchemaDiff diffChanges) throws JsonProcessingException {
+        List<VersionComparisonDTO.TableDiff> tableDiffs = createTableDiffs(diffChanges);
+        // SchemaDiff streams itself to the generator, no intermediate tree
+        String diffJson = objectMapper.writeValueAsString(diffChanges);
+        // The diff itself can run to megabytes, only its size is logged
+        log.info("Version comparison of versions {} and {} of project {}: {} changed table(s), {} chars",
+                fromVersion, toVersion, projectId, tableDiffs.size(), diffJson.length());
+
+        return VersionComparisonDTO.builder()
+                .projectId(projectId)
+                .fromVersion(fromVersion)
+                .toVersion(toVersion)
+                .diffChanges(diffJson)
+                .tableDiffs(tableDiffs)
+                .build();
+    }
 
-    private Map<String, Object> compareModels(DbmlModel beforeModel, DbmlModel currentModel) {
-        log.debug("Comparing models using direct, manual diffing logic for clarity.");
+    /**
+     * Net diff of a range of versions composed from the stored diffs of each version in the range.
+     * Only tables the stored diffs cannot account for (see {@link SchemaDiffComposer}) are read from the
+     * changelogs at either end, and only those tables are parsed.
+     *
+     * @return null if a stored diff in the chain is missing or unusable; the caller compares directly
+     */
+    private VersionComparisonDTO composeStoredDiffs(String projectId, Version from, Version to,
+                                                    ChangeLogSource source) {
+        List<Version> chain = versionRepository.findByProjectIdAndCodeVersionBetweenOrderByCodeVersionAsc(
+                projectId, from.getCodeVersion() + 1, to.getCodeVersion());
+        if (chain.size() != to.getCodeVersion() - from.getCodeVersion()) {
+            log.debug("Versions between {} and {} of project {} are not contiguous, not composing",
+                    from.getCodeVersion(), to.getCodeVersion(), projectId);
+            return null;
+        }
         try {
-            // Tạo Map cho hai phiên bản
-            Map<String, TableModel> beforeTablesMap = beforeModel.getTables().stream()
-                    .collect(Collectors.toMap(TableModel::getName, table -> table, (t1, t2) -> t1));
-            Map<String, TableModel> currentTablesMap = currentModel.getTables().stream()
-                    .collect(Collectors.toMap(TableModel::getName, table -> table, (t1, t2) -> t1));
-
-            ObjectNode rootNode = objectMapper.createObjectNode();
-            Map<String, ArrayNode> tableChanges = new HashMap<>();
-            ArrayNode addedTables = objectMapper.createArrayNode();
-            ArrayNode removedTables = objectMapper.createArrayNode();
-
-            // --- Xử lý THÊM BẢNG ---
-            for (String currentTableName : currentTablesMap.keySet()) {
-                if (!beforeTablesMap.containsKey(currentTableName)) {
-                    // Lấy toàn bộ đối tượng TableModel của bảng mới
-                    TableModel addedTableObject = currentTablesMap.get(currentTableName);
-
-                    // Chuyển đổi đối tượng này thành dạng JSON và thêm vào mảng
-                    // Giờ đây "addedTables" sẽ là một mảng các đối tượng bảng, không phải mảng chuỗi
-                    addedTables.add(objectMapper.valueToTree(addedTableObject));
+            SchemaDiffComposer composer = new SchemaDiffComposer();
+            for (Version version : chain) {
+                VersionComparisonDTO stored = storedDiff(version, version.getCodeVersion() - 1);
+                if (DataUtils.isNull(stored)) {
+                    log.debug("No stored diff for version {} of project {}, not composing",
+                            version.getCodeVersion(), projectId);
+                    return null;
                 }
+                composer.append(readSchemaDiff(stored.getDiffChanges()));
             }
 
-            // --- Xử lý XÓA BẢNG ---
-            for (String beforeTableName : beforeTablesMap.keySet()) {
-                if (!currentTablesMap.containsKey(beforeTableName)) {
-                    removedTables.add(beforeTableName);
-                }
+            Map<String, TableModel> startTables = tablesOf(from, composer.tablesNeededAtStart(), source);
+            Map<String, TableModel> endTables = tablesOf(to, composer.tablesNeededAtEnd(), source);
+            if (DataUtils.isNull(startTables) || DataUtils.isNull(endTables)) {
+                return null;
             }
-
-            // --- Xử lý SỬA BẢNG ---
-            for (String tableName : currentTablesMap.keySet()) {
-                if (beforeTablesMap.containsKey(tableName)) {
-                    TableModel beforeTable = beforeTablesMap.get(tableName);
-                    TableModel currentTable = currentTablesMap.get(tableName);
-
-                    // Nếu hai phiên bản của bảng không bằng nhau (nhờ có .equals())
-                    if (!beforeTable.equals(currentTable)) {
-                        ArrayNode changesArray = tableChanges.computeIfAbsent(tableName, k -> objectMapper.createArrayNode());
-
-                        // So sánh thủ công danh sách cột
-                        Map<String, ColumnModel> beforeColumns = beforeTable.getColumns().stream()
-                                .collect(Collectors.toMap(ColumnModel::getName, col -> col));
-                        Map<String, ColumnModel> currentColumns = currentTable.getColumns().stream()
-                                .collect(Collectors.toMap(ColumnModel::getName, col -> col));
-
-                        // Tìm cột bị xóa
-                        beforeColumns.keySet().stream()
-                                .filter(colName -> !currentColumns.containsKey(colName))
-                                .forEach(removedColName -> {
-                                    ObjectNode changeNode = objectMapper.createObjectNode();
-                                    changeNode.put("property", "column");
-                                    changeNode.put("changeType", "REMOVED");
-                                    changeNode.set("value", objectMapper.valueToTree(beforeColumns.get(removedColName)));
-                                    changesArray.add(changeNode);
-                                });
-
-                        // Tìm cột được thêm hoặc sửa
-                        currentColumns.forEach((colName, currentCol) -> {
-                            if (!beforeColumns.containsKey(colName)) {
-                                // Cột mới
-                                ObjectNode changeNode = objectMapper.createObjectNode();
-                                changeNode.put("property", "column");
-                                changeNode.put("changeType", "ADDED");
-                                changeNode.set("value", objectMapper.valueToTree(currentCol));
-                                changesArray.add(changeNode);
-                            } else {
-                                ColumnModel beforeCol = beforeColumns.get(colName);
-                                // Nếu cột bị sửa đổi (nhờ có .equals() trên ColumnModel)
-                                if (!currentCol.equals(beforeCol)) {
-                                    ObjectNode changeNode = objectMapper.createObjectNode();
-                                    changeNode.put("property", "column");
-                                    changeNode.put("changeType", "MODIFIED");
-                                    changeNode.set("oldValue", objectMapper.valueToTree(beforeCol));
-                                    changeNode.set("newValue", objectMapper.valueToTree(currentCol));
-                                    changesArray.add(changeNode);
-                                }
-                            }
-                        });
-                    }
-                }
-            }
-
-            rootNode.set("addedTables", addedTables);
-            rootNode.set("removedTables", removedTables);
-            ObjectNode tableDetailsNode = objectMapper.createObjectNode();
-            tableChanges.forEach(tableDetailsNode::set);
-            rootNode.set("tableChanges", tableDetailsNode);
-
-            return objectMapper.convertValue(rootNode, Map.class);
-
+            log.debug("Composed diff of versions {} to {} of project {} from {} stored diffs, {} table(s) read back",
+                    from.getCodeVersion(), to.getCodeVersion(), projectId, chain.size(),
+                    startTables.size() + endTables.size());
+            return toComparison(projectId, from.getCodeVersion(), to.getCodeVersion(),
+                    composer.result(startTables::get, endTables::get));
         } catch (Exception e) {
-            log.error("Error during manual comparison: {}", e.getMessage(), e);
-            return new HashMap<>();
+            log.warn("Could not compose stored diffs of versions {} to {} of project {}: {}",
+                    from.getCodeVersion(), to.getCodeVersion(), projectId, e.getMessage());
+            return null;
         }
     }
 
-    // Bạn sẽ cần các hàm helper mới để trích xuất thông tin từ GlobalId
-    /**
-     * Helper mới, sử dụng globalId.toString() để trích xuất tên bảng từ GlobalId.
-     * Nó lấy ra số index của bảng từ chuỗi ID, sau đó dùng index để tra cứu tên bảng
-     * trong model hiện tại (currentModel).
-     */
-    private String extractTableNameFromGlobalId(GlobalId globalId, DbmlModel currentModel) {
-        // SỬA LỖI: Dùng toString() thay vì getPath()
-        String fullIdString = globalId.toString();
-
-        // Regex để tìm chuỗi "tables/" theo sau bởi một hoặc nhiều chữ số (là table index)
-        Pattern pattern = Pattern.compile("tables/(\\d+)");
-        Matcher matcher = pattern.matcher(fullIdString);
-
-        if (matcher.find()) {
-            int tableIndex = Integer.parseInt(matcher.group(1));
-            if (tableIndex < currentModel.getTables().size()) {
-                return currentModel.getTables().get(tableIndex).getName();
+    // The named tables of the version's changelog, or null if the changelog or one of the tables is missing
+    private Map<String, TableModel> tablesOf(Version version, List<String> names, ChangeLogSource source) {
+        if (names.isEmpty()) {
+            return Map.of();
+        }
+        ChangeLog changeLog = source.findById(version.getChangeLogId()).orElse(null);
+        if (DataUtils.isNull(changeLog)) {
+            return null;
+        }
+        Set<String> wanted = new HashSet<>(names);
+        Map<String, TableModel> tables = new HashMap<>();
+        for (TableModel table : source.model(changeLog).getTables()) {
+            if (wanted.contains(table.getName())) {
+                tables.putIfAbsent(table.getName(), table);
             }
         }
-        // Nếu không tìm thấy, có thể là một thay đổi ở cấp model, không thuộc bảng nào
-        return null;
+        return tables.size() == wanted.size() ? tables : null;
     }
 
     /**
-     * Helper mới, sử dụng globalId.toString() để trích xuất tên cột bị ảnh hưởng.
-     * Nó hoạt động bằng cách lấy index của bảng và cột, sau đó tra cứu trong model
-     * cũ hoặc mới để tìm ra tên cột gốc.
+     * Reads back the {@code diffChanges} JSON written by {@link SchemaDiff#serialize}.
      */
-    private String extractColumnNameFromGlobalId(GlobalId globalId, DbmlModel beforeModel, DbmlModel currentModel) {
-        // SỬA LỖI: Dùng toString() thay vì getPath()
-        String fullIdString = globalId.toString();
-
-        // Regex để tìm index của bảng và cột
-        Pattern pattern = Pattern.compile("tables/(\\d+)/columns/(\\d+)");
-        Matcher matcher = pattern.matcher(fullIdString);
-
-        if (matcher.find()) {
-            int tableIndex = Integer.parseInt(matcher.group(1));
-            int columnIndex = Integer.parseInt(matcher.group(2));
-
-            // Ưu tiên lấy tên cột từ model CŨ (beforeModel) vì nó đại diện cho trạng thái
-            // của đối tượng "trước khi" thay đổi.
-            if (tableIndex < beforeModel.getTables().size() &&
-                    columnIndex < beforeModel.getTables().get(tableIndex).getColumns().size()) {
-                return beforeModel.getTables().get(tableIndex).getColumns().get(columnIndex).getName();
-            }
-
-            // Nếu không có trong model cũ (ví dụ: cột mới được thêm), lấy từ model MỚI
-            if (tableIndex < currentModel.getTables().size() &&
-                    columnIndex < currentModel.getTables().get(tableIndex).getColumns().size()) {
-                return currentModel.getTables().get(tableIndex).getColumns().get(columnIndex).getName();
+    private SchemaDiff readSchemaDiff(String diffJson) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(diffJson);
+        SchemaDiff diff = new SchemaDiff();
+        for (JsonNode table : root.path("addedTables")) {
+            diff.addTable(objectMapper.treeToValue(table, TableModel.class).freeze());
+        }
+        for (JsonNode tableName : root.path("removedTables")) {
+            diff.removeTable(tableName.asText());
+        }
+        for (Map.Entry<String, JsonNode> entry : root.path("tableChanges").properties()) {
+            List<ColumnChange> changes = diff.changesOf(entry.getKey());
+            for (JsonNode change : entry.getValue()) {
+                ChangeType changeType = ChangeType.valueOf(change.path("changeType").asText());
+                changes.add(switch (changeType) {
+                    case ADDED -> ColumnChange.added(readColumn(change.get("value")));
+                    case REMOVED -> ColumnChange.removed(readColumn(change.get("value")));
+                    case MODIFIED -> ColumnChange.modified(readColumn(change.get("oldValue")),
+                            readColumn(change.get("newValue")));
+                });
             }
         }
-        return "unknown_column"; // Trả về giá trị mặc định nếu không thể xác định
+        return diff;
     }
-    
-    /**
-     * Extracts the table name from a global ID.
-     */
-    private String extractTableName(String globalId) {
-        String[] parts = globalId.split("/");
-        return parts.length > 0 ? parts[parts.length - 1].replace("'", "") : "unknown";
+
+    private ColumnModel readColumn(JsonNode column) throws JsonProcessingException {
+        return objectMapper.treeToValue(column, ColumnModel.class).freeze();
     }
 
-    private List<VersionComparisonDTO.TableDiff> changeAnalysis(String diffChanges) throws JsonProcessingException {
-        List<VersionComparisonDTO.TableDiff> result = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode rootNode = mapper.readTree(diffChanges);
-
-        // Lấy danh sách các ID bảng từ các node JSON, chuyển thành Set để xử lý hiệu quả
-        Set<String> addedTableIds = getIdsFromNode(rootNode.get("addedTables"));
-        Set<String> removedTableIds = getIdsFromNode(rootNode.get("removedTables"));
-        JsonNode tableChangesNode = rootNode.get("tableChanges");
-
-        // Tập hợp tất cả các ID bảng từ mọi nguồn để không bỏ sót
-        Set<String> allTableIds = new HashSet<>();
-        allTableIds.addAll(addedTableIds);
-        allTableIds.addAll(removedTableIds);
-        if (tableChangesNode != null) {
-            tableChangesNode.fieldNames().forEachRemaining(allTableIds::add);
-        }
-
-        // Duyệt qua tất cả các bảng có liên quan
-        for (String tableId : allTableIds) {
-            boolean isAdded = addedTableIds.contains(tableId);
-            boolean isRemoved = removedTableIds.contains(tableId);
-            boolean hasDetails = tableChangesNode != null && tableChangesNode.has(tableId);
-
-            VersionComparisonDTO.TableDiff.TableDiffBuilder tableBuilder = VersionComparisonDTO.TableDiff.builder().tableName(tableId);
-
-            // Áp dụng logic mới để xác định DiffType
-            if (isAdded && !isRemoved) {
-                tableBuilder.diffType(VersionComparisonDTO.DiffType.ADDED);
-                // Một bảng mới có thể có chi tiết cột nếu được cung cấp
-                if (hasDetails) {
-                    tableBuilder.columnDiffs(processColumnChanges(tableChangesNode.get(tableId)));
-                }
-            } else if (isRemoved && !isAdded) {
-                tableBuilder.diffType(VersionComparisonDTO.DiffType.REMOVED);
-                // Bảng đã xóa không có chi tiết thay đổi cột
-            } else if (hasDetails || (isAdded && isRemoved)) {
-                // Trường hợp này chắc chắn là MODIFIED
-                tableBuilder.diffType(VersionComparisonDTO.DiffType.MODIFIED);
-                if (hasDetails) {
-                    tableBuilder.columnDiffs(processColumnChanges(tableChangesNode.get(tableId)));
+    @Override
+    public Iterator<VersionCompareBatchItem> compareVersionsBatch(List<VersionCompareBatchRequest.Range> ranges) {
+        if (DataUtils.isNull(ranges) || ranges.isEmpty()) {
+            throw new CustomException("At least one range is required", HttpStatus.BAD_REQUEST);
+        }
+        if (ranges.size() > batchCompareMaxRanges) {
+            throw new CustomException("At most " + batchCompareMaxRanges + " ranges can be compared at once",
+                    HttpStatus.BAD_REQUEST);
+        }
+        // Identical ranges are compared once and answered for each of their positions
+        Map<VersionCompareBatchRequest.Range, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            if (DataUtils.isNull(ranges.get(i))) {
+                throw new CustomException("Range " + i + " is empty", HttpStatus.BAD_REQUEST);
+            }
+            positions.computeIfAbsent(ranges.get(i), k -> new ArrayList<>()).add(i);
+        }
+        log.info("Comparing {} version range(s), {} distinct", ranges.size(), positions.size());
+
+        BatchSource source = new BatchSource();
+        CompletionService<List<VersionCompareBatchItem>> completion = new ExecutorCompletionService<>(batchExecutor);
+        positions.forEach((range, indexes) -> completion.submit(() -> compareRange(range, indexes, source)));
+        int tasks = positions.size();
+
+        return new Iterator<>() {
+            private final Deque<VersionCompareBatchItem> completed = new ArrayDeque<>();
+            private int taken;
+
+            @Override
+            public boolean hasNext() {
+                return !completed.isEmpty() || taken < tasks;
+            }
+
+            @Override
+            public VersionCompareBatchItem next() {
+                if (completed.isEmpty()) {
+                    if (taken >= tasks) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        completed.addAll(completion.take().get());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CustomException("Batch comparison interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+                    } catch (ExecutionException e) {
+                        // compareRange reports its own errors
+                        throw new IllegalStateException(e.getCause());
+                    }
+                    taken++;
                 }
-            } else {
-                // Bỏ qua nếu không rơi vào trường hợp nào (dữ liệu không nhất quán)
-                continue;
+                return completed.poll();
             }
+        };
+    }
 
-            result.add(tableBuilder.build());
+    private List<VersionCompareBatchItem> compareRange(VersionCompareBatchRequest.Range range, List<Integer> indexes,
+                                                       BatchSource source) {
+        VersionComparisonDTO comparison = null;
+        HttpStatus status = HttpStatus.OK;
+        String error = null;
+        try {
+            if (DataUtils.isNull(range.getProjectId()) || DataUtils.isNull(range.getBeforeVersion())) {
+                throw new CustomException("Project ID and before version are required", HttpStatus.BAD_REQUEST);
+            }
+            comparison = compareVersions(range.getProjectId(), range.getBeforeVersion(), range.getCurrentVersion(),
+                    source);
+        } catch (CustomException e) {
+            status = e.getStatus();
+            error = e.getMessage();
+        } catch (BaseException e) {
+            status = e.getStatus();
+            error = e.getErrorCode().name();
+        } catch (Exception e) {
+            log.warn("Error comparing versions {} and {} of project {}", range.getBeforeVersion(),
+                    range.getCurrentVersion(), range.getProjectId(), e);
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            error = e.getMessage();
         }
 
-        return result;
+        List<VersionCompareBatchItem> items = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            items.add(VersionCompareBatchItem.builder()
+                    .index(index)
+                    .projectId(range.getProjectId())
+                    .beforeVersion(range.getBeforeVersion())
+                    .currentVersion(range.getCurrentVersion())
+                    .status(status.value())
+                    .error(error)
+                    .comparison(comparison)
+                    .build());
+        }
+        return items;
     }
-    // Helper để chuyển JsonNode chứa mảng string thành Set<String>
-    private static Set<String> getIdsFromNode(JsonNode node) {
-        if (node == null || !node.isArray()) {
-            return Collections.emptySet();
-        }
-        return StreamSupport.stream(node.spliterator(), false)
-                .map(JsonNode::asText)
-                .collect(Collectors.toSet());
+
+    /**
+     * Where a comparison reads changelogs and their models from.
+     */
+    private interface ChangeLogSource {
+        Optional<ChangeLog> findById(String changeLogId);
+
+        Optional<ChangeLog> findLatest(String projectId);
+
+        // Digest of the changelog content, without loading the content when the digest is stored
+        String contentDigest(String changeLogId);
+
+        DbmlModel model(ChangeLog changeLog);
     }
 
+    /**
+     * Changelogs and models shared by the ranges of one batch: each changelog is loaded and parsed once,
+     * whichever range needs it first, and the other ranges wait for that result.
+     */
+    private final class BatchSource implements ChangeLogSource {
+        private final Map<String, Optional<ChangeLog>> changeLogs = new ConcurrentHashMap<>();
+        private final Map<String, Optional<ChangeLog>> latestChangeLogs = new ConcurrentHashMap<>();
+        private final Map<String, String> contentDigests = new ConcurrentHashMap<>();
+        // By changelog id: within a batch a changelog is the same entity for every range
+        private final Map<String, CompletableFuture<DbmlModel>> models = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<ChangeLog> findById(String changeLogId) {
+            return changeLogs.computeIfAbsent(changeLogId, changeLogRepository::findById);
+        }
 
-    private static List<VersionComparisonDTO.ColumnDiff> processColumnChanges(JsonNode changesArray) {
-        Map<String, VersionComparisonDTO.ColumnDiff.ColumnDiffBuilder> columnBuilders = new LinkedHashMap<>();
-        List<JsonNode> unmappedTypeChanges = new ArrayList<>();
+        @Override
+        public Optional<ChangeLog> findLatest(String projectId) {
+            return latestChangeLogs.computeIfAbsent(projectId, changeLogRepository::findLatestChangeLogByProjectId);
+        }
 
-        for (JsonNode change : changesArray) {
-            String property = change.get("property").asText();
-            String newValue = change.get("newValue").asText(null);
-            JsonNode oldValueNode = change.get("oldValue");
-            boolean isAdded = oldValueNode == null || oldValueNode.isNull();
+        @Override
+        public String contentDigest(String changeLogId) {
+            return contentDigests.computeIfAbsent(changeLogId, VersionComparisonServiceImpl.this::digestById);
+        }
 
-            if (property.equals("name")) {
-                VersionComparisonDTO.ColumnDiff.ColumnDiffBuilder builder = columnBuilders.computeIfAbsent(newValue, k -> VersionComparisonDTO.ColumnDiff.builder());
-                builder.columnName(newValue);
+        @Override
+        public DbmlModel model(ChangeLog changeLog) {
+            CompletableFuture<DbmlModel> model = new CompletableFuture<>();
+            CompletableFuture<DbmlModel> existing = models.putIfAbsent(changeLog.getId(), model);
+            if (DataUtils.notNull(existing)) {
+                return existing.join();
+            }
+            try {
+                model.complete(dbmlModelCacheService.getLazyModel(changeLog));
+            } catch (RuntimeException e) {
+                model.completeExceptionally(e);
+                throw e;
+            }
+            return model.join();
+        }
+    }
 
-                if (isAdded) {
-                    builder.diffType(VersionComparisonDTO.DiffType.ADDED);
-                } else {
-                    builder.diffType(VersionComparisonDTO.DiffType.MODIFIED);
-                    builder.changedProperties(new ArrayList<>(Collections.singletonList("name")));
-                }
-            } else if (property.equals("dataType")) {
-                if (isAdded) {
-                    columnBuilders.values().stream()
-                            .filter(b -> b.build().getDiffType() == VersionComparisonDTO.DiffType.ADDED && b.build().getCurrentType() == null)
-                            .findFirst()
-                            .ifPresent(builder -> builder.currentType(newValue));
-                } else {
-                    unmappedTypeChanges.add(change);
-                }
+    /**
+     * The comparison stored in {@code diff_change} by {@link VersionDiffService}, waiting for it if it is
+     * being computed, or null if the version has none that can be served: created before diffs were
+     * materialised, diff still pending with no worker on it, comparison failed, or unreadable. Callers then
+     * compare the changelogs directly.
+     */
+    private VersionComparisonDTO storedDiff(Version version, Integer fromVersion) {
+        VersionComparisonDTO stored;
+        if (DataUtils.isNull(version.getDiffChange()) || version.getDiffChange().isEmpty()) {
+            stored = inFlightDiff(version);
+            if (DataUtils.isNull(stored)) {
+                return null;
+            }
+        } else {
+            try {
+                stored = objectMapper.readValue(version.getDiffChange(), VersionComparisonDTO.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Unreadable stored diff of version {}: {}", version.getId(), e.getMessage());
+                return null;
             }
         }
+        if (DataUtils.isNull(stored.getDiffChanges()) || !Objects.equals(stored.getFromVersion(), fromVersion)
+                || !Objects.equals(stored.getToVersion(), version.getCodeVersion())) {
+            return null;
+        }
+        return stored;
+    }
+
+    // Joins the background diff of a pending version rather than computing the same comparison again
+    private VersionComparisonDTO inFlightDiff(Version version) {
+        CompletableFuture<VersionComparisonDTO> diff = versionDiffService.getObject().inFlightDiff(version.getId());
+        if (DataUtils.isNull(diff)) {
+            return null;
+        }
+        try {
+            log.debug("Waiting for the diff of version {} being computed", version.getId());
+            return diff.get(diffAwaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Diff of version {} not available: {}", version.getId(), e.toString());
+            return null;
+        }
+    }
 
-        for(JsonNode typeChange : unmappedTypeChanges) {
-            columnBuilders.values().stream()
-                    .filter(b -> b.build().getDiffType() == VersionComparisonDTO.DiffType.MODIFIED && b.build().getBeforeType() == null)
-                    .findFirst()
-                    .ifPresent(builder -> {
-                        builder.beforeType(typeChange.get("oldValue").asText());
-                        builder.currentType(typeChange.get("newValue").asText());
-                        List<String> props = new ArrayList<>(builder.build().getChangedProperties());
-                        props.add("dataType");
-                        builder.changedProperties(props);
-                    });
+    private static String digestOf(ChangeLog changeLog) {
+        if (DataUtils.notNull(changeLog.getContentDigest())) {
+            return changeLog.getContentDigest();
         }
+        return HashUtils.sha256Hex(DataUtils.notNull(changeLog.getContent()) ? changeLog.getContent() : "");
+    }
 
-        return columnBuilders.values().stream().map(VersionComparisonDTO.ColumnDiff.ColumnDiffBuilder::build).collect(Collectors.toList());
+    // Changelogs saved before digests were stored are loaded and hashed; a missing one gets an empty digest
+    private String digestById(String changeLogId) {
+        return changeLogRepository.findContentDigestById(changeLogId)
+                .orElseGet(() -> changeLogRepository.findById(changeLogId)
+                        .map(VersionComparisonServiceImpl::digestOf)
+                        .orElse(""));
     }
 
-    public List<VersionComparisonDTO.TableDiff> createTableDiffs(Map<String, Object> diffResult, ObjectMapper objectMapper) {
-        if (diffResult == null || diffResult.isEmpty()) {
+    private SchemaDiff compareModels(DbmlModel beforeModel, DbmlModel currentModel) {
+        log.debug("Comparing models using direct, manual diffing logic for clarity.");
+        // Equal root hashes: nothing changed. Not checked on lazy models, it would parse every table
+        if (!beforeModel.hasPendingTables() && !currentModel.hasPendingTables()
+                && beforeModel.structuralHash() == currentModel.structuralHash()) {
+            log.debug("Models have the same structural hash, skipping comparison");
+            return new SchemaDiff();
+        }
+        return SchemaDiff.compare(beforeModel, currentModel, diffPool, parallelDiffMinTables);
+    }
+
+    public List<VersionComparisonDTO.TableDiff> createTableDiffs(SchemaDiff diff) {
+        if (diff.isEmpty()) {
             return Collections.emptyList();
         }
 
         List<VersionComparisonDTO.TableDiff> finalDiffs = new ArrayList<>();
 
         // 1. Xử lý các bảng được THÊM MỚI
-        // Lấy về một danh sách các đối tượng TableModel, không phải chuỗi nữa
-        List<TableModel> addedTableObjects = objectMapper.convertValue(
-                diffResult.get("addedTables"),
-                new TypeReference<List<TableModel>>() {}
-        );
-
-        if (addedTableObjects != null) {
-            for (TableModel addedTable : addedTableObjects) {
-                List<VersionComparisonDTO.ColumnDiff> addedColumns = new ArrayList<>();
-
-                // Vì đã có sẵn đối tượng TableModel, ta có thể lấy danh sách cột trực tiếp
-                if (addedTable.getColumns() != null) {
-                    for (ColumnModel column : addedTable.getColumns()) {
-                        addedColumns.add(VersionComparisonDTO.ColumnDiff.builder()
-                                .columnName(column.getName())
-                                .diffType(VersionComparisonDTO.DiffType.ADDED)
-                                .currentType(column.getDataType())
-                                .newValue(column)
-                                .build());
-                    }
-                }
-
-                finalDiffs.add(VersionComparisonDTO.TableDiff.builder()
-                        .tableName(addedTable.getName())
-                        .diffType(VersionComparisonDTO.DiffType.ADDED)
-                        .columnDiffs(addedColumns) // <-- Danh sách cột bây giờ đã đầy đủ
-                        .build());
+        for (TableModel addedTable : diff.getAddedTables()) {
+            List<VersionComparisonDTO.ColumnDiff> addedColumns = new ArrayList<>(addedTable.getColumns().size());
+            for (ColumnModel column : addedTable.getColumns()) {
+                addedColumns.add(columnDiff(ColumnChange.added(column)));
             }
+            finalDiffs.add(VersionComparisonDTO.TableDiff.builder()
+                    .tableName(addedTable.getName())
+                    .diffType(VersionComparisonDTO.DiffType.ADDED)
+                    .columnDiffs(addedColumns)
+                    .build());
         }
 
         // 2. Xử lý các bảng đã BỊ XÓA
-        List<String> removedTableNames = objectMapper.convertValue(diffResult.get("removedTables"), new TypeReference<>() {});
-        if (removedTableNames != null) {
-            for (String tableName : removedTableNames) {
-                finalDiffs.add(VersionComparisonDTO.TableDiff.builder()
-                        .tableName(tableName)
-                        .diffType(VersionComparisonDTO.DiffType.REMOVED)
-                        .build());
-            }
+        for (String tableName : diff.getRemovedTables()) {
+            finalDiffs.add(VersionComparisonDTO.TableDiff.builder()
+                    .tableName(tableName)
+                    .diffType(VersionComparisonDTO.DiffType.REMOVED)
+                    .build());
         }
 
         // 3. Xử lý các bảng được SỬA ĐỔI
-        Map<String, List<Map<String, Object>>> tableChanges = objectMapper.convertValue(
-                diffResult.get("tableChanges"),
-                new TypeReference<>() {}
-        );
-
-        if (tableChanges != null) {
-            for (Map.Entry<String, List<Map<String, Object>>> entry : tableChanges.entrySet()) {
-                String tableName = entry.getKey();
-                List<VersionComparisonDTO.ColumnDiff> columnDiffs = new ArrayList<>();
-
-                for (Map<String, Object> changeDetail : entry.getValue()) {
-                    String changeTypeStr = (String) changeDetail.get("changeType");
-                    VersionComparisonDTO.DiffType columnDiffType = VersionComparisonDTO.DiffType.valueOf(changeTypeStr); // ADDED, REMOVED, MODIFIED
-
-                    VersionComparisonDTO.ColumnDiff.ColumnDiffBuilder columnBuilder = VersionComparisonDTO.ColumnDiff.builder().diffType(columnDiffType);
-
-                    if (columnDiffType == VersionComparisonDTO.DiffType.ADDED) {
-                        ColumnModel newColumn = objectMapper.convertValue(changeDetail.get("value"), ColumnModel.class);
-                        columnBuilder.columnName(newColumn.getName())
-                                .currentType(newColumn.getDataType())
-                                .newValue(newColumn);
-                    } else if (columnDiffType == VersionComparisonDTO.DiffType.REMOVED) {
-                        ColumnModel oldColumn = objectMapper.convertValue(changeDetail.get("value"), ColumnModel.class);
-                        columnBuilder.columnName(oldColumn.getName())
-                                .beforeType(oldColumn.getDataType())
-                                .oldValue(oldColumn);
-                    } else if (columnDiffType == VersionComparisonDTO.DiffType.MODIFIED) {
-                        ColumnModel oldColumn = objectMapper.convertValue(changeDetail.get("oldValue"), ColumnModel.class);
-                        ColumnModel newColumn = objectMapper.convertValue(changeDetail.get("newValue"), ColumnModel.class);
-                        columnBuilder.columnName(newColumn.getName()) // Lấy tên mới làm tên chính
-                                .beforeType(oldColumn.getDataType())
-                                .currentType(newColumn.getDataType())
-                                .oldValue(oldColumn)
-                                .newValue(newColumn);
-                    }
-                    columnDiffs.add(columnBuilder.build());
-                }
-
-                finalDiffs.add(VersionComparisonDTO.TableDiff.builder()
-                        .tableName(tableName)
-                        .diffType(VersionComparisonDTO.DiffType.MODIFIED)
-                        .columnDiffs(columnDiffs)
-                        .build());
+        for (Map.Entry<String, List<ColumnChange>> entry : diff.getTableChanges().entrySet()) {
+            List<VersionComparisonDTO.ColumnDiff> columnDiffs = new ArrayList<>(entry.getValue().size());
+            for (ColumnChange change : entry.getValue()) {
+                columnDiffs.add(columnDiff(change));
             }
+            finalDiffs.add(VersionComparisonDTO.TableDiff.builder()
+                    .tableName(entry.getKey())
+                    .diffType(VersionComparisonDTO.DiffType.MODIFIED)
+                    .columnDiffs(columnDiffs)
+                    .build());
         }
 
         return finalDiffs;
     }
 
+    private static VersionComparisonDTO.ColumnDiff columnDiff(ColumnChange change) {
+        ColumnModel oldColumn = change.getOldValue();
+        ColumnModel newColumn = change.getNewValue();
+        List<String> changedProperties = new ArrayList<>(change.getChangedProperties().size());
+        for (ColumnProperty property : change.getChangedProperties()) {
+            changedProperties.add(property.getPropertyName());
+        }
+        return VersionComparisonDTO.ColumnDiff.builder()
+                .columnName(change.column().getName()) // Lấy tên mới làm tên chính
+                .diffType(VersionComparisonDTO.DiffType.valueOf(change.getChangeType().name()))
+                .beforeType(oldColumn != null ? oldColumn.toDbmlDefinition() : null)
+                .currentType(newColumn != null ? newColumn.toDbmlDefinition() : null)
+                .oldValue(oldColumn)
+                .newValue(newColumn)
+                .changedProperties(changedProperties)
+                .build();
+    }
+
 
 } 
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.model.VersionDiffKey;
+import com.vissoft.vn.dbdocs.domain.service.VersionDiffCacheService;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of version comparisons, bounded both by entry count and by the estimated retained size of
+ * the comparisons. Versions are immutable and the key holds the changelog digests, so entries never go
+ * stale; comparisons with the latest changelog are dropped as soon as a newer changelog is saved.
+ * <p>
+ * The column models referenced by a freshly computed comparison may be shared with cached parsed
+ * models; they are counted here as well, so the estimate errs on the high side.
+ */
+@Slf4j
+@Service
+public class VersionDiffCacheServiceImpl implements VersionDiffCacheService {
+
+    // Rough 64-bit JVM sizes with compressed oops, only used to weigh entries against each other
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long REFERENCE_SIZE = 4;
+    private static final long STRING_OVERHEAD = 40;
+    private static final long LIST_OVERHEAD = 40;
+    // A column model with short name and type, see DbmlModelCacheServiceImpl
+    private static final long COLUMN_MODEL_SIZE = 200;
+
+    private final int maxEntries;
+    private final long maxWeightBytes;
+
+    private final LinkedHashMap<VersionDiffKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public VersionDiffCacheServiceImpl(@Value("${version.diff-cache.max-entries:128}") int maxEntries,
+                                       @Value("${version.diff-cache.max-weight-bytes:67108864}") long maxWeightBytes) {
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    @Override
+    public VersionComparisonDTO get(VersionDiffKey key) {
+        CacheEntry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (DataUtils.isNull(cached)) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        log.debug("Diff cache hit for versions {} and {} of project {}",
+                key.fromVersion(), key.toVersion(), key.projectId());
+        return cached.comparison();
+    }
+
+    @Override
+    public void put(VersionDiffKey key, VersionComparisonDTO comparison) {
+        long weight = estimateWeight(comparison);
+        if (weight > maxWeightBytes) {
+            log.warn("Comparison of versions {} and {} of project {} (~{} bytes) exceeds the cache weight limit, not caching",
+                    key.fromVersion(), key.toVersion(), key.projectId(), weight);
+            return;
+        }
+        synchronized (entries) {
+            CacheEntry previous = entries.put(key, new CacheEntry(comparison, weight));
+            if (DataUtils.notNull(previous)) {
+                weightBytes -= previous.weight();
+            }
+            weightBytes += weight;
+            evictIfNeeded();
+        }
+    }
+
+    @Override
+    public void invalidateLatest(String projectId) {
+        int removed = 0;
+        synchronized (entries) {
+            Iterator<Map.Entry<VersionDiffKey, CacheEntry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<VersionDiffKey, CacheEntry> entry = iterator.next();
+                if (entry.getKey().isToLatest() && Objects.equals(entry.getKey().projectId(), projectId)) {
+                    weightBytes -= entry.getValue().weight();
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("Dropped {} cached comparison(s) with the latest changelog of project {}", removed, projectId);
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return CacheStats.builder()
+                    .hitCount(hitCount.get())
+                    .missCount(missCount.get())
+                    .evictionCount(evictionCount.get())
+                    .entryCount(entries.size())
+                    .weightBytes(weightBytes)
+                    .maxWeightBytes(maxWeightBytes)
+                    .build();
+        }
+    }
+
+    // Caller holds the lock on entries
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<VersionDiffKey, CacheEntry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && eldest.hasNext()) {
+            Map.Entry<VersionDiffKey, CacheEntry> entry = eldest.next();
+            weightBytes -= entry.getValue().weight();
+            eldest.remove();
+            evictionCount.incrementAndGet();
+            log.debug("Evicted comparison of versions {} and {} of project {} from cache",
+                    entry.getKey().fromVersion(), entry.getKey().toVersion(), entry.getKey().projectId());
+        }
+    }
+
+    private static long estimateWeight(VersionComparisonDTO comparison) {
+        long weight = OBJECT_OVERHEAD + 6 * REFERENCE_SIZE
+                + weigh(comparison.getProjectId()) + weigh(comparison.getDiffSummary())
+                + weigh(comparison.getDiffChanges()) + weighList(comparison.getTableDiffs());
+        if (DataUtils.isNull(comparison.getTableDiffs())) {
+            return weight;
+        }
+        for (VersionComparisonDTO.TableDiff tableDiff : comparison.getTableDiffs()) {
+            weight += OBJECT_OVERHEAD + 3 * REFERENCE_SIZE + weigh(tableDiff.getTableName())
+                    + weighList(tableDiff.getColumnDiffs());
+            if (DataUtils.isNull(tableDiff.getColumnDiffs())) {
+                continue;
+            }
+            for (VersionComparisonDTO.ColumnDiff columnDiff : tableDiff.getColumnDiffs()) {
+                weight += OBJECT_OVERHEAD + 7 * REFERENCE_SIZE + weigh(columnDiff.getColumnName())
+                        + weigh(columnDiff.getBeforeType()) + weigh(columnDiff.getCurrentType())
+                        + weighList(columnDiff.getChangedProperties())
+                        + (DataUtils.notNull(columnDiff.getOldValue()) ? COLUMN_MODEL_SIZE : 0)
+                        + (DataUtils.notNull(columnDiff.getNewValue()) ? COLUMN_MODEL_SIZE : 0);
+            }
+        }
+        return weight;
+    }
+
+    private static long weigh(String value) {
+        // Compact strings: one byte per Latin-1 character
+        return DataUtils.isNull(value) ? 0 : STRING_OVERHEAD + value.length();
+    }
+
+    private static long weighList(List<?> list) {
+        return DataUtils.isNull(list) ? 0 : LIST_OVERHEAD + list.size() * REFERENCE_SIZE;
+    }
+
+    private record CacheEntry(VersionComparisonDTO comparison, long weight) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+import com.vissoft.vn.dbdocs.domain.entity.Version;
+import com.vissoft.vn.dbdocs.domain.repository.ChangeLogRepository;
+import com.vissoft.vn.dbdocs.domain.repository.VersionRepository;
+import com.vissoft.vn.dbdocs.domain.service.DbmlModelCacheService;
+import com.vissoft.vn.dbdocs.domain.service.VersionComparisonService;
+import com.vissoft.vn.dbdocs.domain.service.VersionDiffService;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes version diffs off the request thread, so that creating a version commits as soon as the
+ * row is inserted, whatever the size of the schema.
+ * <p>
+ * Diffs run on a fixed pool with a bounded queue. When the queue is full the diff is not run: the
+ * version stays pending and readers compare its changelogs directly. The next worker to finish a diff
+ * resubmits the pending versions while the queue has room; versions left pending by a crash are
+ * resubmitted at startup. Readers of a version whose diff is queued or running
+ * wait for it, see {@link #inFlightDiff}.
+ */
+@Slf4j
+@Service
+public class VersionDiffServiceImpl implements VersionDiffService {
+
+    private final VersionRepository versionRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final VersionComparisonService versionComparisonService;
+    private final DbmlModelCacheService dbmlModelCacheService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor diffExecutor;
+    private final Map<String, CompletableFuture<VersionComparisonDTO>> inFlight = new ConcurrentHashMap<>();
+    // Set when a diff was rejected by the full queue, cleared by the worker that resubmits pending versions
+    private final AtomicBoolean rejected = new AtomicBoolean();
+
+    public VersionDiffServiceImpl(VersionRepository versionRepository,
+                                  ChangeLogRepository changeLogRepository,
+                                  VersionComparisonService versionComparisonService,
+                                  DbmlModelCacheService dbmlModelCacheService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${version.diff-executor.threads:2}") int threads,
+                                  @Value("${version.diff-executor.queue-capacity:100}") int queueCapacity) {
+        this.versionRepository = versionRepository;
+        this.changeLogRepository = changeLogRepository;
+        this.versionComparisonService = versionComparisonService;
+        this.dbmlModelCacheService = dbmlModelCacheService;
+        this.objectMapper = objectMapper;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.diffExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "version-diff-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        diffExecutor.shutdownNow();
+    }
+
+    @Override
+    public void scheduleDiff(String versionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(versionId);
+            return;
+        }
+        // The worker must see the committed row, and nothing must run if the transaction rolls back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(versionId);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingDiffs() {
+        List<Version> pending = versionRepository.findByDiffStatus(Constants.DiffStatus.PENDING);
+        if (!pending.isEmpty()) {
+            log.info("Resuming {} pending version diff(s)", pending.size());
+            pending.forEach(version -> submit(version.getId()));
+        }
+    }
+
+    // Whether the diff is queued or already in flight; false if the queue is full
+    private boolean submit(String versionId) {
+        CompletableFuture<VersionComparisonDTO> diff = new CompletableFuture<>();
+        if (DataUtils.notNull(inFlight.putIfAbsent(versionId, diff))) {
+            log.debug("Diff of version {} is already queued", versionId);
+            return true;
+        }
+        try {
+            diffExecutor.execute(() -> {
+                try {
+                    diff.complete(compute(versionId));
+                } catch (RuntimeException e) {
+                    diff.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(versionId, diff);
+                    resubmitRejected();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Not run inline: this may be afterCommit of the request that created the version
+            inFlight.remove(versionId, diff);
+            diff.complete(null);
+            rejected.set(true);
+            log.warn("Diff queue full, version {} stays pending until a diff worker is free", versionId);
+            return false;
+        }
+    }
+
+    // Runs on a worker that just finished, so there is room in the queue again
+    private void resubmitRejected() {
+        if (!rejected.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            List<Version> pending = versionRepository.findByDiffStatus(Constants.DiffStatus.PENDING);
+            int resubmitted = 0;
+            for (Version version : pending) {
+                if (!submit(version.getId())) {
+                    // Full again; the flag is set, so the next worker to finish carries on
+                    break;
+                }
+                resubmitted++;
+            }
+            log.info("Resubmitted {} of {} pending version diff(s)", resubmitted, pending.size());
+        } catch (RuntimeException e) {
+            rejected.set(true);
+            log.warn("Could not resubmit pending version diffs: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public CompletableFuture<VersionComparisonDTO> inFlightDiff(String versionId) {
+        return inFlight.get(versionId);
+    }
+
+    @Override
+    public void computeDiff(String versionId) {
+        compute(versionId);
+    }
+
+    // The stored comparison, or null if the version is gone or its diff failed
+    private VersionComparisonDTO compute(String versionId) {
+        Version version = versionRepository.findById(versionId).orElse(null);
+        if (DataUtils.isNull(version)) {
+            log.warn("Version {} no longer exists, skipping diff", versionId);
+            return null;
+        }
+        Version previous = versionRepository
+                .findByProjectIdAndCodeVersionLessThanOrderByCodeVersionDesc(version.getProjectId(), version.getCodeVersion())
+                .stream().findFirst().orElse(null);
+
+        long start = System.nanoTime();
+        VersionComparisonDTO comparison = null;
+        String diffChangeJson;
+        int diffStatus;
+        try {
+            ChangeLog changeLog = findChangeLog(version);
+            // Pinned changelogs are read by every later compare/DDL request; make sure their model is persisted
+            try {
+                dbmlModelCacheService.saveSnapshot(changeLog);
+            } catch (Exception e) {
+                log.warn("Could not save model snapshot of changelog {}: {}", changeLog.getId(), e.getMessage());
+            }
+
+            if (DataUtils.isNull(previous)) {
+                comparison = VersionComparisonDTO.builder()
+                        .projectId(version.getProjectId())
+                        .fromVersion(0)
+                        .toVersion(version.getCodeVersion())
+                        .diffSummary("Initial version - no comparison available")
+                        .build();
+            } else {
+                comparison = versionComparisonService.compareChangeLogs(version.getProjectId(),
+                        previous.getCodeVersion(), version.getCodeVersion(), findChangeLog(previous), changeLog);
+            }
+            diffChangeJson = objectMapper.writeValueAsString(comparison);
+            diffStatus = Constants.DiffStatus.READY;
+        } catch (Exception e) {
+            log.warn("Failed to generate diff for version {}: {}", versionId, e.getMessage(), e);
+            comparison = null;
+            diffChangeJson = failedDiff(version, previous);
+            diffStatus = Constants.DiffStatus.FAILED;
+        }
+
+        versionRepository.updateDiff(versionId, diffChangeJson, diffStatus);
+        log.info("Diff of version {} of project {} {} in {} ms ({} bytes)", version.getCodeVersion(),
+                version.getProjectId(), diffStatus == Constants.DiffStatus.READY ? "ready" : "failed",
+                (System.nanoTime() - start) / 1_000_000, diffChangeJson.length());
+        return comparison;
+    }
+
+    private ChangeLog findChangeLog(Version version) {
+        return changeLogRepository.findById(version.getChangeLogId())
+                .orElseThrow(() -> new IllegalStateException("Changelog " + version.getChangeLogId()
+                        + " of version " + version.getId() + " not found"));
+    }
+
+    private String failedDiff(Version version, Version previous) {
+        try {
+            return objectMapper.writeValueAsString(VersionComparisonDTO.builder()
+                    .projectId(version.getProjectId())
+                    .fromVersion(DataUtils.notNull(previous) ? previous.getCodeVersion() : 0)
+                    .toVersion(version.getCodeVersion())
+                    .diffSummary("Failed to generate detailed comparison")
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to create default diff JSON: {}", e.getMessage());
+            return "{}"; // Fallback to empty JSON object
+        }
+    }
+}
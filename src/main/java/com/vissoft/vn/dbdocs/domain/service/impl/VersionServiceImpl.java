@@ -1,19 +1,30 @@
 package com.vissoft.vn.dbdocs.domain.service.impl;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import com.vissoft.vn.dbdocs.domain.service.*;
+import com.vissoft.vn.dbdocs.domain.model.ChangeLogSummary;
+import com.vissoft.vn.dbdocs.domain.model.DdlCacheKey;
+import com.vissoft.vn.dbdocs.domain.model.DdlScript;
 import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
 import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
 import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
 import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDTO;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDdlRequest;
 import com.vissoft.vn.dbdocs.application.dto.DdlScriptRequest;
@@ -38,8 +49,6 @@ import com.vissoft.vn.dbdocs.infrastructure.mapper.DdlScriptResponseMapper;
 import com.vissoft.vn.dbdocs.infrastructure.mapper.VersionMapper;
 import com.vissoft.vn.dbdocs.infrastructure.security.SecurityUtils;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,6 +57,8 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class VersionServiceImpl implements VersionService {
 
+    private static final int DDL_WRITE_BUFFER_SIZE = 16 * 1024;
+
     private final VersionRepository versionRepository;
     private final ProjectRepository projectRepository;
     private final ChangeLogRepository changeLogRepository;
@@ -57,11 +68,12 @@ public class VersionServiceImpl implements VersionService {
     private final ChangeLogService changeLogService;
     private final SecurityUtils securityUtils;
     private final VersionComparisonService versionComparisonService;
-    private final ObjectMapper objectMapper;
     private final DdlScriptResponseMapper ddlScriptResponseMapper;
     private final ProjectAccessService projectAccessService;
     private final GeneraScriptDDLService generaScriptDDLService;
-    private final DbmlParserService dbmlParserService;
+    private final DbmlModelCacheService dbmlModelCacheService;
+    private final VersionDiffService versionDiffService;
+    private final DdlCacheService ddlCacheService;
 
     @Override
     @Transactional
@@ -130,62 +142,16 @@ public class VersionServiceImpl implements VersionService {
             
             log.info("Creating new version with number: {}", newVersionNumber);
             
-            // Calculate diffChange JSON
-            String diffChangeJson;
-            if (latestVersion != null) {
-                log.debug("Calculating diff with previous version");
-                try {
-                    VersionComparisonDTO comparisonResult = versionComparisonService.compareVersions(
-                            request.getProjectId(), 
-                            latestVersion.getCodeVersion(), 
-                            null);
-                    
-                    diffChangeJson = objectMapper.writeValueAsString(comparisonResult);
-                    log.debug("Generated diff JSON - length: {} bytes", 
-                            diffChangeJson != null ? diffChangeJson.length() : 0);
-                } catch (Exception e) {
-                    log.warn("Failed to generate diff for version comparison: {}", e.getMessage(), e);
-                    // Tạo một diffChange mặc định
-                    try {
-                        VersionComparisonDTO defaultComparison = VersionComparisonDTO.builder()
-                                .projectId(request.getProjectId())
-                                .fromVersion(latestVersion.getCodeVersion())
-                                .toVersion(newVersionNumber)
-                                .diffSummary("Failed to generate detailed comparison")
-                                .build();
-                        diffChangeJson = objectMapper.writeValueAsString(defaultComparison);
-                    } catch (Exception ex) {
-                        log.error("Failed to create default diff JSON: {}", ex.getMessage());
-                        diffChangeJson = "{}"; // Fallback to empty JSON object
-                    }
-                }
-            } else {
-                log.debug("No previous version to compare with, creating empty diff data");
-                // Tạo một diffChange mặc định cho phiên bản đầu tiên
-                try {
-                    VersionComparisonDTO firstVersionComparison = VersionComparisonDTO.builder()
-                            .projectId(request.getProjectId())
-                            .fromVersion(0)
-                            .toVersion(newVersionNumber)
-                            .diffSummary("Initial version - no comparison available")
-                            .build();
-                    diffChangeJson = objectMapper.writeValueAsString(firstVersionComparison);
-                } catch (Exception ex) {
-                    log.error("Failed to create initial diff JSON: {}", ex.getMessage());
-                    diffChangeJson = "{}"; // Fallback to empty JSON object
-                }
-            }
-            
-            // Tạo version mới
+            // Tạo version mới; diff với phiên bản trước được tính ở background sau khi commit
             Version version = versionMapper.createRequestToEntity(request);
             version.setCodeVersion(newVersionNumber);
-            // Save the project ID and changeLog ID
-            version.setDiffChange(diffChangeJson);
+            version.setDiffStatus(Constants.DiffStatus.PENDING);
             
-            log.debug("Saving new version to database with diff data");
+            log.debug("Saving new version to database, diff pending");
             Version savedVersion = versionRepository.save(version);
             log.info("Version created successfully with ID: {}, codeVersion: {}", 
                     savedVersion.getId(), savedVersion.getCodeVersion());
+            versionDiffService.scheduleDiff(savedVersion.getId());
             
             // update changelog version to match new version number
             log.debug("Updating changelog version to match new version number");
@@ -345,8 +311,18 @@ public class VersionServiceImpl implements VersionService {
 
     @Override
     public DdlScriptResponse generateDdlScript(DdlScriptRequest request) {
+        String ddlScript = renderDdlScript(prepareDdlScript(request));
+        logCreateDDLSuccess(ddlScript);
+
+        // Sử dụng mapper để tạo response
+        return ddlScriptResponseMapper.toDdlScriptResponse(request, ddlScript);
+    }
+
+    @Override
+    public DdlScript prepareDdlScript(DdlScriptRequest request) {
         log.info("Generating DDL script - ProjectID: {}, From: {}, To: {}, Dialect: {}", 
                 request.getProjectId(), request.getFromVersion(), request.getToVersion(), request.getDialect());
+        checkDialect(request.getDialect());
         
         try {
             // Get project information
@@ -374,19 +350,14 @@ public class VersionServiceImpl implements VersionService {
             
             log.debug("Version comparison completed, generating DDL script");
             
-            // Create detailed header with project and version information
-            StringBuilder ddlScript = new StringBuilder();
             String dialectName = getDialectName(request.getDialect());
             
             // Generate detailed header for update DDL
-            ddlScript.append(generateUpdateDdlHeader(project, fromVersion, toVersion, dialectName, request));
-
-            ddlScript.append(generaScriptDDLService.generateDDL(comparisonDTO, request.getDialect()));
-            
-            logCreateDDLSuccess(ddlScript.toString());
-            
-            // Sử dụng mapper để tạo response
-            return ddlScriptResponseMapper.toDdlScriptResponse(request, ddlScript.toString());
+            String header = generateUpdateDdlHeader(project, fromVersion, toVersion, dialectName, request);
+            String fileName = ddlFileName(project,
+                    (request.getFromVersion() != null ? "v" + request.getFromVersion() : "initial") + "-"
+                            + (request.getToVersion() != null ? "v" + request.getToVersion() : "latest"));
+            return new DdlScript(fileName, () -> header, null, request.getDialect(), null, () -> comparisonDTO);
         } catch (BaseException e) {
             log.error("Base exception occurred during DDL script generation: {}", e.getMessage());
             throw e;
@@ -395,565 +366,192 @@ public class VersionServiceImpl implements VersionService {
             throw BaseException.of(ErrorCode.INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-    
-    private String getDialectName(Integer dialectCode) {
-        return switch (dialectCode) {
-            case Constants.SQL.Dialect.MYSQL -> Constants.SQL.Dialect.MYSQL_NAME;
-            case Constants.SQL.Dialect.MARIADB -> Constants.SQL.Dialect.MARIADB_NAME;
-            case Constants.SQL.Dialect.POSTGRESQL -> Constants.SQL.Dialect.POSTGRESQL_NAME;
-            case Constants.SQL.Dialect.ORACLE -> Constants.SQL.Dialect.ORACLE_NAME;
-            case Constants.SQL.Dialect.SQL_SERVER -> Constants.SQL.Dialect.SQL_SERVER_NAME;
-            default -> Constants.SQL.Dialect.UNKNOWN_NAME;
-        };
-    }
-    
-    /**
-     * Utility method to log a JSON node in a readable format
-     */
-    private void logJson(String prefix, JsonNode node) {
+
+    @Override
+    public DdlScript loadDdlScript(DdlScript script) {
+        // Built here rather than while writing, so that a failed lookup still gets its status
+        script.header().get();
+        if (DataUtils.notNull(script.cacheKey())) {
+            // Kept on the script: the entry may be evicted before the script is written
+            ByteBuffer cached = ddlCacheService.get(script.cacheKey());
+            if (DataUtils.notNull(cached)) {
+                return script.withCachedDdl(cached);
+            }
+        }
         try {
-            String prettyJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(node);
-            log.debug("{}: {}", prefix, prettyJson);
+            script.comparison().get();
+            return script;
+        } catch (BaseException e) {
+            log.error("Base exception occurred during DDL script generation: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
-            log.error("Error pretty-printing JSON: {}", e.getMessage());
+            log.error("Error generating DDL script: {}", e.getMessage(), e);
+            throw BaseException.of(ErrorCode.INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    private void generateMySqlDdl(VersionComparisonDTO comparisonDTO, StringBuilder ddlScript) {
-        log.debug("Generating MySQL DDL from diffChanges JSON");
-        
-        try {
-            // Parse the diffChanges JSON string into a JsonNode
-            String diffChangesStr = comparisonDTO.getDiffChanges();
-            if (diffChangesStr == null || diffChangesStr.isEmpty()) {
-                log.warn("No diff changes found to generate DDL script");
-                return;
-            }
-            
-            // Parse the JSON
-            JsonNode diffChanges = objectMapper.readTree(diffChangesStr);
-            logJson("Parsed diffChanges", diffChanges);
-            
-            // Add comment for table changes section
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Table changes").append(Constants.SQL.Formatting.NEW_LINE);
-            
-            boolean changesMade = false;
-            
-            // Process added tables
-            JsonNode addedTables = diffChanges.path("addedTables");
-            if (!addedTables.isMissingNode() && addedTables.isArray() && addedTables.size() > 0) {
-                changesMade = true;
-                for (JsonNode table : addedTables) {
-                    String tableName = table.asText();
-                    log.debug("Processing added table: {}", tableName);
-                    
-                    // For the posts table, explicitly create it
-                    if ("posts".equals(tableName)) {
-                        ddlScript.append(Constants.SQL.Keywords.CREATE_TABLE).append(" ")
-                                .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_START).append(tableName)
-                                .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_END)
-                                .append(" (").append(Constants.SQL.Formatting.NEW_LINE);
-                        
-                        // Add the columns based on the DBML
-                        ddlScript.append("  `id` int PRIMARY KEY,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  `user_id` int,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  `title` varchar(255),").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  `content` text,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  FOREIGN KEY (`user_id`) REFERENCES `users`(`id`)").append(Constants.SQL.Formatting.NEW_LINE);
-                        
-                        ddlScript.append(");").append(Constants.SQL.Formatting.NEW_LINE).append(Constants.SQL.Formatting.NEW_LINE);
-                    }
-                }
-            } else {
-                log.debug("No added tables found in the diffChanges");
-            }
-            
-            // Process removed tables
-            JsonNode removedTables = diffChanges.path("removedTables");
-            if (!removedTables.isMissingNode() && removedTables.isArray() && removedTables.size() > 0) {
-                changesMade = true;
-                for (JsonNode table : removedTables) {
-                    String tableName = table.asText();
-                    log.debug("Processing removed table: {}", tableName);
-                    
-                    ddlScript.append(Constants.SQL.Keywords.DROP_TABLE_IF_EXISTS).append(" ")
-                            .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_START).append(tableName)
-                            .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_END).append(";")
-                            .append(Constants.SQL.Formatting.NEW_LINE).append(Constants.SQL.Formatting.NEW_LINE);
-                }
-            } else {
-                log.debug("No removed tables found in the diffChanges");
-            }
-            
-            // Process table changes (column additions, removals, or modifications)
-            JsonNode tableChanges = diffChanges.path("tableChanges");
-            if (!tableChanges.isMissingNode() && tableChanges.isObject() && tableChanges.size() > 0) {
-                log.debug("Processing table changes: {}", tableChanges);
-                
-                // Map to store table name and column changes
-                Map<String, List<JsonNode>> tableColumnChanges = new HashMap<>();
-                
-                // First, collect all column changes by table
-                Iterator<Map.Entry<String, JsonNode>> tableEntries = tableChanges.fields();
-                while (tableEntries.hasNext()) {
-                    Map.Entry<String, JsonNode> entry = tableEntries.next();
-                    String tableIndex = entry.getKey();
-                    JsonNode columnChanges = entry.getValue();
-                    
-                    if (columnChanges.isArray()) {
-                        String tableName = "";
-                        
-                        // Try to find the table name from the column changes
-                        for (JsonNode change : columnChanges) {
-                            if (change.has("property") && change.get("property").asText().equals("name")) {
-                                if (change.has("oldValue") && !change.get("oldValue").isNull()) {
-                                    // This is likely a column name change or removal
-                                    if (change.has("newValue") && change.get("newValue").isNull()) {
-                                        // Column removal - need to get the table name
-                                        tableName = "users"; // For the specific case we're handling
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                        
-                        if (tableName.isEmpty()) {
-                            // Default to "users" table for this specific case
-                            tableName = "users";
-                        }
-                        
-                        tableColumnChanges.computeIfAbsent(tableName, k -> new ArrayList<>()).addAll(toList(columnChanges));
-                    }
-                }
-                
-                // Now process each table and its column changes
-                for (Map.Entry<String, List<JsonNode>> entry : tableColumnChanges.entrySet()) {
-                    String tableName = entry.getKey();
-                    List<JsonNode> columnChanges = entry.getValue();
-                    
-                    // Process column changes
-                    for (JsonNode change : columnChanges) {
-                        if (change.has("property") && change.get("property").asText().equals("name")) {
-                            if (change.has("oldValue") && !change.get("oldValue").isNull() && 
-                                change.has("newValue") && change.get("newValue").isNull()) {
-                                // Column removal
-                                String columnName = change.get("oldValue").asText();
-                                log.debug("Dropping column {} from table {}", columnName, tableName);
-                                
-                                ddlScript.append(Constants.SQL.Keywords.ALTER_TABLE).append(" ")
-                                        .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_START).append(tableName)
-                                        .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_END).append(" ")
-                                        .append(Constants.SQL.Keywords.DROP_COLUMN).append(" ")
-                                        .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_START).append(columnName)
-                                        .append(Constants.SQL.Identifiers.MYSQL_IDENTIFIER_END).append(";")
-                                        .append(Constants.SQL.Formatting.NEW_LINE);
-                                        
-                                changesMade = true;
-                            }
-                        }
-                    }
-                }
-            } else {
-                log.debug("No table changes found in the diffChanges");
-            }
-            
-            // If no changes were made to the script, add a comment
-            if (!changesMade) {
-                ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("No changes detected that require DDL statements").append(Constants.SQL.Formatting.NEW_LINE);
-            }
-            
-        } catch (Exception e) {
-            log.error("Error generating MySQL DDL script: {}", e.getMessage(), e);
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Error generating DDL: ").append(e.getMessage())
-                    .append(Constants.SQL.Formatting.NEW_LINE);
+    @Override
+    public void writeDdlScript(DdlScript script, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), DDL_WRITE_BUFFER_SIZE);
+        writer.write(script.header().get());
+        writer.write(ddlHeaderEnd(DataUtils.isNull(script.etag())));
+        writer.flush();
+        if (DataUtils.notNull(script.cachedDdl())) {
+            // Copied out in small chunks, a memory-mapped DDL is never loaded onto the heap
+            ByteBuffer cached = script.cachedDdl().duplicate();
+            WritableByteChannel channel = Channels.newChannel(out);
+            while (cached.hasRemaining()) {
+                channel.write(cached);
+            }
+            return;
         }
-    }
-    
-    // Helper method to convert JsonNode array to List
-    private List<JsonNode> toList(JsonNode node) {
-        List<JsonNode> list = new ArrayList<>();
-        if (node.isArray()) {
-            node.forEach(list::add);
+        DdlCacheKey cacheKey = script.cacheKey();
+        if (DataUtils.isNull(cacheKey)) {
+            generaScriptDDLService.writeDDL(script.comparison().get(), script.dialect(), writer);
+            writer.flush();
+            return;
+        }
+        try (DdlCacheService.Capture capture = ddlCacheService.capture(cacheKey, out)) {
+            Writer captured = new BufferedWriter(new OutputStreamWriter(capture, StandardCharsets.UTF_8), DDL_WRITE_BUFFER_SIZE);
+            generaScriptDDLService.writeDDL(script.comparison().get(), script.dialect(), captured);
+            captured.flush();
+            capture.publish();
         }
-        return list;
     }
-    
-    private void generatePostgreSqlDdl(VersionComparisonDTO comparisonDTO, StringBuilder ddlScript) {
-        log.debug("Generating PostgreSQL DDL from diffChanges JSON");
-        
+
+    private String renderDdlScript(DdlScript script) {
         try {
-            // Parse the diffChanges JSON string into a JsonNode
-            String diffChangesStr = comparisonDTO.getDiffChanges();
-            if (diffChangesStr == null || diffChangesStr.isEmpty()) {
-                log.warn("No diff changes found to generate DDL script");
-                return;
-            }
-            
-            // Parse the JSON
-            JsonNode diffChanges = objectMapper.readTree(diffChangesStr);
-            logJson("Parsed diffChanges", diffChanges);
-            
-            // Add comment for table changes section
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Table changes").append(Constants.SQL.Formatting.NEW_LINE);
-            
-            boolean changesMade = false;
-            
-            // Process added tables
-            JsonNode addedTables = diffChanges.path("addedTables");
-            if (!addedTables.isMissingNode() && addedTables.isArray() && addedTables.size() > 0) {
-                changesMade = true;
-                for (JsonNode table : addedTables) {
-                    String tableName = table.asText();
-                    log.debug("Processing added table: {}", tableName);
-                    
-                    // For the posts table, explicitly create it
-                    if ("posts".equals(tableName)) {
-                        ddlScript.append(Constants.SQL.Keywords.CREATE_TABLE).append(" ")
-                                .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_START).append(tableName)
-                                .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_END)
-                                .append(" (").append(Constants.SQL.Formatting.NEW_LINE);
-                        
-                        // Add the columns based on the DBML
-                        ddlScript.append("  \"id\" int PRIMARY KEY,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  \"user_id\" int,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  \"title\" varchar(255),").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  \"content\" text,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  FOREIGN KEY (\"user_id\") REFERENCES \"users\"(\"id\")").append(Constants.SQL.Formatting.NEW_LINE);
-                        
-                        ddlScript.append(");").append(Constants.SQL.Formatting.NEW_LINE).append(Constants.SQL.Formatting.NEW_LINE);
-                    }
-                }
-            } else {
-                log.debug("No added tables found in the diffChanges");
-            }
-            
-            // Process removed tables
-            JsonNode removedTables = diffChanges.path("removedTables");
-            if (!removedTables.isMissingNode() && removedTables.isArray() && removedTables.size() > 0) {
-                changesMade = true;
-                for (JsonNode table : removedTables) {
-                    String tableName = table.asText();
-                    log.debug("Processing removed table: {}", tableName);
-                    
-                    ddlScript.append(Constants.SQL.Keywords.DROP_TABLE_IF_EXISTS).append(" ")
-                            .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_START).append(tableName)
-                            .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_END).append(";")
-                            .append(Constants.SQL.Formatting.NEW_LINE).append(Constants.SQL.Formatting.NEW_LINE);
-                }
-            } else {
-                log.debug("No removed tables found in the diffChanges");
-            }
-            
-            // Process table changes (column additions, removals, or modifications)
-            JsonNode tableChanges = diffChanges.path("tableChanges");
-            if (!tableChanges.isMissingNode() && tableChanges.isObject() && tableChanges.size() > 0) {
-                log.debug("Processing table changes: {}", tableChanges);
-                
-                // Map to store table name and column changes
-                Map<String, List<JsonNode>> tableColumnChanges = new HashMap<>();
-                
-                // First, collect all column changes by table
-                Iterator<Map.Entry<String, JsonNode>> tableEntries = tableChanges.fields();
-                while (tableEntries.hasNext()) {
-                    Map.Entry<String, JsonNode> entry = tableEntries.next();
-                    String tableIndex = entry.getKey();
-                    JsonNode columnChanges = entry.getValue();
-                    
-                    if (columnChanges.isArray()) {
-                        String tableName = "";
-                        
-                        // Try to find the table name from the column changes
-                        for (JsonNode change : columnChanges) {
-                            if (change.has("property") && change.get("property").asText().equals("name")) {
-                                if (change.has("oldValue") && !change.get("oldValue").isNull()) {
-                                    // This is likely a column name change or removal
-                                    if (change.has("newValue") && change.get("newValue").isNull()) {
-                                        // Column removal - need to get the table name
-                                        tableName = "users"; // For the specific case we're handling
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                        
-                        if (tableName.isEmpty()) {
-                            // Default to "users" table for this specific case
-                            tableName = "users";
-                        }
-                        
-                        tableColumnChanges.computeIfAbsent(tableName, k -> new ArrayList<>()).addAll(toList(columnChanges));
-                    }
-                }
-                
-                // Now process each table and its column changes
-                for (Map.Entry<String, List<JsonNode>> entry : tableColumnChanges.entrySet()) {
-                    String tableName = entry.getKey();
-                    List<JsonNode> columnChanges = entry.getValue();
-                    
-                    // Process column changes
-                    for (JsonNode change : columnChanges) {
-                        if (change.has("property") && change.get("property").asText().equals("name")) {
-                            if (change.has("oldValue") && !change.get("oldValue").isNull() && 
-                                change.has("newValue") && change.get("newValue").isNull()) {
-                                // Column removal
-                                String columnName = change.get("oldValue").asText();
-                                log.debug("Dropping column {} from table {}", columnName, tableName);
-                                
-                                ddlScript.append(Constants.SQL.Keywords.ALTER_TABLE).append(" ")
-                                        .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_START).append(tableName)
-                                        .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_END).append(" ")
-                                        .append(Constants.SQL.Keywords.DROP_COLUMN).append(" ")
-                                        .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_START).append(columnName)
-                                        .append(Constants.SQL.Identifiers.POSTGRESQL_ORACLE_IDENTIFIER_END).append(";")
-                                        .append(Constants.SQL.Formatting.NEW_LINE);
-                                        
-                                changesMade = true;
-                            }
-                        }
-                    }
-                }
-            } else {
-                log.debug("No table changes found in the diffChanges");
-            }
-            
-            // If no changes were made to the script, add a comment
-            if (!changesMade) {
-                ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("No changes detected that require DDL statements").append(Constants.SQL.Formatting.NEW_LINE);
-            }
-            
+            String header = script.header().get() + ddlHeaderEnd(true);
+            DdlCacheKey cacheKey = script.cacheKey();
+            if (DataUtils.isNull(cacheKey)) {
+                return header + generaScriptDDLService.generateDDL(script.comparison().get(), script.dialect());
+            }
+            ByteBuffer cached = ddlCacheService.get(cacheKey);
+            if (DataUtils.notNull(cached)) {
+                return header + StandardCharsets.UTF_8.decode(cached);
+            }
+            String ddl = generaScriptDDLService.generateDDL(script.comparison().get(), script.dialect());
+            ddlCacheService.put(cacheKey, ddl);
+            return header + ddl;
+        } catch (BaseException e) {
+            log.error("Base exception occurred during DDL script generation: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
-            log.error("Error generating PostgreSQL DDL script: {}", e.getMessage(), e);
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Error generating DDL: ").append(e.getMessage())
-                    .append(Constants.SQL.Formatting.NEW_LINE);
+            log.error("Error generating DDL script: {}", e.getMessage(), e);
+            throw BaseException.of(ErrorCode.INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    private void generateOracleDdl(VersionComparisonDTO comparisonDTO, StringBuilder ddlScript) {
-        log.info("Generating Oracle DDL from diffChanges JSON");
-        try{
-            String ddlGenerated = generaScriptDDLService.generateDDL(comparisonDTO, Constants.SQL.Dialect.ORACLE);
-            ddlScript.append(ddlGenerated);
-        } catch (Exception e) {
-            log.error("Error generating Oracle DDL script: {}", e.getMessage(), e);
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Error generating DDL: ").append(e.getMessage())
-                    .append(Constants.SQL.Formatting.NEW_LINE);
+    // Last lines of every DDL header. The generation time is not part of DdlScript#header: downloads with
+    // an ETag leave it out, so that the same ETag always comes with the same bytes
+    private static String ddlHeaderEnd(boolean withGenerationTime) {
+        return (withGenerationTime
+                ? Constants.SQL.Formatting.COMMENT_PREFIX + "Generated At: " + java.time.LocalDateTime.now()
+                        + Constants.SQL.Formatting.NEW_LINE
+                : "")
+                + Constants.SQL.Formatting.COMMENT_PREFIX + "====================================="
+                + Constants.SQL.Formatting.NEW_LINE + Constants.SQL.Formatting.NEW_LINE;
+    }
+
+    // Strong for the identity encoding: the DDL is the same bytes for the same key and the header is built
+    // from the same inputs, its end has no generation time. Other encodings get a suffix, see VersionRest.
+    // The inputs are the ids the header looks users up by, not their names, so a conditional request needs
+    // no lookups; a user renaming themselves does not change the tag
+    private static String ddlEtag(DdlCacheKey cacheKey, Object... headerInputs) {
+        StringBuilder tag = new StringBuilder()
+                .append(cacheKey.formatVersion()).append('\n')
+                .append(cacheKey.dialect()).append('\n')
+                .append(cacheKey.contentDigest());
+        for (Object input : headerInputs) {
+            tag.append('\n').append(input);
         }
+        return "\"" + HashUtils.sha256Hex(tag.toString()) + "\"";
     }
 
-    private void generateSqlServerDdl(VersionComparisonDTO comparisonDTO, StringBuilder ddlScript) {
-        log.debug("Generating SQL Server DDL from diffChanges JSON");
-        
-        try {
-            // Parse the diffChanges JSON string into a JsonNode
-            String diffChangesStr = comparisonDTO.getDiffChanges();
-            if (DataUtils.isNull(diffChangesStr) || diffChangesStr.isEmpty()) {
-                log.warn("No diff changes found to generate DDL script");
-                return;
-            }
-            
-            // Parse the JSON
-            JsonNode diffChanges = objectMapper.readTree(diffChangesStr);
-            logJson("Parsed diffChanges", diffChanges);
-            
-            // Add comment for a table changes section
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Table changes").append(Constants.SQL.Formatting.NEW_LINE);
-            
-            boolean changesMade = false;
-            
-            // Process added tables
-            JsonNode addedTables = diffChanges.path("addedTables");
-            if (!addedTables.isMissingNode() && addedTables.isArray() && !addedTables.isEmpty()) {
-                changesMade = true;
-                for (JsonNode table : addedTables) {
-                    String tableName = table.asText();
-                    log.debug("Processing added table: {}", tableName);
-                    
-                    // For the post-table, explicitly create it
-                    if ("posts".equals(tableName)) {
-                        ddlScript.append(Constants.SQL.Keywords.CREATE_TABLE).append(" ")
-                                .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_START).append(tableName)
-                                .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_END)
-                                .append(" (").append(Constants.SQL.Formatting.NEW_LINE);
-                        
-                        // Add the columns based on the DBML
-                        ddlScript.append("  [id] INT PRIMARY KEY,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  [user_id] INT,").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  [title] NVARCHAR(255),").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  [content] NVARCHAR(MAX),").append(Constants.SQL.Formatting.NEW_LINE);
-                        ddlScript.append("  CONSTRAINT [FK_posts_users] FOREIGN KEY ([user_id]) REFERENCES [users]([id])").append(Constants.SQL.Formatting.NEW_LINE);
-                        
-                        ddlScript.append(");").append(Constants.SQL.Formatting.NEW_LINE).append(Constants.SQL.Formatting.NEW_LINE);
-                    }
-                }
-            } else {
-                log.debug("No added tables found in the diffChanges");
-            }
-            
-            // Process removed tables
-            JsonNode removedTables = diffChanges.path("removedTables");
-            if (!removedTables.isMissingNode() && removedTables.isArray() && removedTables.size() > 0) {
-                changesMade = true;
-                for (JsonNode table : removedTables) {
-                    String tableName = table.asText();
-                    log.debug("Processing removed table: {}", tableName);
-                    
-                    ddlScript.append(Constants.SQL.Keywords.DROP_TABLE_IF_EXISTS).append(" ")
-                            .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_START).append(tableName)
-                            .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_END).append(";")
-                            .append(Constants.SQL.Formatting.NEW_LINE).append(Constants.SQL.Formatting.NEW_LINE);
+    // Built on first use only: not for a conditional request the client already has the script for
+    private static Supplier<String> lazyHeader(Supplier<String> header) {
+        return new Supplier<>() {
+            private String value;
+
+            @Override
+            public synchronized String get() {
+                if (DataUtils.isNull(value)) {
+                    value = header.get();
                 }
-            } else {
-                log.debug("No removed tables found in the diffChanges");
+                return value;
             }
-            
-            // Process table changes (column additions, removals, or modifications)
-            JsonNode tableChanges = diffChanges.path("tableChanges");
-            if (!tableChanges.isMissingNode() && tableChanges.isObject() && tableChanges.size() > 0) {
-                log.debug("Processing table changes: {}", tableChanges);
-                
-                // Map to store table name and column changes
-                Map<String, List<JsonNode>> tableColumnChanges = new HashMap<>();
-                
-                // First, collect all column changes by table
-                Iterator<Map.Entry<String, JsonNode>> tableEntries = tableChanges.fields();
-                while (tableEntries.hasNext()) {
-                    Map.Entry<String, JsonNode> entry = tableEntries.next();
-                    String tableIndex = entry.getKey();
-                    JsonNode columnChanges = entry.getValue();
-                    
-                    if (columnChanges.isArray()) {
-                        String tableName = "";
-                        
-                        // Try to find the table name from the column changes
-                        for (JsonNode change : columnChanges) {
-                            if (change.has("property") && change.get("property").asText().equals("name")) {
-                                if (change.has("oldValue") && !change.get("oldValue").isNull()) {
-                                    // This is likely a column name change or removal
-                                    if (change.has("newValue") && change.get("newValue").isNull()) {
-                                        // Column removal - need to get the table name
-                                        tableName = "users"; // For the specific case we're handling
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                        
-                        if (tableName.isEmpty()) {
-                            // Default to "users" table for this specific case
-                            tableName = "users";
-                        }
-                        
-                        tableColumnChanges.computeIfAbsent(tableName, k -> new ArrayList<>()).addAll(toList(columnChanges));
-                    }
-                }
-                
-                // Now process each table and its column changes
-                for (Map.Entry<String, List<JsonNode>> entry : tableColumnChanges.entrySet()) {
-                    String tableName = entry.getKey();
-                    List<JsonNode> columnChanges = entry.getValue();
-                    
-                    // Process column changes
-                    for (JsonNode change : columnChanges) {
-                        if (change.has("property") && change.get("property").asText().equals("name")) {
-                            if (change.has("oldValue") && !change.get("oldValue").isNull() && 
-                                change.has("newValue") && change.get("newValue").isNull()) {
-                                // Column removal
-                                String columnName = change.get("oldValue").asText();
-                                log.debug("Dropping column {} from table {}", columnName, tableName);
-                                
-                                // SQL Server syntax for dropping a column
-                                ddlScript.append(Constants.SQL.Keywords.ALTER_TABLE).append(" ")
-                                        .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_START).append(tableName)
-                                        .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_END).append(" ")
-                                        .append(Constants.SQL.Keywords.DROP_COLUMN).append(" ")
-                                        .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_START).append(columnName)
-                                        .append(Constants.SQL.Identifiers.SQL_SERVER_IDENTIFIER_END).append(";")
-                                        .append(Constants.SQL.Formatting.NEW_LINE);
-                                        
-                                changesMade = true;
-                            }
-                        }
+        };
+    }
+
+    // Loads and parses the changelog on first use only, e.g. not when the DDL is cached
+    private Supplier<VersionComparisonDTO> fullSchemaComparison(String changeLogId) {
+        return new Supplier<>() {
+            private VersionComparisonDTO comparison;
+
+            @Override
+            public synchronized VersionComparisonDTO get() {
+                if (DataUtils.isNull(comparison)) {
+                    ChangeLog changeLog = getAndCheckChangeLog(changeLogId);
+                    // Lấy nội dung DBML từ changelog
+                    String dbmlContent = changeLog.getContent();
+                    if (dbmlContent == null || dbmlContent.trim().isEmpty()) {
+                        log.error("DBML content is empty for changelog: {}", changeLogId);
+                        throw BaseException.of(ErrorCode.INVALID_CHANGELOG_DATA, HttpStatus.BAD_REQUEST);
                     }
+                    log.debug("Found DBML content with length: {} bytes", dbmlContent.length());
+                    // Parse DBML content thành DbmlModel (dùng cache theo changelog)
+                    DbmlModel dbmlModel = dbmlModelCacheService.getModel(changeLog);
+                    log.debug("Parsed DBML successfully - found {} tables", dbmlModel.getTables().size());
+                    // Chuyển đổi DbmlModel thành VersionComparisonDTO để sử dụng với GeneraScriptDDLService
+                    comparison = convertDbmlModelToVersionComparison(dbmlModel);
                 }
-            } else {
-                log.debug("No table changes found in the diffChanges");
-            }
-            
-            // If no changes were made to the script, add a comment
-            if (!changesMade) {
-                ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("No changes detected that require DDL statements").append(Constants.SQL.Formatting.NEW_LINE);
+                return comparison;
             }
-            
-        } catch (Exception e) {
-            log.error("Error generating SQL Server DDL script: {}", e.getMessage(), e);
-            ddlScript.append(Constants.SQL.Formatting.COMMENT_PREFIX).append("Error generating DDL: ").append(e.getMessage())
-                    .append(Constants.SQL.Formatting.NEW_LINE);
+        };
+    }
+
+    // Checked before anything is resolved: once a download has started its status can no longer change
+    private void checkDialect(Integer dialect) {
+        if (DataUtils.isNull(dialect) || !generaScriptDDLService.isSupported(dialect)) {
+            log.error("Unsupported SQL dialect: {}", dialect);
+            throw BaseException.of(ErrorCode.INVALID_REQUEST);
         }
     }
 
+    private static String ddlFileName(Project project, String suffix) {
+        return project.getProjectCode() + "-" + suffix + ".sql";
+    }
+    
+    private String getDialectName(Integer dialectCode) {
+        return switch (dialectCode) {
+            case Constants.SQL.Dialect.MYSQL -> Constants.SQL.Dialect.MYSQL_NAME;
+            case Constants.SQL.Dialect.MARIADB -> Constants.SQL.Dialect.MARIADB_NAME;
+            case Constants.SQL.Dialect.POSTGRESQL -> Constants.SQL.Dialect.POSTGRESQL_NAME;
+            case Constants.SQL.Dialect.ORACLE -> Constants.SQL.Dialect.ORACLE_NAME;
+            case Constants.SQL.Dialect.SQL_SERVER -> Constants.SQL.Dialect.SQL_SERVER_NAME;
+            default -> Constants.SQL.Dialect.UNKNOWN_NAME;
+        };
+    }
+    
     @Override
     public DdlScriptResponse generateSingleVersionDdl(SingleVersionDdlRequest request) {
+        String ddlScript = renderDdlScript(prepareSingleVersionDdl(request));
+        log.info("DDL script generated successfully with length: {} characters", ddlScript.length());
+
+        // Sử dụng mapper để tạo response
+        return ddlScriptResponseMapper.toSingleVersionDdlResponse(request, ddlScript);
+    }
+
+    @Override
+    public DdlScript prepareSingleVersionDdl(SingleVersionDdlRequest request) {
         log.info("Generating DDL script for single version - ProjectID: {}, Version: {}, Dialect: {}", 
                 request.getProjectId(), request.getVersionNumber(), request.getDialect());
+        checkDialect(request.getDialect());
         
         try {
-            // Kiểm tra project tồn tại
-            if (!projectRepository.existsById(request.getProjectId())) {
-                log.error("Project not found with ID: {}", request.getProjectId());
-                throw BaseException.of(ErrorCode.PROJECT_NOT_FOUND);
-            }
-            
-            // Tìm version theo versionNumber
-            Version version = versionRepository.findByProjectIdAndCodeVersion(request.getProjectId(), request.getVersionNumber())
-                    .orElseThrow(() -> {
-                        log.error("Version not found with Project ID: {} and Code Version: {}", 
-                                request.getProjectId(), request.getVersionNumber());
-                        return BaseException.of(ErrorCode.VERSION_NOT_FOUND);
-                    });
-            
-            // Lấy changelog tương ứng
-            ChangeLog changeLog = changeLogRepository.findById(version.getChangeLogId())
-                    .orElseThrow(() -> {
-                        log.error("Changelog not found with ID: {}", version.getChangeLogId());
-                        return BaseException.of(ErrorCode.CHANGELOG_NOT_FOUND);
-                    });
-            
-            // Lấy nội dung DBML từ changelog
-            String dbmlContent = changeLog.getContent();
-            if (dbmlContent == null || dbmlContent.trim().isEmpty()) {
-                log.error("DBML content is empty for changelog: {}", changeLog.getId());
-                throw BaseException.of(ErrorCode.INVALID_CHANGELOG_DATA, HttpStatus.BAD_REQUEST);
-            }
-            
-            log.debug("Found DBML content with length: {} bytes", dbmlContent.length());
-            
-            // Parse DBML content thành DbmlModel
-            DbmlModel dbmlModel = dbmlParserService.parseDbml(dbmlContent);
-            log.debug("Parsed DBML successfully - found {} tables", dbmlModel.getTables().size());
-            
-            // Chuyển đổi DbmlModel thành VersionComparisonDTO để sử dụng với GeneraScriptDDLService
-            VersionComparisonDTO versionComparison = convertDbmlModelToVersionComparison(dbmlModel);
-            
-            // Get project information for detailed header
-            Project project = getAndCheckProject(request.getProjectId());
-            
-            // Tạo DDL script sử dụng GeneraScriptDDLService
-            StringBuilder ddlScript = new StringBuilder();
-            
-            // Xác định tên dialect
-            String dialectName = getDialectName(request.getDialect());
-            
-            // Generate detailed header for create database DDL
-            ddlScript.append(generateCreateDdlHeader(project, version, changeLog, dialectName, request.getVersionNumber()));
-            
-            // Sử dụng GeneraScriptDDLService để tạo DDL
-            String generatedDdl = generaScriptDDLService.generateDDL(versionComparison, request.getDialect());
-            ddlScript.append(generatedDdl);
-            
-            log.info("DDL script generated successfully with length: {} characters", ddlScript.length());
-            
-            // Sử dụng mapper để tạo response
-            return ddlScriptResponseMapper.toSingleVersionDdlResponse(request, ddlScript.toString());
+            SingleVersionSource source = findSingleVersionSource(request.getProjectId(), request.getVersionNumber());
+            return singleVersionDdl(source, request.getDialect(), "v" + request.getVersionNumber(),
+                    fullSchemaComparison(source.changeLog().id()));
         } catch (BaseException e) {
             log.error("Base exception occurred during single version DDL script generation: {}", e.getMessage());
             throw e;
@@ -962,6 +560,82 @@ public class VersionServiceImpl implements VersionService {
             throw BaseException.of(ErrorCode.INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @Override
+    public List<DdlScript> prepareSingleVersionDdls(String projectId, Integer versionNumber, List<Integer> dialects) {
+        log.info("Generating DDL scripts for single version - ProjectID: {}, Version: {}, Dialects: {}",
+                projectId, versionNumber, dialects);
+        if (DataUtils.isNull(dialects) || dialects.isEmpty() || new HashSet<>(dialects).size() != dialects.size()) {
+            log.error("Dialects must be given once each: {}", dialects);
+            throw BaseException.of(ErrorCode.INVALID_REQUEST);
+        }
+        dialects.forEach(this::checkDialect);
+
+        try {
+            SingleVersionSource source = findSingleVersionSource(projectId, versionNumber);
+            // Shared by every dialect: the changelog is parsed once
+            Supplier<VersionComparisonDTO> comparison = fullSchemaComparison(source.changeLog().id());
+            List<DdlScript> scripts = new ArrayList<>(dialects.size());
+            for (Integer dialect : dialects) {
+                scripts.add(singleVersionDdl(source, dialect, "v" + versionNumber, comparison));
+            }
+            return scripts;
+        } catch (BaseException e) {
+            log.error("Base exception occurred during single version DDL scripts generation: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Error generating single version DDL scripts: {}", e.getMessage(), e);
+            throw BaseException.of(ErrorCode.INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private record SingleVersionSource(Project project, Version version, ChangeLogSummary changeLog) {
+    }
+
+    private SingleVersionSource findSingleVersionSource(String projectId, Integer versionNumber) {
+        // Kiểm tra project tồn tại
+        if (!projectRepository.existsById(projectId)) {
+            log.error("Project not found with ID: {}", projectId);
+            throw BaseException.of(ErrorCode.PROJECT_NOT_FOUND);
+        }
+        
+        // Tìm version theo versionNumber
+        Version version = versionRepository.findByProjectIdAndCodeVersion(projectId, versionNumber)
+                .orElseThrow(() -> {
+                    log.error("Version not found with Project ID: {} and Code Version: {}", 
+                            projectId, versionNumber);
+                    return BaseException.of(ErrorCode.VERSION_NOT_FOUND);
+                });
+        
+        // Lấy changelog tương ứng, không kèm nội dung: chỉ đọc khi phải sinh DDL
+        ChangeLogSummary changeLog = changeLogRepository.findSummaryById(version.getChangeLogId())
+                .orElseThrow(() -> {
+                    log.error("Changelog not found with ID: {}", version.getChangeLogId());
+                    return BaseException.of(ErrorCode.CHANGELOG_NOT_FOUND);
+                });
+        
+        // Get project information for detailed header
+        Project project = getAndCheckProject(projectId);
+        return new SingleVersionSource(project, version, changeLog);
+    }
+
+    private DdlScript singleVersionDdl(SingleVersionSource source, Integer dialect, String fileSuffix,
+                                       Supplier<VersionComparisonDTO> comparison) {
+        // Nothing is parsed yet: the DDL may be cached, or the client may have it already
+        Project project = source.project();
+        Version version = source.version();
+        ChangeLogSummary changeLog = source.changeLog();
+        DdlCacheKey cacheKey = ddlCacheService.keyOf(changeLog.id(), dialect);
+        String dialectName = getDialectName(dialect);
+        
+        // Generate detailed header for create database DDL
+        Supplier<String> header = lazyHeader(() -> generateCreateDdlHeader(project, version, changeLog,
+                dialectName, version.getCodeVersion()));
+        String etag = ddlEtag(cacheKey, "create", project.getProjectCode(), project.getOwnerId(),
+                version.getCodeVersion(), version.getCreatedBy(), version.getModifiedBy(), version.getCreatedDate(),
+                changeLog.createdBy(), dialectName);
+        return new DdlScript(ddlFileName(project, fileSuffix), header, etag, dialect, cacheKey, comparison);
+    }
     
     /**
      * Chuyển đổi DbmlModel thành VersionComparisonDTO để tạo DDL cho toàn bộ database
@@ -990,61 +664,8 @@ public class VersionServiceImpl implements VersionService {
                 columnDiff.setColumnName(column.getName());
                 columnDiff.setDiffType(VersionComparisonDTO.DiffType.ADDED);
                 
-                // Xây dựng column type string với attributes theo format của ParsedField
-                StringBuilder columnTypeBuilder = new StringBuilder();
-                columnTypeBuilder.append(column.getDataType());
-                
-                // Thêm type parameter nếu có
-                if (column.getTypeParam() != null && !column.getTypeParam().trim().isEmpty()) {
-                    columnTypeBuilder.append("(").append(column.getTypeParam()).append(")");
-                }
-                
-                // Thêm attributes dựa trên properties của ColumnModel
-                List<String> attrs = new ArrayList<>();
-                
-                if (column.isPrimaryKey()) {
-                    attrs.add("pk");
-                }
-                
-                if (column.isUnique()) {
-                    attrs.add("unique");
-                }
-                
-                if (column.isNotNull()) {
-                    attrs.add("not null");
-                }
-                
-                if (column.isAutoIncrement()) {
-                    attrs.add("increment");
-                }
-                
-                if (column.getDefaultValue() != null && !column.getDefaultValue().trim().isEmpty()) {
-                    attrs.add("default: \"" + column.getDefaultValue() + "\"");
-                }
-                
-                if (column.getNote() != null && !column.getNote().trim().isEmpty()) {
-                    attrs.add("note: \"" + column.getNote() + "\"");
-                }
-                
-                // Thêm reference nếu có
-                if (column.getReference() != null) {
-                    String refStr = "ref: " + column.getReference().getTableName() + "." + 
-                                   column.getReference().getColumnName();
-                    if (column.getReference().getCardinality() != null) {
-                        refStr = refStr + " " + column.getReference().getCardinality();
-                    }
-                    attrs.add(refStr);
-                }
-                
-                // Thêm attributes vào column type string
-                if (!attrs.isEmpty()) {
-                    columnTypeBuilder.append(" [");
-                    columnTypeBuilder.append(String.join(", ", attrs));
-                    columnTypeBuilder.append("]");
-                }
-                
-                columnDiff.setCurrentType(columnTypeBuilder.toString());
-                // No previous type for new tables
+                // DDL được sinh trực tiếp từ ColumnModel, không qua chuỗi kiểu DBML
+                columnDiff.setNewValue(column);
                 
                 columnDiffs.add(columnDiff);
             }
@@ -1059,8 +680,23 @@ public class VersionServiceImpl implements VersionService {
 
     @Override
     public DdlScriptResponse generateChangeLogDdl(ChangeLogDdlRequest request) {
+        String ddlScript = renderDdlScript(prepareChangeLogDdl(request));
+        log.info("DDL script generated successfully with length: {} characters", ddlScript.length());
+
+        // Sử dụng mapper để tạo response
+        // Tạo một SingleVersionDdlRequest tạm thời để sử dụng với mapper có sẵn
+        SingleVersionDdlRequest tempRequest = new SingleVersionDdlRequest();
+        tempRequest.setProjectId(request.getProjectId());
+        tempRequest.setDialect(request.getDialect());
+        tempRequest.setVersionNumber(1); // Default version for changelog
+        return ddlScriptResponseMapper.toSingleVersionDdlResponse(tempRequest, ddlScript);
+    }
+
+    @Override
+    public DdlScript prepareChangeLogDdl(ChangeLogDdlRequest request) {
         log.info("Generating DDL script for changelog - ProjectID: {}, ChangeLogCode: {}, Dialect: {}", 
                 request.getProjectId(), request.getChangeLogCode(), request.getDialect());
+        checkDialect(request.getDialect());
         
         try {
             // Kiểm tra project tồn tại
@@ -1069,55 +705,32 @@ public class VersionServiceImpl implements VersionService {
                 throw BaseException.of(ErrorCode.PROJECT_NOT_FOUND);
             }
             
-            // Tìm changelog theo changeLogCode
-            ChangeLog changeLog = changeLogRepository.findByProjectIdAndCodeChangeLog(request.getProjectId(), request.getChangeLogCode())
+            // Tìm changelog theo changeLogCode, không kèm nội dung: chỉ đọc khi phải sinh DDL
+            ChangeLogSummary changeLog = changeLogRepository.findSummaryByProjectIdAndCodeChangeLog(
+                            request.getProjectId(), request.getChangeLogCode())
                     .orElseThrow(() -> {
                         log.error("Changelog not found with Project ID: {} and Code: {}", 
                                 request.getProjectId(), request.getChangeLogCode());
                         return BaseException.of(ErrorCode.CHANGELOG_NOT_FOUND);
                     });
             
-            // Lấy nội dung DBML từ changelog
-            String dbmlContent = changeLog.getContent();
-            if (dbmlContent == null || dbmlContent.trim().isEmpty()) {
-                log.error("DBML content is empty for changelog: {}", changeLog.getId());
-                throw BaseException.of(ErrorCode.INVALID_CHANGELOG_DATA, HttpStatus.BAD_REQUEST);
-            }
-            
-            log.debug("Found DBML content with length: {} bytes", dbmlContent.length());
-            
-            // Parse DBML content thành DbmlModel
-            DbmlModel dbmlModel = dbmlParserService.parseDbml(dbmlContent);
-            log.debug("Parsed DBML successfully - found {} tables", dbmlModel.getTables().size());
-            
-            // Chuyển đổi DbmlModel thành VersionComparisonDTO để sử dụng với GeneraScriptDDLService
-            VersionComparisonDTO versionComparison = convertDbmlModelToVersionComparison(dbmlModel);
+            // Nothing is loaded or parsed yet: the DDL may be cached, or the client may have it already
+            DdlCacheKey cacheKey = ddlCacheService.keyOf(changeLog.id(), request.getDialect());
             
             // Get project information for detailed header
             Project project = getAndCheckProject(request.getProjectId());
             
-            // Tạo DDL script sử dụng GeneraScriptDDLService
-            StringBuilder ddlScript = new StringBuilder();
-            
             // Xác định tên dialect
             String dialectName = getDialectName(request.getDialect());
             
             // Generate detailed header for changelog DDL
-            ddlScript.append(generateChangeLogDdlHeader(project, changeLog, dialectName, request.getChangeLogCode()));
-            
-            // Sử dụng GeneraScriptDDLService để tạo DDL
-            String generatedDdl = generaScriptDDLService.generateDDL(versionComparison, request.getDialect());
-            ddlScript.append(generatedDdl);
-            
-            log.info("DDL script generated successfully with length: {} characters", ddlScript.length());
-            
-            // Sử dụng mapper để tạo response
-            // Tạo một SingleVersionDdlRequest tạm thời để sử dụng với mapper có sẵn
-            SingleVersionDdlRequest tempRequest = new SingleVersionDdlRequest();
-            tempRequest.setProjectId(request.getProjectId());
-            tempRequest.setDialect(request.getDialect());
-            tempRequest.setVersionNumber(1); // Default version for changelog
-            return ddlScriptResponseMapper.toSingleVersionDdlResponse(tempRequest, ddlScript.toString());
+            Supplier<String> header = lazyHeader(() -> generateChangeLogDdlHeader(project, changeLog, dialectName,
+                    request.getChangeLogCode()));
+            String etag = ddlEtag(cacheKey, "changelog", project.getProjectCode(), project.getOwnerId(),
+                    request.getChangeLogCode(), changeLog.createdBy(), changeLog.modifiedBy(), changeLog.createdDate(),
+                    dialectName);
+            return new DdlScript(ddlFileName(project, request.getChangeLogCode()), header, etag,
+                    request.getDialect(), cacheKey, fullSchemaComparison(changeLog.id()));
         } catch (BaseException e) {
             log.error("Base exception occurred during changelog DDL script generation: {}", e.getMessage());
             throw e;
@@ -1235,22 +848,14 @@ public class VersionServiceImpl implements VersionService {
               .append("Database Dialect: ").append(dialectName)
               .append(Constants.SQL.Formatting.NEW_LINE);
         
-        header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-              .append("Generated At: ").append(java.time.LocalDateTime.now().toString())
-              .append(Constants.SQL.Formatting.NEW_LINE);
-        
-        header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-              .append("=====================================")
-              .append(Constants.SQL.Formatting.NEW_LINE)
-              .append(Constants.SQL.Formatting.NEW_LINE);
-        
+        // Generation time and closing line: see ddlHeaderEnd
         return header.toString();
     }
 
     /**
      * Generate detailed header for create database DDL scripts
      */
-    private String generateCreateDdlHeader(Project project, Version version, ChangeLog changeLog, 
+    private String generateCreateDdlHeader(Project project, Version version, ChangeLogSummary changeLog, 
                                          String dialectName, Integer versionNumber) {
         StringBuilder header = new StringBuilder();
         
@@ -1305,8 +910,8 @@ public class VersionServiceImpl implements VersionService {
         // Changelog information
         if (changeLog != null) {
             Users changeLogCreator = null;
-            if (changeLog.getCreatedBy() != null) {
-                changeLogCreator = userRepository.findById(changeLog.getCreatedBy()).orElse(null);
+            if (changeLog.createdBy() != null) {
+                changeLogCreator = userRepository.findById(changeLog.createdBy()).orElse(null);
             }
             header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
                   .append("Changelog Creator: ").append(changeLogCreator != null ? changeLogCreator.getFullName() : "Unknown")
@@ -1318,22 +923,14 @@ public class VersionServiceImpl implements VersionService {
               .append("Database Dialect: ").append(dialectName)
               .append(Constants.SQL.Formatting.NEW_LINE);
         
-        header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-              .append("Generated At: ").append(java.time.LocalDateTime.now().toString())
-              .append(Constants.SQL.Formatting.NEW_LINE);
-        
-        header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-              .append("=====================================")
-              .append(Constants.SQL.Formatting.NEW_LINE)
-              .append(Constants.SQL.Formatting.NEW_LINE);
-        
+        // Generation time and closing line: see ddlHeaderEnd
         return header.toString();
     }
 
     /**
      * Generate detailed header for changelog DDL scripts
      */
-    private String generateChangeLogDdlHeader(Project project, ChangeLog changeLog, 
+    private String generateChangeLogDdlHeader(Project project, ChangeLogSummary changeLog, 
                                             String dialectName, String changeLogCode) {
         StringBuilder header = new StringBuilder();
         
@@ -1363,16 +960,16 @@ public class VersionServiceImpl implements VersionService {
         
         if (changeLog != null) {
             Users creator = null;
-            if (changeLog.getCreatedBy() != null) {
-                creator = userRepository.findById(changeLog.getCreatedBy()).orElse(null);
+            if (changeLog.createdBy() != null) {
+                creator = userRepository.findById(changeLog.createdBy()).orElse(null);
             }
             header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
                   .append("Changelog Creator: ").append(creator != null ? creator.getFullName() : "Unknown")
                   .append(Constants.SQL.Formatting.NEW_LINE);
             
             Users modifier = null;
-            if (changeLog.getModifiedBy() != null) {
-                modifier = userRepository.findById(changeLog.getModifiedBy()).orElse(null);
+            if (changeLog.modifiedBy() != null) {
+                modifier = userRepository.findById(changeLog.modifiedBy()).orElse(null);
             }
             header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
                   .append("Last Modified By: ").append(modifier != null ? modifier.getFullName() : "Unknown")
@@ -1380,7 +977,7 @@ public class VersionServiceImpl implements VersionService {
             
             // Creation time
             header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-                  .append("Created Time: ").append(changeLog.getCreatedDate() != null ? changeLog.getCreatedDate().toString() : "Unknown")
+                  .append("Created Time: ").append(changeLog.createdDate() != null ? changeLog.createdDate().toString() : "Unknown")
                   .append(Constants.SQL.Formatting.NEW_LINE);
         }
         
@@ -1389,15 +986,7 @@ public class VersionServiceImpl implements VersionService {
               .append("Database Dialect: ").append(dialectName)
               .append(Constants.SQL.Formatting.NEW_LINE);
         
-        header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-              .append("Generated At: ").append(java.time.LocalDateTime.now().toString())
-              .append(Constants.SQL.Formatting.NEW_LINE);
-        
-        header.append(Constants.SQL.Formatting.COMMENT_PREFIX)
-              .append("=====================================")
-              .append(Constants.SQL.Formatting.NEW_LINE)
-              .append(Constants.SQL.Formatting.NEW_LINE);
-        
+        // Generation time and closing line: see ddlHeaderEnd
         return header.toString();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,509 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ParsedField;
+import com.vissoft.vn.dbdocs.domain.service.DdlDialect;
+import com.vissoft.vn.dbdocs.infrastructure.exception.BaseException;
+import com.vissoft.vn.dbdocs.infrastructure.exception.ErrorCode;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.SqlKeywords;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * Rendering shared by the dialects: CREATE TABLE, DROP TABLE, and ALTER TABLE one column diff at a time.
+ * Dialects render modified columns and may change the table options, the ADD keyword, the ALTER TABLE
+ * layout, and map DBML type names through a type table.
+ * <p>
+ * Columns are rendered from their {@link ColumnModel}. Diffs read back from {@code version.diff_change}
+ * only carry the DBML type string, which is parsed and whose settings are looked up in {@link AttributeKeyword}.
+ */
+@Slf4j
+public abstract class AbstractDdlDialect implements DdlDialect {
+
+    protected static final String NEXT_LINE = "\n";
+    protected static final String SPACE = " ";
+    protected static final String COMMA = ", ";
+    protected static final String SEMICOLON = ";";
+    protected static final String OPEN_BRACKET = "(";
+    protected static final String CLOSE_BRACKET = ")";
+    protected static final String SINGLE_QUOTE = "'";
+    protected static final String TAB = "\t";
+    // Attribute keys written by ColumnModel#toDbmlDefinition, for type strings of stored diffs
+    private static final String NOT_NULL_ATTRIBUTE = "not null";
+    private static final String DEFAULT_ATTRIBUTE = "default";
+    private static final String AUTO_INCREMENT = "AUTO_INCREMENT";
+    private static final String MANUAL_CHANGE = "-- manual change required: ";
+
+    // SQL type names by DBML type name, each registered in lower and upper case
+    private final Map<String, String> typeMappings;
+
+    /**
+     * @param typeMappings SQL type names of this dialect by DBML type name, e.g. {@code varchar -> varchar2};
+     *                     types not listed are written as they are in the DBML
+     */
+    protected AbstractDdlDialect(Map<String, String> typeMappings) {
+        Map<String, String> mappings = new HashMap<>();
+        typeMappings.forEach((dbmlType, sqlType) -> {
+            mappings.put(dbmlType.toLowerCase(Locale.ROOT), sqlType);
+            mappings.put(dbmlType.toUpperCase(Locale.ROOT), sqlType);
+        });
+        this.typeMappings = Map.copyOf(mappings);
+    }
+
+    @Override
+    public void createTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff) {
+        String tableName = tableDiff.getTableName();
+        ddl.append("-- ").append(SqlKeywords.DDL.CREATE_TABLE).append(SPACE).append(tableName).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.CREATE_TABLE).append(SPACE).append(tableName).append(SPACE).append(OPEN_BRACKET).append(NEXT_LINE);
+
+        for (VersionComparisonDTO.ColumnDiff columnDiff : tableDiff.getColumnDiffs()) {
+            TargetColumn column = targetColumn(columnDiff);
+            ddl.append(TAB).append(columnDiff.getColumnName()).append(SPACE).append(dataType(column));
+            appendSettings(ddl, column);
+            ddl.append(COMMA).append(NEXT_LINE);
+        }
+        ddl.append(CLOSE_BRACKET).append(tableOptions()).append(SEMICOLON).append(NEXT_LINE);
+    }
+
+    /**
+     * @return written between the closing bracket of CREATE TABLE and the semicolon, with a leading space
+     */
+    protected String tableOptions() {
+        return "";
+    }
+
+    @Override
+    public void dropTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff) {
+        ddl.append("-- ").append(SqlKeywords.DDL.DROP_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.DROP_TABLE).append(SPACE).append(tableDiff.getTableName()).append(SEMICOLON).append(NEXT_LINE);
+    }
+
+    @Override
+    public void alterTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff) {
+        for (VersionComparisonDTO.ColumnDiff columnDiff : tableDiff.getColumnDiffs()) {
+            switch (columnDiff.getDiffType()) {
+                case REMOVED -> dropColumn(ddl, tableDiff, columnDiff);
+                case ADDED -> addColumn(ddl, tableDiff, columnDiff);
+                case MODIFIED -> modifyColumn(ddl, tableDiff, columnDiff);
+            }
+        }
+    }
+
+    protected void dropColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                              VersionComparisonDTO.ColumnDiff columnDiff) {
+        ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName())
+           .append(SPACE).append(SqlKeywords.DDL.DROP_COLUMN).append(SPACE)
+           .append(columnDiff.getColumnName()).append(SEMICOLON).append(NEXT_LINE);
+    }
+
+    protected void addColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                             VersionComparisonDTO.ColumnDiff columnDiff) {
+        TargetColumn column = targetColumn(columnDiff);
+        ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName())
+           .append(SPACE).append(addColumnKeyword()).append(SPACE)
+           .append(columnDiff.getColumnName()).append(SPACE).append(dataType(column));
+        appendSettings(ddl, column);
+        ddl.append(SEMICOLON).append(NEXT_LINE);
+    }
+
+    protected String addColumnKeyword() {
+        return SqlKeywords.DDL.ADD_COLUMN;
+    }
+
+    /**
+     * Append the statements bringing a modified column to its new definition.
+     */
+    protected abstract void modifyColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                         VersionComparisonDTO.ColumnDiff columnDiff);
+
+    // ALTER TABLE <table> <modifier> <column> <clause>;
+    protected static void alterColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                      VersionComparisonDTO.ColumnDiff columnDiff, String modifier, String clause) {
+        ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(SPACE)
+           .append(modifier).append(SPACE)
+           .append(columnDiff.getColumnName()).append(SPACE)
+           .append(clause).append(SEMICOLON).append(NEXT_LINE);
+    }
+
+    /**
+     * Append the statements for a changed primary key, unique or reference setting, which ALTER COLUMN
+     * cannot change. An added constraint gets an {@code ALTER TABLE ... ADD}; dropping or replacing one needs
+     * the constraint name, which the DBML does not have, so it gets a {@code -- manual change required} line.
+     */
+    protected static void alterConstraints(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                           VersionComparisonDTO.ColumnDiff columnDiff, Set<String> changed,
+                                           TargetColumn target) {
+        String column = columnDiff.getColumnName();
+        if (changesAny(changed, ColumnProperty.PRIMARY_KEY)) {
+            if (hasSetting(target, SqlKeywords.Constraints.PRIMARY_KEY)) {
+                addConstraint(ddl, tableDiff, SqlKeywords.Constraints.PRIMARY_KEY + SPACE
+                        + OPEN_BRACKET + column + CLOSE_BRACKET);
+            } else {
+                manualChange(ddl, tableDiff, columnDiff, ColumnProperty.PRIMARY_KEY);
+            }
+        }
+        if (changesAny(changed, ColumnProperty.UNIQUE)) {
+            if (hasSetting(target, SqlKeywords.Constraints.UNIQUE)) {
+                addConstraint(ddl, tableDiff, SqlKeywords.Constraints.UNIQUE + SPACE
+                        + OPEN_BRACKET + column + CLOSE_BRACKET);
+            } else {
+                manualChange(ddl, tableDiff, columnDiff, ColumnProperty.UNIQUE);
+            }
+        }
+        if (changesAny(changed, ColumnProperty.REFERENCE)) {
+            TargetColumn previous = previousColumn(columnDiff);
+            // The previous foreign key, if there may be one, has to be dropped by name first
+            if (DataUtils.isNull(previous) || DataUtils.notNull(reference(previous))) {
+                manualChange(ddl, tableDiff, columnDiff, ColumnProperty.REFERENCE);
+            }
+            String reference = reference(target);
+            int columnStart = DataUtils.isNull(reference) ? -1 : reference.lastIndexOf('.');
+            if (columnStart > 0) {
+                addConstraint(ddl, tableDiff, SqlKeywords.Constraints.FOREIGN_KEY + SPACE
+                        + OPEN_BRACKET + column + CLOSE_BRACKET + SPACE
+                        + SqlKeywords.Constraints.REFERENCES + SPACE + reference.substring(0, columnStart)
+                        + OPEN_BRACKET + reference.substring(columnStart + 1) + CLOSE_BRACKET);
+            }
+        }
+    }
+
+    // ALTER TABLE <table> ADD <clause>;
+    protected static void addConstraint(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff, String clause) {
+        ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(SPACE)
+           .append(SqlKeywords.ModifiersType.ADD).append(SPACE)
+           .append(clause).append(SEMICOLON).append(NEXT_LINE);
+    }
+
+    // A change this dialect cannot express without names or data the diff does not have
+    protected static void manualChange(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                       VersionComparisonDTO.ColumnDiff columnDiff, ColumnProperty property) {
+        ddl.append(MANUAL_CHANGE).append(property.getPropertyName()).append(" of ")
+           .append(tableDiff.getTableName()).append('.').append(columnDiff.getColumnName()).append(NEXT_LINE);
+    }
+
+    /**
+     * Thuộc tính đã thay đổi của một cột MODIFIED. Rỗng với diff được lưu trước khi có thông tin này:
+     * khi đó cột được định nghĩa lại toàn bộ như trước.
+     */
+    protected static Set<String> changedProperties(VersionComparisonDTO.ColumnDiff columnDiff) {
+        return DataUtils.isNull(columnDiff.getChangedProperties())
+                ? Set.of() : new HashSet<>(columnDiff.getChangedProperties());
+    }
+
+    protected static boolean changesAny(Set<String> changed, ColumnProperty... properties) {
+        for (ColumnProperty property : properties) {
+            if (changed.contains(property.getPropertyName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Định nghĩa cột sau thay đổi. Diff tính trong tiến trình này và DDL của cả schema mang sẵn ColumnModel,
+     * được sinh DDL trực tiếp; diff đọc lại từ version.diff_change chỉ còn chuỗi kiểu DBML và được phân tích như trước.
+     */
+    protected static TargetColumn targetColumn(VersionComparisonDTO.ColumnDiff columnDiff) {
+        if (columnDiff.getNewValue() instanceof ColumnModel column) {
+            return new TargetColumn(column, null);
+        }
+        ParsedField parsedField = parse(columnDiff.getCurrentType());
+        if (DataUtils.isNull(parsedField)) {
+            throw BaseException.of(ErrorCode.PARSE_FIELD_ERROR);
+        }
+        return new TargetColumn(null, parsedField);
+    }
+
+    /**
+     * Type with its parameters, e.g. {@code varchar(255)}, through the type table of the dialect.
+     */
+    protected String dataType(TargetColumn target) {
+        ColumnModel column = target.column();
+        if (DataUtils.isNull(column)) {
+            String dataType = target.parsed().getDataType();
+            if (typeMappings.isEmpty()) {
+                return dataType;
+            }
+            int paramStart = dataType.indexOf('(');
+            return paramStart < 0
+                    ? sqlType(dataType)
+                    : sqlType(dataType.substring(0, paramStart).trim()) + dataType.substring(paramStart);
+        }
+        String typeParam = column.getTypeParam();
+        String dataType = DataUtils.isNull(typeParam) || typeParam.isBlank()
+                ? sqlType(column.getDataType())
+                : sqlType(column.getDataType()) + OPEN_BRACKET + typeParam + CLOSE_BRACKET;
+        return dataType.trim();
+    }
+
+    private String sqlType(String dbmlType) {
+        return typeMappings.isEmpty() ? dbmlType : typeMappings.getOrDefault(dbmlType, dbmlType);
+    }
+
+    /**
+     * Định nghĩa cột trước thay đổi, hoặc null nếu diff không có.
+     */
+    protected static TargetColumn previousColumn(VersionComparisonDTO.ColumnDiff columnDiff) {
+        if (columnDiff.getOldValue() instanceof ColumnModel column) {
+            return new TargetColumn(column, null);
+        }
+        ParsedField parsedField = parse(columnDiff.getBeforeType());
+        return DataUtils.isNull(parsedField) ? null : new TargetColumn(null, parsedField);
+    }
+
+    protected static boolean isAutoIncrement(TargetColumn target) {
+        return hasSetting(target, AUTO_INCREMENT);
+    }
+
+    // Whether the column has the setting rendered as sql, e.g. PRIMARY KEY for pk
+    private static boolean hasSetting(TargetColumn target, String sql) {
+        ColumnModel column = target.column();
+        if (DataUtils.notNull(column)) {
+            return switch (sql) {
+                case SqlKeywords.Constraints.PRIMARY_KEY -> column.isPrimaryKey();
+                case SqlKeywords.Constraints.UNIQUE -> column.isUnique();
+                case AUTO_INCREMENT -> column.isAutoIncrement();
+                default -> false;
+            };
+        }
+        for (String key : target.parsed().getAttributes().keySet()) {
+            AttributeKeyword keyword = AttributeKeyword.of(key.trim());
+            if (DataUtils.notNull(keyword) && keyword.sql().equals(sql)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "table.column" the column references, or null
+    private static String reference(TargetColumn target) {
+        ColumnModel column = target.column();
+        if (DataUtils.notNull(column)) {
+            ColumnModel.RefValue reference = column.getReference();
+            return DataUtils.isNull(reference) ? null : reference.getTableName() + "." + reference.getColumnName();
+        }
+        for (Map.Entry<String, Object> entry : target.parsed().getAttributes().entrySet()) {
+            AttributeKeyword keyword = AttributeKeyword.of(entry.getKey().trim());
+            if (DataUtils.notNull(keyword) && keyword.kind() == AttributeKeyword.Kind.REFERENCES
+                    && entry.getValue() instanceof String value) {
+                // "users.id >" as written by ColumnModel#toDbmlDefinition, or "> users.id"
+                for (String part : value.trim().split("\\s+")) {
+                    if (part.indexOf('.') > 0) {
+                        return part;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    protected static boolean isNotNull(TargetColumn target) {
+        return DataUtils.notNull(target.column())
+                ? target.column().isNotNull()
+                : target.parsed().getAttributes().containsKey(NOT_NULL_ATTRIBUTE);
+    }
+
+    // "DEFAULT x", or null if the column has no default
+    protected static String defaultClause(TargetColumn target) {
+        if (DataUtils.notNull(target.column())) {
+            String value = target.column().getDefaultValue();
+            return DataUtils.isNull(value) || value.isBlank()
+                    ? null : SqlKeywords.Constraints.DEFAULT + SPACE + value.trim();
+        }
+        Object value = target.parsed().getAttributes().get(DEFAULT_ATTRIBUTE);
+        return DataUtils.isNull(value) ? null : renderAttribute(DEFAULT_ATTRIBUTE, value);
+    }
+
+    // "SET DEFAULT x" or "DROP DEFAULT"
+    protected static String setDefaultClause(TargetColumn target) {
+        String defaultClause = defaultClause(target);
+        return DataUtils.notNull(defaultClause)
+                ? "SET " + defaultClause
+                : "DROP " + SqlKeywords.Constraints.DEFAULT;
+    }
+
+    /**
+     * Các ràng buộc của cột theo thứ tự của ColumnModel#toDbmlDefinition, mỗi ràng buộc có một dấu cách phía trước.
+     * Ghi chú (note) không có trong DDL.
+     */
+    protected static void appendSettings(StringBuilder ddl, TargetColumn target) {
+        ColumnModel column = target.column();
+        if (DataUtils.isNull(column)) {
+            for (Map.Entry<String, Object> entry : target.parsed().getAttributes().entrySet()) {
+                String attributeStr = renderAttribute(entry.getKey(), entry.getValue());
+                if (!attributeStr.isEmpty()) {
+                    ddl.append(SPACE).append(attributeStr);
+                }
+            }
+            return;
+        }
+        if (column.isPrimaryKey()) {
+            ddl.append(SPACE).append(SqlKeywords.Constraints.PRIMARY_KEY);
+        }
+        if (column.isUnique()) {
+            ddl.append(SPACE).append(SqlKeywords.Constraints.UNIQUE);
+        }
+        if (column.isNotNull()) {
+            ddl.append(SPACE).append(SqlKeywords.Constraints.NOT_NULL);
+        }
+        if (column.isAutoIncrement()) {
+            ddl.append(SPACE).append(AUTO_INCREMENT);
+        }
+        String defaultClause = defaultClause(target);
+        if (DataUtils.notNull(defaultClause)) {
+            ddl.append(SPACE).append(defaultClause);
+        }
+        ColumnModel.RefValue reference = column.getReference();
+        if (DataUtils.notNull(reference)) {
+            // Same text as the parsed "ref: table.column >" setting
+            ddl.append(SPACE).append(SqlKeywords.Constraints.REFERENCES).append(SPACE)
+               .append(reference.getTableName()).append('.').append(reference.getColumnName());
+            if (DataUtils.notNull(reference.getCardinality())) {
+                ddl.append(SPACE).append(reference.getCardinality());
+            }
+        }
+    }
+
+    /**
+     * Render one setting of a DBML type string.
+     *
+     * @param key   setting name, e.g. {@code pk} or {@code default}
+     * @param value its value, or {@code true} for a setting without value
+     * @return the SQL of the setting, empty if it has none
+     */
+    protected static String renderAttribute(String key, Object value) {
+        if (DataUtils.isNull(key) || key.isBlank()) {
+            return "";
+        }
+        String trimmedKey = key.trim();
+        String valueStr = value instanceof String string ? string.trim() : "";
+        AttributeKeyword keyword = AttributeKeyword.of(trimmedKey);
+        if (DataUtils.isNull(keyword)) {
+            log.warn("Unknown SQL keyword encountered: {}. Using as-is.", key);
+            String upperKey = key.toUpperCase();
+            return valueStr.isEmpty() ? upperKey : upperKey + SPACE + valueStr;
+        }
+        if (keyword.kind() == AttributeKeyword.Kind.FLAG || valueStr.isEmpty()) {
+            return keyword.sql();
+        }
+        return switch (keyword.kind()) {
+            case DEFAULT -> SqlKeywords.Constraints.DEFAULT + SPACE + valueStr;
+            case COMMENT -> "COMMENT" + SPACE + SINGLE_QUOTE + valueStr + SINGLE_QUOTE;
+            case NOTE -> "";
+            case REFERENCES -> SqlKeywords.Constraints.REFERENCES + SPACE + valueStr;
+            case CHECK -> SqlKeywords.Constraints.CHECK + SPACE + OPEN_BRACKET + valueStr + CLOSE_BRACKET;
+            case COLLATE -> "COLLATE" + SPACE + valueStr;
+            case FLAG, PLAIN -> keyword.sql() + SPACE + valueStr;
+        };
+    }
+
+    /**
+     * Phân tích một chuỗi định nghĩa trường thành đối tượng ParsedField.
+     * @param fieldDefinition Chuỗi đầu vào, ví dụ: "varchar(255) [pk, unique, note: \"abc, xyz\"]"
+     * @return một đối tượng ParsedField chứa thông tin đã phân tích.
+     */
+    private static ParsedField parse(String fieldDefinition) {
+        if (fieldDefinition == null || fieldDefinition.trim().isEmpty()) {
+            return null;
+        }
+
+        fieldDefinition = fieldDefinition.trim();
+        int openBracketIndex = fieldDefinition.indexOf('[');
+
+        String dataType;
+        Map<String, Object> attributes;
+
+        if (openBracketIndex == -1) {
+            dataType = fieldDefinition;
+            attributes = new LinkedHashMap<>(); // Sử dụng LinkedHashMap để giữ nguyên thứ tự
+        } else {
+            dataType = fieldDefinition.substring(0, openBracketIndex).trim();
+            int closeBracketIndex = fieldDefinition.lastIndexOf(']');
+            if (closeBracketIndex > openBracketIndex) {
+                String attributesString = fieldDefinition.substring(openBracketIndex + 1, closeBracketIndex);
+                attributes = parseAttributesString(attributesString);
+            } else {
+                attributes = new LinkedHashMap<>();
+            }
+        }
+
+        return new ParsedField(dataType, attributes);
+    }
+
+    /**
+     * Phương thức nội bộ để phân tích chuỗi thuộc tính phức tạp.
+     * Nó có thể xử lý dấu phẩy bên trong dấu ngoặc kép và ngoặc đơn.
+     * Ví dụ: "pk, note: \"ghi chú, có phẩy\", default: NOW()"
+     */
+    private static Map<String, Object> parseAttributesString(String attributesString) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        if (attributesString == null || attributesString.trim().isEmpty()) {
+            return attributes;
+        }
+
+        List<String> parts = splitAttributes(attributesString);
+
+        for (String part : parts) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+
+            int colonIndex = part.indexOf(':');
+            if (colonIndex == -1) {
+                // Trường hợp thuộc tính không có giá trị, ví dụ: "pk", "not-null"
+                attributes.put(part, true);
+            } else {
+                // Trường hợp thuộc tính có giá trị, ví dụ: "note: 'abc'"
+                String key = part.substring(0, colonIndex).trim();
+                String value = part.substring(colonIndex + 1).trim();
+
+                // Xóa các dấu nháy đơn hoặc kép ở đầu và cuối giá trị
+                if ((value.startsWith("\"") && value.endsWith("\"")) || (value.startsWith("'") && value.endsWith("'"))) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                attributes.put(key, value);
+            }
+        }
+
+        return attributes;
+    }
+
+    /**
+     * Tách chuỗi thuộc tính theo dấu phẩy, nhưng bỏ qua các dấu phẩy
+     * nằm trong ngoặc đơn () hoặc dấu nháy "" ''.
+     */
+    private static List<String> splitAttributes(String str) {
+        List<String> result = new ArrayList<>();
+        int level = 0; // Mức độ lồng của ngoặc đơn
+        boolean inDoubleQuotes = false;
+        boolean inSingleQuotes = false;
+        int start = 0;
+
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '(') level++;
+            else if (c == ')') level--;
+            else if (c == '"') inDoubleQuotes = !inDoubleQuotes;
+            else if (c == '\'') inSingleQuotes = !inSingleQuotes;
+            else if (c == ',' && level == 0 && !inDoubleQuotes && !inSingleQuotes) {
+                result.add(str.substring(start, i));
+                start = i + 1;
+            }
+        }
+        result.add(str.substring(start)); // Thêm phần cuối cùng
+        return result;
+    }
+
+    /**
+     * Cột đích của một diff: ColumnModel nếu có, nếu không thì kết quả phân tích chuỗi kiểu DBML.
+     */
+    protected record TargetColumn(ColumnModel column, ParsedField parsed) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.infrastructure.util.SqlKeywords;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A setting of a DBML column type string, e.g. the {@code pk} of {@code integer [pk]}, and the SQL it
+ * renders to. Every spelling is registered in lower and upper case when the class is loaded, so that a
+ * setting is found with one hash lookup and no case folding; other casings are upper-cased first.
+ */
+record AttributeKeyword(String sql, Kind kind) {
+
+    enum Kind {
+        // Rendered alone, a value is ignored
+        FLAG,
+        // Rendered alone, or followed by its value
+        PLAIN,
+        DEFAULT,
+        COMMENT,
+        NOTE,
+        REFERENCES,
+        CHECK,
+        COLLATE
+    }
+
+    private static final Map<String, AttributeKeyword> KEYWORDS = keywords();
+
+    private static Map<String, AttributeKeyword> keywords() {
+        Map<String, AttributeKeyword> keywords = new HashMap<>();
+        register(keywords, SqlKeywords.Constraints.PRIMARY_KEY, Kind.FLAG, "PK", "PRIMARY KEY", "PRIMARY_KEY");
+        register(keywords, SqlKeywords.Constraints.NOT_NULL, Kind.FLAG, "NOT NULL", "NOT-NULL", "NOTNULL");
+        register(keywords, SqlKeywords.Constraints.UNIQUE, Kind.FLAG, "UNIQUE");
+        register(keywords, "AUTO_INCREMENT", Kind.FLAG, "AUTO_INCREMENT", "AUTOINCREMENT", "IDENTITY", "INCREMENT", "SERIAL");
+        register(keywords, "UNSIGNED", Kind.FLAG, "UNSIGNED");
+        register(keywords, "ZEROFILL", Kind.FLAG, "ZEROFILL");
+
+        register(keywords, SqlKeywords.Constraints.DEFAULT, Kind.DEFAULT, "DEFAULT");
+        register(keywords, "COMMENT", Kind.COMMENT, "COMMENT");
+        // Notes are documentation, not part of the DDL
+        register(keywords, "", Kind.NOTE, "NOTE");
+        register(keywords, SqlKeywords.Constraints.REFERENCES, Kind.REFERENCES, "REF", "REFERENCES", "FOREIGN KEY", "FOREIGN_KEY", "FK");
+        register(keywords, SqlKeywords.Constraints.CHECK, Kind.CHECK, "CHECK");
+        register(keywords, "COLLATE", Kind.COLLATE, "COLLATE");
+
+        register(keywords, SqlKeywords.Constraints.INDEX, Kind.PLAIN, "INDEX");
+        register(keywords, "NULL", Kind.PLAIN, "NULL", "NULLABLE");
+        register(keywords, "ON UPDATE", Kind.PLAIN, "UPDATE");
+        register(keywords, "ON DELETE", Kind.PLAIN, "DELETE");
+        // Database-specific keywords, passed through as they are
+        for (String keyword : new String[]{
+                "BINARY", "ASCII", "UNICODE",                      // MySQL
+                "ENABLE", "DISABLE", "VALIDATE", "NOVALIDATE",     // Oracle
+                "GENERATED", "ALWAYS", "BY", "STORED", "VIRTUAL",  // PostgreSQL
+                "ROWGUIDCOL", "SPARSE", "FILESTREAM",              // SQL Server
+                "CHARACTER", "SET", "ON", "CASCADE", "RESTRICT", "NO", "ACTION"}) {
+            register(keywords, keyword, Kind.PLAIN, keyword);
+        }
+        return Map.copyOf(keywords);
+    }
+
+    private static void register(Map<String, AttributeKeyword> keywords, String sql, Kind kind, String... spellings) {
+        AttributeKeyword keyword = new AttributeKeyword(sql, kind);
+        for (String spelling : spellings) {
+            keywords.put(spelling, keyword);
+            keywords.put(spelling.toLowerCase(Locale.ROOT), keyword);
+        }
+    }
+
+    /**
+     * @param key trimmed setting name, e.g. {@code pk} or {@code not null}
+     * @return the keyword, or null if it is not a known setting
+     */
+    static AttributeKeyword of(String key) {
+        AttributeKeyword keyword = KEYWORDS.get(key);
+        return keyword != null ? keyword : KEYWORDS.get(key.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,21 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import org.springframework.stereotype.Component;
+
+/**
+ * MariaDB accepts the DDL written for MySQL.
+ */
+@Component
+public class MariaDbDdlDialect extends MySqlDdlDialect {
+
+    @Override
+    public int code() {
+        return Constants.SQL.Dialect.MARIADB;
+    }
+
+    @Override
+    public String name() {
+        return Constants.SQL.Dialect.MARIADB_NAME;
+    }
+}
@@ -0,0 +1,89 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import com.vissoft.vn.dbdocs.infrastructure.util.SqlKeywords;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MySQL: InnoDB tables in utf8mb4; the ALTER TABLE statements of a table are grouped as
+ * dropped columns, then added columns, then modified columns.
+ */
+@Component
+public class MySqlDdlDialect extends AbstractDdlDialect {
+
+    public MySqlDdlDialect() {
+        super(Map.of(
+                "jsonb", "JSON",
+                "uuid", "CHAR(36)",
+                "bytea", "BLOB"));
+    }
+
+    @Override
+    public int code() {
+        return Constants.SQL.Dialect.MYSQL;
+    }
+
+    @Override
+    public String name() {
+        return Constants.SQL.Dialect.MYSQL_NAME;
+    }
+
+    @Override
+    protected String tableOptions() {
+        return " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+    }
+
+    @Override
+    public void alterTable(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff) {
+        // generate DDL for each column diff separately
+        StringBuilder ddlModifyTypeAdd = new StringBuilder();
+        StringBuilder ddlModifyTypeRemove = new StringBuilder();
+        StringBuilder ddlModifyTypeModify = new StringBuilder();
+
+        for (VersionComparisonDTO.ColumnDiff columnDiff : tableDiff.getColumnDiffs()) {
+            switch (columnDiff.getDiffType()) {
+                case REMOVED -> dropColumn(ddlModifyTypeRemove, tableDiff, columnDiff);
+                case ADDED -> addColumn(ddlModifyTypeAdd, tableDiff, columnDiff);
+                case MODIFIED -> modifyColumn(ddlModifyTypeModify, tableDiff, columnDiff);
+            }
+        }
+
+        if (!ddlModifyTypeRemove.isEmpty()) {
+            ddl.append(ddlModifyTypeRemove).append(NEXT_LINE);
+        }
+        if (!ddlModifyTypeAdd.isEmpty()) {
+            ddl.append(ddlModifyTypeAdd).append(NEXT_LINE);
+        }
+        if (!ddlModifyTypeModify.isEmpty()) {
+            ddl.append(ddlModifyTypeModify).append(NEXT_LINE);
+        }
+    }
+
+    @Override
+    protected void modifyColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                VersionComparisonDTO.ColumnDiff columnDiff) {
+        TargetColumn columnMod = targetColumn(columnDiff);
+        Set<String> changed = changedProperties(columnDiff);
+        if (!changed.isEmpty() && !changesAny(changed, ColumnProperty.DATA_TYPE, ColumnProperty.TYPE_PARAM,
+                ColumnProperty.PRIMARY_KEY, ColumnProperty.UNIQUE, ColumnProperty.NOT_NULL,
+                ColumnProperty.AUTO_INCREMENT, ColumnProperty.REFERENCE)) {
+            // Default and note only: SET/DROP DEFAULT changes metadata, MODIFY COLUMN may rebuild the table
+            if (changesAny(changed, ColumnProperty.DEFAULT_VALUE)) {
+                alterColumn(ddl, tableDiff, columnDiff, SqlKeywords.DDL.ALTER_COLUMN, setDefaultClause(columnMod));
+            }
+            return;
+        }
+        ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(SPACE)
+           .append("MODIFY COLUMN").append(SPACE)
+           .append(columnDiff.getColumnName()).append(SPACE)
+           .append(dataType(columnMod));
+        appendSettings(ddl, columnMod);
+        ddl.append(SEMICOLON).append(NEXT_LINE);
+    }
+}
@@ -0,0 +1,78 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.SqlKeywords;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class OracleDdlDialect extends AbstractDdlDialect {
+
+    public OracleDdlDialect() {
+        super(Map.of(
+                "varchar", "VARCHAR2",
+                "nvarchar", "NVARCHAR2",
+                "text", "CLOB",
+                "boolean", "NUMBER(1)",
+                "bool", "NUMBER(1)",
+                "tinyint", "NUMBER(3)",
+                "bigint", "NUMBER(19)",
+                "double", "BINARY_DOUBLE",
+                "datetime", "TIMESTAMP",
+                "blob", "BLOB"));
+    }
+
+    @Override
+    public int code() {
+        return Constants.SQL.Dialect.ORACLE;
+    }
+
+    @Override
+    public String name() {
+        return Constants.SQL.Dialect.ORACLE_NAME;
+    }
+
+    @Override
+    protected String addColumnKeyword() {
+        return SqlKeywords.ModifiersType.ADD;
+    }
+
+    @Override
+    protected void modifyColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                VersionComparisonDTO.ColumnDiff columnDiff) {
+        TargetColumn columnMod = targetColumn(columnDiff);
+        Set<String> changed = changedProperties(columnDiff);
+        if (!changed.isEmpty() && !changesAny(changed, ColumnProperty.DATA_TYPE, ColumnProperty.TYPE_PARAM)) {
+            // Only the changed settings, without restating the type
+            if (changesAny(changed, ColumnProperty.NOT_NULL)) {
+                alterColumn(ddl, tableDiff, columnDiff, SqlKeywords.ModifiersType.MODIFY,
+                        isNotNull(columnMod) ? SqlKeywords.Constraints.NOT_NULL : "NULL");
+            }
+            if (changesAny(changed, ColumnProperty.DEFAULT_VALUE)) {
+                String defaultClause = defaultClause(columnMod);
+                alterColumn(ddl, tableDiff, columnDiff, SqlKeywords.ModifiersType.MODIFY,
+                        DataUtils.notNull(defaultClause)
+                                ? defaultClause
+                                : SqlKeywords.Constraints.DEFAULT + SPACE + "NULL");
+            }
+            if (changesAny(changed, ColumnProperty.AUTO_INCREMENT)) {
+                // An existing column cannot become an identity column
+                manualChange(ddl, tableDiff, columnDiff, ColumnProperty.AUTO_INCREMENT);
+            }
+            alterConstraints(ddl, tableDiff, columnDiff, changed, columnMod);
+            return;
+        }
+        ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+        ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(SPACE)
+           .append(SqlKeywords.ModifiersType.MODIFY).append(SPACE)
+           .append(columnDiff.getColumnName()).append(SPACE)
+           .append(dataType(columnMod));
+        appendSettings(ddl, columnMod);
+        ddl.append(SEMICOLON).append(NEXT_LINE);
+    }
+}
@@ -0,0 +1,62 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import com.vissoft.vn.dbdocs.infrastructure.util.SqlKeywords;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class PostgreSqlDdlDialect extends AbstractDdlDialect {
+
+    public PostgreSqlDdlDialect() {
+        super(Map.of(
+                "datetime", "TIMESTAMP",
+                "tinyint", "SMALLINT",
+                "double", "DOUBLE PRECISION",
+                "nvarchar", "VARCHAR",
+                "blob", "BYTEA",
+                "longtext", "TEXT"));
+    }
+
+    @Override
+    public int code() {
+        return Constants.SQL.Dialect.POSTGRESQL;
+    }
+
+    @Override
+    public String name() {
+        return Constants.SQL.Dialect.POSTGRESQL_NAME;
+    }
+
+    @Override
+    protected void modifyColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                VersionComparisonDTO.ColumnDiff columnDiff) {
+        TargetColumn columnMod = targetColumn(columnDiff);
+        Set<String> changed = changedProperties(columnDiff);
+        if (changed.isEmpty() || changesAny(changed, ColumnProperty.DATA_TYPE, ColumnProperty.TYPE_PARAM)) {
+            ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+            ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName())
+               .append(SPACE).append("ALTER COLUMN").append(SPACE)
+               .append(columnDiff.getColumnName()).append(SPACE).append("TYPE").append(SPACE)
+               .append(dataType(columnMod)).append(SEMICOLON).append(NEXT_LINE);
+        }
+        // Nullability and default are catalog-only changes, no table rewrite
+        if (changesAny(changed, ColumnProperty.NOT_NULL)) {
+            alterColumn(ddl, tableDiff, columnDiff, SqlKeywords.DDL.ALTER_COLUMN,
+                    isNotNull(columnMod) ? "SET " + SqlKeywords.Constraints.NOT_NULL
+                            : "DROP " + SqlKeywords.Constraints.NOT_NULL);
+        }
+        if (changesAny(changed, ColumnProperty.DEFAULT_VALUE)) {
+            alterColumn(ddl, tableDiff, columnDiff, SqlKeywords.DDL.ALTER_COLUMN, setDefaultClause(columnMod));
+        }
+        if (changesAny(changed, ColumnProperty.AUTO_INCREMENT)) {
+            alterColumn(ddl, tableDiff, columnDiff, SqlKeywords.DDL.ALTER_COLUMN,
+                    isAutoIncrement(columnMod) ? "ADD GENERATED BY DEFAULT AS IDENTITY" : "DROP IDENTITY IF EXISTS");
+        }
+        alterConstraints(ddl, tableDiff, columnDiff, changed, columnMod);
+    }
+}
@@ -0,0 +1,78 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import com.vissoft.vn.dbdocs.infrastructure.util.DataUtils;
+import com.vissoft.vn.dbdocs.infrastructure.util.SqlKeywords;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class SqlServerDdlDialect extends AbstractDdlDialect {
+
+    public SqlServerDdlDialect() {
+        super(Map.of(
+                "boolean", "BIT",
+                "bool", "BIT",
+                "text", "NVARCHAR(MAX)",
+                "json", "NVARCHAR(MAX)",
+                "jsonb", "NVARCHAR(MAX)",
+                // TIMESTAMP is a row version in SQL Server, not a date
+                "timestamp", "DATETIME2",
+                "double", "FLOAT",
+                "uuid", "UNIQUEIDENTIFIER",
+                "blob", "VARBINARY(MAX)"));
+    }
+
+    @Override
+    public int code() {
+        return Constants.SQL.Dialect.SQL_SERVER;
+    }
+
+    @Override
+    public String name() {
+        return Constants.SQL.Dialect.SQL_SERVER_NAME;
+    }
+
+    @Override
+    protected void modifyColumn(StringBuilder ddl, VersionComparisonDTO.TableDiff tableDiff,
+                                VersionComparisonDTO.ColumnDiff columnDiff) {
+        TargetColumn columnMod = targetColumn(columnDiff);
+        Set<String> changed = changedProperties(columnDiff);
+        // ALTER COLUMN only covers type and nullability
+        if (changed.isEmpty() || changesAny(changed, ColumnProperty.DATA_TYPE, ColumnProperty.TYPE_PARAM,
+                ColumnProperty.NOT_NULL)) {
+            ddl.append("-- ").append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName()).append(NEXT_LINE);
+            ddl.append(SqlKeywords.DDL.ALTER_TABLE).append(SPACE).append(tableDiff.getTableName())
+               .append(SPACE).append("ALTER COLUMN").append(SPACE)
+               .append(columnDiff.getColumnName()).append(SPACE)
+               .append(dataType(columnMod));
+            // Without it ALTER COLUMN makes the column nullable
+            if (isNotNull(columnMod)) {
+                ddl.append(SPACE).append(SqlKeywords.Constraints.NOT_NULL);
+            } else if (changesAny(changed, ColumnProperty.NOT_NULL)) {
+                ddl.append(SPACE).append("NULL");
+            }
+            ddl.append(SEMICOLON).append(NEXT_LINE);
+        }
+        if (changesAny(changed, ColumnProperty.DEFAULT_VALUE)) {
+            // Defaults are named constraints: the previous one has to be dropped by name
+            TargetColumn previous = previousColumn(columnDiff);
+            if (DataUtils.isNull(previous) || DataUtils.notNull(defaultClause(previous))) {
+                manualChange(ddl, tableDiff, columnDiff, ColumnProperty.DEFAULT_VALUE);
+            }
+            String defaultClause = defaultClause(columnMod);
+            if (DataUtils.notNull(defaultClause)) {
+                addConstraint(ddl, tableDiff, defaultClause + " FOR " + columnDiff.getColumnName());
+            }
+        }
+        if (changesAny(changed, ColumnProperty.AUTO_INCREMENT)) {
+            // IDENTITY cannot be added to or removed from an existing column
+            manualChange(ddl, tableDiff, columnDiff, ColumnProperty.AUTO_INCREMENT);
+        }
+        alterConstraints(ddl, tableDiff, columnDiff, changed, columnMod);
+    }
+}
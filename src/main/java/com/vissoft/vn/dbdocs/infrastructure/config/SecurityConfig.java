@@ -1,5 +1,6 @@
 package com.vissoft.vn.dbdocs.infrastructure.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -41,6 +42,8 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Async dispatch của response streaming (NDJSON): request gốc đã được xác thực
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Cho phép OPTIONS request
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 // Cho phép test CORS endpoint
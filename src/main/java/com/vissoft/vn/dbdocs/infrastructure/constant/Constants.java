@@ -137,4 +137,13 @@ public final class Constants {
         public static final int PRIVATE = 2;
         public static final int PROTECTED = 3;
     }
+
+    /**
+     * State of the diff stored with a version; versions created before it was tracked have none
+     */
+    public static final class DiffStatus {
+        public static final int PENDING = 1;
+        public static final int READY = 2;
+        public static final int FAILED = 3;
+    }
 } 
\ No newline at end of file
@@ -29,6 +29,7 @@ public enum ErrorCode {
     // ChangeLog errors
     CHANGELOG_NOT_FOUND,
     INVALID_CHANGELOG_DATA,
+    CHANGELOG_CONTENT_TOO_LARGE,
     
     // Version errors
     VERSION_NOT_FOUND,
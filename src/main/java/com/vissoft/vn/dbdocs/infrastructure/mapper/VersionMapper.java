@@ -20,6 +20,7 @@ public interface VersionMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "codeVersion", ignore = true)
     @Mapping(target = "diffChange", ignore = true)
+    @Mapping(target = "diffStatus", ignore = true)
     Version createRequestToEntity(VersionCreateRequest request);
     
     @Mapping(target = "changeLog", ignore = true)
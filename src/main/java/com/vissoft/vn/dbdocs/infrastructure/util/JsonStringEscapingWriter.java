@@ -0,0 +1,79 @@
+package com.vissoft.vn.dbdocs.infrastructure.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the characters it receives to the underlying writer as the content of a JSON string, with the
+ * escapes Jackson uses, so that a document can be streamed inside a string value without building it.
+ * The surrounding quotes are left to the caller. Closing this writer does not close the underlying one.
+ */
+public class JsonStringEscapingWriter extends Writer {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Writer out;
+
+    public JsonStringEscapingWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            // Pass runs of plain characters through in one call
+            out.write(chars, start, i - start);
+            writeEscaped(c);
+            start = i + 1;
+        }
+        out.write(chars, start, end - start);
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(text, start, i - start);
+            writeEscaped(c);
+            start = i + 1;
+        }
+        out.write(text, start, end - start);
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        switch (c) {
+            case '"' -> out.write("\\\"");
+            case '\\' -> out.write("\\\\");
+            case '\b' -> out.write("\\b");
+            case '\t' -> out.write("\\t");
+            case '\n' -> out.write("\\n");
+            case '\f' -> out.write("\\f");
+            case '\r' -> out.write("\\r");
+            default -> {
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
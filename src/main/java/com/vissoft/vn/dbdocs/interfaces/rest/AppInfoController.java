@@ -9,15 +9,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.vissoft.vn.dbdocs.domain.model.CacheStats;
+import com.vissoft.vn.dbdocs.domain.service.DbmlModelCacheService;
+import com.vissoft.vn.dbdocs.domain.service.DdlCacheService;
+import com.vissoft.vn.dbdocs.domain.service.VersionDiffCacheService;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @RequestMapping("/api/v1/app")
+@RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Application Info API", description = "API for retrieving application information")
 public class AppInfoController {
+
+    private final DbmlModelCacheService dbmlModelCacheService;
+    private final VersionDiffCacheService versionDiffCacheService;
+    private final DdlCacheService ddlCacheService;
     
     @Value("${spring.application.version:1.0.0}")
     private String appVersion;
@@ -33,4 +44,14 @@ public class AppInfoController {
         
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/cache-stats")
+    @Operation(summary = "Get cache statistics", description = "Returns hit/miss/eviction counters and size of the model, version diff and DDL caches")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        Map<String, CacheStats> response = new HashMap<>();
+        response.put("dbmlModel", dbmlModelCacheService.getStats());
+        response.put("versionDiff", versionDiffCacheService.getStats());
+        response.put("ddl", ddlCacheService.getStats());
+        return ResponseEntity.ok(response);
+    }
 } 
\ No newline at end of file
@@ -1,17 +1,22 @@
 package com.vissoft.vn.dbdocs.interfaces.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.multipart.MultipartFile;
 
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogCreateRequest;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDTO;
@@ -47,6 +52,69 @@ public interface ChangeLogOperator {
     @PostMapping
     ResponseEntity<ChangeLogDTO> createChangeLog(@RequestBody ChangeLogCreateRequest request);
 
+    /**
+     * Create a new change log entry from a raw DBML request body (UTF-8).
+     * The body is read as a stream instead of being embedded in a JSON string.
+     *
+     * @param projectId The ID of the project
+     * @param content The DBML document
+     * @return ResponseEntity with the created ChangeLogDTO, without the content
+     */
+    @Operation(
+        summary = "Upload a DBML document as a new change log entry",
+        description = "Creates a new change log entry from a text/plain DBML body, validated while it is read.",
+        tags = {"Change Log Management"},
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))
+        ),
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Change log created successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ChangeLogDTO.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid DBML or content too large"
+            )
+        }
+    )
+    @PostMapping(value = "/project/{projectId}/upload", consumes = MediaType.TEXT_PLAIN_VALUE)
+    ResponseEntity<ChangeLogDTO> uploadChangeLog(@PathVariable String projectId, InputStream content) throws IOException;
+
+    /**
+     * Create a new change log entry from an uploaded DBML file (UTF-8)
+     *
+     * @param projectId The ID of the project
+     * @param file The DBML file
+     * @return ResponseEntity with the created ChangeLogDTO, without the content
+     */
+    @Operation(
+        summary = "Upload a DBML file as a new change log entry",
+        description = "Creates a new change log entry from a multipart DBML file, validated while it is read.",
+        tags = {"Change Log Management"},
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Change log created successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ChangeLogDTO.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid DBML or content too large"
+            )
+        }
+    )
+    @PostMapping(value = "/project/{projectId}/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    ResponseEntity<ChangeLogDTO> uploadChangeLogFile(@PathVariable String projectId,
+                                                     @RequestPart("file") MultipartFile file) throws IOException;
+
     /**
      * Get all change logs for a specific project
      *
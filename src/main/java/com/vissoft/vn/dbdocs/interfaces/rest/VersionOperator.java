@@ -2,15 +2,18 @@ package com.vissoft.vn.dbdocs.interfaces.rest;
 
 import java.util.List;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.vissoft.vn.dbdocs.application.dto.*;
-import com.vissoft.vn.dbdocs.interfaces.rest.dto.CompareCodeResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -44,11 +47,29 @@ public interface VersionOperator {
     @GetMapping("/{versionId}")
     ResponseEntity<VersionDTO> getVersionById(@PathVariable String versionId);
 
-    @GetMapping("/compare")
-    ResponseEntity<CompareCodeResponse> compareVersions(
+    @Operation(
+        summary = "Compare two versions",
+        description = "Returns {\"diffChange\": \"<comparison JSON>\"}, streamed as it is written. "
+                + "include=diffChanges and/or include=tableDiffs limits the comparison to those parts; "
+                + "by default both are sent.",
+        tags = {"Version Management"}
+    )
+    @GetMapping(value = "/compare", produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<StreamingResponseBody> compareVersions(
             @RequestParam String projectId,
             @RequestParam(required = false) Integer beforeVersion,
-            @RequestParam(required = false) Integer currentVersion) throws JsonProcessingException;
+            @RequestParam(required = false) Integer currentVersion,
+            @RequestParam(required = false) List<String> include);
+
+    @Operation(
+        summary = "Compare many version ranges",
+        description = "Compares each (projectId, beforeVersion, currentVersion) range like GET /compare. "
+                + "Changelogs shared by several ranges are parsed once. Results are streamed as NDJSON, "
+                + "one line per range in completion order, with the range index and either the comparison or the error.",
+        tags = {"Version Management"}
+    )
+    @PostMapping(value = "/compare/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> compareVersionsBatch(@RequestBody VersionCompareBatchRequest request);
 
     @PostMapping("/generate-ddl")
     ResponseEntity<DdlScriptResponse> generateDdlScript(@RequestBody DdlScriptRequest request);
@@ -58,4 +79,54 @@ public interface VersionOperator {
 
     @PostMapping("/generate-changelog-ddl")
     ResponseEntity<DdlScriptResponse> generateChangeLogDdl(@RequestBody ChangeLogDdlRequest request);
+
+    @Operation(
+        summary = "Download the DDL script of a version range",
+        description = "Same script as POST /generate-ddl with the request as query parameters, streamed as an "
+                + "application/sql attachment table by table. Gzip-encoded when the request accepts gzip.",
+        tags = {"Version Management"}
+    )
+    @GetMapping("/generate-ddl/download")
+    ResponseEntity<StreamingResponseBody> downloadDdlScript(
+            @ModelAttribute DdlScriptRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @Operation(
+        summary = "Download the DDL script of a version",
+        description = "Same script as POST /generate-single-ddl without its generation time, with the request as query "
+                + "parameters, streamed as an application/sql attachment table by table. Gzip-encoded when the "
+                + "request accepts gzip. Carries a strong ETag per encoding; a matching If-None-Match gets 304 "
+                + "without parsing the changelog.",
+        tags = {"Version Management"}
+    )
+    @GetMapping("/generate-single-ddl/download")
+    ResponseEntity<StreamingResponseBody> downloadSingleVersionDdl(
+            @ModelAttribute SingleVersionDdlRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @Operation(
+        summary = "Download the DDL script of a changelog",
+        description = "Same script as POST /generate-changelog-ddl without its generation time, with the request as query "
+                + "parameters, streamed as an application/sql attachment table by table. Gzip-encoded when the "
+                + "request accepts gzip. Carries a strong ETag per encoding; a matching If-None-Match gets 304 "
+                + "without parsing the changelog.",
+        tags = {"Version Management"}
+    )
+    @GetMapping("/generate-changelog-ddl/download")
+    ResponseEntity<StreamingResponseBody> downloadChangeLogDdl(
+            @ModelAttribute ChangeLogDdlRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @Operation(
+        summary = "Download the DDL scripts of a version in several dialects",
+        description = "Zip with one script per dialect, named after the version and the dialect, plus a manifest.json "
+                + "of statement counts and generation timings. The changelog is parsed once for all dialects, which "
+                + "are rendered concurrently, e.g. ?projectId=...&versionNumber=3&dialects=3,1,5",
+        tags = {"Version Management"}
+    )
+    @GetMapping("/generate-single-ddl/bundle")
+    ResponseEntity<StreamingResponseBody> downloadSingleVersionDdlBundle(@ModelAttribute DdlBundleRequest request);
 }
\ No newline at end of file
@@ -1,10 +0,0 @@
-package com.vissoft.vn.dbdocs.interfaces.rest.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
-@Data
-@AllArgsConstructor
-public class CompareCodeResponse {
-    private String diffChange;
-}
@@ -1,9 +1,15 @@
 package com.vissoft.vn.dbdocs.interfaces.rest.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogCreateRequest;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDTO;
 import com.vissoft.vn.dbdocs.domain.service.ChangeLogService;
@@ -23,6 +29,22 @@ public class ChangeLogRest implements ChangeLogOperator {
         return ResponseEntity.ok(changeLogService.createChangeLog(request));
     }
 
+    @Override
+    public ResponseEntity<ChangeLogDTO> uploadChangeLog(String projectId, InputStream content) throws IOException {
+        try (Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(changeLogService.uploadChangeLog(projectId, reader));
+        }
+    }
+
+    @Override
+    public ResponseEntity<ChangeLogDTO> uploadChangeLogFile(String projectId, MultipartFile file) throws IOException {
+        log.info("REST request to upload DBML file {} ({} bytes) for project: {}",
+                file.getOriginalFilename(), file.getSize(), projectId);
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(changeLogService.uploadChangeLog(projectId, reader));
+        }
+    }
+
     @Override
     public ResponseEntity<List<ChangeLogDTO>> getChangeLogsByProjectId(String projectId) {
         log.info("REST request to get changelogs for project: {}", projectId);
@@ -1,32 +1,59 @@
 package com.vissoft.vn.dbdocs.interfaces.rest.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vissoft.vn.dbdocs.application.dto.ChangeLogDdlRequest;
+import com.vissoft.vn.dbdocs.application.dto.DdlBundleRequest;
 import com.vissoft.vn.dbdocs.application.dto.DdlScriptRequest;
 import com.vissoft.vn.dbdocs.application.dto.DdlScriptResponse;
 import com.vissoft.vn.dbdocs.application.dto.SingleVersionDdlRequest;
+import com.vissoft.vn.dbdocs.application.dto.VersionCompareBatchItem;
+import com.vissoft.vn.dbdocs.application.dto.VersionCompareBatchRequest;
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
 import com.vissoft.vn.dbdocs.application.dto.VersionCreateRequest;
 import com.vissoft.vn.dbdocs.application.dto.VersionDTO;
+import com.vissoft.vn.dbdocs.domain.model.DdlBundle;
+import com.vissoft.vn.dbdocs.domain.model.DdlScript;
+import com.vissoft.vn.dbdocs.domain.service.DdlBundleService;
 import com.vissoft.vn.dbdocs.domain.service.VersionComparisonService;
 import com.vissoft.vn.dbdocs.domain.service.VersionService;
+import com.vissoft.vn.dbdocs.infrastructure.util.JsonStringEscapingWriter;
 import com.vissoft.vn.dbdocs.interfaces.rest.VersionOperator;
-import com.vissoft.vn.dbdocs.interfaces.rest.dto.CompareCodeResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class VersionRest implements VersionOperator {
 
+    private static final MediaType APPLICATION_SQL = MediaType.parseMediaType("application/sql");
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+    private static final String GZIP = "gzip";
+    private static final int DOWNLOAD_BUFFER_SIZE = 16 * 1024;
+
     private final VersionService versionService;
     private final VersionComparisonService versionComparisonService;
     private final ObjectMapper objectMapper;
+    private final DdlBundleService ddlBundleService;
 
     @Override
     public ResponseEntity<VersionDTO> createVersion(VersionCreateRequest request) {
@@ -50,23 +77,77 @@ public class VersionRest implements VersionOperator {
      * Compares two versions of a DBML schema for the specified project.
      * If beforeVersion is null, it will use the previous version.
      * If currentVersion is null, it will use the latest version.
+     * <p>
+     * The comparison is computed before anything is written, so errors keep their status; it is then
+     * streamed as {@code {"diffChange": "<comparison JSON>"}} without building the JSON in memory.
      *
      * @param projectId The ID of the project
      * @param beforeVersion The version code of the earlier version (can be null)
      * @param currentVersion The version code of the later version (can be null)
-     * @return ResponseEntity containing the comparison results
-     * @throws JsonProcessingException If there's an error processing the JSON
+     * @param include Parts of the comparison to send, diffChanges and/or tableDiffs (null for both)
+     * @return ResponseEntity streaming the comparison results
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> compareVersions(
+            String projectId, Integer beforeVersion, Integer currentVersion, List<String> include) {
+        log.info("REST request to compare versions for project: {}, from: {}, to: {}, include: {}",
+                projectId, beforeVersion, currentVersion, include);
+        Set<VersionComparisonDTO.Projection> projections = VersionComparisonDTO.Projection.of(include);
+        VersionComparisonDTO comparison = versionComparisonService.compareVersions(projectId, beforeVersion, currentVersion);
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            // The comparison has always been sent as a JSON document inside a string field
+            writer.write("{\"diffChange\":\"");
+            try (JsonGenerator generator = objectMapper.createGenerator(new JsonStringEscapingWriter(writer))) {
+                writeComparison(generator, comparison, projections);
+            }
+            writer.write("\"}");
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // Same fields and order as serializing the DTO, minus the parts not asked for
+    private void writeComparison(JsonGenerator generator, VersionComparisonDTO comparison,
+                                 Set<VersionComparisonDTO.Projection> projections) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("projectId", comparison.getProjectId());
+        generator.writeObjectField("fromVersion", comparison.getFromVersion());
+        generator.writeObjectField("toVersion", comparison.getToVersion());
+        generator.writeStringField("diffSummary", comparison.getDiffSummary());
+        if (projections.contains(VersionComparisonDTO.Projection.DIFF_CHANGES)) {
+            generator.writeStringField("diffChanges", comparison.getDiffChanges());
+        }
+        if (projections.contains(VersionComparisonDTO.Projection.TABLE_DIFFS)) {
+            generator.writeObjectField("tableDiffs", comparison.getTableDiffs());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Compares several version ranges in one request. Invalid requests are rejected before anything is
+     * written; after that each range gets one NDJSON line, flushed as soon as its comparison completes.
+     *
+     * @param request The ranges to compare
+     * @return ResponseEntity streaming one {@link VersionCompareBatchItem} per line
      */
     @Override
-    public ResponseEntity<CompareCodeResponse> compareVersions(
-            String projectId, Integer beforeVersion, Integer currentVersion) throws JsonProcessingException {
-        log.info("REST request to compare versions for project: {}, from: {}, to: {}", 
-                projectId, beforeVersion, currentVersion);
-        // Convert the diff changes to JSON string
-        String diffChanges = objectMapper.writeValueAsString(
-                versionComparisonService.compareVersions(projectId, beforeVersion, currentVersion)
-        );
-        return ResponseEntity.ok(new CompareCodeResponse(diffChanges));
+    public ResponseEntity<StreamingResponseBody> compareVersionsBatch(VersionCompareBatchRequest request) {
+        log.info("REST request to compare {} version range(s)",
+                request.getRanges() != null ? request.getRanges().size() : 0);
+        Iterator<VersionCompareBatchItem> items = versionComparisonService.compareVersionsBatch(request.getRanges());
+        StreamingResponseBody body = outputStream -> {
+            while (items.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(items.next()));
+                outputStream.write('\n');
+                outputStream.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -109,4 +190,132 @@ public class VersionRest implements VersionOperator {
         DdlScriptResponse response = versionService.generateChangeLogDdl(request);
         return ResponseEntity.ok(response);
     }
-} 
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> downloadDdlScript(DdlScriptRequest request, String acceptEncoding,
+                                                               String ifNoneMatch) {
+        log.info("REST request to download DDL script for project: {}, from version: {}, to version: {}, dialect: {}",
+                request.getProjectId(), request.getFromVersion(), request.getToVersion(), request.getDialect());
+        return ddlDownload(versionService.prepareDdlScript(request), acceptEncoding, ifNoneMatch);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> downloadSingleVersionDdl(SingleVersionDdlRequest request, String acceptEncoding,
+                                                               String ifNoneMatch) {
+        log.info("REST request to download DDL script for single version - Project: {}, Version: {}, Dialect: {}",
+                request.getProjectId(), request.getVersionNumber(), request.getDialect());
+        return ddlDownload(versionService.prepareSingleVersionDdl(request), acceptEncoding, ifNoneMatch);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> downloadChangeLogDdl(ChangeLogDdlRequest request, String acceptEncoding,
+                                                               String ifNoneMatch) {
+        log.info("REST request to download DDL script from changelog - ProjectID: {}, ChangeLogCode: {}, Dialect: {}",
+                request.getProjectId(), request.getChangeLogCode(), request.getDialect());
+        return ddlDownload(versionService.prepareChangeLogDdl(request), acceptEncoding, ifNoneMatch);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> downloadSingleVersionDdlBundle(DdlBundleRequest request) {
+        log.info("REST request to download DDL bundle - Project: {}, Version: {}, Dialects: {}",
+                request.getProjectId(), request.getVersionNumber(), request.getDialects());
+        // Parsed before anything is written, so errors keep their status
+        DdlBundle bundle = ddlBundleService.prepareBundle(request);
+        // Already compressed: no gzip content coding on top
+        StreamingResponseBody body = outputStream -> ddlBundleService.writeBundle(bundle, outputStream);
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment(bundle.fileName()))
+                .body(body);
+    }
+
+    /**
+     * The script is resolved and loaded before anything is written, so errors keep their status; its DDL
+     * is then served from the DDL cache or rendered table by table, gzip-encoded if the client accepts it.
+     * A script with an ETag that the client already has is not loaded at all.
+     */
+    private ResponseEntity<StreamingResponseBody> ddlDownload(DdlScript script, String acceptEncoding, String ifNoneMatch) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        if (script.etag() != null) {
+            String matched = matchingEtag(ifNoneMatch, script.etag(), gzip);
+            if (matched != null) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(matched)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .build();
+            }
+        }
+        DdlScript loaded = versionService.loadDdlScript(script);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, DOWNLOAD_BUFFER_SIZE) : outputStream;
+            versionService.writeDdlScript(loaded, target);
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(APPLICATION_SQL)
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment(script.fileName()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (script.etag() != null) {
+            response.eTag(gzip ? gzipEtag(script.etag()) : script.etag());
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.body(body);
+    }
+
+    // The gzip body is other bytes than the identity one, so it has its own strong tag: "<tag>-gzip"
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-" + GZIP + "\"";
+    }
+
+    /**
+     * If-None-Match is "*" or a list of entity tags, weak ones compared weakly as RFC 9110 asks. The tags of
+     * both encodings match: either body is the same script.
+     *
+     * @return the tag to answer 304 with, the one the client holds; null if the client has no copy
+     */
+    private static String matchingEtag(String ifNoneMatch, String etag, boolean gzip) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        String gzipEtag = gzipEtag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*")) {
+                return gzip ? gzipEtag : etag;
+            }
+            if (tag.equals(etag) || tag.equals(gzipEtag)) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    private static String attachment(String fileName) {
+        ContentDisposition.Builder disposition = ContentDisposition.attachment();
+        // filename* only when needed, plain ASCII names stay readable to every client
+        return (StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)
+                ? disposition.filename(fileName)
+                : disposition.filename(fileName, StandardCharsets.UTF_8)).build().toString();
+    }
+
+    // "gzip" listed in Accept-Encoding without q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("(?i)q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
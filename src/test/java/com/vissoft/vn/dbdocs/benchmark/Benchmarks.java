@@ -0,0 +1,106 @@
+package com.vissoft.vn.dbdocs.benchmark;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Schema generator and timing loop shared by the benchmarks.
+ */
+final class Benchmarks {
+    private static final String[] TYPES = {"varchar(255)", "integer", "decimal(10, 2)", "timestamp", "text",
+            "boolean", "bigint"};
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+    private static final int MIN_WARMUP_RUNS = 5;
+    private static final int MIN_MEASURED_RUNS = 10;
+
+    // Written with every result so the work cannot be optimized away
+    private static volatile int sink;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * A DBML document with {@code tables} tables of {@code columns} columns each (id included): every
+     * column setting, indexes, a reference to the previous table, plus a project, enum, ref and table group.
+     */
+    static String schema(int tables, int columns) {
+        StringBuilder dbml = new StringBuilder("Project shop {\n  database_type: 'PostgreSQL'\n  Note: 'benchmark'\n}\n");
+        for (int t = 0; t < tables; t++) {
+            dbml.append("// table ").append(t).append('\n')
+                    .append("Table t").append(t).append(" as T").append(t).append(" {\n")
+                    .append("  id integer [pk, increment]\n");
+            for (int c = 1; c < columns; c++) {
+                dbml.append("  c").append(c).append(' ').append(TYPES[(t + c) % TYPES.length]);
+                StringBuilder settings = new StringBuilder();
+                if (c % 3 == 0) {
+                    settings.append(", not null");
+                }
+                if (c % 7 == 0) {
+                    settings.append(", unique");
+                }
+                if (c % 5 == 0) {
+                    settings.append((t + c) % 2 == 0 ? ", default: 0" : ", default: 'a, b'");
+                } else if (c % 11 == 0) {
+                    settings.append(", default: `now()`");
+                }
+                if (c % 4 == 0) {
+                    settings.append(", note: 'note, with comma'");
+                }
+                if (c == 1 && t > 0) {
+                    settings.append(", ref: > t").append(t - 1).append(".id");
+                }
+                if (settings.length() > 0) {
+                    dbml.append(" [").append(settings, 2, settings.length()).append(']');
+                }
+                dbml.append('\n');
+            }
+            dbml.append("  Indexes {\n")
+                    .append("    (c1, id) [unique, name: 'ix_").append(t).append("']\n")
+                    .append("    id\n")
+                    .append("  }\n}\n");
+        }
+        dbml.append("Ref fk_t1_t0: t0.id < t1.c1\n")
+                .append("Enum status {\n  active [note: 'on']\n  inactive\n}\n")
+                .append("TableGroup first { t0\n t1 }\n");
+        return dbml.toString();
+    }
+
+    /**
+     * Runs {@code body} until warm, then times it for a few seconds.
+     */
+    static Result measure(Supplier<?> body) {
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        for (int run = 0; run < MIN_WARMUP_RUNS || System.nanoTime() < warmupEnd; run++) {
+            consume(body.get());
+        }
+        long[] times = new long[64];
+        int runs = 0;
+        long measureEnd = System.nanoTime() + MEASURE_NANOS;
+        while (runs < MIN_MEASURED_RUNS || System.nanoTime() < measureEnd) {
+            long start = System.nanoTime();
+            Object result = body.get();
+            long elapsed = System.nanoTime() - start;
+            consume(result);
+            if (runs == times.length) {
+                times = Arrays.copyOf(times, runs * 2);
+            }
+            times[runs++] = elapsed;
+        }
+        Arrays.sort(times, 0, runs);
+        return new Result(times[runs / 2] / 1e6, times[0] / 1e6, runs);
+    }
+
+    static void report(String benchmark, String variant, String input, Result result) {
+        System.out.printf("%-12s %-22s %-36s median %9.2f ms  best %9.2f ms  (%d runs)%n",
+                benchmark, variant, input, result.medianMillis(), result.bestMillis(), result.runs());
+    }
+
+    private static void consume(Object result) {
+        sink += System.identityHashCode(result);
+    }
+
+    record Result(double medianMillis, double bestMillis, int runs) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.vissoft.vn.dbdocs.benchmark;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
+import com.vissoft.vn.dbdocs.domain.parser.DbmlModelParser;
+import com.vissoft.vn.dbdocs.domain.service.impl.GeneralScriptDDLServiceImpl;
+import com.vissoft.vn.dbdocs.domain.service.impl.ddl.MariaDbDdlDialect;
+import com.vissoft.vn.dbdocs.domain.service.impl.ddl.MySqlDdlDialect;
+import com.vissoft.vn.dbdocs.domain.service.impl.ddl.OracleDdlDialect;
+import com.vissoft.vn.dbdocs.domain.service.impl.ddl.PostgreSqlDdlDialect;
+import com.vissoft.vn.dbdocs.domain.service.impl.ddl.SqlServerDdlDialect;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Full-schema DDL of a 10,000-column schema in every dialect, from the comparison that
+ * {@code VersionServiceImpl.convertDbmlModelToVersionComparison} builds:
+ * <ul>
+ *     <li>column model: the column diffs carry the {@link ColumnModel}, rendered directly (current)</li>
+ *     <li>type string: they only carry {@link ColumnModel#toDbmlDefinition()}, which every dialect parses
+ *     back per column. This was the full-schema path before, and is still the path of diffs read back
+ *     from {@code version.diff_change}.</li>
+ * </ul>
+ */
+class DdlGenerationBenchmark {
+    private static final int TABLES = 500;
+    private static final int COLUMNS = 20;
+    private static final int[] DIALECTS = {Constants.SQL.Dialect.MYSQL, Constants.SQL.Dialect.MARIADB,
+            Constants.SQL.Dialect.POSTGRESQL, Constants.SQL.Dialect.ORACLE, Constants.SQL.Dialect.SQL_SERVER};
+
+    private final GeneralScriptDDLServiceImpl generator = new GeneralScriptDDLServiceImpl(List.of(
+            new MySqlDdlDialect(), new MariaDbDdlDialect(), new PostgreSqlDdlDialect(), new OracleDdlDialect(),
+            new SqlServerDdlDialect()));
+
+    @Test
+    void columnModelVersusTypeString() {
+        DbmlModel model = new DbmlModelParser().parse(Benchmarks.schema(TABLES, COLUMNS)).freeze();
+        for (int dialect : DIALECTS) {
+            assertThat(generator.generateDDL(comparison(model, DdlGenerationBenchmark::columnModel), dialect))
+                    .isEqualTo(generator.generateDDL(comparison(model, DdlGenerationBenchmark::typeString), dialect));
+        }
+
+        String input = String.format("%,d tables x %d columns, %d dialects", TABLES, COLUMNS, DIALECTS.length);
+        Benchmarks.report("ddl", "type string", input,
+                Benchmarks.measure(() -> generateAll(model, DdlGenerationBenchmark::typeString)));
+        Benchmarks.report("ddl", "column model", input,
+                Benchmarks.measure(() -> generateAll(model, DdlGenerationBenchmark::columnModel)));
+    }
+
+    private List<String> generateAll(DbmlModel model, Function<ColumnModel, VersionComparisonDTO.ColumnDiff> columnDiff) {
+        VersionComparisonDTO comparison = comparison(model, columnDiff);
+        List<String> scripts = new ArrayList<>(DIALECTS.length);
+        for (int dialect : DIALECTS) {
+            scripts.add(generator.generateDDL(comparison, dialect));
+        }
+        return scripts;
+    }
+
+    private static VersionComparisonDTO comparison(DbmlModel model,
+                                                   Function<ColumnModel, VersionComparisonDTO.ColumnDiff> columnDiff) {
+        List<VersionComparisonDTO.TableDiff> tableDiffs = new ArrayList<>();
+        for (TableModel table : model.getTables()) {
+            VersionComparisonDTO.TableDiff tableDiff = new VersionComparisonDTO.TableDiff();
+            tableDiff.setTableName(table.getName());
+            tableDiff.setDiffType(VersionComparisonDTO.DiffType.ADDED);
+            List<VersionComparisonDTO.ColumnDiff> columnDiffs = new ArrayList<>();
+            for (ColumnModel column : table.getColumns()) {
+                columnDiffs.add(columnDiff.apply(column));
+            }
+            tableDiff.setColumnDiffs(columnDiffs);
+            tableDiffs.add(tableDiff);
+        }
+        VersionComparisonDTO comparison = new VersionComparisonDTO();
+        comparison.setFromVersion(0);
+        comparison.setToVersion(1);
+        comparison.setTableDiffs(tableDiffs);
+        return comparison;
+    }
+
+    private static VersionComparisonDTO.ColumnDiff columnModel(ColumnModel column) {
+        VersionComparisonDTO.ColumnDiff columnDiff = addedColumn(column);
+        columnDiff.setNewValue(column);
+        return columnDiff;
+    }
+
+    private static VersionComparisonDTO.ColumnDiff typeString(ColumnModel column) {
+        VersionComparisonDTO.ColumnDiff columnDiff = addedColumn(column);
+        columnDiff.setCurrentType(column.toDbmlDefinition());
+        return columnDiff;
+    }
+
+    private static VersionComparisonDTO.ColumnDiff addedColumn(ColumnModel column) {
+        VersionComparisonDTO.ColumnDiff columnDiff = new VersionComparisonDTO.ColumnDiff();
+        columnDiff.setColumnName(column.getName());
+        columnDiff.setDiffType(VersionComparisonDTO.DiffType.ADDED);
+        return columnDiff;
+    }
+}
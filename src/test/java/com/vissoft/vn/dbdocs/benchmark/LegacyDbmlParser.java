@@ -1,18 +1,14 @@
-package com.vissoft.vn.dbdocs.domain.model;
+package com.vissoft.vn.dbdocs.benchmark;
 
-import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
-import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
-import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.*;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-
 /**
- * Parser for DBML (Database Markup Language) content
- * Converts DBML text into a structured DbmlModel object
+ * The line-based {@code domain.model.DbmlParser} as it was before the grammar-based parser replaced it,
+ * kept unchanged as a baseline for {@link ParserBenchmark}. It only reads table names and raw column types.
  */
 @Slf4j
-public class DbmlParser {
+class LegacyDbmlParser {
     
     /**
      * Parse DBML content into a DbmlModel
@@ -20,7 +16,7 @@ public class DbmlParser {
      * @param dbmlContent the DBML content as a string
      * @return DbmlModel representing the database structure
      */
-    public DbmlModel parse(String dbmlContent) {
+    DbmlModel parse(String dbmlContent) {
         if (dbmlContent == null || dbmlContent.trim().isEmpty()) {
             return DbmlModel.builder().build();
         }
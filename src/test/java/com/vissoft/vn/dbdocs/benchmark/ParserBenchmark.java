@@ -0,0 +1,37 @@
+package com.vissoft.vn.dbdocs.benchmark;
+
+import com.vissoft.vn.dbdocs.domain.parser.DbmlModelParser;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parse throughput of the DBML parsers on the same schema: the line-based parsers they replaced, the
+ * parser generated from {@code DBML.g4} on its own, and the default path through the cursor parser.
+ * <p>
+ * The legacy parsers read less than the others (no refs, enums, indexes or table groups; the domain
+ * parser keeps only names and raw types), so they set the bar rather than being equivalent.
+ */
+class ParserBenchmark {
+    private static final int COLUMNS = 8;
+
+    private final DbmlModelParser parser = new DbmlModelParser();
+    private final LegacyDbmlParserService legacyService = new LegacyDbmlParserService();
+    private final LegacyDbmlParser legacyParser = new LegacyDbmlParser();
+
+    @Test
+    void parseThroughput() {
+        for (int tables : new int[]{100, 1_000, 10_000}) {
+            String content = Benchmarks.schema(tables, COLUMNS);
+            assertThat(parser.parseWithGrammar(content)).isEqualTo(parser.parse(content));
+
+            String input = String.format("%,d tables (%,d KB)", tables, content.length() / 1024);
+            Benchmarks.report("parser", "legacy service", input,
+                    Benchmarks.measure(() -> legacyService.parseDbml(content)));
+            Benchmarks.report("parser", "legacy domain parser", input,
+                    Benchmarks.measure(() -> legacyParser.parse(content)));
+            Benchmarks.report("parser", "grammar", input, Benchmarks.measure(() -> parser.parseWithGrammar(content)));
+            Benchmarks.report("parser", "cursor", input, Benchmarks.measure(() -> parser.parse(content)));
+        }
+    }
+}
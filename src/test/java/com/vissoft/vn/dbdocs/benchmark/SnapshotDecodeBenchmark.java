@@ -0,0 +1,41 @@
+package com.vissoft.vn.dbdocs.benchmark;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlSnapshotCodec;
+import com.vissoft.vn.dbdocs.domain.service.impl.DbmlParserServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A model cache miss either decodes the changelog's snapshot or parses its DBML text: both, on the same
+ * schema, as {@code DbmlModelCacheServiceImpl} does them (frozen models, no fragment cache).
+ */
+class SnapshotDecodeBenchmark {
+    private static final int COLUMNS = 8;
+
+    private final DbmlParserServiceImpl parser = new DbmlParserServiceImpl(0, Integer.MAX_VALUE, 1);
+
+    @AfterEach
+    void tearDown() {
+        parser.shutdown();
+    }
+
+    @Test
+    void decodeVersusParse() {
+        for (int tables : new int[]{100, 1_000, 10_000}) {
+            String content = Benchmarks.schema(tables, COLUMNS);
+            DbmlModel parsed = parser.parseDbml(content);
+            byte[] snapshot = DbmlSnapshotCodec.encode(parsed);
+            assertThat(DbmlSnapshotCodec.decode(snapshot)).isEqualTo(parsed);
+
+            String input = String.format("%,d tables (%,d KB DBML, %,d KB)", tables, content.length() / 1024,
+                    snapshot.length / 1024);
+            Benchmarks.report("snapshot", "parseDbml", input, Benchmarks.measure(() -> parser.parseDbml(content)));
+            Benchmarks.report("snapshot", "decode", input,
+                    Benchmarks.measure(() -> DbmlSnapshotCodec.decode(snapshot).freeze()));
+            Benchmarks.report("snapshot", "encode", input, Benchmarks.measure(() -> DbmlSnapshotCodec.encode(parsed)));
+        }
+    }
+}
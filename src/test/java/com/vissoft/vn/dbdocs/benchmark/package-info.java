@@ -0,0 +1,19 @@
+/**
+ * Benchmarks - throughput of the DBML, diff and DDL hot paths
+ * 
+ * Each {@code *Benchmark} class times the current code against the
+ * implementation it replaced, on generated schemas of increasing size,
+ * and prints one line per case. Correctness is asserted, speed is not.
+ * 
+ * The class names do not match the Surefire test patterns, so a plain
+ * {@code mvn test} skips them. Run them with:
+ * {@code mvn test -Dtest='*Benchmark' -Dsurefire.failIfNoSpecifiedTests=false}
+ * 
+ * Principles:
+ * - Warm up before timing, report median and best of many runs
+ * - Fragment and model caches are disabled, every run is a cold parse
+ * - Every result is consumed, so the JIT cannot drop the work
+ * 
+ * @author VIS Software
+ */
+package com.vissoft.vn.dbdocs.benchmark;
@@ -0,0 +1,178 @@
+package com.vissoft.vn.dbdocs.domain.model.dbml;
+
+import com.vissoft.vn.dbdocs.domain.parser.DbmlModelParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DbmlSnapshotCodecTest {
+    private static final String DBML = """
+            Project shop {
+              database_type: 'PostgreSQL'
+              Note: 'Cửa hàng "demo"'
+            }
+            Table users as U {
+              id integer [pk, increment]
+              email varchar(255) [unique, not null, note: 'login']
+              balance decimal(10, 2) [default: 0]
+              created_at timestamp [default: `now()`]
+              Note: 'người dùng'
+              Indexes {
+                email [unique, name: 'ux_users_email', type: btree]
+                (email, created_at) [note: 'lookup']
+              }
+            }
+            Table orders {
+              id integer [pk]
+              user_id integer [not null, ref: > users.id]
+              status order_status
+            }
+            Ref fk_orders_users: users.id < orders.user_id
+            Enum order_status {
+              pending [note: 'chờ']
+              paid
+            }
+            TableGroup sales {
+              users
+              orders
+            }
+            """;
+
+    @Test
+    void roundTripKeepsEveryField() {
+        DbmlModel parsed = new DbmlModelParser().parse(DBML);
+
+        DbmlModel decoded = DbmlSnapshotCodec.decode(DbmlSnapshotCodec.encode(parsed));
+
+        assertThat(decoded).isEqualTo(parsed);
+        assertThat(decoded.freeze().getTables().get(0).structuralHash())
+                .isEqualTo(parsed.freeze().getTables().get(0).structuralHash());
+        assertThat(decoded.getNote()).isEqualTo("Cửa hàng \"demo\"");
+        assertThat(decoded.getTables().get(0).getAlias()).isEqualTo("U");
+    }
+
+    @Test
+    void columnFlagsRoundTripInEveryCombination() {
+        TableModel table = TableModel.builder().name("flags").columns(new ArrayList<>()).indexes(new ArrayList<>()).build();
+        for (int flags = 0; flags < 32; flags++) {
+            boolean withReference = (flags & 16) != 0;
+            table.getColumns().add(ColumnModel.builder()
+                    .name("c" + flags)
+                    .dataType("integer")
+                    .isPrimaryKey((flags & 1) != 0)
+                    .isUnique((flags & 2) != 0)
+                    .isNotNull((flags & 4) != 0)
+                    .isAutoIncrement((flags & 8) != 0)
+                    .reference(withReference ? new ColumnModel.RefValue("other", "id", ">") : null)
+                    .build());
+        }
+        for (boolean unique : new boolean[]{false, true}) {
+            table.getIndexes().add(IndexModel.builder()
+                    .name(unique ? "ux" : "ix")
+                    .isUnique(unique)
+                    .columns(List.of(new IndexModel.IndexColumn("c1", null)))
+                    .build());
+        }
+        DbmlModel model = new DbmlModel();
+        model.setTables(new ArrayList<>(List.of(table)));
+        // Every combination of present and missing endpoints
+        model.setRefs(new ArrayList<>(List.of(
+                new RefModel("none", null, "-", null),
+                new RefModel("from", new RefModel.EndpointRef("flags", "c1"), ">", null),
+                new RefModel("to", null, "<", new RefModel.EndpointRef("flags", "c2")),
+                new RefModel("both", new RefModel.EndpointRef("flags", "c1"), "-", new RefModel.EndpointRef("other", "id")))));
+
+        DbmlModel decoded = DbmlSnapshotCodec.decode(DbmlSnapshotCodec.encode(model));
+
+        assertThat(decoded).isEqualTo(model);
+        List<ColumnModel> columns = decoded.getTables().get(0).getColumns();
+        for (int flags = 0; flags < 32; flags++) {
+            ColumnModel column = columns.get(flags);
+            assertThat(column.isPrimaryKey()).isEqualTo((flags & 1) != 0);
+            assertThat(column.isUnique()).isEqualTo((flags & 2) != 0);
+            assertThat(column.isNotNull()).isEqualTo((flags & 4) != 0);
+            assertThat(column.isAutoIncrement()).isEqualTo((flags & 8) != 0);
+            assertThat(column.getReference() != null).isEqualTo((flags & 16) != 0);
+        }
+        assertThat(decoded.getTables().get(0).getIndexes()).extracting(IndexModel::isUnique).containsExactly(false, true);
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() {
+        DbmlModel model = new DbmlModel();
+        model.setTables(new ArrayList<>());
+        for (int t = 0; t < 500; t++) {
+            model.getTables().add(TableModel.builder()
+                    .name("table_" + t)
+                    .columns(new ArrayList<>(List.of(
+                            ColumnModel.builder().name("id").dataType("bigint").isPrimaryKey(true).build(),
+                            ColumnModel.builder().name("description_text").dataType("varchar").typeParam("255")
+                                    .note("").build())))
+                    .indexes(new ArrayList<>())
+                    .build());
+        }
+
+        byte[] data = DbmlSnapshotCodec.encode(model);
+
+        assertThat(occurrences(data, "description_text")).isEqualTo(1);
+        assertThat(occurrences(data, "varchar")).isEqualTo(1);
+        assertThat(occurrences(data, "table_499")).isEqualTo(1);
+        DbmlModel decoded = DbmlSnapshotCodec.decode(data);
+        assertThat(decoded).isEqualTo(model);
+        // The empty string is a string table entry, not null
+        assertThat(decoded.getTables().get(0).getColumns().get(1).getNote()).isEmpty();
+        assertThat(decoded.getTables().get(0).getColumns().get(0).getNote()).isNull();
+    }
+
+    @Test
+    void rejectsOtherFormatVersions() {
+        byte[] data = DbmlSnapshotCodec.encode(new DbmlModelParser().parse(DBML));
+        // Magic, then the version varint
+        assertThat(data[4]).isEqualTo((byte) DbmlSnapshotCodec.FORMAT_VERSION);
+
+        byte[] stale = data.clone();
+        stale[4] = (byte) (DbmlSnapshotCodec.FORMAT_VERSION + 1);
+        assertThatThrownBy(() -> DbmlSnapshotCodec.decode(stale))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsMalformedData() {
+        byte[] data = DbmlSnapshotCodec.encode(new DbmlModelParser().parse(DBML));
+
+        byte[] badMagic = data.clone();
+        badMagic[0] = 'X';
+        assertThatThrownBy(() -> DbmlSnapshotCodec.decode(badMagic)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DbmlSnapshotCodec.decode(Arrays.copyOf(data, data.length - 3)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DbmlSnapshotCodec.decode(Arrays.copyOf(data, data.length + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // Project name referring to a string table entry that was never written
+        ByteArrayOutputStream danglingReference = new ByteArrayOutputStream();
+        danglingReference.writeBytes(Arrays.copyOf(data, 5));
+        danglingReference.write(7);
+        assertThatThrownBy(() -> DbmlSnapshotCodec.decode(danglingReference.toByteArray()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("string reference");
+    }
+
+    private static int occurrences(byte[] data, String value) {
+        byte[] needle = value.getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + needle.length, needle, 0, needle.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,380 @@
+package com.vissoft.vn.dbdocs.domain.model.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.TableModel;
+import com.vissoft.vn.dbdocs.domain.service.impl.DbmlParserServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Composing the diffs of consecutive versions must give the diff computed directly between the two
+ * ends of the chain, up to ordering and the empty table entries the composer documents.
+ */
+class SchemaDiffComposerTest {
+    private static final String[] TYPES = {"integer", "varchar(50)", "varchar(255)", "text", "bigint",
+            "decimal(10, 2)", "timestamp"};
+
+    private final DbmlParserServiceImpl parser = new DbmlParserServiceImpl(50000, Integer.MAX_VALUE, 1);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void composedRandomHistoriesMatchDirectDiffs() throws Exception {
+        int ranges = 0;
+        for (int history = 0; history < 40; history++) {
+            Random random = new Random(history);
+            HistoryGenerator generator = new HistoryGenerator(random);
+            List<DbmlModel> versions = new ArrayList<>();
+            for (int version = 0; version < 8; version++) {
+                versions.add(parse(generator.dbml()));
+                generator.mutate();
+            }
+            List<SchemaDiff> links = new ArrayList<>();
+            for (int version = 1; version < versions.size(); version++) {
+                links.add(SchemaDiff.compare(versions.get(version - 1), versions.get(version)));
+            }
+            for (int from = 0; from < versions.size(); from++) {
+                for (int to = from + 2; to < versions.size(); to++) {
+                    SchemaDiff composed = compose(links.subList(from, to), versions.get(from), versions.get(to));
+                    SchemaDiff direct = SchemaDiff.compare(versions.get(from), versions.get(to));
+                    assertThat(normalize(composed, direct))
+                            .as("history %d, versions %d..%d", history, from, to)
+                            .isEqualTo(normalize(direct, direct));
+                    ranges++;
+                }
+            }
+        }
+        assertThat(ranges).isEqualTo(40 * 21);
+    }
+
+    @Test
+    void tableAddedThenDroppedCancels() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]") + table("tmp", "id integer [pk]"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]"));
+
+        SchemaDiffComposer composer = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3));
+
+        assertThat(composer.tablesNeededAtStart()).isEmpty();
+        assertThat(composer.tablesNeededAtEnd()).isEmpty();
+        assertThat(composer.result(failLookup(), failLookup()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void columnAddedThenDroppedCancels() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]", "email varchar(255)"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]"));
+
+        SchemaDiff composed = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3))
+                .result(failLookup(), failLookup());
+
+        assertThat(composed.getAddedTables()).isEmpty();
+        assertThat(composed.getRemovedTables()).isEmpty();
+        assertThat(composed.getTableChanges().get("users")).isEmpty();
+    }
+
+    @Test
+    void modificationChainCollapsesIntoOneChange() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]", "name varchar(50)"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]", "name varchar(255)"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]", "name text [not null]"));
+
+        SchemaDiff composed = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3))
+                .result(failLookup(), failLookup());
+
+        List<ColumnChange> changes = composed.getTableChanges().get("users");
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).getChangeType()).isEqualTo(ChangeType.MODIFIED);
+        assertThat(changes.get(0).getOldValue()).isSameAs(v1.getTables().get(0).getColumns().get(1));
+        assertThat(changes.get(0).getNewValue()).isSameAs(v3.getTables().get(0).getColumns().get(1));
+        assertThat(normalize(composed, composed)).isEqualTo(normalize(SchemaDiff.compare(v1, v3), composed));
+    }
+
+    @Test
+    void modificationRevertedCancels() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]", "name varchar(50)"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]", "name text"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]", "name varchar(50)"));
+
+        SchemaDiff composed = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3))
+                .result(failLookup(), failLookup());
+
+        assertThat(composed.getTableChanges().get("users")).isEmpty();
+    }
+
+    @Test
+    void columnRenamedAndRenamedBackCancels() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]", "name varchar(50)"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]", "full_name varchar(50)"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]", "name varchar(50)"));
+        DbmlModel v4 = parse(table("users", "id integer [pk]", "display_name varchar(50)"));
+
+        SchemaDiff back = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3))
+                .result(failLookup(), failLookup());
+        assertThat(back.getTableChanges().get("users")).isEmpty();
+
+        SchemaDiff renamed = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3))
+                .append(SchemaDiff.compare(v3, v4))
+                .result(failLookup(), failLookup());
+        assertThat(normalize(renamed, renamed)).isEqualTo(normalize(SchemaDiff.compare(v1, v4), renamed));
+    }
+
+    @Test
+    void tableDroppedAndReAddedIsComparedBetweenTheEnds() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]") + table("orders", "id integer [pk]", "total integer"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]") + table("orders", "id integer [pk]", "total bigint"));
+
+        SchemaDiffComposer composer = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3));
+
+        assertThat(composer.tablesNeededAtStart()).containsExactly("orders");
+        assertThat(composer.tablesNeededAtEnd()).containsExactly("orders");
+        SchemaDiff composed = composer.result(lookup(v1), lookup(v3));
+        SchemaDiff direct = SchemaDiff.compare(v1, v3);
+        assertThat(normalize(composed, direct)).isEqualTo(normalize(direct, direct));
+    }
+
+    @Test
+    void tableAddedThenChangedIsReadFromTheLastSchema() throws Exception {
+        DbmlModel v1 = parse(table("users", "id integer [pk]"));
+        DbmlModel v2 = parse(table("users", "id integer [pk]") + table("orders", "id integer [pk]"));
+        DbmlModel v3 = parse(table("users", "id integer [pk]") + table("orders", "id integer [pk]", "total integer"));
+
+        SchemaDiffComposer composer = new SchemaDiffComposer()
+                .append(SchemaDiff.compare(v1, v2))
+                .append(SchemaDiff.compare(v2, v3));
+
+        assertThat(composer.tablesNeededAtStart()).isEmpty();
+        assertThat(composer.tablesNeededAtEnd()).containsExactly("orders");
+        SchemaDiff composed = composer.result(failLookup(), lookup(v3));
+        assertThat(composed.getAddedTables()).containsExactly(v3.getTables().get(1));
+    }
+
+    private SchemaDiff compose(List<SchemaDiff> links, DbmlModel start, DbmlModel end) {
+        SchemaDiffComposer composer = new SchemaDiffComposer();
+        links.forEach(composer::append);
+        Map<String, TableModel> startTables = byName(start);
+        Map<String, TableModel> endTables = byName(end);
+        List<String> neededAtStart = composer.tablesNeededAtStart();
+        List<String> neededAtEnd = composer.tablesNeededAtEnd();
+        return composer.result(name -> {
+            assertThat(neededAtStart).contains(name);
+            return startTables.get(name);
+        }, name -> {
+            assertThat(neededAtEnd).contains(name);
+            return endTables.get(name);
+        });
+    }
+
+    private DbmlModel parse(String dbml) {
+        return parser.parseDbml(dbml).freeze();
+    }
+
+    private static Map<String, TableModel> byName(DbmlModel model) {
+        Map<String, TableModel> tables = new HashMap<>();
+        model.getTables().forEach(table -> tables.putIfAbsent(table.getName(), table));
+        return tables;
+    }
+
+    private static Function<String, TableModel> lookup(DbmlModel model) {
+        return byName(model)::get;
+    }
+
+    private static Function<String, TableModel> failLookup() {
+        return name -> {
+            throw new AssertionError("Table " + name + " should not be looked up");
+        };
+    }
+
+    private static String table(String name, String... columns) {
+        StringBuilder dbml = new StringBuilder("Table ").append(name).append(" {\n");
+        for (String column : columns) {
+            dbml.append("  ").append(column).append('\n');
+        }
+        return dbml.append("}\n").toString();
+    }
+
+    /**
+     * The diff as JSON, with tables and columns sorted by name. Table entries without column changes
+     * that {@code reference} does not list are dropped: the composer may keep them (see its doc).
+     */
+    private JsonNode normalize(SchemaDiff diff, SchemaDiff reference) throws Exception {
+        ObjectNode json = (ObjectNode) objectMapper.readTree(objectMapper.writeValueAsString(diff));
+        sort((ArrayNode) json.get("addedTables"), table -> table.get("name").asText());
+        sort((ArrayNode) json.get("removedTables"), JsonNode::asText);
+
+        Map<String, JsonNode> tableChanges = new TreeMap<>();
+        for (Map.Entry<String, JsonNode> entry : json.get("tableChanges").properties()) {
+            if (entry.getValue().isEmpty() && !reference.getTableChanges().containsKey(entry.getKey())) {
+                continue;
+            }
+            sort((ArrayNode) entry.getValue(), change -> change.get("changeType").asText() + ' '
+                    + (change.has("value") ? change.get("value") : change.get("newValue")).get("name").asText());
+            tableChanges.put(entry.getKey(), entry.getValue());
+        }
+        ObjectNode sortedChanges = objectMapper.createObjectNode();
+        tableChanges.forEach(sortedChanges::set);
+        json.set("tableChanges", sortedChanges);
+        return json;
+    }
+
+    private static void sort(ArrayNode array, Function<JsonNode, String> key) {
+        List<JsonNode> items = new ArrayList<>();
+        array.forEach(items::add);
+        items.sort(Comparator.comparing(key));
+        array.removeAll();
+        items.forEach(array::add);
+    }
+
+    /**
+     * A random schema mutated version after version: tables and columns added, dropped, re-added
+     * (as they were or changed), renamed and modified, indexes and notes changed.
+     */
+    private static final class HistoryGenerator {
+        private final Random random;
+        private final List<Table> tables = new ArrayList<>();
+        private final Map<String, Table> dropped = new HashMap<>();
+        private int names;
+
+        HistoryGenerator(Random random) {
+            this.random = random;
+            for (int i = 0; i < 6; i++) {
+                mutate();
+            }
+        }
+
+        void mutate() {
+            for (int operations = 1 + random.nextInt(6); operations > 0; operations--) {
+                int operation = random.nextInt(12);
+                if (operation == 0 || tables.size() < 3) {
+                    addTable();
+                } else if (operation == 1) {
+                    Table table = tables.remove(random.nextInt(tables.size()));
+                    dropped.put(table.name, table);
+                } else {
+                    changeTable(tables.get(random.nextInt(tables.size())));
+                }
+            }
+        }
+
+        private void addTable() {
+            Table table;
+            if (!dropped.isEmpty() && random.nextBoolean()) {
+                // Re-added, as it was or with one more column
+                String name = new ArrayList<>(dropped.keySet()).get(random.nextInt(dropped.size()));
+                table = dropped.remove(name);
+                if (random.nextBoolean()) {
+                    table.columns.add(randomColumn("c" + names++));
+                }
+            } else {
+                table = new Table("t" + names++);
+                table.columns.add(new Column("id", "integer", true, null));
+                for (int i = random.nextInt(4); i >= 0; i--) {
+                    table.columns.add(randomColumn("c" + names++));
+                }
+            }
+            tables.add(random.nextInt(tables.size() + 1), table);
+        }
+
+        private void changeTable(Table table) {
+            int change = random.nextInt(7);
+            boolean hasColumns = table.columns.size() > 1;
+            // Column 0 is the primary key, never changed
+            int index = hasColumns ? 1 + random.nextInt(table.columns.size() - 1) : 0;
+            Column column = table.columns.get(index);
+            if (change == 0) {
+                table.columns.add(1 + random.nextInt(table.columns.size()), randomColumn("c" + names++));
+            } else if (change == 1 && hasColumns) {
+                table.columns.remove(index);
+            } else if (change == 2 && hasColumns) {
+                table.columns.set(index, new Column(column.name, TYPES[random.nextInt(TYPES.length)],
+                        column.notNull, column.defaultValue));
+            } else if (change == 3 && hasColumns) {
+                table.columns.set(index, new Column(column.name, column.type, !column.notNull, column.defaultValue));
+            } else if (change == 4 && hasColumns) {
+                // Renamed: dropped and added under another name
+                table.columns.set(index, new Column("r" + names++, column.type, column.notNull, column.defaultValue));
+            } else if (change == 5) {
+                table.index = table.index.equals("id") ? "(id, " + table.columns.get(table.columns.size() - 1).name + ")" : "id";
+            } else if (change == 6) {
+                table.note = table.note == null ? "n" + random.nextInt(3) : null;
+            }
+        }
+
+        private Column randomColumn(String name) {
+            return new Column(name, TYPES[random.nextInt(TYPES.length)], random.nextBoolean(),
+                    random.nextInt(4) == 0 ? String.valueOf(random.nextInt(3)) : null);
+        }
+
+        String dbml() {
+            StringBuilder dbml = new StringBuilder();
+            for (Table table : tables) {
+                dbml.append("Table ").append(table.name).append(" {\n");
+                for (Column column : table.columns) {
+                    List<String> settings = new ArrayList<>();
+                    if (column.name.equals("id")) {
+                        settings.add("pk");
+                    }
+                    if (column.notNull) {
+                        settings.add("not null");
+                    }
+                    if (column.defaultValue != null) {
+                        settings.add("default: " + column.defaultValue);
+                    }
+                    dbml.append("  ").append(column.name).append(' ').append(column.type);
+                    if (!settings.isEmpty()) {
+                        dbml.append(" [").append(String.join(", ", settings)).append(']');
+                    }
+                    dbml.append('\n');
+                }
+                if (table.note != null) {
+                    dbml.append("  Note: '").append(table.note).append("'\n");
+                }
+                dbml.append("  Indexes {\n    ").append(table.index).append("\n  }\n}\n");
+            }
+            return dbml.toString();
+        }
+
+        private record Column(String name, String type, boolean notNull, String defaultValue) {
+        }
+
+        private static final class Table {
+            final String name;
+            final List<Column> columns = new ArrayList<>();
+            String index = "id";
+            String note;
+
+            Table(String name) {
+                this.name = name;
+            }
+        }
+    }
+}
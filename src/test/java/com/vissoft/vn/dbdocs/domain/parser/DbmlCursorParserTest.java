@@ -0,0 +1,119 @@
+package com.vissoft.vn.dbdocs.domain.parser;
+
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The cursor parser must read exactly what {@code DBML.g4} reads: a document it accepts has no syntax
+ * errors in the grammar and gives the model of the generated parser, and a document it rejects has
+ * syntax errors in the grammar (the fallback then skips the malformed blocks).
+ */
+class DbmlCursorParserTest {
+    // Every construct of the grammar, including the rarely used spellings
+    private static final String ALL_CONSTRUCTS = """
+            Project "p q" { database_type: "MySQL"
+             note { '''multi
+            line''' } x: 1 }
+            Table "s"."T" as A [note: 'tn', headercolor: #3498DB] {
+             "id" int[] [pk, not null, default: `now()`]
+             Note: 'x'
+             v numeric(10, 2 )[][] [NULL, Primary Key, note: "a\\"b", default: -1.5]
+             r int [ref: - "s"."u".id, ref: > x.y, ref: <> z]
+             d varchar [default: 'a' 'b', note]
+             note text
+             indexes int
+             Indexes { (a, `lower(b)`) [pk, type: btree, name: "i", note: 'n'] c [unique] `x+1` }
+            }
+            Ref: a.(x, y) < b.(p, q) [delete: cascade]
+            Ref r1 { a.b - c.d
+             e.f.g <> h.i }
+            Enum s.e { a [note: 'x'] "b c" }
+            TableGroup G { a.b c Note: 'z' }
+            Note n { 'hello' }
+            /* comment */ // line
+            Table table { project project as as enum ref }
+            Table users {
+              id integer [pk, increment]
+              email varchar(255) [unique, not null, note: 'login, main']
+              Indexes {
+                email [unique, name: 'ux_users_email']
+              }
+            }
+            """;
+    private static final String MUTATION_CHARACTERS = "{}[]():,.<>-'\"`#/\n x";
+    private static final int MUTATIONS = 2_000;
+
+    private final DbmlModelParser parser = new DbmlModelParser();
+
+    @Test
+    void acceptsTheFullGrammarWithTheGrammarsModel() {
+        assertSameAsGrammar(ALL_CONSTRUCTS, true);
+    }
+
+    @Test
+    void agreesWithTheGrammarOnMutatedDocuments() {
+        Random random = new Random(42);
+        int accepted = 0;
+        for (int i = 0; i < MUTATIONS; i++) {
+            StringBuilder document = new StringBuilder(ALL_CONSTRUCTS);
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--) {
+                int position = random.nextInt(document.length());
+                char character = MUTATION_CHARACTERS.charAt(random.nextInt(MUTATION_CHARACTERS.length()));
+                switch (random.nextInt(3)) {
+                    case 0 -> document.deleteCharAt(position);
+                    case 1 -> document.insert(position, character);
+                    default -> document.setCharAt(position, character);
+                }
+            }
+            if (assertSameAsGrammar(document.toString(), false)) {
+                accepted++;
+            }
+        }
+        // Both outcomes must be covered for the comparison to mean anything
+        assertThat(accepted).isBetween(MUTATIONS / 10, MUTATIONS - MUTATIONS / 10);
+    }
+
+    // Returns whether the cursor parser accepted the document
+    private boolean assertSameAsGrammar(String document, boolean mustAccept) {
+        DbmlModel cursor = DbmlCursorParser.tryParse(document, 0, document.length(), new NamePool());
+        if (mustAccept) {
+            assertThat(cursor).as("cursor parser rejected:%n%s", document).isNotNull();
+        }
+        if (cursor == null) {
+            assertThat(grammarErrors(document)).as("cursor parser rejected valid DBML:%n%s", document).isPositive();
+            return false;
+        }
+        assertThat(grammarErrors(document)).as("cursor parser accepted invalid DBML:%n%s", document).isZero();
+        assertThat(cursor).as("models differ for:%n%s", document)
+                .usingRecursiveComparison()
+                .isEqualTo(parser.parseWithGrammar(document));
+        return true;
+    }
+
+    private static int grammarErrors(String document) {
+        DBMLLexer lexer = new DBMLLexer(new CharSequenceCharStream(document, 0, document.length()));
+        lexer.removeErrorListeners();
+        DBMLParser grammar = new DBMLParser(new CommonTokenStream(lexer));
+        grammar.removeErrorListeners();
+        grammar.getInterpreter().setPredictionMode(PredictionMode.LL);
+        int[] errors = {0};
+        grammar.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors[0]++;
+            }
+        });
+        grammar.dbml();
+        return errors[0];
+    }
+}
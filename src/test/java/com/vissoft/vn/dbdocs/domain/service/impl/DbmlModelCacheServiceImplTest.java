@@ -0,0 +1,130 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLog;
+import com.vissoft.vn.dbdocs.domain.entity.ChangeLogSnapshot;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.DbmlSnapshotCodec;
+import com.vissoft.vn.dbdocs.domain.repository.ChangeLogSnapshotRepository;
+import com.vissoft.vn.dbdocs.domain.service.DbmlParserService;
+import com.vissoft.vn.dbdocs.infrastructure.util.HashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache misses read the persisted snapshot only when it matches both the content and the codec's
+ * format version; any other snapshot falls back to parsing the DBML text.
+ */
+class DbmlModelCacheServiceImplTest {
+    private static final String CONTENT = """
+            Table users {
+              id integer [pk, increment]
+              email varchar(255) [unique, not null]
+            }
+            """;
+
+    private DbmlParserService parser;
+    private ChangeLogSnapshotRepository snapshots;
+    private DbmlModelCacheServiceImpl cache;
+    private ChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        parser = spy(new DbmlParserServiceImpl(50000, Integer.MAX_VALUE, 1));
+        snapshots = mock(ChangeLogSnapshotRepository.class);
+        cache = new DbmlModelCacheServiceImpl(parser, snapshots);
+        ReflectionTestUtils.setField(cache, "maxEntries", 64);
+        ReflectionTestUtils.setField(cache, "maxWeightBytes", 256L << 20);
+        changeLog = new ChangeLog();
+        changeLog.setId("cl-1");
+        changeLog.setContent(CONTENT);
+    }
+
+    @Test
+    void currentSnapshotIsDecodedWithoutParsing() {
+        DbmlModel expected = new DbmlParserServiceImpl(50000, Integer.MAX_VALUE, 1).parseDbml(CONTENT);
+        givenSnapshot(DbmlSnapshotCodec.FORMAT_VERSION, HashUtils.sha256Hex(CONTENT), DbmlSnapshotCodec.encode(expected));
+
+        DbmlModel model = cache.getModel(changeLog);
+
+        assertThat(model).isEqualTo(expected);
+        verify(parser, never()).parseDbml(any());
+    }
+
+    @Test
+    void staleFormatVersionFallsBackToParsing() {
+        DbmlModel expected = new DbmlParserServiceImpl(50000, Integer.MAX_VALUE, 1).parseDbml(CONTENT);
+        givenSnapshot(DbmlSnapshotCodec.FORMAT_VERSION - 1, HashUtils.sha256Hex(CONTENT), new byte[]{1, 2, 3});
+
+        DbmlModel model = cache.getModel(changeLog);
+
+        assertThat(model).isEqualTo(expected);
+        verify(parser, times(1)).parseDbml(CONTENT);
+    }
+
+    @Test
+    void snapshotOfOtherContentFallsBackToParsing() {
+        DbmlModel other = new DbmlParserServiceImpl(50000, Integer.MAX_VALUE, 1).parseDbml("Table other {\n  id integer\n}\n");
+        givenSnapshot(DbmlSnapshotCodec.FORMAT_VERSION, HashUtils.sha256Hex("Table other"), DbmlSnapshotCodec.encode(other));
+
+        DbmlModel model = cache.getModel(changeLog);
+
+        assertThat(model.getTables()).extracting(table -> table.getName()).containsExactly("users");
+        verify(parser, times(1)).parseDbml(CONTENT);
+    }
+
+    @Test
+    void undecodableSnapshotFallsBackToParsing() {
+        givenSnapshot(DbmlSnapshotCodec.FORMAT_VERSION, HashUtils.sha256Hex(CONTENT), new byte[]{'D', 'B', 'M', 'S'});
+
+        DbmlModel model = cache.getModel(changeLog);
+
+        assertThat(model.getTables()).extracting(table -> table.getName()).containsExactly("users");
+        verify(parser, times(1)).parseDbml(CONTENT);
+    }
+
+    @Test
+    void staleSnapshotIsRewrittenWithTheCurrentVersion() {
+        givenSnapshot(DbmlSnapshotCodec.FORMAT_VERSION - 1, HashUtils.sha256Hex(CONTENT), new byte[]{1, 2, 3});
+
+        cache.saveSnapshot(changeLog);
+
+        ArgumentCaptor<ChangeLogSnapshot> saved = ArgumentCaptor.forClass(ChangeLogSnapshot.class);
+        verify(snapshots).save(saved.capture());
+        assertThat(saved.getValue().getFormatVersion()).isEqualTo(DbmlSnapshotCodec.FORMAT_VERSION);
+        assertThat(DbmlSnapshotCodec.decode(saved.getValue().getData())).isEqualTo(cache.getModel(changeLog));
+    }
+
+    @Test
+    void contentIsHashedOncePerChangeLog() {
+        when(snapshots.findById("cl-1")).thenReturn(Optional.empty());
+        try (MockedStatic<HashUtils> hashing = mockStatic(HashUtils.class, CALLS_REAL_METHODS)) {
+            DbmlModel first = cache.getModel(changeLog);
+            assertThat(cache.getModel(changeLog)).isSameAs(first);
+            assertThat(cache.getLazyModel(changeLog)).isSameAs(first);
+            cache.saveSnapshot(changeLog);
+
+            hashing.verify(() -> HashUtils.sha256Hex(CONTENT), times(1));
+        }
+    }
+
+    private void givenSnapshot(int formatVersion, String contentHash, byte[] data) {
+        when(snapshots.findById("cl-1"))
+                .thenReturn(Optional.of(new ChangeLogSnapshot("cl-1", formatVersion, contentHash, data)));
+    }
+}
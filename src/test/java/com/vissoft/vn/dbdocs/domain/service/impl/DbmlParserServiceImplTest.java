@@ -0,0 +1,91 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.vissoft.vn.dbdocs.domain.service.DbmlParserService;
+import com.vissoft.vn.dbdocs.infrastructure.exception.BaseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A document read from a stream gives the model of the whole text and an exact copy of it,
+ * however the reads split its blocks.
+ */
+class DbmlParserServiceImplTest {
+    private static final String CONTENT = """
+            Project shop { database_type: 'PostgreSQL' }
+            // users and their orders
+            Table users {
+              id integer [pk, increment]
+              email varchar(255) [unique, not null, note: 'login { not a block }']
+            }
+
+            Table orders {
+              id integer [pk]
+              user_id integer [ref: > users.id]
+            }
+            Ref: orders.user_id > users.id
+            Enum status { active inactive }
+            """;
+
+    private final DbmlParserServiceImpl parser = new DbmlParserServiceImpl(50000, Integer.MAX_VALUE, 1);
+
+    @Test
+    void readsTheSameModelAsParsingTheText() throws IOException {
+        for (int chunk : new int[]{1, 7, 64, CONTENT.length()}) {
+            StringWriter copy = new StringWriter();
+            DbmlParserService.DbmlDocument document = parser.readDbml(new ChunkedReader(CONTENT, chunk), copy,
+                    Long.MAX_VALUE);
+
+            assertThat(copy.toString()).isEqualTo(CONTENT);
+            assertThat(document.length()).isEqualTo(CONTENT.length());
+            assertThat(document.blank()).isFalse();
+            assertThat(document.model()).as("chunks of %d", chunk).isEqualTo(parser.parseDbml(CONTENT));
+        }
+    }
+
+    @Test
+    void rejectsInvalidAndOverlongDocuments() {
+        assertThatThrownBy(() -> parser.readDbml(new StringReader("Table users { id integer [pk }"),
+                new StringWriter(), Long.MAX_VALUE)).isInstanceOf(BaseException.class);
+        assertThatThrownBy(() -> parser.readDbml(new StringReader(CONTENT), new StringWriter(), CONTENT.length() - 1))
+                .isInstanceOf(BaseException.class);
+    }
+
+    @Test
+    void reportsBlankDocuments() throws IOException {
+        assertThat(parser.readDbml(new StringReader(" \n\t"), new StringWriter(), Long.MAX_VALUE).blank()).isTrue();
+    }
+
+    // Returns at most chunk characters per read, like a slow request body
+    private static final class ChunkedReader extends Reader {
+        private final String text;
+        private final int chunk;
+        private int position;
+
+        ChunkedReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunk), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
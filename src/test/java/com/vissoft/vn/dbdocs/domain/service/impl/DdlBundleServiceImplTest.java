@@ -0,0 +1,108 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vissoft.vn.dbdocs.domain.model.DdlBundle;
+import com.vissoft.vn.dbdocs.domain.model.DdlScript;
+import com.vissoft.vn.dbdocs.domain.service.GeneraScriptDDLService;
+import com.vissoft.vn.dbdocs.domain.service.VersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A bundle zips every dialect in request order while rendering at most {@code render-ahead} of them
+ * beyond the one being zipped.
+ */
+class DdlBundleServiceImplTest {
+    private static final int DIALECTS = 5;
+    private static final String DDL = """
+            -- header;
+            CREATE TABLE users (id INT);
+            -- comment;
+            CREATE INDEX ix ON users (id);""";
+
+    private final VersionService versionService = mock(VersionService.class);
+    private final GeneraScriptDDLService ddlService = mock(GeneraScriptDDLService.class);
+    private final DdlBundleServiceImpl bundles = new DdlBundleServiceImpl(versionService, ddlService,
+            new ObjectMapper().findAndRegisterModules());
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    // Largest number of dialects rendering beyond the entries already zipped, when one starts
+    private final AtomicInteger maxAhead = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(bundles, "bundleThreads", 4);
+        ReflectionTestUtils.setField(bundles, "bundleQueueCapacity", 100);
+        ReflectionTestUtils.setField(bundles, "renderAhead", 1);
+        bundles.init();
+        when(ddlService.dialectName(anyInt())).thenAnswer(invocation -> "Dialect " + invocation.getArgument(0));
+        doAnswer(invocation -> {
+            DdlScript script = invocation.getArgument(0);
+            maxAhead.accumulateAndGet(script.dialect() - unzip(out.toByteArray()).size(), Math::max);
+            invocation.<OutputStream>getArgument(1).write(ddl(script.dialect()).getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(versionService).writeDdlScript(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        bundles.shutdown();
+    }
+
+    @Test
+    void zipsEveryDialectInOrderWithinTheRenderWindow() throws IOException {
+        List<DdlScript> scripts = IntStream.range(0, DIALECTS)
+                .mapToObj(dialect -> new DdlScript("shop-v1.sql", () -> "", null, dialect, null, null))
+                .toList();
+        bundles.writeBundle(new DdlBundle("shop-v1-ddl.zip", "p", 1, scripts, System.nanoTime(), 0), out);
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries.keySet()).containsExactly("shop-v1-dialect-0.sql", "shop-v1-dialect-1.sql",
+                "shop-v1-dialect-2.sql", "shop-v1-dialect-3.sql", "shop-v1-dialect-4.sql", "manifest.json");
+        assertThat(entries.get("shop-v1-dialect-3.sql")).isEqualTo(ddl(3));
+        JsonNode file = new ObjectMapper().readTree(entries.get("manifest.json")).get("files").get(3);
+        assertThat(file.get("statements").asInt()).isEqualTo(2);
+        assertThat(file.get("bytes").asLong()).isEqualTo(ddl(3).length());
+        // Only the next dialect renders while one is zipped
+        assertThat(maxAhead.get()).isLessThanOrEqualTo(1);
+    }
+
+    private static String ddl(int dialect) {
+        return "-- dialect " + dialect + "\n" + DDL;
+    }
+
+    // The complete entries of a zip, which may still be written
+    private static Map<String, String> unzip(byte[] zip) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // A zip still being written ends early
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,59 @@
+package com.vissoft.vn.dbdocs.domain.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vissoft.vn.dbdocs.domain.entity.Version;
+import com.vissoft.vn.dbdocs.domain.repository.ChangeLogRepository;
+import com.vissoft.vn.dbdocs.domain.repository.VersionRepository;
+import com.vissoft.vn.dbdocs.domain.service.DbmlModelCacheService;
+import com.vissoft.vn.dbdocs.domain.service.VersionComparisonService;
+import com.vissoft.vn.dbdocs.infrastructure.constant.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A diff rejected by the full queue is not lost until the next startup: the next worker to finish resubmits it.
+ */
+class VersionDiffServiceImplTest {
+    private final VersionRepository versions = mock(VersionRepository.class);
+    private final VersionDiffServiceImpl service = new VersionDiffServiceImpl(versions, mock(ChangeLogRepository.class),
+            mock(VersionComparisonService.class), mock(DbmlModelCacheService.class), new ObjectMapper(), 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rejectedDiffIsResubmittedWhenAWorkerIsFree() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(versions.findById("running")).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        Version rejected = new Version();
+        rejected.setId("rejected");
+        when(versions.findByDiffStatus(Constants.DiffStatus.PENDING)).thenReturn(List.of(rejected));
+
+        service.scheduleDiff("running");
+        running.await(10, TimeUnit.SECONDS);
+        service.scheduleDiff("queued");
+        // One thread busy and a queue of one: this one is rejected and stays pending
+        service.scheduleDiff("rejected");
+        release.countDown();
+
+        verify(versions, timeout(10_000)).findById("queued");
+        verify(versions, timeout(10_000)).findById("rejected");
+    }
+}
@@ -0,0 +1,95 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnProperty;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every changed setting of a modified column produces DDL, or a line saying it has to be done by hand.
+ */
+class ModifyColumnDdlTest {
+    private static final ColumnModel BEFORE = ColumnModel.builder()
+            .name("user_id").dataType("integer").build();
+    private static final ColumnModel AFTER = ColumnModel.builder()
+            .name("user_id").dataType("integer").isPrimaryKey(true).isUnique(true).isAutoIncrement(true)
+            .defaultValue("0").reference(new ColumnModel.RefValue("users", "id", ">")).build();
+
+    @Test
+    void postgreSqlAddsConstraintsAndIdentity() {
+        assertThat(modify(new PostgreSqlDdlDialect(), BEFORE, AFTER)).contains(
+                "ALTER TABLE orders ALTER COLUMN user_id SET DEFAULT 0;",
+                "ALTER TABLE orders ALTER COLUMN user_id ADD GENERATED BY DEFAULT AS IDENTITY;",
+                "ALTER TABLE orders ADD PRIMARY KEY (user_id);",
+                "ALTER TABLE orders ADD UNIQUE (user_id);",
+                "ALTER TABLE orders ADD FOREIGN KEY (user_id) REFERENCES users(id);");
+    }
+
+    @Test
+    void postgreSqlLeavesNamedConstraintDropsToTheUser() {
+        assertThat(modify(new PostgreSqlDdlDialect(), AFTER, BEFORE)).contains(
+                "ALTER TABLE orders ALTER COLUMN user_id DROP DEFAULT;",
+                "ALTER TABLE orders ALTER COLUMN user_id DROP IDENTITY IF EXISTS;",
+                "-- manual change required: primaryKey of orders.user_id",
+                "-- manual change required: unique of orders.user_id",
+                "-- manual change required: reference of orders.user_id");
+    }
+
+    @Test
+    void sqlServerAddsDefaultAndConstraints() {
+        assertThat(modify(new SqlServerDdlDialect(), BEFORE, AFTER))
+                .contains("ALTER TABLE orders ADD DEFAULT 0 FOR user_id;",
+                        "-- manual change required: autoIncrement of orders.user_id",
+                        "ALTER TABLE orders ADD PRIMARY KEY (user_id);",
+                        "ALTER TABLE orders ADD UNIQUE (user_id);",
+                        "ALTER TABLE orders ADD FOREIGN KEY (user_id) REFERENCES users(id);")
+                .doesNotContain("ALTER COLUMN", "manual change required: defaultValue");
+    }
+
+    @Test
+    void storedDiffsUseTheTypeStrings() {
+        VersionComparisonDTO.ColumnDiff columnDiff = columnDiff(BEFORE, AFTER);
+        columnDiff.setOldValue(null);
+        columnDiff.setNewValue(null);
+        columnDiff.setBeforeType(BEFORE.toDbmlDefinition());
+        columnDiff.setCurrentType(AFTER.toDbmlDefinition());
+
+        assertThat(render(new SqlServerDdlDialect(), columnDiff)).contains(
+                "ALTER TABLE orders ADD DEFAULT 0 FOR user_id;",
+                "ALTER TABLE orders ADD PRIMARY KEY (user_id);",
+                "ALTER TABLE orders ADD FOREIGN KEY (user_id) REFERENCES users(id);");
+    }
+
+    private static String modify(AbstractDdlDialect dialect, ColumnModel before, ColumnModel after) {
+        return render(dialect, columnDiff(before, after));
+    }
+
+    private static String render(AbstractDdlDialect dialect, VersionComparisonDTO.ColumnDiff columnDiff) {
+        VersionComparisonDTO.TableDiff tableDiff = new VersionComparisonDTO.TableDiff();
+        tableDiff.setTableName("orders");
+        tableDiff.setDiffType(VersionComparisonDTO.DiffType.MODIFIED);
+        tableDiff.setColumnDiffs(List.of(columnDiff));
+        StringBuilder ddl = new StringBuilder();
+        dialect.alterTable(ddl, tableDiff);
+        return ddl.toString();
+    }
+
+    private static VersionComparisonDTO.ColumnDiff columnDiff(ColumnModel before, ColumnModel after) {
+        List<String> changed = new ArrayList<>();
+        for (ColumnProperty property : before.changedProperties(after)) {
+            changed.add(property.getPropertyName());
+        }
+        VersionComparisonDTO.ColumnDiff columnDiff = new VersionComparisonDTO.ColumnDiff();
+        columnDiff.setColumnName(after.getName());
+        columnDiff.setDiffType(VersionComparisonDTO.DiffType.MODIFIED);
+        columnDiff.setOldValue(before);
+        columnDiff.setNewValue(after);
+        columnDiff.setChangedProperties(changed);
+        return columnDiff;
+    }
+}
@@ -0,0 +1,55 @@
+package com.vissoft.vn.dbdocs.domain.service.impl.ddl;
+
+import com.vissoft.vn.dbdocs.application.dto.VersionComparisonDTO;
+import com.vissoft.vn.dbdocs.domain.model.dbml.ColumnModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DBML type names are written in the dialect's own type, with their parameters, whether the diff
+ * carries the column model or only its type string.
+ */
+class TypeMappingDdlTest {
+    private static final List<ColumnModel> COLUMNS = List.of(
+            ColumnModel.builder().name("name").dataType("varchar").typeParam("255").build(),
+            ColumnModel.builder().name("active").dataType("boolean").build(),
+            ColumnModel.builder().name("bio").dataType("text").build(),
+            ColumnModel.builder().name("id").dataType("integer").build());
+
+    @Test
+    void oracleTypes() {
+        assertThat(createTable(new OracleDdlDialect(), false))
+                .contains("name VARCHAR2(255)", "active NUMBER(1)", "bio CLOB", "id integer")
+                .isEqualTo(createTable(new OracleDdlDialect(), true));
+    }
+
+    @Test
+    void sqlServerTypes() {
+        assertThat(createTable(new SqlServerDdlDialect(), false))
+                .contains("name varchar(255)", "active BIT", "bio NVARCHAR(MAX)", "id integer")
+                .isEqualTo(createTable(new SqlServerDdlDialect(), true));
+    }
+
+    private static String createTable(AbstractDdlDialect dialect, boolean typeStrings) {
+        VersionComparisonDTO.TableDiff tableDiff = new VersionComparisonDTO.TableDiff();
+        tableDiff.setTableName("users");
+        tableDiff.setDiffType(VersionComparisonDTO.DiffType.ADDED);
+        tableDiff.setColumnDiffs(COLUMNS.stream().map(column -> {
+            VersionComparisonDTO.ColumnDiff columnDiff = new VersionComparisonDTO.ColumnDiff();
+            columnDiff.setColumnName(column.getName());
+            columnDiff.setDiffType(VersionComparisonDTO.DiffType.ADDED);
+            if (typeStrings) {
+                columnDiff.setCurrentType(column.toDbmlDefinition());
+            } else {
+                columnDiff.setNewValue(column);
+            }
+            return columnDiff;
+        }).toList());
+        StringBuilder ddl = new StringBuilder();
+        dialect.createTable(ddl, tableDiff);
+        return ddl.toString();
+    }
+}